@@ -0,0 +1,104 @@
+package de.entwicklertraining.gemini4j.opentelemetry;
+
+import de.entwicklertraining.gemini4j.GeminiSpan;
+import de.entwicklertraining.gemini4j.GeminiTracer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * {@link GeminiTracer} that emits OpenTelemetry spans:
+ * <pre>
+ * client.setTracer(GeminiOpenTelemetryTracer.create(openTelemetry));
+ * </pre>
+ * The {@code gemini.request} span becomes a child of the span that is current on the calling
+ * thread (e.g. the span of an incoming HTTP request), so the calls to Gemini show up in the
+ * trace of the work that caused them; {@code executeAsync()} carries the context of the calling
+ * thread over to the thread it runs on. Turn, tool and user spans are children of their
+ * {@link GeminiSpan} parent, independent of the thread they run on. While a tool callback runs,
+ * its {@code gemini.tool} span is current, so spans of instrumented libraries it calls become
+ * children of it.
+ * {@link GeminiSpan#recordException} records the exception event and sets the status to ERROR.
+ */
+public final class GeminiOpenTelemetryTracer implements GeminiTracer {
+
+    public static final String INSTRUMENTATION_SCOPE = "de.entwicklertraining.gemini4j";
+
+    private final Tracer tracer;
+
+    public GeminiOpenTelemetryTracer(Tracer tracer) {
+        this.tracer = Objects.requireNonNull(tracer, "tracer must not be null");
+    }
+
+    /**
+     * @return a tracer of {@code openTelemetry} under the {@link #INSTRUMENTATION_SCOPE}
+     */
+    public static GeminiOpenTelemetryTracer create(OpenTelemetry openTelemetry) {
+        return new GeminiOpenTelemetryTracer(openTelemetry.getTracer(INSTRUMENTATION_SCOPE));
+    }
+
+    @Override
+    public GeminiSpan startSpan(String name) {
+        return new OpenTelemetrySpan(tracer, tracer.spanBuilder(name).setParent(Context.current()).startSpan());
+    }
+
+    @Override
+    public Runnable captureContext(Runnable task) {
+        return Context.current().wrap(task);
+    }
+
+    private static final class OpenTelemetrySpan implements GeminiSpan {
+        private final Tracer tracer;
+        private final Span span;
+
+        OpenTelemetrySpan(Tracer tracer, Span span) {
+            this.tracer = tracer;
+            this.span = span;
+        }
+
+        @Override
+        public GeminiSpan startChild(String name) {
+            return new OpenTelemetrySpan(tracer, tracer.spanBuilder(name).setParent(Context.root().with(span)).startSpan());
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, String value) {
+            if (value != null) {
+                span.setAttribute(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, long value) {
+            span.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, String.valueOf(error.getMessage()));
+        }
+
+        @Override
+        public void end() {
+            span.end();
+        }
+
+        @Override
+        public <T> Supplier<T> wrap(Supplier<T> task) {
+            return () -> {
+                try (Scope ignored = span.makeCurrent()) {
+                    return task.get();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonSchema;
+import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import de.entwicklertraining.gemini4j.GeminiToolResult;
+import de.entwicklertraining.gemini4j.opentelemetry.GeminiOpenTelemetryTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the OpenTelemetry context across the threads of a chat completion.
+ */
+@DisplayName("OpenTelemetry Integration Tests")
+class GeminiOpenTelemetryIntegrationTest {
+
+    @RegisterExtension
+    static WireMockExtension wireMock = WireMockExtension.newInstance()
+            .options(wireMockConfig().dynamicPort())
+            .build();
+
+    private static final String GENERATE_URL = "/v1beta/models/.+:generateContent.*";
+
+    private InMemorySpanExporter exporter;
+    private SdkTracerProvider tracerProvider;
+    private Tracer application;
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        exporter = InMemorySpanExporter.create();
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        application = tracerProvider.get("application");
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey("test-api-key")
+                .build();
+        client = new GeminiClient(settings, wireMock.baseUrl());
+        client.setTracer(new GeminiOpenTelemetryTracer(tracerProvider.get(GeminiOpenTelemetryTracer.INSTRUMENTATION_SCOPE)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    private static String response(JSONObject... parts) {
+        return new JSONObject()
+                .put("candidates", new JSONArray().put(new JSONObject()
+                        .put("content", new JSONObject().put("role", "model").put("parts", new JSONArray(parts)))
+                        .put("finishReason", "STOP")))
+                .toString();
+    }
+
+    private SpanData finished(String name) {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should start the request span of an async call below the span of the caller")
+    void shouldJoinCallerTraceAsync() throws Exception {
+        // Given
+        wireMock.stubFor(post(urlMatching(GENERATE_URL))
+                .willReturn(okJson(response(new JSONObject().put("text", "Hi")))));
+        Span incoming = application.spanBuilder("GET /summary").startSpan();
+
+        // When
+        CompletableFuture<?> call;
+        try (Scope ignored = incoming.makeCurrent()) {
+            call = client.chat().completion().addMessage("user", "Hello").executeAsync();
+        }
+        call.get();
+        incoming.end();
+
+        // Then
+        SpanData request = finished("gemini.request");
+        assertThat(request.getParentSpanId()).isEqualTo(incoming.getSpanContext().getSpanId());
+        assertThat(request.getTraceId()).isEqualTo(incoming.getSpanContext().getTraceId());
+    }
+
+    @Test
+    @DisplayName("Should make the tool span current while a concurrent tool callback runs")
+    void shouldMakeToolSpanCurrent() {
+        // Given: two calls of a tool whose instrumented dependency creates spans on its own
+        JSONObject call = new JSONObject().put("functionCall", new JSONObject().put("name", "lookup").put("args", new JSONObject()));
+        wireMock.stubFor(post(urlMatching(GENERATE_URL)).inScenario("tools")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(okJson(response(call, call)))
+                .willSetStateTo("answered"));
+        wireMock.stubFor(post(urlMatching(GENERATE_URL)).inScenario("tools")
+                .whenScenarioStateIs("answered")
+                .willReturn(okJson(response(new JSONObject().put("text", "Done")))));
+        GeminiToolDefinition lookup = GeminiToolDefinition.builder("lookup")
+                .description("Looks something up")
+                .parameter("id", GeminiJsonSchema.integerSchema("Unused"), false)
+                .callback(context -> {
+                    application.spanBuilder("db.query").startSpan().end();
+                    return GeminiToolResult.of(new JSONObject().put("found", true));
+                })
+                .build();
+
+        // When
+        client.chat().completion()
+                .addMessage("user", "Look it up")
+                .addTool(lookup)
+                .toolConcurrency(2)
+                .execute();
+
+        // Then
+        List<String> toolSpanIds = exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getName().equals("gemini.tool"))
+                .map(SpanData::getSpanId)
+                .toList();
+        List<SpanData> queries = exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getName().equals("db.query"))
+                .toList();
+        assertThat(toolSpanIds).hasSize(2);
+        assertThat(queries).extracting(SpanData::getParentSpanId).containsExactlyInAnyOrderElementsOf(toolSpanIds);
+        assertThat(queries).extracting(SpanData::getTraceId).containsOnly(finished("gemini.request").getTraceId());
+    }
+}
@@ -0,0 +1,116 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.gemini4j.GeminiSpan;
+import de.entwicklertraining.gemini4j.opentelemetry.GeminiOpenTelemetryTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiOpenTelemetryTracer.
+ */
+@DisplayName("GeminiOpenTelemetryTracer Unit Tests")
+class GeminiOpenTelemetryTracerTest {
+
+    private InMemorySpanExporter exporter;
+    private SdkTracerProvider tracerProvider;
+    private GeminiOpenTelemetryTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = InMemorySpanExporter.create();
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        tracer = new GeminiOpenTelemetryTracer(tracerProvider.get(GeminiOpenTelemetryTracer.INSTRUMENTATION_SCOPE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tracerProvider.close();
+    }
+
+    private SpanData finished(String name) {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should export the span hierarchy with its attributes")
+    void shouldExportHierarchy() throws Exception {
+        // Given
+        GeminiSpan request = tracer.startSpan("gemini.request").setAttribute("gemini.model", "gemini-2.0-flash");
+
+        // When: the child ends on another thread
+        Thread worker = Thread.ofVirtual().start(() -> {
+            try (GeminiSpan tool = request.startChild("gemini.tool")) {
+                tool.setAttribute("gemini.turn", 1).setAttribute("ignored", (String) null);
+            }
+        });
+        worker.join();
+        request.end();
+
+        // Then
+        SpanData requestData = finished("gemini.request");
+        SpanData toolData = finished("gemini.tool");
+        assertThat(requestData.getParentSpanContext().isValid()).isFalse();
+        assertThat(requestData.getAttributes().get(AttributeKey.stringKey("gemini.model"))).isEqualTo("gemini-2.0-flash");
+        assertThat(toolData.getParentSpanId()).isEqualTo(requestData.getSpanId());
+        assertThat(toolData.getTraceId()).isEqualTo(requestData.getTraceId());
+        assertThat(toolData.getAttributes().get(AttributeKey.longKey("gemini.turn"))).isEqualTo(1L);
+        assertThat(toolData.getAttributes().get(AttributeKey.stringKey("ignored"))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should record exceptions as event and error status")
+    void shouldRecordException() {
+        // Given
+        GeminiSpan span = tracer.startSpan("gemini.turn");
+
+        // When
+        span.recordException(new IllegalStateException("quota exceeded"));
+        span.end();
+
+        // Then
+        SpanData data = finished("gemini.turn");
+        assertThat(data.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+        assertThat(data.getStatus().getDescription()).isEqualTo("quota exceeded");
+        assertThat(data.getEvents()).singleElement()
+                .satisfies(event -> assertThat(event.getName()).isEqualTo("exception"));
+    }
+
+    @Test
+    @DisplayName("Should start the request span below the span current on the calling thread")
+    void shouldJoinCurrentTrace() {
+        // Given
+        Tracer application = tracerProvider.get("application");
+        Span incoming = application.spanBuilder("GET /summary").startSpan();
+
+        // When
+        try (Scope ignored = incoming.makeCurrent()) {
+            tracer.startSpan("gemini.request").end();
+        }
+        incoming.end();
+
+        // Then
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertThat(spans).hasSize(2);
+        assertThat(finished("gemini.request").getParentSpanId()).isEqualTo(incoming.getSpanContext().getSpanId());
+    }
+}
@@ -1,8 +1,55 @@
 package de.entwicklertraining.gemini4j;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.entwicklertraining.api.base.ApiClient;
 import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.api.base.ApiRequest;
+import de.entwicklertraining.api.base.ApiRequestExecutionContext;
+import de.entwicklertraining.api.base.ApiResponse;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchRequest;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchResponse;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchResults;
+import de.entwicklertraining.gemini4j.caches.GeminiCachedContentRegistry;
+import de.entwicklertraining.gemini4j.caches.GeminiCachedContentRequest;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiCountTokensRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiHedgingPolicy;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiRequestCoalescer;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiResponseCache;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiTokenCountCache;
+import de.entwicklertraining.gemini4j.embeddings.GeminiEmbeddingRequest;
+import de.entwicklertraining.gemini4j.files.GeminiFile;
+import de.entwicklertraining.gemini4j.files.GeminiFileCache;
+import de.entwicklertraining.gemini4j.files.GeminiFileUpload;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 // Import exception classes
 import static de.entwicklertraining.api.base.ApiClient.HTTP_400_RequestRejectedException;
@@ -22,8 +69,61 @@ public final class GeminiClient extends ApiClient {
 
     private static final String DEFAULT_BASE_URL = "https://generativelanguage.googleapis.com";
 
+    /**
+     * Default executor for the async API and for the timeout wrapper of sendRequest.
+     * Each call gets its own virtual thread, so blocking on the HTTP response does not
+     * tie up a platform thread.
+     */
+    private static final ExecutorService VIRTUAL_THREAD_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final int BODY_SEGMENT_SIZE = 64 * 1024;
+
+    private static final long CANCEL_POLL_MILLIS = 100;
+
     private String apiKey;
 
+    private volatile Executor asyncExecutor = VIRTUAL_THREAD_EXECUTOR;
+
+    private volatile ObjectMapper objectMapper = new ObjectMapper(); // per client, so configuring it does not affect other clients
+    private final Map<Class<?>, ObjectReader> objectReaders = new ConcurrentHashMap<>();
+
+    private volatile GeminiTokenCountCache tokenCountCache = new GeminiTokenCountCache();
+
+    private volatile GeminiResponseCache responseCache; // opt-in, null = disabled
+
+    private volatile GeminiRateLimiter rateLimiter; // opt-in, null = disabled
+
+    private volatile GeminiConcurrencyLimiter concurrencyLimiter; // opt-in, null = disabled
+
+    private volatile GeminiHedgingPolicy hedgingPolicy; // opt-in, null = disabled
+
+    private volatile GeminiRequestCoalescer requestCoalescer; // opt-in, null = disabled
+
+    private volatile GeminiImagePreprocessor imagePreprocessor; // opt-in, null = disabled
+
+    private volatile GeminiMediaCache mediaCache; // opt-in, null = disabled
+
+    private volatile GeminiMetricsListener metricsListener = GeminiMetricsListener.NOOP;
+
+    private volatile GeminiTracer tracer = GeminiTracer.NOOP;
+
+    /**
+     * The model of the request whose retry loop runs on this thread, for {@link #applySleep}.
+     */
+    private final ThreadLocal<String> retryingModel = new ThreadLocal<>();
+
+    private volatile GeminiFileCache fileCache = new GeminiFileCache();
+
+    private final GeminiCachedContentRegistry cachedContentRegistry = new GeminiCachedContentRegistry(this);
+
+    /**
+     * Mirrors the status code registrations of api-base, so that requests which bypass
+     * {@link #sendRequest} (e.g. server-sent event streams) map errors to the same exceptions.
+     */
+    private final Map<Integer, StatusCodeMapping> statusCodeMappings = new HashMap<>();
+
+    private record StatusCodeMapping(Class<? extends RuntimeException> exceptionClass, String message) {}
+
     public GeminiClient() {
         this(ApiClientSettings.builder().build(), DEFAULT_BASE_URL);
     }
@@ -49,13 +149,277 @@ public final class GeminiClient extends ApiClient {
         }
 
         // Register Gemini-specific HTTP status code exceptions
-        registerStatusCodeException(400, HTTP_400_RequestRejectedException.class, "HTTP 400 (INVALID_ARGUMENT)", false);
-        registerStatusCodeException(403, HTTP_403_PermissionDeniedException.class, "HTTP 403 (PERMISSION_DENIED)", false);
-        registerStatusCodeException(404, HTTP_404_NotFoundException.class, "HTTP 404 (NOT_FOUND)", false);
-        registerStatusCodeException(429, HTTP_429_RateLimitOrQuotaException.class, "HTTP 429 (RESOURCE_EXHAUSTED)", true);
-        registerStatusCodeException(500, HTTP_500_ServerErrorException.class, "HTTP 500 (INTERNAL)", true);
-        registerStatusCodeException(503, HTTP_503_ServerUnavailableException.class, "HTTP 503 (UNAVAILABLE)", true);
-        registerStatusCodeException(504, HTTP_504_ServerTimeoutException.class, "HTTP 504 (DEADLINE_EXCEEDED)", false);
+        registerGeminiStatusCodeException(400, HTTP_400_RequestRejectedException.class, "HTTP 400 (INVALID_ARGUMENT)", false);
+        registerGeminiStatusCodeException(403, HTTP_403_PermissionDeniedException.class, "HTTP 403 (PERMISSION_DENIED)", false);
+        registerGeminiStatusCodeException(404, HTTP_404_NotFoundException.class, "HTTP 404 (NOT_FOUND)", false);
+        registerGeminiStatusCodeException(429, HTTP_429_RateLimitOrQuotaException.class, "HTTP 429 (RESOURCE_EXHAUSTED)", true);
+        registerGeminiStatusCodeException(500, HTTP_500_ServerErrorException.class, "HTTP 500 (INTERNAL)", true);
+        registerGeminiStatusCodeException(503, HTTP_503_ServerUnavailableException.class, "HTTP 503 (UNAVAILABLE)", true);
+        registerGeminiStatusCodeException(504, HTTP_504_ServerTimeoutException.class, "HTTP 504 (DEADLINE_EXCEEDED)", false);
+    }
+
+    private void registerGeminiStatusCodeException(int statusCode, Class<? extends RuntimeException> exceptionClass,
+                                                   String message, boolean retryable) {
+        registerStatusCodeException(statusCode, exceptionClass, message, retryable);
+        statusCodeMappings.put(statusCode, new StatusCodeMapping(exceptionClass, message));
+    }
+
+    /**
+     * Serializes the body once via {@link GeminiRequest#writeBody} into UTF-8 segments and
+     * publishes them with a known content length. Unlike api-base's {@code getBody()} String,
+     * the body is never held as UTF-16 text and never copied as a whole; each image is read and
+     * encoded once per attempt. The length is announced because HTTP/2 servers may reset
+     * streams whose body length is unknown. The serialization is reported to the
+     * {@link GeminiMetricsListener}.
+     */
+    private HttpRequest.BodyPublisher bodyPublisher(GeminiRequest<?> request) {
+        long start = System.nanoTime();
+        SegmentedOutputStream out = new SegmentedOutputStream();
+        try {
+            request.writeBody(out);
+        } catch (IOException e) {
+            throw new ApiClientException("Failed to serialize request body: " + e.getMessage(), e);
+        }
+        List<byte[]> segments = out.segments();
+        metricsListener.onSerialization(modelOf(request), System.nanoTime() - start, out.size);
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofByteArrays(segments), out.size);
+    }
+
+    /**
+     * Collects written bytes in segments of {@link #BODY_SEGMENT_SIZE}, so a large body is never
+     * copied into one array.
+     */
+    private static final class SegmentedOutputStream extends OutputStream {
+        private final List<byte[]> segments = new ArrayList<>();
+        private byte[] current = new byte[BODY_SEGMENT_SIZE];
+        private int position;
+        private long size;
+
+        @Override
+        public void write(int b) {
+            if (position == current.length) {
+                nextSegment();
+            }
+            current[position++] = (byte) b;
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                if (position == current.length) {
+                    nextSegment();
+                }
+                int n = Math.min(len, current.length - position);
+                System.arraycopy(b, off, current, position, n);
+                position += n;
+                off += n;
+                len -= n;
+                size += n;
+            }
+        }
+
+        private void nextSegment() {
+            segments.add(current);
+            current = new byte[BODY_SEGMENT_SIZE];
+            position = 0;
+        }
+
+        List<byte[]> segments() {
+            if (position > 0) {
+                segments.add(Arrays.copyOf(current, position));
+                current = new byte[0];
+                position = 0;
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Whether {@link #runRequest} sends the body through {@link #bodyPublisher}
+     * instead of api-base's {@code getBody()} String: every JSON POST of this library.
+     */
+    private static boolean streamsBody(ApiRequest<?> request) {
+        return request instanceof GeminiRequest<?>
+                && "POST".equalsIgnoreCase(request.getHttpMethod())
+                && !request.getContentType().startsWith("multipart/form-data");
+    }
+
+    /**
+     * One HTTP attempt like api-base's {@code runRequest}, but with {@link #bodyPublisher}.
+     * Same headers, status code mapping, execution timeout and exceptions. Cancellation
+     * ({@code isCanceledSupplier}) and the execution timeout cancel the exchange itself,
+     * so the connection is released instead of the response being read to the end.
+     */
+    private <T extends ApiRequest<U>, U extends ApiResponse<T>> U sendWithBodyPublisher(
+            T request, ApiRequestExecutionContext<T, U> context
+    ) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + request.getRelativeUrl()))
+                .header("Content-Type", request.getContentType())
+                .POST(bodyPublisher((GeminiRequest<?>) request));
+        settings.getBearerAuthenticationKey().ifPresent(key -> builder.header("Authorization", "Bearer " + key));
+        request.getAdditionalHeaders().forEach(builder::header);
+
+        if (Thread.currentThread().isInterrupted()) {
+            throw new ApiTimeoutException("Thread was interrupted before sending request");
+        }
+        if (Boolean.TRUE.equals(request.getIsCanceledSupplier().get())) {
+            throw new ApiTimeoutException("Request was canceled");
+        }
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        Thread cancelWatcher = Thread.ofVirtual().name("gemini4j-cancel-watcher").start(() -> {
+            try {
+                while (!exchange.isDone()) {
+                    if (Boolean.TRUE.equals(request.getIsCanceledSupplier().get())) {
+                        exchange.cancel(true);
+                        return;
+                    }
+                    Thread.sleep(CANCEL_POLL_MILLIS);
+                }
+            } catch (InterruptedException ignored) {
+                // the attempt is over
+            }
+        });
+        try {
+            int timeout = request.getMaxExecutionTimeInSeconds();
+            HttpResponse<byte[]> response = timeout > 0 ? exchange.get(timeout, TimeUnit.SECONDS) : exchange.get();
+            byte[] body = response.body();
+            if (response.statusCode() == 200) {
+                if (request.isBinaryResponse()) {
+                    context.setResponseBytes(body);
+                    return request.createResponse(body);
+                }
+                String text = new String(body, StandardCharsets.UTF_8);
+                context.setResponseBody(text);
+                return request.createResponse(text);
+            }
+            String errorBody = new String(body, StandardCharsets.UTF_8);
+            context.setResponseBody(errorBody);
+            throw createStatusCodeException(response.statusCode(), errorBody);
+        } catch (CancellationException e) {
+            throw new ApiTimeoutException("Request was canceled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClientException("Request interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new ApiClientException("Request failed: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new ApiTimeoutException(
+                    "Maximum execution timeout of " + request.getMaxExecutionTimeInSeconds() + " seconds has been reached!", e);
+        } finally {
+            exchange.cancel(true);
+            cancelWatcher.interrupt();
+        }
+    }
+
+    /**
+     * Sends the request to the given relative URL and hands back the response body as an
+     * unbuffered stream. This is used for {@code streamGenerateContent}, where the body must be
+     * consumed while the model is still generating. The caller is responsible for closing the stream.
+     * <p>
+     * Unlike {@link #sendRequest}, there is no retry and no overall execution timeout here;
+     * {@code maxExecutionTimeInSeconds} only limits the time until the response headers arrive.
+     */
+    public InputStream sendStreamingRequest(GeminiRequest<?> request, String relativeUrl) {
+        if (settings.getBeforeSendAction() != null) {
+            settings.getBeforeSendAction().accept(request);
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(getBaseUrl() + relativeUrl))
+                .header("Content-Type", request.getContentType())
+                .header("Accept", "text/event-stream")
+                .POST(bodyPublisher(request));
+        request.getAdditionalHeaders().forEach(builder::header);
+        if (request.getMaxExecutionTimeInSeconds() > 0) {
+            builder.timeout(Duration.ofSeconds(request.getMaxExecutionTimeInSeconds()));
+        }
+
+        HttpResponse<InputStream> response;
+        long start = System.nanoTime();
+        try {
+            response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            metricsListener.onHttpAttempt(modelOf(request), System.nanoTime() - start, false);
+            throw new ApiClientException("Request failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClientException("Request interrupted", e);
+        }
+        metricsListener.onHttpAttempt(modelOf(request), System.nanoTime() - start, response.statusCode() == 200);
+
+        if (response.statusCode() != 200) {
+            String errorBody;
+            try (InputStream in = response.body()) {
+                errorBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                errorBody = "";
+            }
+            throw createStatusCodeException(response.statusCode(), errorBody);
+        }
+        return response.body();
+    }
+
+    /**
+     * Sends a request that does not fit api-base (uploads of files, downloads of result files)
+     * with the shared HTTP client. Non-2xx responses are mapped to the registered exceptions,
+     * like in {@link #sendStreamingRequest}; there is no retry.
+     *
+     * @param request a request built on {@link #resolve(String)}
+     */
+    public <T> HttpResponse<T> sendHttpRequest(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) {
+        HttpResponse<T> response;
+        try {
+            response = httpClient.send(request, bodyHandler);
+        } catch (IOException e) {
+            throw new ApiClientException("Request failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClientException("Request interrupted", e);
+        }
+
+        if (response.statusCode() / 100 != 2) {
+            String errorBody = "";
+            if (response.body() instanceof String text) {
+                errorBody = text;
+            } else if (response.body() instanceof InputStream stream) {
+                try (InputStream in = stream) {
+                    errorBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                } catch (IOException ignored) {
+                    // keep the status code only
+                }
+            }
+            throw createStatusCodeException(response.statusCode(), errorBody);
+        }
+        return response;
+    }
+
+    /**
+     * @return the absolute URI of {@code relativeUrl} on the base URL of this client
+     */
+    public URI resolve(String relativeUrl) {
+        return URI.create(getBaseUrl() + relativeUrl);
+    }
+
+    /**
+     * Creates the exception registered for the given HTTP status code, in the same way
+     * api-base does for regular requests.
+     */
+    public RuntimeException createStatusCodeException(int statusCode, String responseBody) {
+        StatusCodeMapping mapping = statusCodeMappings.get(statusCode);
+        if (mapping == null) {
+            return new ApiClientException("Unexpected HTTP status " + statusCode + " - " + responseBody);
+        }
+        try {
+            return mapping.exceptionClass()
+                    .getConstructor(String.class)
+                    .newInstance(mapping.message() + ": " + responseBody);
+        } catch (ReflectiveOperationException e) {
+            return new ApiClientException(mapping.message() + ": " + responseBody, e);
+        }
     }
 
     public GeminiChat chat() {
@@ -72,10 +436,534 @@ public final class GeminiClient extends ApiClient {
         public GeminiChatCompletionRequest.Builder completion() {
             return GeminiChatCompletionRequest.builder(client);
         }
+
+        /**
+         * Counts the prompt tokens of {@code request} via countTokens; repeated counts of the
+         * same prompt are answered from {@link #getTokenCountCache()}.
+         */
+        public GeminiCountTokensRequest.Builder countTokens(GeminiChatCompletionRequest request) {
+            return GeminiCountTokensRequest.builder(client, request);
+        }
+    }
+
+    public GeminiEmbeddings embeddings() {
+        return new GeminiEmbeddings(this);
+    }
+
+    public static class GeminiEmbeddings {
+        private final GeminiClient client;
+
+        public GeminiEmbeddings(GeminiClient client) {
+            this.client = client;
+        }
+
+        /**
+         * embedContent for a single text, batchEmbedContents (split into chunks if needed) for several.
+         */
+        public GeminiEmbeddingRequest.Builder create() {
+            return GeminiEmbeddingRequest.builder(client);
+        }
+    }
+
+    public GeminiCaches caches() {
+        return new GeminiCaches(this);
+    }
+
+    /**
+     * The cachedContents endpoints (context caching) and the local registry of cached prefixes.
+     */
+    public static class GeminiCaches {
+        private final GeminiClient client;
+
+        public GeminiCaches(GeminiClient client) {
+            this.client = client;
+        }
+
+        public GeminiCachedContentRequest.Builder create() {
+            return GeminiCachedContentRequest.builder(client, GeminiCachedContentRequest.Operation.CREATE);
+        }
+
+        public GeminiCachedContentRequest.Builder get(String name) {
+            return GeminiCachedContentRequest.builder(client, GeminiCachedContentRequest.Operation.GET).name(name);
+        }
+
+        public GeminiCachedContentRequest.Builder update(String name) {
+            return GeminiCachedContentRequest.builder(client, GeminiCachedContentRequest.Operation.UPDATE).name(name);
+        }
+
+        public GeminiCachedContentRequest.Builder delete(String name) {
+            return GeminiCachedContentRequest.builder(client, GeminiCachedContentRequest.Operation.DELETE).name(name);
+        }
+
+        /**
+         * @return the registry of this client, shared by all callers
+         */
+        public GeminiCachedContentRegistry registry() {
+            return client.cachedContentRegistry;
+        }
+    }
+
+    public GeminiBatches batches() {
+        return new GeminiBatches(this);
+    }
+
+    /**
+     * The batch endpoints: asynchronous generateContent for large, non-interactive jobs
+     * at batch pricing and with separate limits.
+     */
+    public static class GeminiBatches {
+        private final GeminiClient client;
+
+        public GeminiBatches(GeminiClient client) {
+            this.client = client;
+        }
+
+        public GeminiBatchRequest.Builder create() {
+            return GeminiBatchRequest.builder(client, GeminiBatchRequest.Operation.CREATE);
+        }
+
+        public GeminiBatchRequest.Builder get(String name) {
+            return GeminiBatchRequest.builder(client, GeminiBatchRequest.Operation.GET).name(name);
+        }
+
+        public GeminiBatchRequest.Builder cancel(String name) {
+            return GeminiBatchRequest.builder(client, GeminiBatchRequest.Operation.CANCEL).name(name);
+        }
+
+        public GeminiBatchRequest.Builder delete(String name) {
+            return GeminiBatchRequest.builder(client, GeminiBatchRequest.Operation.DELETE).name(name);
+        }
+
+        /**
+         * Polls the job every {@code pollInterval} until it is done.
+         *
+         * @throws ApiTimeoutException if it is not done within {@code timeout}
+         */
+        public GeminiBatchResponse awaitCompletion(String name, Duration pollInterval, Duration timeout) {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                GeminiBatchResponse job = get(name).executeWithExponentialBackoff();
+                if (job.isDone()) {
+                    return job;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new ApiTimeoutException("Batch " + name + " not done after " + timeout + " (state " + job.state() + ")");
+                }
+                try {
+                    Thread.sleep(Duration.ofNanos(Math.min(pollInterval.toNanos(), remaining)));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiClientException("Interrupted while waiting for batch " + name, e);
+                }
+            }
+        }
+
+        /**
+         * Streams the results of a succeeded job; close the returned reader when done.
+         */
+        public GeminiBatchResults results(GeminiBatchResponse job) {
+            if (job.responsesFile() == null) {
+                throw new IllegalStateException("Batch " + job.name() + " has no responses file (state " + job.state() + ")");
+            }
+            String model = job.model() != null ? job.model() : "gemini-1.5-flash";
+            return GeminiBatchResults.open(client, job.responsesFile(), model);
+        }
+    }
+
+    public GeminiFiles files() {
+        return new GeminiFiles(this);
+    }
+
+    /**
+     * The Files API: uploads (chunked, resumable, deduplicated by content) for media that is
+     * too large to be sent inline, referenced from requests by its URI.
+     */
+    public static class GeminiFiles {
+        private final GeminiClient client;
+
+        public GeminiFiles(GeminiClient client) {
+            this.client = client;
+        }
+
+        public GeminiFileUpload.Builder upload(Path path) {
+            return GeminiFileUpload.builder(client, path);
+        }
+
+        public GeminiFile get(String name) {
+            HttpRequest request = HttpRequest.newBuilder(client.resolve(fileUrl(name))).GET().build();
+            return GeminiFile.fromJson(new JSONObject(client.sendHttpRequest(request, HttpResponse.BodyHandlers.ofString()).body()));
+        }
+
+        /**
+         * Deletes the file on the server and drops it from the {@link #cache()}.
+         */
+        public void delete(String name) {
+            HttpRequest request = HttpRequest.newBuilder(client.resolve(fileUrl(name))).DELETE().build();
+            client.sendHttpRequest(request, HttpResponse.BodyHandlers.discarding());
+            client.fileCache.invalidate(name);
+        }
+
+        public GeminiFileCache cache() {
+            return client.fileCache;
+        }
+
+        private String fileUrl(String name) {
+            String url = "/v1beta/" + name;
+            if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+                url += "?key=" + client.getApiKey();
+            }
+            return url;
+        }
     }
 
     public String getApiKey() {
         return apiKey;
     }
 
+    /**
+     * @return the executor used by {@code executeAsync()} if the builder does not specify one
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Replaces the default executor (one virtual thread per call) of the async API.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = Objects.requireNonNull(asyncExecutor, "asyncExecutor must not be null");
+    }
+
+    /**
+     * Optional warm-up hook, e.g. right after constructing the client: loads the shared
+     * tokenizer tables of {@link GeminiTokenService} on a virtual thread, so the first
+     * token count does not pay for it.
+     *
+     * @return completes once the tokenizer is loaded
+     */
+    public CompletableFuture<Void> warmUpTokenizer() {
+        return CompletableFuture.runAsync(GeminiTokenService::warmUp, VIRTUAL_THREAD_EXECUTOR);
+    }
+
+    /**
+     * @return the handles of uploaded files by content hash, used by {@link GeminiFileUpload}
+     */
+    public GeminiFileCache getFileCache() {
+        return fileCache;
+    }
+
+    /**
+     * Replaces the file handle cache, e.g. with a larger one.
+     */
+    public void setFileCache(GeminiFileCache fileCache) {
+        this.fileCache = Objects.requireNonNull(fileCache, "fileCache must not be null");
+    }
+
+    /**
+     * @return the memo of countTokens results, shared by all count requests of this client
+     */
+    public GeminiTokenCountCache getTokenCountCache() {
+        return tokenCountCache;
+    }
+
+    /**
+     * Replaces the countTokens memo, e.g. with a larger one.
+     */
+    public void setTokenCountCache(GeminiTokenCountCache tokenCountCache) {
+        this.tokenCountCache = Objects.requireNonNull(tokenCountCache, "tokenCountCache must not be null");
+    }
+
+    /**
+     * @return the cache for deterministic chat completions, or null if none is set
+     */
+    public GeminiResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Enables (or, with null, disables) the response cache: chat completions with temperature 0
+     * or a fixed seed are then answered from it when the same request was sent before.
+     */
+    public void setResponseCache(GeminiResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * @return the client-side RPM/TPM limiter, or null if none is set
+     */
+    public GeminiRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Enables (or, with null, disables) proactive rate limiting of chat completions:
+     * every model turn waits for its budget before it is sent.
+     */
+    public void setRateLimiter(GeminiRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @return the adaptive limit of requests in flight, or null if none is set
+     */
+    public GeminiConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    /**
+     * Enables (or, with null, disables) the adaptive in-flight limit for all requests of this
+     * client except event streams.
+     */
+    public void setConcurrencyLimiter(GeminiConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * @return the hedging policy of chat completions, or null if none is set
+     */
+    public GeminiHedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Enables (or, with null, disables) hedged generateContent calls: a slow call gets a
+     * duplicate, and the first answer wins.
+     */
+    public void setHedgingPolicy(GeminiHedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * @return the single-flight coalescer of chat completions, or null if none is set
+     */
+    public GeminiRequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Enables (or, with null, disables) single-flight: identical chat completions without tools
+     * that are in flight at the same time share one HTTP call.
+     */
+    public void setRequestCoalescer(GeminiRequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+    }
+
+    /**
+     * @return the stage that shrinks images before they are inlined, or null if none is set
+     */
+    public GeminiImagePreprocessor getImagePreprocessor() {
+        return imagePreprocessor;
+    }
+
+    /**
+     * Enables (or, with null, disables) downscaling and re-encoding of images added via
+     * {@code addImageByBase64} / {@code addImageByUrl} from now on.
+     */
+    public void setImagePreprocessor(GeminiImagePreprocessor imagePreprocessor) {
+        this.imagePreprocessor = imagePreprocessor;
+    }
+
+    /**
+     * @return the cache of Base64-encoded images, or null if none is set
+     */
+    public GeminiMediaCache getMediaCache() {
+        return mediaCache;
+    }
+
+    /**
+     * Enables (or, with null, disables) sharing the encoding of images that are added via
+     * {@code addImageByBase64} / {@code addImageByUrl} again and again.
+     */
+    public void setMediaCache(GeminiMediaCache mediaCache) {
+        this.mediaCache = mediaCache;
+    }
+
+    /**
+     * @return the receiver of timings and counts, {@link GeminiMetricsListener#NOOP} by default
+     */
+    public GeminiMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the receiver of timings and counts (serialization, HTTP attempts, parsing, backoff,
+     * turns, tool calls, tokens); null restores {@link GeminiMetricsListener#NOOP}.
+     */
+    public void setMetricsListener(GeminiMetricsListener metricsListener) {
+        this.metricsListener = metricsListener != null ? metricsListener : GeminiMetricsListener.NOOP;
+    }
+
+    /**
+     * @return the tracer of the chat completions, {@link GeminiTracer#NOOP} by default
+     */
+    public GeminiTracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Sets the tracer that gets a span per chat completion, model turn and tool invocation;
+     * null restores {@link GeminiTracer#NOOP}.
+     */
+    public void setTracer(GeminiTracer tracer) {
+        this.tracer = tracer != null ? tracer : GeminiTracer.NOOP;
+    }
+
+    /**
+     * @return the mapper used by {@code convertTo()} of the responses of this client. Each client
+     * has its own mapper; configure it before the client is used, readers already handed out by
+     * {@link #readerFor} keep the configuration they were created with.
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Replaces the mapper used by {@code convertTo()}, e.g. to register modules or to
+     * relax FAIL_ON_UNKNOWN_PROPERTIES. Should be called before the client is used;
+     * the cached readers of the previous mapper are dropped.
+     */
+    public void setObjectMapper(ObjectMapper objectMapper) {
+        this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper must not be null");
+        objectReaders.clear();
+    }
+
+    /**
+     * @return a cached {@link ObjectReader} of the configured mapper for the given type
+     */
+    public ObjectReader readerFor(Class<?> type) {
+        return objectReaders.computeIfAbsent(type, t -> objectMapper.readerFor(t));
+    }
+
+    /**
+     * Runs one HTTP attempt and reports it to the {@link GeminiMetricsListener}. With a
+     * {@link GeminiRateLimiter} set, the attempt first reserves its request and estimated tokens;
+     * the estimate is corrected by the reported usage, or refunded if the attempt fails. With a
+     * {@link GeminiConcurrencyLimiter} set, the attempt holds one of its slots and reports its
+     * latency, or 429/503/timeout as overload; a canceled attempt (e.g. the loser of a hedge) just
+     * frees its slot. An attempt that does not get a slot is not sent, so its whole reservation goes
+     * back and it is not reported. With a {@link GeminiHedgingPolicy} set, generateContent attempts
+     * that succeed report their latency to it.
+     */
+    @Override
+    protected <T extends ApiRequest<U>, U extends ApiResponse<T>> U runRequest(T request, ApiRequestExecutionContext<T, U> context) {
+        GeminiRateLimiter rateLimiter = this.rateLimiter;
+        GeminiConcurrencyLimiter limiter = concurrencyLimiter;
+        GeminiMetricsListener metrics = metricsListener;
+        GeminiHedgingPolicy hedging = (Object) request instanceof GeminiChatCompletionRequest ? hedgingPolicy : null;
+        GeminiRateLimiter.Permit permit = rateLimiter != null ? rateLimiter.acquireAttempt(request) : null;
+        GeminiConcurrencyLimiter.Slot slot = null;
+        long start = 0;
+        boolean sent = false;
+        boolean success = false;
+        try {
+            slot = limiter != null ? limiter.acquire(latencyKeyOf(request)) : null;
+            start = System.nanoTime();
+            sent = true;
+            U response = streamsBody(request) ? sendWithBodyPublisher(request, context) : super.runRequest(request, context);
+            success = true;
+            if (slot != null) {
+                slot.onSuccess();
+            }
+            if (permit != null && (Object) response instanceof GeminiChatCompletionResponse chat && chat.usageMetadata() != null) {
+                permit.reconcile(chat.usageMetadata().promptTokenCount());
+            }
+            return response;
+        } catch (HTTP_429_RateLimitOrQuotaException | HTTP_503_ServerUnavailableException | ApiTimeoutException e) {
+            if (slot != null && !Boolean.TRUE.equals(request.getIsCanceledSupplier().get())) {
+                slot.onOverload();
+            }
+            throw e;
+        } finally {
+            if (slot != null) {
+                slot.release();
+            }
+            if (permit != null && !sent) {
+                permit.cancel();
+            } else if (permit != null && !success) {
+                permit.reconcile(0); // the request counts against RPM, its tokens were not processed
+            }
+            if (sent) {
+                long nanos = System.nanoTime() - start;
+                metrics.onHttpAttempt(modelOf(request), nanos, success);
+                if (hedging != null && success) {
+                    hedging.recordLatency(modelOf(request), nanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers the model of the request for the backoff waits of its retry loop.
+     */
+    @Override
+    protected <U extends ApiResponse<?>> U executeWithRetry(Supplier<U> supplier, ApiRequest<?> request) {
+        String previous = retryingModel.get();
+        retryingModel.set(modelOf(request));
+        try {
+            return super.executeWithRetry(supplier, request);
+        } finally {
+            if (previous == null) {
+                retryingModel.remove();
+            } else {
+                retryingModel.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected void applySleep(long sleepMillis, long remainingMillis) {
+        metricsListener.onBackoff(retryingModel.get(), sleepMillis);
+        super.applySleep(sleepMillis, remainingMillis);
+    }
+
+    /**
+     * @return the key under which the concurrency limiter keeps the latency baseline of {@code request}:
+     *         the path for model endpoints ("/v1beta/models/{model}:{method}"), otherwise the request type
+     */
+    private static String latencyKeyOf(ApiRequest<?> request) {
+        String url = request.getRelativeUrl();
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        return path.contains("/models/") ? path : request.getClass().getSimpleName();
+    }
+
+    private static String modelOf(ApiRequest<?> request) {
+        if (request instanceof GeminiChatCompletionRequest chat) {
+            return chat.model();
+        }
+        if (request instanceof GeminiEmbeddingRequest embedding) {
+            return embedding.model();
+        }
+        return null;
+    }
+
+    /**
+     * Same contract as in api-base, but the supplier runs on a virtual thread instead of the
+     * common ForkJoinPool, which would otherwise be blocked for the whole HTTP round trip.
+     */
+    @Override
+    protected <U> U executeWithTimeout(Supplier<U> supplier, long timeoutMillis) {
+        CompletableFuture<U> future = CompletableFuture.supplyAsync(supplier, VIRTUAL_THREAD_EXECUTOR);
+        try {
+            if (timeoutMillis > 0) {
+                return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            return future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ApiTimeoutException("Request timed out during execution", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ApiClientException("Request interrupted", e);
+        } catch (ExecutionException e) {
+            future.cancel(true);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ApiClientException("Execution failed", e);
+        }
+    }
+
 }
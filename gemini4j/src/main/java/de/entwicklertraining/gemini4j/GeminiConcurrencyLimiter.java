@@ -0,0 +1,344 @@
+package de.entwicklertraining.gemini4j;
+
+import de.entwicklertraining.api.base.ApiClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive limit for the number of requests a {@link GeminiClient} has in flight (AIMD).
+ * Set it via {@link GeminiClient#setConcurrencyLimiter}.
+ *
+ * Every HTTP attempt (including each retry) takes a slot. While responses come back without
+ * overload signals, the limit grows by about one per window of {@code limit} successful calls,
+ * but only while the calls actually use at least half of it. On HTTP 429, HTTP 503, a timeout
+ * or a latency spike (a call taking {@code latencyTolerance} times the smoothed latency, and at
+ * least 10 ms more) the limit is multiplied by {@code backoffRatio}. The smoothed latency is kept
+ * per latency key (the client uses model and endpoint), so a slow endpoint is compared with its
+ * own baseline and not with the one of a fast endpoint sharing the limit. Calls that were started
+ * before the last decrease do not decrease it again, so one burst of 429s counts as one signal.
+ *
+ * Callers above the limit wait in a queue; if the queue holds {@code maxQueueSize} callers,
+ * further calls are rejected right away with an {@link ApiClient.ApiClientException}.
+ * A {@link ReentrantLock} is used instead of {@code synchronized}, so waiting virtual threads
+ * do not pin their carrier.
+ */
+public final class GeminiConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 10;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 200;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.5;
+    public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 1_000;
+
+    /**
+     * Weight of a new sample in the smoothed latency.
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    /**
+     * A spike must also exceed the smoothed latency by this much, so jitter of fast calls is no signal.
+     */
+    private static final long MIN_SPIKE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final String DEFAULT_LATENCY_KEY = "";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final int maxQueueSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private final Map<String, Double> smoothedLatencyNanos = new HashMap<>(); // per latency key, absent = no sample yet
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong overloadSignals = new AtomicLong();
+
+    private GeminiConcurrencyLimiter(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * An acquired slot. Exactly one of {@link #onSuccess()}, {@link #onOverload()} or
+     * {@link #release()} has an effect; later calls are ignored.
+     */
+    public final class Slot {
+        private final String latencyKey;
+        private final long startNanos = System.nanoTime();
+        private boolean done;
+
+        private Slot(String latencyKey) {
+            this.latencyKey = latencyKey;
+        }
+
+        /**
+         * The call succeeded: feeds its latency into the limit.
+         */
+        public void onSuccess() {
+            finish(Outcome.SUCCESS);
+        }
+
+        /**
+         * The server signalled overload (429/503) or the call timed out: decreases the limit.
+         */
+        public void onOverload() {
+            finish(Outcome.OVERLOAD);
+        }
+
+        /**
+         * Frees the slot without a signal, e.g. when the call failed for an unrelated reason.
+         */
+        public void release() {
+            finish(Outcome.IGNORE);
+        }
+
+        private void finish(Outcome outcome) {
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                if (done) {
+                    return;
+                }
+                done = true;
+                inFlight--;
+                switch (outcome) {
+                    case SUCCESS -> recordSuccess(latencyKey, startNanos, now - startNanos);
+                    case OVERLOAD -> recordOverload(startNanos);
+                    case IGNORE -> {
+                    }
+                }
+                slotFreed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private enum Outcome { SUCCESS, OVERLOAD, IGNORE }
+
+    /**
+     * Waits for a free slot whose latency is compared with the default baseline.
+     *
+     * @throws ApiClient.ApiClientException if the queue is full or the thread is interrupted while waiting
+     */
+    public Slot acquire() {
+        return acquire(DEFAULT_LATENCY_KEY);
+    }
+
+    /**
+     * Waits for a free slot. All slots share the limit; the latency of the call is compared with
+     * the smoothed latency of earlier calls with the same {@code latencyKey}.
+     *
+     * @throws ApiClient.ApiClientException if the queue is full or the thread is interrupted while waiting
+     */
+    public Slot acquire(String latencyKey) {
+        Objects.requireNonNull(latencyKey, "latencyKey must not be null");
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                if (queued >= maxQueueSize) {
+                    rejected.incrementAndGet();
+                    throw new ApiClient.ApiClientException(
+                            "Concurrency limit reached: " + inFlight + " in flight, " + queued + " queued");
+                }
+                queued++;
+                try {
+                    while (inFlight >= (int) limit) {
+                        slotFreed.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ApiClient.ApiClientException("Interrupted while waiting for a free request slot", e);
+                } finally {
+                    queued--;
+                }
+            }
+            inFlight++;
+            return new Slot(latencyKey);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // called with the lock held
+    private void recordSuccess(String latencyKey, long startNanos, long latencyNanos) {
+        Double smoothed = smoothedLatencyNanos.get(latencyKey);
+        if (smoothed != null
+                && latencyNanos > smoothed * latencyTolerance
+                && latencyNanos - smoothed > MIN_SPIKE_NANOS) {
+            recordOverload(startNanos);
+            // a spike is not folded into the baseline, otherwise a slow period would hide itself
+            return;
+        }
+        smoothedLatencyNanos.put(latencyKey, smoothed == null
+                ? latencyNanos
+                : smoothed + LATENCY_SMOOTHING * (latencyNanos - smoothed));
+        // only grow while the limit is actually used (inFlight excludes this call already)
+        if ((inFlight + 1) * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    // called with the lock held
+    private void recordOverload(long startNanos) {
+        overloadSignals.incrementAndGet();
+        if (startNanos <= lastDecreaseNanos) {
+            return;
+        }
+        lastDecreaseNanos = System.nanoTime();
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    /**
+     * @return the current limit of calls in flight
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of callers waiting for a slot
+     */
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of calls rejected because the queue was full
+     */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of 429/503/timeout/latency-spike signals seen, including those that did not decrease the limit
+     */
+    public long overloadCount() {
+        return overloadSignals.get();
+    }
+
+    /**
+     * @return the smoothed latency of successful calls acquired without a latency key in milliseconds, 0 before the first one
+     */
+    public double smoothedLatencyMillis() {
+        return smoothedLatencyMillis(DEFAULT_LATENCY_KEY);
+    }
+
+    /**
+     * @return the smoothed latency of successful calls with {@code latencyKey} in milliseconds, 0 before the first one
+     */
+    public double smoothedLatencyMillis(String latencyKey) {
+        lock.lock();
+        try {
+            return smoothedLatencyNanos.getOrDefault(latencyKey, 0.0) / TimeUnit.MILLISECONDS.toNanos(1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public static final class Builder {
+        private int initialLimit = DEFAULT_INITIAL_LIMIT;
+        private int minLimit = DEFAULT_MIN_LIMIT;
+        private int maxLimit = DEFAULT_MAX_LIMIT;
+        private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+        private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+        private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+
+        private Builder() {
+        }
+
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Bounds of the limit; it never drops below {@code minLimit} or grows above {@code maxLimit}.
+         */
+        public Builder limitBounds(int minLimit, int maxLimit) {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("Expected 1 <= minLimit <= maxLimit");
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Factor applied to the limit on an overload signal, between 0 and 1 (exclusive).
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * A call slower than {@code latencyTolerance} times the smoothed latency counts as overload.
+         */
+        public Builder latencyTolerance(double latencyTolerance) {
+            if (latencyTolerance <= 1) {
+                throw new IllegalArgumentException("latencyTolerance must be greater than 1");
+            }
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        /**
+         * Maximum number of waiting callers; 0 rejects every call above the limit immediately.
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize < 0) {
+                throw new IllegalArgumentException("maxQueueSize must not be negative");
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        public GeminiConcurrencyLimiter build() {
+            return new GeminiConcurrencyLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package de.entwicklertraining.gemini4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Optional stage that shrinks images before they are Base64-encoded into a request,
+ * see {@link GeminiClient#setImagePreprocessor}. Gemini scales large images down anyway,
+ * so a 12-megapixel photo mostly costs upload bandwidth, serialization CPU and heap.
+ *
+ * Images whose longer side exceeds {@code maxDimension} are scaled down (aspect ratio kept),
+ * JPEGs are re-encoded with {@code jpegQuality}. The format stays the same, so the MIME type
+ * of the part does not change. The result is only used if it is smaller than the original;
+ * formats ImageIO cannot read (WebP, HEIC/HEIF) and undecodable data pass through unchanged.
+ *
+ * The re-encoded image carries no metadata, so what the metadata says is applied to the pixels:
+ * the EXIF orientation of a JPEG is applied before scaling, and ImageIO converts the pixels of an
+ * image with an embedded ICC profile to sRGB while decoding. Other EXIF data (camera, GPS) is dropped.
+ *
+ * Every processed image is reported to the {@code listener} with its bytes saved.
+ * Thread-safe; images are processed on the thread that loads them (for URL images the download thread).
+ * A decoded 12-megapixel photo takes about 48 MB of heap, so at most {@code maxConcurrentDecodes}
+ * images are decoded at a time; the other threads wait.
+ */
+public final class GeminiImagePreprocessor {
+
+    /**
+     * Larger images are scaled to fit 3072x3072 by the API.
+     */
+    public static final int DEFAULT_MAX_DIMENSION = 3072;
+    public static final float DEFAULT_JPEG_QUALITY = 0.85f;
+    public static final int DEFAULT_MAX_CONCURRENT_DECODES = Runtime.getRuntime().availableProcessors();
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    private final int maxDimension;
+    private final float jpegQuality;
+    private final Consumer<Report> listener;
+    private final Semaphore decodePermits;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    private GeminiImagePreprocessor(Builder builder) {
+        this.maxDimension = builder.maxDimension;
+        this.jpegQuality = builder.jpegQuality;
+        this.listener = builder.listener;
+        this.decodePermits = new Semaphore(builder.maxConcurrentDecodes);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * What the stage did to one image.
+     *
+     * @param source         the file or URL of the image
+     * @param originalBytes  size before
+     * @param processedBytes size after; equal to {@code originalBytes} if the image was passed through
+     * @param originalWidth  width before, -1 if the image could not be decoded
+     * @param originalHeight height before, -1 if the image could not be decoded
+     * @param width          width after, -1 if the image could not be decoded
+     * @param height         height after, -1 if the image could not be decoded
+     */
+    public record Report(String source, long originalBytes, long processedBytes,
+                         int originalWidth, int originalHeight, int width, int height) {
+
+        public long bytesSaved() {
+            return originalBytes - processedBytes;
+        }
+    }
+
+    /**
+     * Shrinks {@code data} if that pays off.
+     *
+     * @param mimeType the MIME type of the part, e.g. "image/jpeg"
+     * @param source   a description for the report, e.g. the path or URL
+     * @return the smaller encoding, or {@code data} itself
+     */
+    public byte[] process(byte[] data, String mimeType, String source) {
+        byte[] result = data;
+        int originalWidth = -1;
+        int originalHeight = -1;
+        int width = -1;
+        int height = -1;
+
+        String format = formatOf(mimeType);
+        if (format != null && acquireDecodePermit()) {
+            try {
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+                if (image != null) {
+                    if (format.equals("jpeg")) {
+                        image = orient(image, exifOrientation(data));
+                    }
+                    originalWidth = width = image.getWidth();
+                    originalHeight = height = image.getHeight();
+                    boolean resize = Math.max(width, height) > maxDimension;
+                    if (resize) {
+                        double scale = (double) maxDimension / Math.max(width, height);
+                        width = Math.max(1, (int) Math.round(width * scale));
+                        height = Math.max(1, (int) Math.round(height * scale));
+                        image = scale(image, width, height);
+                    }
+                    // a PNG of the same size would only be re-compressed, which rarely helps
+                    if (resize || format.equals("jpeg")) {
+                        byte[] encoded = encode(image, format);
+                        if (encoded != null && encoded.length < data.length) {
+                            result = encoded;
+                        } else {
+                            width = originalWidth;
+                            height = originalHeight;
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException ignored) {
+                // undecodable or unusual images (e.g. CMYK JPEGs) are sent unchanged
+            } finally {
+                decodePermits.release();
+            }
+        }
+
+        processed.incrementAndGet();
+        bytesSaved.addAndGet(data.length - result.length);
+        if (listener != null) {
+            listener.accept(new Report(source, data.length, result.length, originalWidth, originalHeight, width, height));
+        }
+        return result;
+    }
+
+    /**
+     * @return false if the thread was interrupted while waiting; the image is then sent unchanged
+     */
+    private boolean acquireDecodePermit() {
+        try {
+            decodePermits.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static String formatOf(String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        return switch (mimeType) {
+            case "image/jpeg" -> "jpeg";
+            case "image/png" -> "png";
+            default -> null;
+        };
+    }
+
+    /**
+     * Scales with bilinear interpolation, halving first while the image is more than twice
+     * the target size, which keeps the quality close to area averaging at a fraction of its cost.
+     */
+    private static BufferedImage scale(BufferedImage image, int targetWidth, int targetHeight) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(targetWidth, w / 2);
+            h = Math.max(targetHeight, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != targetWidth || h != targetHeight);
+        return current;
+    }
+
+    /**
+     * Reads the orientation tag from the EXIF segment (APP1) of a JPEG.
+     *
+     * @return the orientation from 1 (as stored) to 8, 1 if there is none
+     */
+    private static int exifOrientation(byte[] jpeg) {
+        if (jpeg.length < 4 || (jpeg[0] & 0xFF) != 0xFF || (jpeg[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+            int marker = jpeg[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // image data follows, no more metadata
+            }
+            int length = readUnsigned(jpeg, pos + 2, 2, true);
+            if (length < 2) {
+                break;
+            }
+            int segment = pos + 4;
+            int end = Math.min(jpeg.length, pos + 2 + length);
+            if (marker == 0xE1 && end - segment > 6
+                    && new String(jpeg, segment, 6, StandardCharsets.ISO_8859_1).equals("Exif\0\0")) {
+                return tiffOrientation(jpeg, segment + 6, end);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    /**
+     * Looks the orientation up in the first IFD of the TIFF structure starting at {@code tiff}.
+     */
+    private static int tiffOrientation(byte[] data, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean bigEndian;
+        if (data[tiff] == 'M' && data[tiff + 1] == 'M') {
+            bigEndian = true;
+        } else if (data[tiff] == 'I' && data[tiff + 1] == 'I') {
+            bigEndian = false;
+        } else {
+            return 1;
+        }
+        long ifd = tiff + (readUnsigned(data, tiff + 4, 4, bigEndian) & 0xFFFFFFFFL);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int entries = readUnsigned(data, (int) ifd, 2, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (readUnsigned(data, entry, 2, bigEndian) == EXIF_ORIENTATION_TAG) {
+                int orientation = readUnsigned(data, entry + 8, 2, bigEndian); // SHORT, left-aligned in the value field
+                return orientation >= 1 && orientation <= 8 ? orientation : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int readUnsigned(byte[] data, int offset, int bytes, boolean bigEndian) {
+        int value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = data[offset + (bigEndian ? i : bytes - 1 - i)] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /**
+     * Turns the stored pixels into the upright image the EXIF orientation describes.
+     */
+    private static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // maps stored to displayed coordinates (arguments: m00, m10, m01, m11, m02, m12)
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);  // mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // rotated by 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);  // flipped
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);   // transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);  // rotated by 90° clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // transversed
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);  // rotated by 90° counter-clockwise
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swap = orientation >= 5;
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage oriented = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        Graphics2D g = oriented.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return oriented;
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            return null;
+        }
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (format.equals("jpeg")) {
+            // JPEG has no alpha channel
+            if (image.getColorModel().hasAlpha() || image.getType() == BufferedImage.TYPE_CUSTOM) {
+                BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = rgb.createGraphics();
+                try {
+                    g.drawImage(image, 0, 0, null);
+                } finally {
+                    g.dispose();
+                }
+                image = rgb;
+            }
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the settings that change the output, to tell cached results of different stages apart
+     */
+    String settingsKey() {
+        return "max" + maxDimension + "-q" + jpegQuality;
+    }
+
+    /**
+     * @return the number of images that went through this stage
+     */
+    public long processedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return the bytes saved over all processed images
+     */
+    public long bytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public static final class Builder {
+        private int maxDimension = DEFAULT_MAX_DIMENSION;
+        private float jpegQuality = DEFAULT_JPEG_QUALITY;
+        private Consumer<Report> listener;
+        private int maxConcurrentDecodes = DEFAULT_MAX_CONCURRENT_DECODES;
+
+        private Builder() {
+        }
+
+        /**
+         * Upper bound of the longer side in pixels. Default: 3072.
+         */
+        public Builder maxDimension(int maxDimension) {
+            if (maxDimension < 1) {
+                throw new IllegalArgumentException("maxDimension must be at least 1");
+            }
+            this.maxDimension = maxDimension;
+            return this;
+        }
+
+        /**
+         * JPEG quality between 0 and 1. Default: 0.85.
+         */
+        public Builder jpegQuality(float jpegQuality) {
+            if (jpegQuality <= 0 || jpegQuality > 1) {
+                throw new IllegalArgumentException("jpegQuality must be in (0, 1]");
+            }
+            this.jpegQuality = jpegQuality;
+            return this;
+        }
+
+        /**
+         * How many images may be decoded at the same time. Default: the number of processors.
+         */
+        public Builder maxConcurrentDecodes(int maxConcurrentDecodes) {
+            if (maxConcurrentDecodes < 1) {
+                throw new IllegalArgumentException("maxConcurrentDecodes must be at least 1");
+            }
+            this.maxConcurrentDecodes = maxConcurrentDecodes;
+            return this;
+        }
+
+        /**
+         * Receives a {@link Report} per image, e.g. to log or meter the bytes saved.
+         * Called on the processing thread; must not block.
+         */
+        public Builder listener(Consumer<Report> listener) {
+            this.listener = Objects.requireNonNull(listener, "listener must not be null");
+            return this;
+        }
+
+        public GeminiImagePreprocessor build() {
+            return new GeminiImagePreprocessor(this);
+        }
+    }
+}
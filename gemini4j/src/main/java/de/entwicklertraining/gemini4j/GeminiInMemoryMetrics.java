@@ -0,0 +1,239 @@
+package de.entwicklertraining.gemini4j;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * {@link GeminiMetricsListener} that keeps a {@link Histogram} per metric and model (or tool),
+ * e.g. for tests or a quick look at where an agent loop spends its time:
+ * <pre>
+ * GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+ * client.setMetricsListener(metrics);
+ * ...
+ * metrics.histogram(Metric.TOOL_NANOS, "searchCatalog").percentile(0.99);
+ * </pre>
+ * Recording is lock-free and, once a histogram exists, allocation-free. Thread-safe.
+ */
+public final class GeminiInMemoryMetrics implements GeminiMetricsListener {
+
+    public enum Metric {
+        SERIALIZATION_NANOS,
+        REQUEST_BODY_BYTES,
+        HTTP_ATTEMPT_NANOS,
+        PARSE_NANOS,
+        BACKOFF_MILLIS,
+        TURN_NANOS,
+        /**
+         * Keyed by tool name instead of model.
+         */
+        TOOL_NANOS,
+        PROMPT_TOKENS,
+        CANDIDATES_TOKENS,
+        TOTAL_TOKENS,
+        REQUEST_NANOS,
+        TURNS_PER_REQUEST
+    }
+
+    private static final String NO_KEY = "";
+
+    private final Map<Metric, ConcurrentHashMap<String, Histogram>> histograms = new EnumMap<>(Metric.class);
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong failedToolCalls = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    public GeminiInMemoryMetrics() {
+        for (Metric metric : Metric.values()) {
+            histograms.put(metric, new ConcurrentHashMap<>());
+        }
+    }
+
+    private void record(Metric metric, String key, long value) {
+        histograms.get(metric).computeIfAbsent(key != null ? key : NO_KEY, k -> new Histogram()).record(value);
+    }
+
+    @Override
+    public void onSerialization(String model, long nanos, long bytes) {
+        record(Metric.SERIALIZATION_NANOS, model, nanos);
+        record(Metric.REQUEST_BODY_BYTES, model, bytes);
+    }
+
+    @Override
+    public void onHttpAttempt(String model, long nanos, boolean success) {
+        record(Metric.HTTP_ATTEMPT_NANOS, model, nanos);
+        if (!success) {
+            failedAttempts.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onParse(String model, long nanos, long bytes) {
+        record(Metric.PARSE_NANOS, model, nanos);
+    }
+
+    @Override
+    public void onBackoff(String model, long millis) {
+        record(Metric.BACKOFF_MILLIS, model, millis);
+    }
+
+    @Override
+    public void onTurn(String model, int turn, long nanos) {
+        record(Metric.TURN_NANOS, model, nanos);
+    }
+
+    @Override
+    public void onToolCall(String tool, long nanos, boolean success) {
+        record(Metric.TOOL_NANOS, tool, nanos);
+        if (!success) {
+            failedToolCalls.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onTokens(String model, int promptTokens, int candidatesTokens, int totalTokens) {
+        record(Metric.PROMPT_TOKENS, model, promptTokens);
+        record(Metric.CANDIDATES_TOKENS, model, candidatesTokens);
+        record(Metric.TOTAL_TOKENS, model, totalTokens);
+    }
+
+    @Override
+    public void onRequest(String model, int turns, long nanos, boolean success) {
+        record(Metric.REQUEST_NANOS, model, nanos);
+        record(Metric.TURNS_PER_REQUEST, model, turns);
+        if (!success) {
+            failedRequests.incrementAndGet();
+        }
+    }
+
+    /**
+     * @param key the model, or the tool name for {@link Metric#TOOL_NANOS}; null for requests without a model
+     * @return the histogram, empty if nothing was recorded under this key
+     */
+    public Histogram histogram(Metric metric, String key) {
+        Histogram histogram = histograms.get(metric).get(key != null ? key : NO_KEY);
+        return histogram != null ? histogram : new Histogram();
+    }
+
+    /**
+     * @return the models (or tool names) something was recorded for
+     */
+    public Set<String> keys(Metric metric) {
+        return Set.copyOf(histograms.get(metric).keySet());
+    }
+
+    /**
+     * @return the backoff waits, i.e. the number of retries
+     */
+    public long retryCount() {
+        long retries = 0;
+        for (Histogram histogram : histograms.get(Metric.BACKOFF_MILLIS).values()) {
+            retries += histogram.count();
+        }
+        return retries;
+    }
+
+    public long failedAttemptCount() {
+        return failedAttempts.get();
+    }
+
+    public long failedToolCallCount() {
+        return failedToolCalls.get();
+    }
+
+    public long failedRequestCount() {
+        return failedRequests.get();
+    }
+
+    public void reset() {
+        histograms.values().forEach(Map::clear);
+        failedAttempts.set(0);
+        failedToolCalls.set(0);
+        failedRequests.set(0);
+    }
+
+    /**
+     * Log-linear histogram of non-negative values: 8 buckets per power of two, so a percentile
+     * is off by at most 12.5%. Values below 8 are counted exactly.
+     */
+    public static final class Histogram {
+
+        private static final int SUB_BUCKETS = 8;
+        private static final int SUB_BITS = 3;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            long v = Math.max(0, value);
+            counts.incrementAndGet(indexOf(v));
+            count.incrementAndGet();
+            sum.addAndGet(v);
+            max.accumulate(v);
+        }
+
+        private static int indexOf(long v) {
+            if (v < SUB_BUCKETS) {
+                return (int) v;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(v);
+            int sub = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBoundOf(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+            long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BITS);
+            return lower + (1L << (exponent - SUB_BITS)) - 1;
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        public long sum() {
+            return sum.get();
+        }
+
+        public long max() {
+            return max.get();
+        }
+
+        public double mean() {
+            long n = count.get();
+            return n == 0 ? 0 : (double) sum.get() / n;
+        }
+
+        /**
+         * @param p e.g. 0.99
+         * @return the upper bound of the bucket holding the percentile (at most {@link #max()}), 0 if empty
+         */
+        public long percentile(double p) {
+            if (p < 0 || p > 1) {
+                throw new IllegalArgumentException("p must be between 0 and 1");
+            }
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(p * n));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max.get());
+                }
+            }
+            return max.get();
+        }
+    }
+}
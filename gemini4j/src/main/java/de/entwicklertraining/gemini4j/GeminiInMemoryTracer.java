@@ -0,0 +1,136 @@
+package de.entwicklertraining.gemini4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GeminiTracer} that keeps every ended span in memory, e.g. for tests or to find the
+ * turn or tool call that took longest:
+ * <pre>
+ * GeminiInMemoryTracer tracer = new GeminiInMemoryTracer();
+ * client.setTracer(tracer);
+ * ...
+ * tracer.finishedSpans("gemini.tool").stream().max(Comparator.comparingLong(SpanData::durationNanos));
+ * </pre>
+ * Spans are never dropped, so this is not meant for long-running production use. Thread-safe.
+ */
+public final class GeminiInMemoryTracer implements GeminiTracer {
+
+    /**
+     * An ended span.
+     *
+     * @param traceId      the spanId of the root span
+     * @param parentSpanId 0 for a root span
+     * @param error        the recorded exception, or null
+     */
+    public record SpanData(
+            String name,
+            long traceId,
+            long spanId,
+            long parentSpanId,
+            long startNanos,
+            long durationNanos,
+            Map<String, Object> attributes,
+            Throwable error
+    ) {
+        public Object attribute(String key) {
+            return attributes.get(key);
+        }
+    }
+
+    private final AtomicLong ids = new AtomicLong();
+    private final ConcurrentLinkedQueue<SpanData> finished = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public GeminiSpan startSpan(String name) {
+        long id = ids.incrementAndGet();
+        return new Span(name, id, id, 0);
+    }
+
+    /**
+     * @return the ended spans in the order they ended
+     */
+    public List<SpanData> finishedSpans() {
+        return List.copyOf(finished);
+    }
+
+    public List<SpanData> finishedSpans(String name) {
+        return finished.stream().filter(span -> span.name().equals(name)).toList();
+    }
+
+    /**
+     * @return the ended spans whose parent is the given span
+     */
+    public List<SpanData> childrenOf(SpanData parent) {
+        return finished.stream().filter(span -> span.parentSpanId() == parent.spanId()).toList();
+    }
+
+    public void reset() {
+        finished.clear();
+    }
+
+    private final class Span implements GeminiSpan {
+
+        private final String name;
+        private final long traceId;
+        private final long spanId;
+        private final long parentSpanId;
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private volatile Throwable error;
+
+        Span(String name, long traceId, long spanId, long parentSpanId) {
+            this.name = name;
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+        }
+
+        @Override
+        public GeminiSpan startChild(String childName) {
+            return new Span(childName, traceId, ids.incrementAndGet(), spanId);
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, String value) {
+            if (value != null) {
+                synchronized (attributes) {
+                    attributes.put(key, value);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, long value) {
+            synchronized (attributes) {
+                attributes.put(key, value);
+            }
+            return this;
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void end() {
+            if (!ended.compareAndSet(false, true)) {
+                return;
+            }
+            Map<String, Object> snapshot;
+            synchronized (attributes) {
+                snapshot = Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+            }
+            finished.add(new SpanData(name, traceId, spanId, parentSpanId, startNanos,
+                    System.nanoTime() - startNanos, snapshot, error));
+        }
+    }
+}
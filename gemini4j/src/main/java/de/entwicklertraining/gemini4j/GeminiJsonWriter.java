@@ -0,0 +1,103 @@
+package de.entwicklertraining.gemini4j;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Writes request bodies with Jackson's streaming {@link JsonGenerator} instead of
+ * building an org.json tree and calling {@code toString()} on it.
+ *
+ * Messages, tool results etc. are still handed to us as org.json objects by the
+ * public API, so this class also knows how to stream those values.
+ */
+public final class GeminiJsonWriter {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private GeminiJsonWriter() {
+    }
+
+    /**
+     * Creates a UTF-8 generator on the given stream. Closing the generator flushes it,
+     * but does not close the stream.
+     */
+    public static JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator gen = JSON_FACTORY.createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return gen;
+    }
+
+    /**
+     * Writes an org.json value (JSONObject, JSONArray, String, Number, Boolean, JSONObject.NULL, ...)
+     * the same way {@code JSONObject.toString()} would.
+     */
+    public static void writeValue(JsonGenerator gen, Object value) throws IOException {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            gen.writeNull();
+        } else if (value instanceof String s) {
+            gen.writeString(s);
+        } else if (value instanceof JSONObject obj) {
+            writeObject(gen, obj);
+        } else if (value instanceof JSONArray arr) {
+            gen.writeStartArray();
+            for (int i = 0; i < arr.length(); i++) {
+                writeValue(gen, arr.opt(i));
+            }
+            gen.writeEndArray();
+        } else if (value instanceof Boolean b) {
+            gen.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            gen.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Double d) {
+            gen.writeNumber(d);
+        } else if (value instanceof Float f) {
+            gen.writeNumber(f);
+        } else if (value instanceof BigDecimal bd) {
+            gen.writeNumber(bd);
+        } else if (value instanceof BigInteger bi) {
+            gen.writeNumber(bi);
+        } else if (value instanceof Number n) {
+            gen.writeNumber(n.toString());
+        } else if (value instanceof GeminiMediaSource media) {
+            media.writeBase64(gen);
+        } else if (value instanceof JSONString js) {
+            gen.writeRawValue(js.toJSONString());
+        } else if (value instanceof Map<?, ?> map) {
+            gen.writeStartObject();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                gen.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(gen, entry.getValue());
+            }
+            gen.writeEndObject();
+        } else if (value instanceof Collection<?> collection) {
+            gen.writeStartArray();
+            for (Object element : collection) {
+                writeValue(gen, element);
+            }
+            gen.writeEndArray();
+        } else if (value instanceof Enum<?> e) {
+            gen.writeString(e.name());
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    public static void writeObject(JsonGenerator gen, JSONObject obj) throws IOException {
+        gen.writeStartObject();
+        for (String key : obj.keySet()) {
+            gen.writeFieldName(key);
+            writeValue(gen, obj.opt(key));
+        }
+        gen.writeEndObject();
+    }
+}
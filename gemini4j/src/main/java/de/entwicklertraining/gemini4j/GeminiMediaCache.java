@@ -0,0 +1,208 @@
+package de.entwicklertraining.gemini4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of Base64-encoded images for inline_data parts, see
+ * {@link GeminiClient#setMediaCache}. The same logo or catalog photo referenced by thousands of
+ * requests is then read and encoded once; every further reference writes the cached bytes
+ * straight into the body, without encoding or allocating.
+ *
+ * Entries are content-addressed: the key is the SHA-256 of the image (after preprocessing)
+ * and its MIME type, so copies of a file under different names share one entry. In front of
+ * that, an alias index maps "path + mtime + size" and URLs to their content key, so a repeated
+ * reference does not even read the file or download the URL again. A changed file gets a new
+ * mtime and therefore a new alias; a URL alias expires after {@code urlAliasTtl}, after which the
+ * URL is downloaded again. While an image is still being loaded, further references to the same
+ * alias wait for that load instead of starting their own.
+ *
+ * The encoded entries are bounded by {@code maxBytes} and evicted in LRU order.
+ * Handles of uploaded files are cached separately, see {@code GeminiFileCache}.
+ * Thread-safe.
+ */
+public final class GeminiMediaCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_MAX_ALIASES = 10_000;
+    public static final Duration DEFAULT_URL_ALIAS_TTL = Duration.ofHours(1);
+
+    private final long maxBytes;
+    private final int maxAliases;
+    private final long urlAliasTtlNanos;
+    private final Map<String, byte[]> entries;
+    private final Map<String, Alias> aliases;
+    private final Map<String, CompletableFuture<byte[]>> loading = new HashMap<>();
+    private long footprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public GeminiMediaCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_MAX_ALIASES);
+    }
+
+    /**
+     * @param maxBytes   upper bound of the encoded entries in bytes
+     * @param maxAliases upper bound of remembered paths and URLs
+     */
+    public GeminiMediaCache(long maxBytes, int maxAliases) {
+        this(maxBytes, maxAliases, DEFAULT_URL_ALIAS_TTL);
+    }
+
+    /**
+     * @param maxBytes    upper bound of the encoded entries in bytes
+     * @param maxAliases  upper bound of remembered paths and URLs
+     * @param urlAliasTtl how long a URL is answered from the cache before it is downloaded again
+     */
+    public GeminiMediaCache(long maxBytes, int maxAliases, Duration urlAliasTtl) {
+        if (maxBytes < 1 || maxAliases < 1) {
+            throw new IllegalArgumentException("maxBytes and maxAliases must be at least 1");
+        }
+        if (urlAliasTtl == null || urlAliasTtl.isNegative() || urlAliasTtl.isZero()) {
+            throw new IllegalArgumentException("urlAliasTtl must be positive");
+        }
+        this.maxBytes = maxBytes;
+        this.maxAliases = maxAliases;
+        this.urlAliasTtlNanos = urlAliasTtl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.aliases = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Alias> eldest) {
+                return size() > GeminiMediaCache.this.maxAliases;
+            }
+        };
+    }
+
+    /**
+     * A path or URL pointing to the content key of its entry.
+     *
+     * @param expiresAtNanos {@link System#nanoTime()} after which the alias is no longer used, or {@link Long#MAX_VALUE}
+     */
+    private record Alias(String key, long expiresAtNanos) {
+    }
+
+    /**
+     * Answers {@code alias} from the cache or from a load of the same alias that is still running;
+     * otherwise starts {@code loader} (which ends with {@link #put}) and lets later references wait
+     * for it. Counts a hit or a miss.
+     *
+     * @return the Base64 bytes (US-ASCII) of the image
+     */
+    synchronized CompletableFuture<byte[]> getOrLoad(String alias, Supplier<CompletableFuture<byte[]>> loader) {
+        byte[] encoded = lookup(alias);
+        if (encoded != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(encoded);
+        }
+        CompletableFuture<byte[]> pending = loading.get(alias);
+        if (pending != null) {
+            hits.incrementAndGet();
+            return pending;
+        }
+        misses.incrementAndGet();
+        CompletableFuture<byte[]> load = loader.get();
+        loading.put(alias, load);
+        load.whenComplete((encodedImage, failure) -> {
+            synchronized (this) {
+                loading.remove(alias, load);
+            }
+        });
+        return load;
+    }
+
+    private byte[] lookup(String alias) {
+        Alias entry = aliases.get(alias);
+        if (entry == null) {
+            return null;
+        }
+        byte[] encoded = entry.expiresAtNanos() - System.nanoTime() > 0 ? entries.get(entry.key()) : null;
+        if (encoded == null) {
+            aliases.remove(alias); // expired, or its entry was evicted
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the entry of identical content that is already cached (a hit), or stores
+     * {@code base64Ascii} under the content key. Either way, {@code alias} points to it afterwards.
+     *
+     * @param raw      the image bytes the encoding was made from, used for the content key
+     * @param expiring whether the alias is a URL, which is only trusted for {@code urlAliasTtl}
+     * @return the Base64 bytes to use
+     */
+    byte[] put(String alias, boolean expiring, byte[] raw, String mimeType, byte[] base64Ascii) {
+        String key = contentKey(raw, mimeType);
+        Alias pointer = new Alias(key, expiring ? System.nanoTime() + urlAliasTtlNanos : Long.MAX_VALUE);
+        synchronized (this) {
+            byte[] existing = entries.get(key);
+            if (existing != null) {
+                aliases.put(alias, pointer);
+                return existing;
+            }
+            if (base64Ascii.length > maxBytes) {
+                return base64Ascii;
+            }
+            entries.put(key, base64Ascii);
+            footprint += base64Ascii.length;
+            aliases.put(alias, pointer);
+            var eldest = entries.entrySet().iterator();
+            while (footprint > maxBytes && eldest.hasNext()) {
+                footprint -= eldest.next().getValue().length;
+                eldest.remove();
+            }
+            return base64Ascii;
+        }
+    }
+
+    private static String contentKey(byte[] raw, String mimeType) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(mimeType.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return HexFormat.of().formatHex(digest.digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return the number of cached images
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the bytes held by the cached encodings
+     */
+    public synchronized long footprintBytes() {
+        return footprint;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        aliases.clear();
+        footprint = 0;
+    }
+
+    /**
+     * @return the number of references answered without reading or downloading the image
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+}
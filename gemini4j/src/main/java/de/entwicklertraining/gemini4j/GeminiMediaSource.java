@@ -0,0 +1,282 @@
+package de.entwicklertraining.gemini4j;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * A lazily read value for the "data" field of an "inline_data" part, backed by a file or a URL.
+ *
+ * Instead of holding the Base64 string of an image on the heap for the whole life of a
+ * request, only the path is stored. The file is read through a {@link FileChannel} and
+ * Base64-encoded chunk by chunk when the request body is written
+ * (see {@link GeminiJsonWriter}). The body itself is still buffered in segments while an
+ * attempt is sent, because the client announces its length (HTTP/2 servers may reset streams
+ * whose body length is unknown, see {@code GeminiClient#bodyPublisher}). So an image costs
+ * about 1.33 times its size per attempt in flight, instead of about 3.7 times (raw bytes plus
+ * a UTF-16 Base64 string) for the whole life of the request.
+ *
+ * A URL source starts its download right away on a virtual thread, using one HTTP client
+ * shared by all sources, so the images of a request are fetched in parallel while the
+ * request is still being built. The bytes are Base64-encoded once on that thread, and writing
+ * the body waits for them; a download error or a body above {@code maxBytes} fails the
+ * request at that point.
+ *
+ * Both kinds can be passed through a {@link GeminiImagePreprocessor} first, which runs
+ * on the same background thread, and their encoding can be shared via a {@link GeminiMediaCache}.
+ *
+ * For code that still serializes the message with {@code JSONObject.toString()},
+ * {@link #toJSONString()} produces the complete Base64 string as a fallback; code that read
+ * the field as a String gets it from {@link #base64()}.
+ */
+public final class GeminiMediaSource implements JSONString {
+
+    /**
+     * Inline data of a request is limited to about 20 MB in total.
+     */
+    public static final long DEFAULT_MAX_DOWNLOAD_BYTES = 20L * 1024 * 1024;
+
+    private static final ExecutorService LOAD_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final HttpClient DOWNLOAD_CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(LOAD_EXECUTOR)
+            .build();
+
+    private final Path path;                   // null for URL sources
+    private final URI uri;                     // null for file sources
+    private final CompletableFuture<byte[]> encoded; // Base64 as US-ASCII bytes; null = stream the file as is
+
+    private GeminiMediaSource(Path path, URI uri, CompletableFuture<byte[]> encoded) {
+        this.path = path;
+        this.uri = uri;
+        this.encoded = encoded;
+    }
+
+    /**
+     * @throws UncheckedIOException if the file does not exist or cannot be read
+     */
+    public static GeminiMediaSource ofFile(Path path) {
+        Objects.requireNonNull(path, "path must not be null");
+        if (!Files.isRegularFile(path) || !Files.isReadable(path)) {
+            throw new UncheckedIOException(new IOException("File does not exist or is not readable: " + path));
+        }
+        return new GeminiMediaSource(path, null, null);
+    }
+
+    /**
+     * Like {@link #ofFile(Path)}, but with a {@code preprocessor} or a {@code cache} the file is
+     * read, shrunk and encoded in the background right away, and the body holds the result.
+     * On a cache hit for the same path, modification time and size, the file is not read at all.
+     *
+     * @param preprocessor the shrinking stage, or null for none
+     * @param mimeType     the MIME type of the part
+     * @param cache        the cache of encoded images, or null for none
+     * @throws UncheckedIOException if the file does not exist or cannot be read
+     */
+    public static GeminiMediaSource ofFile(Path path, GeminiImagePreprocessor preprocessor, String mimeType,
+                                           GeminiMediaCache cache) {
+        GeminiMediaSource file = ofFile(path);
+        if (preprocessor == null && cache == null) {
+            return file;
+        }
+        String alias = null;
+        if (cache != null) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                alias = "file:" + path.toAbsolutePath() + ":" + attributes.lastModifiedTime().toMillis()
+                        + ":" + attributes.size() + aliasSuffix(mimeType, preprocessor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return load(path, null, alias, cache, () -> {
+            try {
+                byte[] data = Files.readAllBytes(path);
+                return preprocessor != null ? preprocessor.process(data, mimeType, path.toString()) : data;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, mimeType, false);
+    }
+
+    /**
+     * Starts downloading {@code uri} in the background.
+     *
+     * @param maxBytes the download fails if the body is larger
+     */
+    public static GeminiMediaSource ofUrl(URI uri, long maxBytes) {
+        return ofUrl(uri, maxBytes, null, null, null);
+    }
+
+    /**
+     * Starts downloading {@code uri} in the background and passes the bytes through
+     * {@code preprocessor} on the same virtual thread. On a cache hit for the URL nothing is downloaded.
+     *
+     * @param preprocessor the shrinking stage, or null for none
+     * @param mimeType     the MIME type of the part
+     * @param cache        the cache of encoded images, or null for none
+     */
+    public static GeminiMediaSource ofUrl(URI uri, long maxBytes, GeminiImagePreprocessor preprocessor, String mimeType,
+                                          GeminiMediaCache cache) {
+        Objects.requireNonNull(uri, "uri must not be null");
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be at least 1");
+        }
+        String alias = cache != null ? "url:" + uri + aliasSuffix(mimeType, preprocessor) : null;
+        return load(null, uri, alias, cache, () -> {
+            byte[] data = download(uri, maxBytes);
+            return preprocessor != null ? preprocessor.process(data, mimeType, uri.toString()) : data;
+        }, mimeType, true);
+    }
+
+    /**
+     * The same image under another MIME type or other preprocessor settings is a different entry.
+     */
+    private static String aliasSuffix(String mimeType, GeminiImagePreprocessor preprocessor) {
+        return ":" + mimeType + (preprocessor != null ? ":" + preprocessor.settingsKey() : "");
+    }
+
+    /**
+     * Answers from the cache (or joins a running load of the same image), or loads and encodes the
+     * image on a virtual thread. The encoding happens once there, however often the body is written.
+     *
+     * @param expiring whether the alias is a URL, see {@link GeminiMediaCache}
+     */
+    private static GeminiMediaSource load(Path path, URI uri, String alias, GeminiMediaCache cache,
+                                          Supplier<byte[]> loader, String mimeType, boolean expiring) {
+        if (cache == null) {
+            return new GeminiMediaSource(path, uri, CompletableFuture.supplyAsync(
+                    () -> Base64.getEncoder().encode(loader.get()), LOAD_EXECUTOR));
+        }
+        return new GeminiMediaSource(path, uri, cache.getOrLoad(alias, () -> CompletableFuture.supplyAsync(() -> {
+            byte[] data = loader.get();
+            return cache.put(alias, expiring, data, mimeType, Base64.getEncoder().encode(data));
+        }, LOAD_EXECUTOR)));
+    }
+
+    private static byte[] download(URI uri, long maxBytes) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("User-Agent", "Mozilla/5.0")
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+        try {
+            HttpResponse<InputStream> response = DOWNLOAD_CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream in = response.body()) {
+                if (response.statusCode() / 100 != 2) {
+                    throw new IOException("HTTP " + response.statusCode());
+                }
+                long announced = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+                if (announced > maxBytes) {
+                    throw new IOException("Content-Length " + announced + " exceeds the limit of " + maxBytes + " bytes");
+                }
+                // read one byte more than allowed to detect bodies without (or with a wrong) Content-Length
+                byte[] data = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxBytes + 1));
+                if (data.length > maxBytes) {
+                    throw new IOException("Body exceeds the limit of " + maxBytes + " bytes");
+                }
+                return data;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted", e));
+        }
+    }
+
+    /**
+     * @return the file of a file source, null for a URL source
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * @return the URL of a URL source, null for a file source
+     */
+    public URI uri() {
+        return uri;
+    }
+
+    /**
+     * Writes the content as a Base64 JSON string; a file is read in chunks,
+     * a loaded image is awaited and its Base64 bytes are copied without an intermediate string.
+     */
+    public void writeBase64(JsonGenerator gen) throws IOException {
+        if (encoded != null) {
+            byte[] base64 = awaitEncoded();
+            // Base64 needs no escaping, so the bytes are copied into the output as they are
+            gen.writeRawUTF8String(base64, 0, base64.length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(channel)) {
+            gen.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, in, -1);
+        }
+    }
+
+    private byte[] awaitEncoded() throws IOException {
+        try {
+            return encoded.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() instanceof UncheckedIOException io ? io.getCause() : e.getCause();
+            String what = uri != null ? "download image from URL: " + uri : "read file: " + path;
+            throw new IOException("Failed to " + what + " => "
+                    + (cause != null ? cause.getMessage() : e.getMessage()), cause);
+        }
+    }
+
+    /**
+     * The complete Base64 string, for code that used to read {@code inline_data.data} with
+     * {@code getString("data")}. A file source reads the file again on every call.
+     *
+     * @throws UncheckedIOException if the file cannot be read or the download failed
+     */
+    public String base64() {
+        try {
+            if (encoded != null) {
+                return new String(awaitEncoded(), StandardCharsets.US_ASCII);
+            }
+            return Base64.getEncoder().encodeToString(Files.readAllBytes(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + (path != null ? "file: " + path : "URL: " + uri), e);
+        }
+    }
+
+    @Override
+    public String toJSONString() {
+        return JSONObject.quote(base64());
+    }
+
+    @Override
+    public String toString() {
+        return "GeminiMediaSource[" + (path != null ? path : uri) + "]";
+    }
+}
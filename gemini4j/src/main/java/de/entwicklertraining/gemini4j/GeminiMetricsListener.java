@@ -0,0 +1,85 @@
+package de.entwicklertraining.gemini4j;
+
+/**
+ * Receives timings and counts from the client, see {@link GeminiClient#setMetricsListener}.
+ * Every method has an empty default, so an implementation only overrides what it records.
+ *
+ * The callbacks run synchronously on the thread doing the work (for tool calls possibly a
+ * virtual thread of the tool executor) and must be fast and thread-safe. They only get
+ * primitives and strings that exist anyway, so calling them allocates nothing.
+ * {@code model} is null for requests that are not bound to a model.
+ *
+ * The timings of one turn nest like this:
+ * <pre>
+ * onRequest (whole conversation, all turns and tool calls)
+ *   onTurn (one model turn, incl. rate limit waits and retries)
+ *     onHttpAttempt (one HTTP attempt; writing the body and reading the response included)
+ *       onSerialization, onParse
+ *     onBackoff (wait before the next attempt)
+ *   onToolCall (one callback)
+ * </pre>
+ * See {@link GeminiInMemoryMetrics} for a histogram-based implementation.
+ */
+public interface GeminiMetricsListener {
+
+    /**
+     * Records nothing; the default of every client.
+     */
+    GeminiMetricsListener NOOP = new GeminiMetricsListener() {
+    };
+
+    /**
+     * The request body was serialized to JSON.
+     */
+    default void onSerialization(String model, long nanos, long bytes) {
+    }
+
+    /**
+     * One HTTP attempt finished. For streaming calls it ends when the response headers arrive.
+     *
+     * @param success false if the attempt failed (status code, timeout or I/O error)
+     */
+    default void onHttpAttempt(String model, long nanos, boolean success) {
+    }
+
+    /**
+     * A response body was parsed into its typed view.
+     */
+    default void onParse(String model, long nanos, long bytes) {
+    }
+
+    /**
+     * The client waits before retrying a failed attempt.
+     */
+    default void onBackoff(String model, long millis) {
+    }
+
+    /**
+     * A model turn of a conversation returned a response.
+     *
+     * @param turn 1 for the first turn
+     */
+    default void onTurn(String model, int turn, long nanos) {
+    }
+
+    /**
+     * A tool callback returned or failed.
+     */
+    default void onToolCall(String tool, long nanos, boolean success) {
+    }
+
+    /**
+     * A response reported its token usage ({@code usageMetadata}).
+     */
+    default void onTokens(String model, int promptTokens, int candidatesTokens, int totalTokens) {
+    }
+
+    /**
+     * A chat completion finished, including all of its turns and tool calls.
+     *
+     * @param turns   the number of model turns that were started
+     * @param success false if it ended with an exception
+     */
+    default void onRequest(String model, int turns, long nanos, boolean success) {
+    }
+}
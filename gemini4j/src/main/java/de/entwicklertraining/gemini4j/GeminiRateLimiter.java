@@ -0,0 +1,316 @@
+package de.entwicklertraining.gemini4j;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiRequest;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiCountTokensRequest;
+import de.entwicklertraining.gemini4j.embeddings.GeminiEmbeddingRequest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side limiter that keeps the calls of each model under its requests-per-minute (RPM) and
+ * tokens-per-minute (TPM) quota, instead of only reacting to HTTP 429 once the quota is exhausted.
+ * Set it via {@link GeminiClient#setRateLimiter}.
+ *
+ * Each model has two token buckets that hold up to one minute of budget and refill continuously.
+ * Every HTTP attempt reserves one request and its estimated prompt tokens up front, so retries and
+ * hedged duplicates are paid for like any other call: chat completions are estimated with
+ * {@link GeminiTokenService#countTokens}, embeddings by their texts, and countTokens calls and
+ * batch creations cost a request without tokens. If a bucket runs into debt, the caller sleeps until
+ * the debt is paid off. Reservations are handed out in arrival order and the wait happens outside
+ * of any lock, so on virtual threads a waiting call only parks. Once the response arrives,
+ * {@link Permit#reconcile} replaces the estimate with the {@code promptTokenCount} from
+ * {@code usageMetadata}; a failed attempt gets its tokens back.
+ *
+ * Models without a configured limit (and without a default limit) are not limited. Thread-safe.
+ */
+public final class GeminiRateLimiter {
+
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final Map<String, Limit> limits;
+    private final Limit defaultLimit; // null = unlimited
+    private final Map<String, Bucket> buckets = new HashMap<>();
+    private final GeminiTokenService tokenService = new GeminiTokenService();
+
+    private GeminiRateLimiter(Builder builder) {
+        this.limits = Map.copyOf(builder.limits);
+        this.defaultLimit = builder.defaultLimit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private record Limit(int requestsPerMinute, int tokensPerMinute) {
+    }
+
+    /**
+     * A reservation of one request and its estimated tokens.
+     */
+    public static final class Permit {
+        private final Bucket bucket;
+        private final int estimatedTokens;
+        private final Duration waited;
+        private boolean reconciled;
+
+        private Permit(Bucket bucket, int estimatedTokens, Duration waited) {
+            this.bucket = bucket;
+            this.estimatedTokens = estimatedTokens;
+            this.waited = waited;
+        }
+
+        public int estimatedTokens() {
+            return estimatedTokens;
+        }
+
+        /**
+         * @return how long the caller was held back before it could send
+         */
+        public Duration waited() {
+            return waited;
+        }
+
+        /**
+         * Corrects the token bucket by the difference between the estimate and the tokens the
+         * server actually counted. Only the first call has an effect.
+         */
+        public synchronized void reconcile(int actualTokens) {
+            if (reconciled || bucket == null) {
+                return;
+            }
+            reconciled = true;
+            bucket.refund(0, estimatedTokens - actualTokens);
+        }
+
+        /**
+         * Gives the whole reservation back, request included, for an attempt that was never
+         * sent. Only the first call of this method or {@link #reconcile} has an effect.
+         */
+        synchronized void cancel() {
+            if (reconciled || bucket == null) {
+                return;
+            }
+            reconciled = true;
+            bucket.refund(1, estimatedTokens);
+        }
+    }
+
+    /**
+     * Estimates the prompt tokens of {@code request} and reserves them for its model, waiting
+     * until the budget allows it.
+     */
+    public Permit acquire(GeminiChatCompletionRequest request) {
+        Bucket bucket = bucketFor(request.model());
+        if (bucket == null) {
+            return new Permit(null, 0, Duration.ZERO);
+        }
+        return acquire(bucket, tokenService.countTokens(request));
+    }
+
+    /**
+     * Reserves the budget of one HTTP attempt of {@code request}, see the class comment.
+     *
+     * @return the permit, or null if the request is not limited (no model, or an endpoint without quota)
+     */
+    Permit acquireAttempt(ApiRequest<?> request) {
+        if (request instanceof GeminiChatCompletionRequest chat) {
+            return acquire(chat);
+        }
+        if (request instanceof GeminiEmbeddingRequest embedding) {
+            Bucket bucket = bucketFor(embedding.model());
+            if (bucket == null) {
+                return null;
+            }
+            int tokens = 0;
+            for (String text : embedding.texts()) {
+                tokens += tokenService.calculateTokenCount(text);
+            }
+            return acquire(bucket, tokens);
+        }
+        if (request instanceof GeminiCountTokensRequest countTokens) {
+            return acquire(countTokens.generateContentRequest().model(), 0);
+        }
+        if (request instanceof GeminiBatchRequest batch && batch.operation() == GeminiBatchRequest.Operation.CREATE) {
+            return acquire(batch.model(), 0);
+        }
+        return null;
+    }
+
+    /**
+     * Reserves one request and {@code tokens} tokens for {@code model}, waiting until the budget allows it.
+     *
+     * @throws ApiClient.ApiClientException if the thread is interrupted while waiting
+     */
+    public Permit acquire(String model, int tokens) {
+        Bucket bucket = bucketFor(model);
+        if (bucket == null) {
+            return new Permit(null, tokens, Duration.ZERO);
+        }
+        return acquire(bucket, tokens);
+    }
+
+    /**
+     * Reserves one request and {@code tokens} tokens only if that is possible without waiting.
+     */
+    public Optional<Permit> tryAcquire(String model, int tokens) {
+        Bucket bucket = bucketFor(model);
+        if (bucket == null) {
+            return Optional.of(new Permit(null, tokens, Duration.ZERO));
+        }
+        return bucket.tryReserve(tokens, System.nanoTime())
+                ? Optional.of(new Permit(bucket, tokens, Duration.ZERO))
+                : Optional.empty();
+    }
+
+    private Permit acquire(Bucket bucket, int tokens) {
+        long waitNanos = bucket.reserve(tokens, System.nanoTime());
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(waitNanos));
+            } catch (InterruptedException e) {
+                bucket.refund(1, tokens);
+                Thread.currentThread().interrupt();
+                throw new ApiClient.ApiClientException("Interrupted while waiting for the rate limit", e);
+            }
+        }
+        return new Permit(bucket, tokens, Duration.ofNanos(Math.max(0, waitNanos)));
+    }
+
+    private Bucket bucketFor(String model) {
+        Limit limit = limits.getOrDefault(model, defaultLimit);
+        if (limit == null) {
+            return null;
+        }
+        synchronized (buckets) {
+            return buckets.computeIfAbsent(model, m -> new Bucket(limit, System.nanoTime()));
+        }
+    }
+
+    /**
+     * @return the tokens currently available for {@code model} (negative while in debt), or empty if it is not limited
+     */
+    public Optional<Double> availableTokens(String model) {
+        Bucket bucket = bucketFor(model);
+        return bucket == null ? Optional.empty() : Optional.of(bucket.availableTokens(System.nanoTime()));
+    }
+
+    /**
+     * @return the requests currently available for {@code model} (negative while in debt), or empty if it is not limited
+     */
+    public Optional<Double> availableRequests(String model) {
+        Bucket bucket = bucketFor(model);
+        return bucket == null ? Optional.empty() : Optional.of(bucket.availableRequests(System.nanoTime()));
+    }
+
+    /**
+     * RPM and TPM bucket of one model. Balances may become negative; that is the debt the
+     * reserving caller waits for.
+     */
+    private static final class Bucket {
+        private final double requestCapacity;
+        private final double tokenCapacity;
+        private final double requestsPerNano;
+        private final double tokensPerNano;
+        private double requests;
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(Limit limit, long now) {
+            this.requestCapacity = limit.requestsPerMinute();
+            this.tokenCapacity = limit.tokensPerMinute();
+            this.requestsPerNano = requestCapacity / NANOS_PER_MINUTE;
+            this.tokensPerNano = tokenCapacity / NANOS_PER_MINUTE;
+            this.requests = requestCapacity;
+            this.tokens = tokenCapacity;
+            this.lastRefill = now;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed > 0) {
+                requests = Math.min(requestCapacity, requests + elapsed * requestsPerNano);
+                tokens = Math.min(tokenCapacity, tokens + elapsed * tokensPerNano);
+                lastRefill = now;
+            }
+        }
+
+        /**
+         * @return the nanos to wait until the reservation is covered
+         */
+        synchronized long reserve(int cost, long now) {
+            refill(now);
+            requests -= 1;
+            tokens -= cost;
+            double wait = Math.max(-requests / requestsPerNano, -tokens / tokensPerNano);
+            return wait > 0 ? (long) Math.ceil(wait) : 0;
+        }
+
+        synchronized boolean tryReserve(int cost, long now) {
+            refill(now);
+            if (requests < 1 || tokens < cost) {
+                return false;
+            }
+            requests -= 1;
+            tokens -= cost;
+            return true;
+        }
+
+        synchronized void refund(int requestCount, long tokenCount) {
+            requests = Math.min(requestCapacity, requests + requestCount);
+            tokens = Math.min(tokenCapacity, tokens + tokenCount);
+        }
+
+        synchronized double availableTokens(long now) {
+            refill(now);
+            return tokens;
+        }
+
+        synchronized double availableRequests(long now) {
+            refill(now);
+            return requests;
+        }
+    }
+
+    public static final class Builder {
+        private final Map<String, Limit> limits = new HashMap<>();
+        private Limit defaultLimit;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the quota of one model, e.g. {@code limit("gemini-1.5-flash", 15, 1_000_000)}.
+         */
+        public Builder limit(String model, int requestsPerMinute, int tokensPerMinute) {
+            limits.put(Objects.requireNonNull(model, "model must not be null"), toLimit(requestsPerMinute, tokensPerMinute));
+            return this;
+        }
+
+        /**
+         * Sets the quota of every model without its own {@link #limit}; each model still gets its own buckets.
+         */
+        public Builder defaultLimit(int requestsPerMinute, int tokensPerMinute) {
+            this.defaultLimit = toLimit(requestsPerMinute, tokensPerMinute);
+            return this;
+        }
+
+        private static Limit toLimit(int requestsPerMinute, int tokensPerMinute) {
+            if (requestsPerMinute < 1 || tokensPerMinute < 1) {
+                throw new IllegalArgumentException("requestsPerMinute and tokensPerMinute must be at least 1");
+            }
+            return new Limit(requestsPerMinute, tokensPerMinute);
+        }
+
+        public GeminiRateLimiter build() {
+            return new GeminiRateLimiter(this);
+        }
+    }
+}
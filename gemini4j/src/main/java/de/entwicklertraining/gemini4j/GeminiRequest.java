@@ -3,6 +3,10 @@ package de.entwicklertraining.gemini4j;
 import de.entwicklertraining.api.base.ApiRequest;
 import de.entwicklertraining.api.base.ApiRequestBuilderBase;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Eine abstrakte Gemini-spezifische Request-Klasse,
  * die nun von ApiRequest<T> erbt.
@@ -25,6 +29,15 @@ public abstract class GeminiRequest<T extends GeminiResponse<?>> extends ApiRequ
     @Override
     public abstract String getBody();
 
+    /**
+     * Schreibt den JSON-Body als UTF-8 direkt in den Stream.
+     * Standardmäßig über {@link #getBody()}; Requests mit großen Bodies überschreiben das,
+     * um keinen Zwischen-String aufzubauen.
+     */
+    public void writeBody(OutputStream out) throws IOException {
+        out.write(getBody().getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Erzeugt die passende GeminiResponse-Subklasse aus dem JSON-String.
      */
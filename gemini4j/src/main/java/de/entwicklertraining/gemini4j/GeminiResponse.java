@@ -3,20 +3,53 @@ package de.entwicklertraining.gemini4j;
 import de.entwicklertraining.api.base.ApiResponse;
 import org.json.JSONObject;
 
+import java.util.Objects;
+import java.util.function.Supplier;
+
 /**
  * Abstrakte Basis für Gemini-spezifische Responses,
  * erbt nun von ApiResponse<GeminiRequest<?>>.
  */
 public abstract class GeminiResponse<T extends GeminiRequest<?>> extends ApiResponse<T> {
 
-    protected final JSONObject json;  // In GeminiResponse wollen wir das JSON parsen/halten
+    /**
+     * Der JSON-Inhalt der Response; null, wenn die Response per Supplier erzeugt wurde.
+     * Unterklassen sollten {@link #getJson()} verwenden, das in beiden Fällen funktioniert.
+     */
+    protected final JSONObject json;
+    private final Supplier<JSONObject> jsonSupplier;
+    private volatile JSONObject lazyJson;  // wird erst beim ersten getJson() aufgebaut, wenn per Supplier erzeugt
 
     protected GeminiResponse(JSONObject json, T request) {
         super(request);
         this.json = json;
+        this.jsonSupplier = null;
+    }
+
+    /**
+     * Für Responses, die ihren Inhalt anders (z.B. typisiert) auswerten:
+     * der org.json-Baum wird nur gebaut, wenn jemand {@link #getJson()} aufruft.
+     */
+    protected GeminiResponse(Supplier<JSONObject> jsonSupplier, T request) {
+        super(request);
+        this.json = null;
+        this.jsonSupplier = Objects.requireNonNull(jsonSupplier, "jsonSupplier must not be null");
     }
 
     public JSONObject getJson() {
-        return json;
+        if (jsonSupplier == null) {
+            return json;
+        }
+        JSONObject result = lazyJson;
+        if (result == null) {
+            synchronized (this) {
+                result = lazyJson;
+                if (result == null) {
+                    result = jsonSupplier.get();
+                    lazyJson = result;
+                }
+            }
+        }
+        return result;
     }
 }
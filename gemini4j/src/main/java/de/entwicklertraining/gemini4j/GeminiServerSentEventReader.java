@@ -0,0 +1,138 @@
+package de.entwicklertraining.gemini4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal reader for a "text/event-stream" body, as returned by
+ * {@code streamGenerateContent?alt=sse}.
+ *
+ * The reader works directly on the byte stream: it only buffers the bytes of the
+ * event that is currently being read and hands out the "data" payload as soon as
+ * the blank line terminating the event arrives. Other fields (event, id, retry)
+ * and comment lines are ignored, because Gemini does not use them.
+ */
+public final class GeminiServerSentEventReader implements Closeable {
+
+    private static final byte[] DATA_FIELD = "data".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private final ByteArrayOutputStream data = new ByteArrayOutputStream(1024);
+    private boolean hasData;
+    private boolean lastWasCarriageReturn;
+
+    public GeminiServerSentEventReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Blocks until the next complete event has been received.
+     *
+     * @return the (multi-line joined) data payload of the event, or null at the end of the stream
+     */
+    public String nextEvent() throws IOException {
+        while (true) {
+            if (!readLine()) {
+                // End of stream: dispatch a pending event that was not terminated by a blank line
+                if (hasData) {
+                    return dispatch();
+                }
+                return null;
+            }
+
+            if (line.size() == 0) {
+                if (hasData) {
+                    return dispatch();
+                }
+                continue;
+            }
+
+            byte[] bytes = line.toByteArray();
+            if (bytes[0] == ':') {
+                continue; // comment
+            }
+            if (isDataField(bytes)) {
+                int valueStart = DATA_FIELD.length;
+                if (valueStart < bytes.length && bytes[valueStart] == ':') {
+                    valueStart++;
+                    if (valueStart < bytes.length && bytes[valueStart] == ' ') {
+                        valueStart++;
+                    }
+                }
+                if (hasData) {
+                    data.write('\n');
+                }
+                data.write(bytes, valueStart, bytes.length - valueStart);
+                hasData = true;
+            }
+        }
+    }
+
+    private boolean isDataField(byte[] bytes) {
+        if (bytes.length < DATA_FIELD.length) {
+            return false;
+        }
+        for (int i = 0; i < DATA_FIELD.length; i++) {
+            if (bytes[i] != DATA_FIELD[i]) {
+                return false;
+            }
+        }
+        return bytes.length == DATA_FIELD.length || bytes[DATA_FIELD.length] == ':';
+    }
+
+    private String dispatch() {
+        String payload = data.toString(StandardCharsets.UTF_8);
+        data.reset();
+        hasData = false;
+        return payload;
+    }
+
+    /**
+     * Reads one line (terminated by LF, CR or CRLF) into {@link #line}.
+     *
+     * @return false if the stream ended before any byte of a new line was read
+     */
+    private boolean readLine() throws IOException {
+        line.reset();
+        boolean readAny = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return readAny;
+                }
+            }
+            byte b = buffer[position++];
+            if (b == '\n') {
+                if (lastWasCarriageReturn) {
+                    // second half of a CRLF pair
+                    lastWasCarriageReturn = false;
+                    continue;
+                }
+                return true;
+            }
+            lastWasCarriageReturn = false;
+            if (b == '\r') {
+                lastWasCarriageReturn = true;
+                return true;
+            }
+            line.write(b);
+            readAny = true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
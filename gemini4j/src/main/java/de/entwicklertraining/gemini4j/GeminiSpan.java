@@ -0,0 +1,85 @@
+package de.entwicklertraining.gemini4j;
+
+import java.util.function.Supplier;
+
+/**
+ * A timed section of a chat completion, created by a {@link GeminiTracer}.
+ * The client opens one span per request ({@code gemini.request}) and below it one per model
+ * turn ({@code gemini.turn}) and one per tool invocation ({@code gemini.tool}). Tool code
+ * gets its span via {@link GeminiToolCallContext#span()} and can attach its own children:
+ * <pre>
+ * try (GeminiSpan query = context.span().startChild("catalog.query")) {
+ *     query.setAttribute("rows", rows.size());
+ * }
+ * </pre>
+ * A span is handed to other threads explicitly, it does not depend on thread-locals; the
+ * client runs each tool callback {@link #wrap wrapped} in its span, so an adapter can also make
+ * the span current for code that is instrumented by the tracing library itself.
+ * Implementations must be thread-safe; {@link #end()} may be called once.
+ */
+public interface GeminiSpan extends AutoCloseable {
+
+    /**
+     * Records nothing; every child is this span again.
+     */
+    GeminiSpan NOOP = new GeminiSpan() {
+        @Override
+        public GeminiSpan startChild(String name) {
+            return this;
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, String value) {
+            return this;
+        }
+
+        @Override
+        public GeminiSpan setAttribute(String key, long value) {
+            return this;
+        }
+
+        @Override
+        public void recordException(Throwable error) {
+        }
+
+        @Override
+        public void end() {
+        }
+    };
+
+    /**
+     * Starts a span below this one, e.g. for the work of a tool callback.
+     */
+    GeminiSpan startChild(String name);
+
+    /**
+     * @param value ignored if null
+     */
+    GeminiSpan setAttribute(String key, String value);
+
+    GeminiSpan setAttribute(String key, long value);
+
+    /**
+     * Marks the span as failed.
+     */
+    void recordException(Throwable error);
+
+    void end();
+
+    /**
+     * Returns {@code task} running with this span as the current span of the tracing library,
+     * e.g. for the instrumented HTTP or JDBC clients a tool callback uses. By default, the task
+     * is returned as is.
+     */
+    default <T> Supplier<T> wrap(Supplier<T> task) {
+        return task;
+    }
+
+    /**
+     * Same as {@link #end()}, for try-with-resources.
+     */
+    @Override
+    default void close() {
+        end();
+    }
+}
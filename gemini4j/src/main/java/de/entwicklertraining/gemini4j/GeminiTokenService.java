@@ -3,23 +3,36 @@ package de.entwicklertraining.gemini4j;
 import com.knuddels.jtokkit.Encodings;
 import com.knuddels.jtokkit.api.Encoding;
 import com.knuddels.jtokkit.api.EncodingRegistry;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.List;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
 
 /**
  * Token-Service für Google Gemini/Gemma (SentencePiece).
+ *
+ * Die BPE-Tabellen werden nur einmal pro Prozess geladen (beim ersten Zählen oder
+ * über {@link #warmUp()}) und von allen Instanzen geteilt; neue Instanzen kosten daher nichts.
  */
 public class GeminiTokenService {
     private static final double AVG_CHARS_PER_TOKEN = 4.0;
-    private final Encoding tokenizer;
+
+    /**
+     * Gemini berechnet ein Bild (bzw. eine Kachel davon) pauschal mit 258 Tokens.
+     */
+    static final int TOKENS_PER_MEDIA_PART = 258;
+
+    /**
+     * Holder-Idiom: die Klasse wird erst beim ersten Zugriff initialisiert, die JVM
+     * garantiert dabei thread-sichere, einmalige Ausführung ohne eigenes Locking.
+     */
+    private static final class EncodingHolder {
+        static final Encoding ENCODING = loadTokenizer();
+    }
 
     public GeminiTokenService() {
-        tokenizer = loadTokenizer();
     }
 
-    private Encoding loadTokenizer() {
+    private static Encoding loadTokenizer() {
         try {
             EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
             // Use cl100k_base encoding as it's closest to Gemini's tokenization
@@ -29,6 +42,15 @@ public class GeminiTokenService {
         }
     }
 
+    /**
+     * Lädt die geteilte Encoding sofort, damit der erste Request nicht die Ladezeit trägt.
+     *
+     * @return true, wenn die Encoding verfügbar ist (sonst wird die Heuristik verwendet)
+     */
+    public static boolean warmUp() {
+        return EncodingHolder.ENCODING != null;
+    }
+
     /**
      * Zählt Gemini/Gemma-Tokens. Nutzt SentencePiece; fällt sonst auf Heuristik zurück.
      */
@@ -37,13 +59,51 @@ public class GeminiTokenService {
             return 0;
         }
         try {
+            Encoding tokenizer = EncodingHolder.ENCODING;
             if (tokenizer != null) {
-                return tokenizer.encode(text).size();
+                return tokenizer.countTokens(text);
             }
         } catch (Exception ignored) {
             // fall through to heuristic
         }
         return (int) Math.ceil(text.length() / AVG_CHARS_PER_TOKEN);
     }
-}
 
+    /**
+     * Schätzt die Prompt-Tokens eines Requests, ohne den JSON-Body zu erzeugen:
+     * systemInstruction, die Texte aller Nachrichten, Funktionsaufrufe/-antworten und
+     * Tool-Deklarationen werden gezählt, Bild-/Datei-Parts pauschal mit 258 Tokens.
+     */
+    public int countTokens(GeminiChatCompletionRequest request) {
+        int total = calculateTokenCount(request.systemInstruction());
+        for (JSONObject message : request.messages()) {
+            JSONArray parts = message.optJSONArray("parts");
+            if (parts == null) {
+                continue;
+            }
+            for (int i = 0; i < parts.length(); i++) {
+                JSONObject part = parts.optJSONObject(i);
+                if (part != null) {
+                    total += countPart(part);
+                }
+            }
+        }
+        for (GeminiToolDefinition tool : request.tools()) {
+            total += calculateTokenCount(tool.toJson().toString());
+        }
+        return total;
+    }
+
+    private int countPart(JSONObject part) {
+        Object text = part.opt("text");
+        if (text instanceof String s) {
+            return calculateTokenCount(s);
+        }
+        if (part.has("inline_data") || part.has("inlineData") || part.has("file_data") || part.has("fileData")) {
+            // do not touch the data itself, it may be a file-backed GeminiMediaSource
+            return TOKENS_PER_MEDIA_PART;
+        }
+        // functionCall / function_response etc.: count their JSON
+        return calculateTokenCount(part.toString());
+    }
+}
@@ -1,17 +1,15 @@
 package de.entwicklertraining.gemini4j;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class GeminiTokenizer {
-    private static GeminiTokenizer instance;
+    private static final GeminiTokenizer INSTANCE = new GeminiTokenizer();
 
-    // Regex to split tags from text:
+    // Tags are split from text by a small scanner in countTokens(), equivalent to the regex
+    // "<[^>]+>|[^<]+":
     // - "<[^>]+>" matches any sequence that starts with < and ends with >
     // - "[^<]+" matches non-tag text between angle brackets
-    private static final Pattern HTML_SPLIT_PATTERN = Pattern.compile("<[^>]+>|[^<]+");
 
     // Regex to further split text segments on punctuation or whitespace.
     // This pattern captures sequences of:
@@ -27,11 +25,11 @@ public class GeminiTokenizer {
         // private because of singleton
     }
 
-    public static synchronized GeminiTokenizer getInstance() {
-        if (instance == null) {
-            instance = new GeminiTokenizer();
-        }
-        return instance;
+    /**
+     * The tokenizer is stateless, so one eagerly created instance is shared without locking.
+     */
+    public static GeminiTokenizer getInstance() {
+        return INSTANCE;
     }
 
     /**
@@ -40,61 +38,56 @@ public class GeminiTokenizer {
      *  2) For each portion:
      *     - if it's a tag, treat the entire tag as a token
      *     - if it's text, split further on punctuation, entities, words
+     *
+     * Every token is approximated by the 4-characters-per-token rule of Gemini (at least 1).
+     * The input is scanned by offsets only: no substrings and no token lists are created.
      */
-    public int countTokens(String html) {
-        List<String> tokenList = tokenize(html);
+    public int countTokens(CharSequence html) {
+        int length = html.length();
+        Matcher textMatcher = TOKEN_SPLIT_PATTERN.matcher(html);
+        int totalApproxTokens = 0;
 
-        // Option A: Just return the raw count of tokens
-        // return tokenList.size();
+        int i = 0;
+        while (i < length) {
+            if (html.charAt(i) == '<') {
+                // Same as "<[^>]+>": a tag needs at least one character before the next '>'
+                int close = indexOf(html, '>', i + 1, length);
+                if (close > i + 1) {
+                    // Entire HTML tag as one token
+                    totalApproxTokens += approxTokens(close + 1 - i);
+                    i = close + 1;
+                } else {
+                    // A lone '<' is neither tag nor text and is skipped, like the regex did
+                    i++;
+                }
+                continue;
+            }
 
-        // Option B: Approximate tokens by the 4-characters-per-token rule of Gemini
-        //           but still split first, then sum approximate tokens for each sub-token.
-        //           The sum below is often closer in spirit to how LLMs chunk text.
-        int totalApproxTokens = 0;
-        for (String t : tokenList) {
-            // If you want to give a minimum of "1 token" even for small strings,
-            // you could do something like:
-            int length = t.length();
-            int approxTokens = Math.max(1, (int) Math.ceil((double) length / 4));
-            totalApproxTokens += approxTokens;
+            // Text segment up to the next '<' ("[^<]+"), split on punctuation/entities/words
+            int segmentEnd = indexOf(html, '<', i, length);
+            if (segmentEnd < 0) {
+                segmentEnd = length;
+            }
+            textMatcher.region(i, segmentEnd);
+            while (textMatcher.find()) {
+                totalApproxTokens += approxTokens(textMatcher.end() - textMatcher.start());
+            }
+            i = segmentEnd;
         }
 
         return totalApproxTokens;
     }
 
-    /**
-     * Returns the exact list of tokens identified by the custom logic.
-     */
-    private List<String> tokenize(String html) {
-        List<String> tokens = new ArrayList<>();
-
-        // 1) Split out tags from text using the HTML_SPLIT_PATTERN
-        Matcher matcher = HTML_SPLIT_PATTERN.matcher(html);
-        while (matcher.find()) {
-            String segment = matcher.group();
-
-            if (segment.startsWith("<") && segment.endsWith(">")) {
-                // Entire HTML tag as one token:
-                tokens.add(segment);
-            } else {
-                // This is a text segment, so we further split on punctuation/entities/words
-                List<String> subTokens = splitTextSegment(segment);
-                tokens.addAll(subTokens);
-            }
-        }
-
-        return tokens;
+    private static int approxTokens(int length) {
+        return Math.max(1, (length + 3) / 4);
     }
 
-    /**
-     * Split text segments on punctuation, entities, and words.
-     */
-    private List<String> splitTextSegment(String textSegment) {
-        List<String> subTokens = new ArrayList<>();
-        Matcher matcher = TOKEN_SPLIT_PATTERN.matcher(textSegment);
-        while (matcher.find()) {
-            subTokens.add(matcher.group());
+    private static int indexOf(CharSequence text, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
         }
-        return subTokens;
+        return -1;
     }
 }
@@ -3,6 +3,21 @@ package de.entwicklertraining.gemini4j;
 import org.json.JSONObject;
 
 /**
- * Holds the arguments that the model is passing when it calls a "function" (tool).
+ * Holds the arguments that the model is passing when it calls a "function" (tool),
+ * and the tracing span of this invocation.
+ *
+ * @param span the {@code gemini.tool} span; tool code can attach child spans to it.
+ *             {@link GeminiSpan#NOOP} if the client has no tracer.
  */
-public record GeminiToolCallContext(JSONObject arguments) {}
+public record GeminiToolCallContext(JSONObject arguments, GeminiSpan span) {
+
+    public GeminiToolCallContext {
+        if (span == null) {
+            span = GeminiSpan.NOOP;
+        }
+    }
+
+    public GeminiToolCallContext(JSONObject arguments) {
+        this(arguments, GeminiSpan.NOOP);
+    }
+}
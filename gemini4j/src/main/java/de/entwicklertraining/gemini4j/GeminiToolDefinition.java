@@ -1,8 +1,11 @@
 package de.entwicklertraining.gemini4j;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 /**
  * Similar to GptToolDefinition, but adapted for Gemini's function-calling style.
  *
@@ -60,6 +63,20 @@ public final class GeminiToolDefinition {
         return obj;
     }
 
+    /**
+     * Same structure as {@link #toJson()}, but written directly to a generator.
+     */
+    public void writeJson(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("name", name);
+        if (description != null) {
+            gen.writeStringField("description", description);
+        }
+        gen.writeFieldName("parameters");
+        GeminiJsonWriter.writeObject(gen, parameters);
+        gen.writeEndObject();
+    }
+
     public static Builder builder(String name) {
         return new Builder(name);
     }
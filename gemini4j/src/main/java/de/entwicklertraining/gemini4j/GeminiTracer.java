@@ -0,0 +1,30 @@
+package de.entwicklertraining.gemini4j;
+
+/**
+ * Creates the root span of every chat completion, see {@link GeminiClient#setTracer} and
+ * {@link GeminiSpan} for the span hierarchy. An adapter to a tracing library implements this
+ * interface and {@link GeminiSpan} by delegating to the library's tracer and spans, like
+ * {@code GeminiOpenTelemetryTracer} of the gemini4j-opentelemetry module does for OpenTelemetry;
+ * {@link GeminiInMemoryTracer} keeps the spans for tests.
+ */
+public interface GeminiTracer {
+
+    /**
+     * Creates {@link GeminiSpan#NOOP} spans; the default of every client.
+     */
+    GeminiTracer NOOP = name -> GeminiSpan.NOOP;
+
+    /**
+     * Starts a span without parent.
+     */
+    GeminiSpan startSpan(String name);
+
+    /**
+     * Binds {@code task} to the tracing context of the calling thread, so a request that
+     * {@code executeAsync()} runs on another thread joins the caller's trace like a synchronous one.
+     * By default, the task is returned as is.
+     */
+    default Runnable captureContext(Runnable task) {
+        return task;
+    }
+}
@@ -0,0 +1,19 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+
+import java.util.Objects;
+
+/**
+ * One prompt of a batch job.
+ *
+ * @param key     the caller's ID of the prompt; the result carries the same key
+ * @param request the generateContent request; tools are declared, but their callbacks are not run
+ */
+public record GeminiBatchEntry(String key, GeminiChatCompletionRequest request) {
+
+    public GeminiBatchEntry {
+        Objects.requireNonNull(key, "key must not be null");
+        Objects.requireNonNull(request, "request must not be null");
+    }
+}
@@ -0,0 +1,44 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Writes the JSONL input file of a batch job, one line per prompt:
+ * <pre>
+ * {"key":"prompt-1","request":{"contents":[...],"generationConfig":{...}}}
+ * </pre>
+ * The entries are pulled one by one from the iterator and streamed into the output,
+ * so a job of any size is written with constant memory.
+ */
+public final class GeminiBatchJsonl {
+
+    private GeminiBatchJsonl() {
+    }
+
+    /**
+     * @return the number of lines written
+     */
+    public static long write(Iterator<GeminiBatchEntry> entries, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.setRootValueSeparator(null);
+            while (entries.hasNext()) {
+                GeminiBatchEntry entry = entries.next();
+                gen.writeStartObject();
+                gen.writeStringField("key", entry.key());
+                gen.writeObjectFieldStart("request");
+                entry.request().writeFields(gen);
+                gen.writeEndObject();
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,273 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiRequestBuilderBase;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+import de.entwicklertraining.gemini4j.GeminiRequest;
+import de.entwicklertraining.gemini4j.files.GeminiFile;
+import de.entwicklertraining.gemini4j.files.GeminiFileUpload;
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A request against the Gemini batch endpoints (asynchronous generateContent at batch pricing):
+ * <pre>
+ * CREATE  POST   /v1beta/models/{model}:batchGenerateContent
+ * GET     GET    /v1beta/{name}
+ * CANCEL  POST   /v1beta/{name}:cancel
+ * DELETE  DELETE /v1beta/{name}
+ * </pre>
+ * CREATE refers to a JSONL input file of the Files API. If the builder is given entries instead
+ * ({@link Builder#requests(Iterable)}), {@code execute()} first streams them into a temporary
+ * JSONL file and uploads it, so not even the serialized prompts are held in memory.
+ */
+public final class GeminiBatchRequest extends GeminiRequest<GeminiBatchResponse> {
+
+    public enum Operation { CREATE, GET, CANCEL, DELETE }
+
+    private final GeminiClient client;
+    private final Operation operation;
+    private final String name;
+    private final String model;
+    private final String displayName;
+    private final String inputFile;
+
+    GeminiBatchRequest(
+            Builder builder,
+            GeminiClient client,
+            Operation operation,
+            String name,
+            String model,
+            String displayName,
+            String inputFile
+    ) {
+        super(builder);
+        this.client = client;
+        this.operation = operation;
+        this.name = name;
+        this.model = model;
+        this.displayName = displayName;
+        this.inputFile = inputFile;
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    /**
+     * @return the resource name ("batches/..."), null for CREATE
+     */
+    public String name() {
+        return name;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    /**
+     * @return the name of the JSONL input file ("files/..."), only for CREATE
+     */
+    public String inputFile() {
+        return inputFile;
+    }
+
+    @Override
+    public String getRelativeUrl() {
+        String url = switch (operation) {
+            case CREATE -> "/v1beta/models/" + model + ":batchGenerateContent";
+            case GET, DELETE -> "/v1beta/" + name;
+            case CANCEL -> "/v1beta/" + name + ":cancel";
+        };
+
+        // Add API key as query parameter if available
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "?key=" + client.getApiKey();
+        }
+        return url;
+    }
+
+    @Override
+    public String getHttpMethod() {
+        return switch (operation) {
+            case CREATE, CANCEL -> "POST";
+            case GET -> "GET";
+            case DELETE -> "DELETE";
+        };
+    }
+
+    @Override
+    public String getBody() {
+        if (operation != Operation.CREATE) {
+            return operation == Operation.CANCEL ? "{}" : "";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize request body", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        if (operation != Operation.CREATE) {
+            super.writeBody(out);
+            return;
+        }
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("batch");
+            if (displayName != null && !displayName.isBlank()) {
+                gen.writeStringField("display_name", displayName);
+            }
+            gen.writeObjectFieldStart("input_config");
+            gen.writeStringField("file_name", inputFile);
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    @Override
+    public GeminiBatchResponse createResponse(String responseBody) {
+        JSONObject json = responseBody == null || responseBody.isBlank() ? new JSONObject() : new JSONObject(responseBody);
+        return new GeminiBatchResponse(json, this);
+    }
+
+    public static Builder builder(GeminiClient client, Operation operation) {
+        return new Builder(client, operation);
+    }
+
+    public static final class Builder extends ApiRequestBuilderBase<Builder, GeminiBatchRequest> {
+        private final GeminiClient client;
+        private final Operation operation;
+        private String name;
+        private String model = "gemini-1.5-flash";
+        private String displayName;
+        private String inputFile;
+        private Supplier<Iterator<GeminiBatchEntry>> entries;
+
+        public Builder(GeminiClient client, Operation operation) {
+            this.client = client;
+            this.operation = Objects.requireNonNull(operation, "operation must not be null");
+        }
+
+        /**
+         * The resource name ("batches/...") for GET, CANCEL and DELETE.
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder model(String m) {
+            this.model = m;
+            return this;
+        }
+
+        public Builder displayName(String displayName) {
+            this.displayName = displayName;
+            return this;
+        }
+
+        /**
+         * Uses an already uploaded JSONL file ("files/...") as input.
+         */
+        public Builder inputFile(String inputFile) {
+            this.inputFile = inputFile;
+            return this;
+        }
+
+        /**
+         * The prompts of the job. They are iterated once, when {@code execute()} writes the input file.
+         */
+        public Builder requests(Iterable<GeminiBatchEntry> entries) {
+            Objects.requireNonNull(entries, "entries must not be null");
+            this.entries = entries::iterator;
+            return this;
+        }
+
+        /**
+         * Same as {@link #requests(Iterable)} for a lazily produced stream, e.g. read from a database cursor.
+         */
+        public Builder requests(Stream<GeminiBatchEntry> entries) {
+            Objects.requireNonNull(entries, "entries must not be null");
+            this.entries = entries::iterator;
+            return this;
+        }
+
+        public GeminiBatchRequest build() {
+            if (operation == Operation.CREATE && (inputFile == null || inputFile.isBlank())) {
+                throw new IllegalStateException("inputFile is required for CREATE (or use requests(...) and execute())");
+            }
+            if (operation != Operation.CREATE && (name == null || name.isBlank())) {
+                throw new IllegalStateException("name is required for " + operation);
+            }
+            return new GeminiBatchRequest(this, client, operation, name, model, displayName, inputFile);
+        }
+
+        @Override
+        public GeminiBatchResponse execute() {
+            uploadEntries();
+            return client.sendRequest(build());
+        }
+
+        @Override
+        public GeminiBatchResponse executeWithExponentialBackoff() {
+            uploadEntries();
+            return client.sendRequestWithExponentialBackoff(build());
+        }
+
+        /**
+         * Streams the entries into a temporary JSONL file, uploads it and uses it as input file.
+         */
+        private void uploadEntries() {
+            if (operation != Operation.CREATE || entries == null || inputFile != null) {
+                return;
+            }
+            Path jsonl = null;
+            try {
+                jsonl = Files.createTempFile("gemini4j-batch-", ".jsonl");
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(jsonl), 64 * 1024)) {
+                    GeminiBatchJsonl.write(entries.get(), out);
+                }
+                GeminiFile file = GeminiFileUpload.builder(client, jsonl)
+                        .mimeType("application/jsonl")
+                        .displayName(displayName != null ? displayName + ".jsonl" : null)
+                        .useCache(false)
+                        .execute();
+                this.inputFile = file.name();
+            } catch (IOException e) {
+                throw new ApiClient.ApiClientException("Failed to write batch input: " + e.getMessage(), e);
+            } finally {
+                if (jsonl != null) {
+                    try {
+                        Files.deleteIfExists(jsonl);
+                    } catch (IOException ignored) {
+                        // only a temporary file
+                    }
+                }
+            }
+        }
+    }
+}
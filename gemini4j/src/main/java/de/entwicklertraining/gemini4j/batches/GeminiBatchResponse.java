@@ -0,0 +1,112 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import de.entwicklertraining.gemini4j.GeminiResponse;
+import org.json.JSONObject;
+
+/**
+ * Wraps a batch job as returned by the batch endpoints. Depending on the endpoint the job is
+ * either the plain resource or a long-running operation around it, e.g.:
+ * <pre>
+ * {
+ *   "name": "batches/123",
+ *   "metadata": {
+ *     "model": "models/gemini-1.5-flash",
+ *     "displayName": "nightly",
+ *     "state": "BATCH_STATE_SUCCEEDED",
+ *     "batchStats": { "requestCount": "2", "successfulRequestCount": "2" },
+ *     "output": { "responsesFile": "files/batch-123-output" }
+ *   },
+ *   "done": true
+ * }
+ * </pre>
+ * The accessors look at both shapes.
+ */
+public final class GeminiBatchResponse extends GeminiResponse<GeminiBatchRequest> {
+
+    public GeminiBatchResponse(JSONObject json, GeminiBatchRequest request) {
+        super(json, request);
+    }
+
+    private JSONObject batch() {
+        JSONObject metadata = getJson().optJSONObject("metadata");
+        return metadata != null ? metadata : getJson();
+    }
+
+    /**
+     * @return the resource name ("batches/...")
+     */
+    public String name() {
+        String name = getJson().optString("name", null);
+        return name != null ? name : batch().optString("name", null);
+    }
+
+    public String displayName() {
+        return batch().optString("displayName", null);
+    }
+
+    public String model() {
+        return batch().optString("model", null);
+    }
+
+    /**
+     * @return e.g. BATCH_STATE_PENDING, BATCH_STATE_RUNNING or BATCH_STATE_SUCCEEDED
+     */
+    public String state() {
+        return batch().optString("state", null);
+    }
+
+    /**
+     * @return true once the job will not change anymore (succeeded, failed, cancelled or expired)
+     */
+    public boolean isDone() {
+        String state = state();
+        if (state == null) {
+            return getJson().optBoolean("done", false);
+        }
+        return switch (state) {
+            case "BATCH_STATE_SUCCEEDED", "BATCH_STATE_FAILED", "BATCH_STATE_CANCELLED", "BATCH_STATE_EXPIRED" -> true;
+            default -> false;
+        };
+    }
+
+    public boolean isSucceeded() {
+        return "BATCH_STATE_SUCCEEDED".equals(state());
+    }
+
+    /**
+     * @return the JSONL file with the results ("files/..."), null until the job has succeeded
+     */
+    public String responsesFile() {
+        JSONObject output = batch().optJSONObject("output");
+        if (output != null && output.has("responsesFile")) {
+            return output.getString("responsesFile");
+        }
+        JSONObject response = getJson().optJSONObject("response");
+        if (response != null && response.has("responsesFile")) {
+            return response.getString("responsesFile");
+        }
+        return null;
+    }
+
+    public long requestCount() {
+        return stat("requestCount");
+    }
+
+    public long successfulRequestCount() {
+        return stat("successfulRequestCount");
+    }
+
+    public long failedRequestCount() {
+        return stat("failedRequestCount");
+    }
+
+    public long pendingRequestCount() {
+        return stat("pendingRequestCount");
+    }
+
+    private long stat(String field) {
+        JSONObject stats = batch().optJSONObject("batchStats");
+        // int64 values are sent as strings in the protobuf JSON format
+        return stats == null ? 0 : stats.optLong(field, 0);
+    }
+}
@@ -0,0 +1,18 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import org.json.JSONObject;
+
+/**
+ * The result of one prompt of a batch job.
+ *
+ * @param key      the key of the {@link GeminiBatchEntry}
+ * @param response the generateContent response, null if the prompt failed
+ * @param error    the error status ({"code": ..., "message": ...}), null if the prompt succeeded
+ */
+public record GeminiBatchResult(String key, GeminiChatCompletionResponse response, JSONObject error) {
+
+    public boolean isSuccess() {
+        return response != null;
+    }
+}
@@ -0,0 +1,121 @@
+package de.entwicklertraining.gemini4j.batches;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the results of a batch job from its JSONL responses file, one line at a time:
+ * <pre>
+ * {"key":"prompt-1","response":{"candidates":[...],"usageMetadata":{...}}}
+ * {"key":"prompt-2","error":{"code":400,"message":"..."}}
+ * </pre>
+ * Only the current line is held in memory. Must be closed (try-with-resources) to release the connection.
+ */
+public final class GeminiBatchResults implements Iterator<GeminiBatchResult>, AutoCloseable {
+
+    private final BufferedReader reader;
+    private final GeminiChatCompletionRequest template;
+    private GeminiBatchResult next;
+
+    GeminiBatchResults(InputStream in, GeminiChatCompletionRequest template) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.template = template;
+    }
+
+    /**
+     * Opens the responses file ("files/...") of a finished job.
+     *
+     * @param model the model of the job; the responses are bound to a request of it, so that
+     *              {@code convertTo()} etc. work
+     */
+    public static GeminiBatchResults open(GeminiClient client, String responsesFile, String model) {
+        String url = "/download/v1beta/" + responsesFile + ":download?alt=media";
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "&key=" + client.getApiKey();
+        }
+        HttpRequest request = HttpRequest.newBuilder(client.resolve(url)).GET().build();
+        HttpResponse<InputStream> response = client.sendHttpRequest(request, HttpResponse.BodyHandlers.ofInputStream());
+        GeminiChatCompletionRequest template = client.chat().completion()
+                .model(model.startsWith("models/") ? model.substring("models/".length()) : model)
+                .build();
+        return new GeminiBatchResults(response.body(), template);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+            } while (line.isBlank());
+            next = parse(new JSONObject(line));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read batch results", e);
+        }
+    }
+
+    @Override
+    public GeminiBatchResult next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        GeminiBatchResult result = next;
+        next = null;
+        return result;
+    }
+
+    private GeminiBatchResult parse(JSONObject line) {
+        String key = line.optString("key", null);
+        if (key == null) {
+            throw new ApiClient.ApiResponseUnusableException("Batch result line without key: " + line);
+        }
+        JSONObject response = line.optJSONObject("response");
+        if (response != null) {
+            return new GeminiBatchResult(key, new GeminiChatCompletionResponse(response, template), null);
+        }
+        JSONObject error = line.optJSONObject("error");
+        return new GeminiBatchResult(key, null, error != null ? error : new JSONObject());
+    }
+
+    /**
+     * @return the remaining results as a sequential stream; closing the stream closes this reader
+     */
+    public Stream<GeminiBatchResult> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close batch results", e);
+        }
+    }
+}
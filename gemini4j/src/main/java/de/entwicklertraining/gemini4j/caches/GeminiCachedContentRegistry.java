@@ -0,0 +1,266 @@
+package de.entwicklertraining.gemini4j.caches;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local registry that maps the fingerprint of a prompt prefix to the cachedContents
+ * resource holding it, so a large system instruction or document set is uploaded once
+ * and afterwards only referred to by name.
+ *
+ * {@link #resolve} looks the prefix up by the SHA-256 of its model, system instruction,
+ * contents and tools. A known entry is returned as it is while it is valid, its TTL is
+ * extended when it is about to expire (within {@code renewBefore}), and it is created again
+ * if it has expired or the server no longer knows it.
+ *
+ * Thread-safe; concurrent calls for the same prefix wait for each other, so a prefix is
+ * created only once. Calls for different prefixes do not block each other. The waiting uses
+ * a {@link ReentrantLock} per prefix, so virtual threads blocked on a create or renew call
+ * do not pin their carrier thread.
+ *
+ * At most {@code maxEntries} prefixes are kept; beyond that, expired entries are dropped
+ * first, then the ones expiring soonest.
+ */
+public final class GeminiCachedContentRegistry {
+
+    private static final Duration DEFAULT_RENEW_BEFORE = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * A cached prefix as known locally.
+     *
+     * @param name       the resource name ("cachedContents/...")
+     * @param expireTime when the server drops it
+     */
+    public record CacheHandle(String name, Instant expireTime) {
+    }
+
+    /**
+     * One slot per fingerprint; its lock serializes create/renew for that prefix.
+     */
+    private static final class Slot {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile CacheHandle handle;
+    }
+
+    private final GeminiClient client;
+    private final Duration renewBefore;
+    private final Clock clock;
+    private final int maxEntries;
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    public GeminiCachedContentRegistry(GeminiClient client) {
+        this(client, DEFAULT_RENEW_BEFORE, Clock.systemUTC());
+    }
+
+    /**
+     * @param renewBefore entries expiring within this duration are renewed before they are handed out
+     * @param clock       the time source, e.g. a fixed clock in tests
+     */
+    public GeminiCachedContentRegistry(GeminiClient client, Duration renewBefore, Clock clock) {
+        this(client, renewBefore, clock, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the number of prefixes kept locally before the oldest are forgotten
+     */
+    public GeminiCachedContentRegistry(GeminiClient client, Duration renewBefore, Clock clock, int maxEntries) {
+        this.client = Objects.requireNonNull(client, "client must not be null");
+        this.renewBefore = Objects.requireNonNull(renewBefore, "renewBefore must not be null");
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the name of a cached content holding the prefix of {@code createRequest},
+     * creating or renewing it only if necessary. The TTL of {@code createRequest}
+     * is used for creating and for renewing.
+     *
+     * @param createRequest a CREATE request describing the prefix
+     * @return the resource name for {@code GeminiChatCompletionRequest.Builder#cachedContent(String)}
+     */
+    public String resolve(GeminiCachedContentRequest createRequest) {
+        if (createRequest.operation() != GeminiCachedContentRequest.Operation.CREATE) {
+            throw new IllegalArgumentException("resolve() expects a CREATE request, got " + createRequest.operation());
+        }
+        String fingerprint = fingerprint(createRequest);
+        Slot slot = lockSlot(fingerprint);
+        try {
+            Instant now = clock.instant();
+            CacheHandle handle = slot.handle;
+
+            if (handle != null && handle.expireTime() != null && now.isBefore(handle.expireTime())) {
+                if (now.isBefore(handle.expireTime().minus(renewBefore))) {
+                    return handle.name();
+                }
+                CacheHandle renewed = renew(handle, createRequest);
+                if (renewed != null) {
+                    slot.handle = renewed;
+                    return renewed.name();
+                }
+            }
+
+            try {
+                slot.handle = create(createRequest);
+            } catch (RuntimeException e) {
+                slot.handle = null;
+                slots.remove(fingerprint, slot);
+                throw e;
+            }
+            return slot.handle.name();
+        } finally {
+            slot.lock.unlock();
+            if (slots.size() > maxEntries) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * Locks the slot of {@code fingerprint}. A slot that was removed while this thread waited for
+     * its lock (a failed create, {@link #invalidate} or eviction) is not used, the next caller
+     * would not see its handle; a fresh slot is taken instead.
+     */
+    private Slot lockSlot(String fingerprint) {
+        while (true) {
+            Slot slot = slots.computeIfAbsent(fingerprint, k -> new Slot());
+            slot.lock.lock();
+            if (slots.get(fingerprint) == slot) {
+                return slot;
+            }
+            slot.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the locally known handle of the prefix, without contacting the server
+     */
+    public Optional<CacheHandle> lookup(GeminiCachedContentRequest createRequest) {
+        Slot slot = slots.get(fingerprint(createRequest));
+        return slot == null ? Optional.empty() : Optional.ofNullable(slot.handle);
+    }
+
+    /**
+     * Forgets the prefix locally, e.g. after deleting it on the server.
+     */
+    public void invalidate(GeminiCachedContentRequest createRequest) {
+        slots.remove(fingerprint(createRequest));
+    }
+
+    /**
+     * Forgets all prefixes locally; the cached contents on the server are left untouched.
+     */
+    public void clear() {
+        slots.clear();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Drops expired prefixes and, if still above {@code maxEntries}, the ones expiring soonest.
+     * Slots whose handle is still being created are left alone.
+     */
+    private void evict() {
+        Instant now = clock.instant();
+        slots.values().removeIf(slot -> {
+            CacheHandle handle = slot.handle;
+            return handle != null && handle.expireTime() != null && !now.isBefore(handle.expireTime());
+        });
+        int excess = slots.size() - maxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        slots.entrySet().stream()
+                .filter(e -> e.getValue().handle != null)
+                .sorted(Comparator.comparing(e -> expireTimeOrMax(e.getValue().handle)))
+                .limit(excess)
+                .toList()
+                .forEach(e -> slots.remove(e.getKey(), e.getValue()));
+    }
+
+    private static Instant expireTimeOrMax(CacheHandle handle) {
+        return handle == null || handle.expireTime() == null ? Instant.MAX : handle.expireTime();
+    }
+
+    private CacheHandle create(GeminiCachedContentRequest createRequest) {
+        GeminiCachedContentResponse response = client.sendRequest(createRequest);
+        if (response.name() == null) {
+            throw new ApiClient.ApiResponseUnusableException("cachedContents.create returned no name: " + response.getJson());
+        }
+        return new CacheHandle(response.name(), expireTimeOf(response, createRequest));
+    }
+
+    /**
+     * @return the renewed handle, or null if the server no longer knows the cached content
+     */
+    private CacheHandle renew(CacheHandle handle, GeminiCachedContentRequest createRequest) {
+        GeminiCachedContentRequest update = GeminiCachedContentRequest.builder(client, GeminiCachedContentRequest.Operation.UPDATE)
+                .name(handle.name())
+                .ttl(createRequest.ttl() != null ? createRequest.ttl() : Duration.ofHours(1))
+                .maxExecutionTimeInSeconds(createRequest.getMaxExecutionTimeInSeconds())
+                .build();
+        try {
+            GeminiCachedContentResponse response = client.sendRequest(update);
+            return new CacheHandle(handle.name(), expireTimeOf(response, update));
+        } catch (ApiClient.HTTP_404_NotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Takes the "expireTime" of the server; if it is missing, it is derived from the requested TTL
+     * (or the server default of one hour).
+     */
+    private Instant expireTimeOf(GeminiCachedContentResponse response, GeminiCachedContentRequest request) {
+        Instant expireTime = response.expireTime();
+        if (expireTime != null) {
+            return expireTime;
+        }
+        return clock.instant().plus(request.ttl() != null ? request.ttl() : Duration.ofHours(1));
+    }
+
+    /**
+     * Hashes the prefix while it is serialized, without building the JSON as a String.
+     */
+    static String fingerprint(GeminiCachedContentRequest createRequest) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest);
+             JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            createRequest.writeContentFields(gen);
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint cached content", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,334 @@
+package de.entwicklertraining.gemini4j.caches;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.api.base.ApiRequestBuilderBase;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+import de.entwicklertraining.gemini4j.GeminiRequest;
+import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A request against the Gemini cachedContents endpoints:
+ * <pre>
+ * CREATE  POST   /v1beta/cachedContents
+ * GET     GET    /v1beta/{name}
+ * UPDATE  PATCH  /v1beta/{name}?updateMask=ttl
+ * DELETE  DELETE /v1beta/{name}
+ * </pre>
+ * A cached content holds a large, repeated prompt prefix (system instruction, documents, tools)
+ * on the server, so that chat completion requests only refer to it by name
+ * (see {@code GeminiChatCompletionRequest.Builder#cachedContent(String)}).
+ *
+ * api-base only knows GET, POST and DELETE, so UPDATE is sent as POST with
+ * "X-HTTP-Method-Override: PATCH", which Google APIs accept.
+ */
+public final class GeminiCachedContentRequest extends GeminiRequest<GeminiCachedContentResponse> {
+
+    public enum Operation { CREATE, GET, UPDATE, DELETE }
+
+    private final GeminiClient client;
+    private final Operation operation;
+    private final String name;
+    private final String model;
+    private final String displayName;
+    private final String systemInstruction;
+    private final List<JSONObject> messages;
+    private final List<GeminiToolDefinition> tools;
+    private final Duration ttl;
+
+    GeminiCachedContentRequest(
+            Builder builder,
+            GeminiClient client,
+            Operation operation,
+            String name,
+            String model,
+            String displayName,
+            String systemInstruction,
+            List<JSONObject> messages,
+            List<GeminiToolDefinition> tools,
+            Duration ttl
+    ) {
+        super(builder);
+        this.client = client;
+        this.operation = operation;
+        this.name = name;
+        this.model = model;
+        this.displayName = displayName;
+        this.systemInstruction = systemInstruction;
+        this.messages = messages;
+        this.tools = tools;
+        this.ttl = ttl;
+        if (operation == Operation.UPDATE) {
+            setHeader("X-HTTP-Method-Override", "PATCH");
+        }
+    }
+
+    public Operation operation() {
+        return operation;
+    }
+
+    /**
+     * @return the resource name ("cachedContents/..."), null for CREATE
+     */
+    public String name() {
+        return name;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public String displayName() {
+        return displayName;
+    }
+
+    public String systemInstruction() {
+        return systemInstruction;
+    }
+
+    public List<JSONObject> messages() {
+        return messages;
+    }
+
+    public List<GeminiToolDefinition> tools() {
+        return tools;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    @Override
+    public String getRelativeUrl() {
+        String url = operation == Operation.CREATE ? "/v1beta/cachedContents" : "/v1beta/" + name;
+        char separator = '?';
+        if (operation == Operation.UPDATE) {
+            url += "?updateMask=ttl";
+            separator = '&';
+        }
+
+        // Add API key as query parameter if available
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += separator + "key=" + client.getApiKey();
+        }
+        return url;
+    }
+
+    @Override
+    public String getHttpMethod() {
+        return switch (operation) {
+            case CREATE, UPDATE -> "POST";
+            case GET -> "GET";
+            case DELETE -> "DELETE";
+        };
+    }
+
+    @Override
+    public String getBody() {
+        if (operation == Operation.GET || operation == Operation.DELETE) {
+            return "";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize request body", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            if (operation == Operation.CREATE) {
+                writeContentFields(gen);
+                if (displayName != null && !displayName.isBlank()) {
+                    gen.writeStringField("displayName", displayName);
+                }
+            }
+            if (ttl != null) {
+                gen.writeStringField("ttl", formatTtl(ttl));
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes everything that makes up the cached prefix: model, system instruction, contents and tools.
+     * TTL and display name are left out, so this is also what {@link GeminiCachedContentRegistry}
+     * fingerprints.
+     */
+    void writeContentFields(JsonGenerator gen) throws IOException {
+        gen.writeStringField("model", model.startsWith("models/") ? model : "models/" + model);
+
+        if (systemInstruction != null && !systemInstruction.isBlank()) {
+            gen.writeObjectFieldStart("systemInstruction");
+            gen.writeStringField("role", "user");
+            gen.writeArrayFieldStart("parts");
+            gen.writeStartObject();
+            gen.writeStringField("text", systemInstruction);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
+        }
+
+        if (!messages.isEmpty()) {
+            gen.writeArrayFieldStart("contents");
+            for (JSONObject message : messages) {
+                GeminiJsonWriter.writeObject(gen, message);
+            }
+            gen.writeEndArray();
+        }
+
+        if (!tools.isEmpty()) {
+            gen.writeArrayFieldStart("tools");
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("functionDeclarations");
+            for (GeminiToolDefinition def : tools) {
+                def.writeJson(gen);
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * Gemini expects durations in the protobuf JSON format, e.g. "3600s" or "1.5s".
+     */
+    static String formatTtl(Duration ttl) {
+        if (ttl.getNano() == 0) {
+            return ttl.getSeconds() + "s";
+        }
+        return ttl.toMillis() / 1000.0 + "s";
+    }
+
+    @Override
+    public GeminiCachedContentResponse createResponse(String responseBody) {
+        JSONObject json = responseBody == null || responseBody.isBlank() ? new JSONObject() : new JSONObject(responseBody);
+        return new GeminiCachedContentResponse(json, this);
+    }
+
+    public static Builder builder(GeminiClient client, Operation operation) {
+        return new Builder(client, operation);
+    }
+
+    public static final class Builder extends ApiRequestBuilderBase<Builder, GeminiCachedContentRequest> {
+        private final GeminiClient client;
+        private final Operation operation;
+        private String name;
+        private String model = "gemini-1.5-flash";
+        private String displayName;
+        private String systemInstruction;
+        private final List<JSONObject> messages = new ArrayList<>();
+        private final List<GeminiToolDefinition> tools = new ArrayList<>();
+        private Duration ttl;
+
+        public Builder(GeminiClient client, Operation operation) {
+            this.client = client;
+            this.operation = Objects.requireNonNull(operation, "operation must not be null");
+        }
+
+        /**
+         * The resource name ("cachedContents/...") for GET, UPDATE and DELETE.
+         */
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder model(String m) {
+            this.model = m;
+            return this;
+        }
+
+        public Builder displayName(String displayName) {
+            this.displayName = displayName;
+            return this;
+        }
+
+        public Builder systemInstruction(String instruction) {
+            this.systemInstruction = instruction;
+            return this;
+        }
+
+        public Builder addMessage(String role, String text) {
+            JSONObject msg = new JSONObject();
+            msg.put("role", role);
+            msg.put("parts", new JSONArray().put(new JSONObject().put("text", text)));
+            messages.add(msg);
+            return this;
+        }
+
+        public Builder addAllMessages(List<JSONObject> msgList) {
+            this.messages.addAll(msgList);
+            return this;
+        }
+
+        public Builder addTool(GeminiToolDefinition t) {
+            this.tools.add(t);
+            return this;
+        }
+
+        public Builder tools(List<GeminiToolDefinition> t) {
+            this.tools.addAll(t);
+            return this;
+        }
+
+        /**
+         * How long the server keeps the cached content; required for UPDATE,
+         * optional for CREATE (the server default is one hour).
+         */
+        public Builder ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public GeminiCachedContentRequest build() {
+            if (operation != Operation.CREATE && (name == null || name.isBlank())) {
+                throw new IllegalStateException("name is required for " + operation);
+            }
+            if (operation == Operation.UPDATE && ttl == null) {
+                throw new IllegalStateException("ttl is required for UPDATE");
+            }
+            if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+                throw new IllegalArgumentException("ttl must be positive");
+            }
+            return new GeminiCachedContentRequest(
+                    this,
+                    client,
+                    operation,
+                    name,
+                    model,
+                    displayName,
+                    systemInstruction,
+                    List.copyOf(messages),
+                    List.copyOf(tools),
+                    ttl
+            );
+        }
+
+        @Override
+        public GeminiCachedContentResponse execute() {
+            return client.sendRequest(build());
+        }
+
+        @Override
+        public GeminiCachedContentResponse executeWithExponentialBackoff() {
+            return client.sendRequestWithExponentialBackoff(build());
+        }
+    }
+}
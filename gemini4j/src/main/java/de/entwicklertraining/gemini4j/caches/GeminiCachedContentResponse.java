@@ -0,0 +1,63 @@
+package de.entwicklertraining.gemini4j.caches;
+
+import de.entwicklertraining.gemini4j.GeminiResponse;
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Wraps a CachedContent resource as returned by the cachedContents endpoints, e.g.:
+ * {
+ *   "name": "cachedContents/abc123",
+ *   "model": "models/gemini-1.5-flash-001",
+ *   "expireTime": "2025-01-01T12:00:00.123456Z",
+ *   "usageMetadata": { "totalTokenCount": 100123 }
+ * }
+ * DELETE answers with an empty object.
+ */
+public final class GeminiCachedContentResponse extends GeminiResponse<GeminiCachedContentRequest> {
+
+    public GeminiCachedContentResponse(JSONObject json, GeminiCachedContentRequest request) {
+        super(json, request);
+    }
+
+    /**
+     * @return the resource name ("cachedContents/..."), to be passed to
+     *         {@code GeminiChatCompletionRequest.Builder#cachedContent(String)}
+     */
+    public String name() {
+        return getJson().optString("name", null);
+    }
+
+    public String model() {
+        return getJson().optString("model", null);
+    }
+
+    public String displayName() {
+        return getJson().optString("displayName", null);
+    }
+
+    /**
+     * @return when the server drops the cached content, or null if the response has no (valid) "expireTime"
+     */
+    public Instant expireTime() {
+        String value = getJson().optString("expireTime", null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of cached tokens, 0 if unknown
+     */
+    public int totalTokenCount() {
+        JSONObject usage = getJson().optJSONObject("usageMetadata");
+        return usage == null ? 0 : usage.optInt("totalTokenCount", 0);
+    }
+}
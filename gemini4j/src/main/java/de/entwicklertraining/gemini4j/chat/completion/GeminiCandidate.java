@@ -0,0 +1,36 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import java.util.List;
+
+/**
+ * One entry of "candidates" of a generateContent response.
+ *
+ * @param index         the candidate index
+ * @param role          "model" in practice, null if the candidate had no content
+ * @param parts         the content parts in order, empty if there were none
+ * @param finishReason  e.g. "STOP", "MAX_TOKENS", "SAFETY", or null
+ * @param refusal       the "content.refusal" text, or null
+ * @param safetyRatings the safety ratings, empty if there were none
+ * @param contentJson   the raw JSON of the "content" object, so it can be sent back in the
+ *                      next turn of a conversation without re-serializing; null if absent
+ */
+public record GeminiCandidate(
+        int index,
+        String role,
+        List<GeminiPart> parts,
+        String finishReason,
+        String refusal,
+        List<GeminiSafetyRating> safetyRatings,
+        String contentJson
+) {
+
+    /**
+     * @return the function calls among the parts, in order
+     */
+    public List<GeminiFunctionCall> functionCalls() {
+        return parts.stream()
+                .filter(GeminiPart::isFunctionCall)
+                .map(GeminiPart::functionCall)
+                .toList();
+    }
+}
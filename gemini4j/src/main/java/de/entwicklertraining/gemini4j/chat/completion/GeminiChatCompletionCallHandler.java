@@ -1,15 +1,34 @@
 package de.entwicklertraining.gemini4j.chat.completion;
 
 import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiRateLimiter;
+import de.entwicklertraining.gemini4j.GeminiMetricsListener;
+import de.entwicklertraining.gemini4j.GeminiServerSentEventReader;
+import de.entwicklertraining.gemini4j.GeminiSpan;
 import de.entwicklertraining.gemini4j.GeminiToolCallContext;
 import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import de.entwicklertraining.gemini4j.GeminiToolResult;
+import de.entwicklertraining.gemini4j.GeminiToolsCallback;
 import de.entwicklertraining.api.base.ApiClient;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Similar to GptChatCompletionCallHandler, but adapted for Gemini.
@@ -27,8 +46,164 @@ public final class GeminiChatCompletionCallHandler {
     }
 
     public GeminiChatCompletionResponse handleRequest(GeminiChatCompletionRequest initialRequest, boolean useExponentialBackoff) {
-        // Copy the initial messages and tools
-        List<JSONObject> messages = new ArrayList<>(initialRequest.messages());
+        Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender = request -> useExponentialBackoff
+                ? client.sendRequestWithExponentialBackoff(request)
+                : client.sendRequest(request);
+        return runConversation(initialRequest, withResponseCache(withCoalescing(withHedging(sender))));
+    }
+
+    /**
+     * If the client has a response cache, deterministic turns are looked up there first
+     * and successful answers are stored.
+     */
+    private Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> withResponseCache(
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        GeminiResponseCache cache = client.getResponseCache();
+        if (cache == null) {
+            return sender;
+        }
+        return request -> {
+            if (!request.useResponseCache() || !request.isDeterministic()) {
+                return sender.apply(request);
+            }
+            String key = GeminiResponseCache.keyOf(request);
+            var cached = cache.get(key);
+            if (cached.isPresent()) {
+                return new GeminiChatCompletionResponse(cached.get(), request);
+            }
+            GeminiChatCompletionResponse response = sender.apply(request);
+            if (!response.hasError()) {
+                cache.put(key, response.body());
+            }
+            return response;
+        };
+    }
+
+    /**
+     * If the client has a request coalescer, identical turns in flight at the same time share one call.
+     */
+    private Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> withCoalescing(
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        GeminiRequestCoalescer coalescer = client.getRequestCoalescer();
+        if (coalescer == null) {
+            return sender;
+        }
+        return request -> coalescer.execute(request, sender);
+    }
+
+    /**
+     * If the client has a hedging policy, slow turns get a duplicate call and the first answer wins.
+     */
+    private Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> withHedging(
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        GeminiHedgingPolicy policy = client.getHedgingPolicy();
+        if (policy == null) {
+            return sender;
+        }
+        return request -> policy.execute(request.model(), aborted -> sender.apply(request.abortableBy(aborted)));
+    }
+
+    /**
+     * If the client has a rate limiter, every streamed turn first waits for its request and estimated
+     * prompt tokens; the estimate is corrected with the usage the server reports, or refunded if the
+     * turn fails. Non-streaming calls are limited per HTTP attempt in {@code GeminiClient#runRequest}.
+     */
+    private Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> withRateLimit(
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        GeminiRateLimiter limiter = client.getRateLimiter();
+        if (limiter == null) {
+            return sender;
+        }
+        return request -> {
+            GeminiRateLimiter.Permit permit = limiter.acquire(request);
+            GeminiChatCompletionResponse response;
+            try {
+                response = sender.apply(request);
+            } catch (RuntimeException e) {
+                permit.reconcile(0);
+                throw e;
+            }
+            GeminiUsageMetadata usage = response.usageMetadata();
+            if (usage != null) {
+                permit.reconcile(usage.promptTokenCount());
+            }
+            return response;
+        };
+    }
+
+    /**
+     * Same as {@link #handleRequest}, but every model turn is sent to streamGenerateContent.
+     * Text deltas are handed to {@code onTextDelta} as soon as they arrive; the returned
+     * response contains the merged content of the final turn.
+     */
+    public GeminiChatCompletionResponse handleStreamingRequest(GeminiChatCompletionRequest initialRequest, Consumer<String> onTextDelta) {
+        return runConversation(initialRequest, withRateLimit(request -> streamTurn(request, onTextDelta)));
+    }
+
+    /**
+     * Runs the conversation and reports the request, every turn and its token usage
+     * to the metrics listener and the tracer of the client. Spans:
+     * {@code gemini.request} with one {@code gemini.turn} per model turn and one
+     * {@code gemini.tool} per tool invocation below it.
+     */
+    private GeminiChatCompletionResponse runConversation(
+            GeminiChatCompletionRequest initialRequest,
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        GeminiMetricsListener metrics = client.getMetricsListener();
+        String model = initialRequest.model();
+        GeminiSpan requestSpan = client.getTracer().startSpan("gemini.request");
+        requestSpan.setAttribute("gemini.model", model);
+        int[] turns = {0};
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            GeminiChatCompletionResponse response = converse(initialRequest, requestSpan, request -> {
+                int turn = ++turns[0];
+                GeminiSpan turnSpan = requestSpan.startChild("gemini.turn");
+                turnSpan.setAttribute("gemini.model", model);
+                turnSpan.setAttribute("gemini.turn", turn);
+                long turnStart = System.nanoTime();
+                try {
+                    GeminiChatCompletionResponse turnResponse = sender.apply(request);
+                    metrics.onTurn(model, turn, System.nanoTime() - turnStart);
+                    GeminiUsageMetadata usage = turnResponse.usageMetadata();
+                    if (usage != null) {
+                        metrics.onTokens(model, usage.promptTokenCount(), usage.candidatesTokenCount(), usage.totalTokenCount());
+                        turnSpan.setAttribute("gemini.usage.prompt_tokens", usage.promptTokenCount());
+                        turnSpan.setAttribute("gemini.usage.candidates_tokens", usage.candidatesTokenCount());
+                    }
+                    return turnResponse;
+                } catch (RuntimeException e) {
+                    turnSpan.recordException(e);
+                    throw e;
+                } finally {
+                    turnSpan.end();
+                }
+            });
+            success = true;
+            return response;
+        } catch (RuntimeException e) {
+            requestSpan.recordException(e);
+            throw e;
+        } finally {
+            metrics.onRequest(model, turns[0], System.nanoTime() - start, success);
+            requestSpan.setAttribute("gemini.turns", turns[0]);
+            requestSpan.end();
+        }
+    }
+
+    private GeminiChatCompletionResponse converse(
+            GeminiChatCompletionRequest initialRequest,
+            GeminiSpan requestSpan,
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        // The conversation is append-only; earlier turns keep their serialized JSON
+        GeminiConversation conversation = initialRequest.conversation();
         var toolMap = new HashMap<String, GeminiToolDefinition>();
         for (var t : initialRequest.tools()) {
             toolMap.put(t.name(), t);
@@ -42,23 +217,20 @@ public final class GeminiChatCompletionCallHandler {
             if (turnCount > MAX_TURNS) {
                 throw new ApiClient.ApiClientException("Exceeded maximum of " + MAX_TURNS + " Gemini call iterations without final stop.");
             }
+            if (Boolean.TRUE.equals(currentRequest.getIsCanceledSupplier().get())) {
+                throw new ApiClient.ApiTimeoutException("Request was canceled");
+            }
 
             // Send the request
-            GeminiChatCompletionResponse response;
-            if(useExponentialBackoff) {
-                response = client.sendRequestWithExponentialBackoff(currentRequest);
-            } else {
-                response = client.sendRequest(currentRequest);
-            }
+            GeminiChatCompletionResponse response = sender.apply(currentRequest);
 
             // Check if there's an "error" field in JSON => throw invalid request
-            if (response.getJson().has("error")) {
+            if (response.hasError()) {
                 throw new ApiClient.HTTP_400_RequestRejectedException(
                         "Gemini API returned an error: " + response.getJson().toString()
                 );
             }
 
-            String finishReason = response.finishReason();
             if (response.hasRefusal()) {
                 // If the model refused => final
                 return response;
@@ -66,7 +238,7 @@ public final class GeminiChatCompletionCallHandler {
 
             // Instead of 'tool_calls', Gemini provides function calls in: candidates[0].content.parts[i].functionCall
             // We'll gather them into a list
-            List<JSONObject> functionCalls = extractFunctionCalls(response.getJson());
+            List<GeminiFunctionCall> functionCalls = response.functionCalls();
 
             // Add the assistant/model message to the conversation
             // Because Gemini often uses "role":"model" (rather than "assistant")
@@ -84,119 +256,238 @@ public final class GeminiChatCompletionCallHandler {
 
             var parts = new JSONArray();
 
-            for (JSONObject fnCall : functionCalls) {
-                String toolName = fnCall.optString("name", null);
+            List<String> toolNames = new ArrayList<>(functionCalls.size());
+            List<JSONObject> toolArgs = new ArrayList<>(functionCalls.size());
+            for (GeminiFunctionCall fnCall : functionCalls) {
+                String toolName = fnCall.name();
                 if (toolName == null || !toolMap.containsKey(toolName)) {
                     throw new ApiClient.ApiResponseUnusableException("Unknown or missing tool name: " + toolName);
                 }
 
-                JSONObject args;
-                try {
-                    // The arguments are in "args" object
-                    args = fnCall.getJSONObject("args");
-                } catch (Exception e) {
+                // The arguments are in "args" object
+                JSONObject args = fnCall.args();
+                if (args == null) {
                     throw new ApiClient.ApiResponseUnusableException(
-                            "Failed to parse tool call arguments. " + e.getMessage()
+                            "Failed to parse tool call arguments. No \"args\" object in functionCall " + toolName
                     );
                 }
+                toolNames.add(toolName);
+                toolArgs.add(args);
+            }
 
-                // Run the callback
-                GeminiToolDefinition definition = toolMap.get(toolName);
-                var result = definition.callback().handle(new GeminiToolCallContext(args));
+            // Run the callbacks (sequentially, or fanned out if the request opted in)
+            List<GeminiToolResult> results = runToolCallbacks(currentRequest, toolMap, toolNames, toolArgs, requestSpan, turnCount);
 
+            for (int i = 0; i < toolNames.size(); i++) {
                 // Instead of a custom field like "content" or "tool_call_id",
                 // we add a new message with "role"="user" (or system) and
                 // a "parts" array containing the result text from the tool.
                 // This feeds the next iteration in the conversation with that info.
+                // The order matches the order of the functionCall parts.
 
                 parts.put(
                     new JSONObject()
                             .put("function_response", new JSONObject()
-                                    .put("name", toolName)
-                                    .put("response", result.content())
+                                    .put("name", toolNames.get(i))
+                                    .put("response", results.get(i).content())
                             )
                 );
-                //
             }
 
-            messages.add(
-                    response.getJson().getJSONArray("candidates").getJSONObject(0).getJSONObject("content")
-            );
-
             JSONObject toolResponse = new JSONObject()
                     .put("role", "user")
                     .put("parts", parts);
-            messages.add(toolResponse);
+            conversation = conversation
+                    .appendJson(response.firstCandidate().contentJson())
+                    .append(toolResponse);
 
-            // build the next request
-            currentRequest = buildNextRequest(initialRequest, messages);
+            // build the next request: same settings, only the conversation grows
+            currentRequest = initialRequest.withConversation(conversation);
         }
     }
 
     /**
-     * Extract function calls from the structure:
-     * {
-     *   "candidates":[
-     *     {
-     *       "content":{
-     *         "parts":[
-     *           {"functionCall": { "name":"...", "args":{...} }},
-     *           ...
-     *         ]
-     *       }
-     *     }
-     *   ]
-     * }
+     * Executes the tool callbacks of one model turn.
+     * Without toolConcurrency/toolTimeoutInSeconds the callbacks run one after another on
+     * the calling thread. Otherwise every callback gets its own virtual thread, at most
+     * {@code toolConcurrency} of them run at the same time, and each one is aborted after
+     * {@code toolTimeoutInSeconds}. The results are always returned in call order.
      */
-    private List<JSONObject> extractFunctionCalls(JSONObject responseJson) {
-        List<JSONObject> functionCalls = new ArrayList<>();
+    private List<GeminiToolResult> runToolCallbacks(
+            GeminiChatCompletionRequest request,
+            Map<String, GeminiToolDefinition> toolMap,
+            List<String> toolNames,
+            List<JSONObject> toolArgs,
+            GeminiSpan requestSpan,
+            int turn
+    ) {
+        int concurrency = request.toolConcurrency() != null ? Math.max(1, request.toolConcurrency()) : 1;
+        Integer timeoutInSeconds = request.toolTimeoutInSeconds();
+
+        List<GeminiToolResult> results = new ArrayList<>(toolNames.size());
+        if (concurrency == 1 && timeoutInSeconds == null) {
+            for (int i = 0; i < toolNames.size(); i++) {
+                String toolName = toolNames.get(i);
+                ToolInvocation invocation = new ToolInvocation(toolName, requestSpan, turn);
+                results.add(invokeTool(invocation, toolMap.get(toolName).callback(), toolArgs.get(i)));
+            }
+            return results;
+        }
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<GeminiToolResult>> futures = new ArrayList<>(toolNames.size());
         try {
-            JSONArray candidates = responseJson.getJSONArray("candidates");
-            JSONObject firstCandidate = candidates.getJSONObject(0);
-            JSONObject content = firstCandidate.getJSONObject("content");
-            JSONArray parts = content.getJSONArray("parts");
-            for (int i = 0; i < parts.length(); i++) {
-                JSONObject p = parts.getJSONObject(i);
-                if (p.has("functionCall")) {
-                    JSONObject fnCall = p.getJSONObject("functionCall");
-                    functionCalls.add(fnCall);
-                }
+            for (int i = 0; i < toolNames.size(); i++) {
+                String toolName = toolNames.get(i);
+                JSONObject arguments = toolArgs.get(i);
+                GeminiToolsCallback callback = toolMap.get(toolName).callback();
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    ToolInvocation invocation = new ToolInvocation(toolName, requestSpan, turn);
+                    return runWithTimeout(executor, toolName, () -> invokeTool(invocation, callback, arguments),
+                            timeoutInSeconds, permits::release, invocation::finish);
+                }));
             }
-        } catch (Exception e) {
-            // If it fails, we just return empty
+            for (Future<GeminiToolResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClient.ApiClientException("Interrupted while waiting for tool callbacks", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ApiClient.ApiClientException("Tool callback failed: " + cause.getMessage(), cause);
+        } finally {
+            // Don't wait for stragglers (e.g. callbacks that ignored the interrupt after a timeout)
+            executor.shutdownNow();
         }
-        return functionCalls;
     }
 
-    private GeminiChatCompletionRequest buildNextRequest(
-            GeminiChatCompletionRequest original, List<JSONObject> updatedMessages
+    /**
+     * The {@code gemini.tool} span and the metrics of one callback. They are finished once: when
+     * the callback returns or fails, or when its timeout hits first. In the latter case the span
+     * ends with the timeout, before the request span, even if the callback keeps running.
+     */
+    private final class ToolInvocation {
+        private final String toolName;
+        private final GeminiSpan span;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        ToolInvocation(String toolName, GeminiSpan requestSpan, int turn) {
+            this.toolName = toolName;
+            this.span = requestSpan.startChild("gemini.tool");
+            span.setAttribute("gemini.tool.name", toolName);
+            span.setAttribute("gemini.turn", turn);
+        }
+
+        /**
+         * @param error the failure, or null on success
+         */
+        void finish(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            client.getMetricsListener().onToolCall(toolName, System.nanoTime() - start, error == null);
+            if (error != null) {
+                span.recordException(error);
+            }
+            span.end();
+        }
+    }
+
+    /**
+     * Runs one callback in the span of its {@code invocation}, which the callback gets via
+     * {@link GeminiToolCallContext#span()} and which is {@link GeminiSpan#wrap current} while
+     * it runs, and reports its duration to the metrics listener.
+     */
+    private static GeminiToolResult invokeTool(
+            ToolInvocation invocation, GeminiToolsCallback callback, JSONObject arguments
     ) {
-        var builder = GeminiChatCompletionRequest.builder(client)
-                .model(original.model())
-                .maxExecutionTimeInSeconds(original.getMaxExecutionTimeInSeconds())
-                .setCancelSupplier(original.getIsCanceledSupplier())
-                .temperature(original.temperature())
-                .topK(original.topK())
-                .topP(original.topP())
-                .maxOutputTokens(original.maxOutputTokens())
-                .stopSequences(original.stopSequences())
-                .safetySettings(original.safetySettings())
-                .tools(original.tools())
-                .parallelToolCalls(original.parallelToolCalls())
-                .responseSchema(original.responseSchema())
-                .responseMimeType(original.responseMimeType())
-                .systemInstruction(original.systemInstruction())
-                .thinking(original.thinkingBudget())
-                .addAllMessages(updatedMessages);
-
-        // Übernehmen der captureOnSuccess / captureOnError
-        if (original.hasCaptureOnSuccess()) {
-            builder.captureOnSuccess(original.getCaptureOnSuccess());
+        try {
+            GeminiToolCallContext context = new GeminiToolCallContext(arguments, invocation.span);
+            GeminiToolResult result = invocation.span.wrap(() -> callback.handle(context)).get();
+            invocation.finish(null);
+            return result;
+        } catch (RuntimeException | Error e) {
+            invocation.finish(e);
+            throw e;
         }
-        if (original.hasCaptureOnError()) {
-            builder.captureOnError(original.getCaptureOnError());
+    }
+
+    /**
+     * Runs {@code task}, on its own thread if there is a timeout. {@code onFinished} runs once
+     * the task has actually ended: a callback that ignores the interrupt after a timeout keeps
+     * its concurrency permit until it returns. If the timeout hits before the task started,
+     * the task is skipped and {@code onFinished} runs right away. {@code onTimeout} gets the
+     * timeout exception before it is thrown.
+     */
+    private static GeminiToolResult runWithTimeout(
+            ExecutorService executor, String toolName, Callable<GeminiToolResult> task, Integer timeoutInSeconds,
+            Runnable onFinished, Consumer<Throwable> onTimeout
+    ) throws Exception {
+        if (timeoutInSeconds == null) {
+            try {
+                return task.call();
+            } finally {
+                onFinished.run();
+            }
+        }
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<GeminiToolResult> future = executor.submit(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null; // timed out before it started
+            }
+            try {
+                return task.call();
+            } finally {
+                onFinished.run();
+            }
+        });
+        try {
+            return future.get(timeoutInSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            if (claimed.compareAndSet(false, true)) {
+                onFinished.run();
+            }
+            ApiClient.ApiTimeoutException timeout = new ApiClient.ApiTimeoutException(
+                    "Tool '" + toolName + "' did not finish within " + timeoutInSeconds + " seconds", e);
+            onTimeout.accept(timeout);
+            throw timeout;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
 
-        return builder.build();
+    /**
+     * Sends one turn to streamGenerateContent and merges the server-sent events
+     * into a single response while forwarding the text deltas.
+     */
+    private GeminiChatCompletionResponse streamTurn(GeminiChatCompletionRequest request, Consumer<String> onTextDelta) {
+        var accumulator = new GeminiChatCompletionStreamAccumulator(onTextDelta);
+        try (var events = new GeminiServerSentEventReader(client.sendStreamingRequest(request, request.getStreamRelativeUrl()))) {
+            String data;
+            while ((data = events.nextEvent()) != null) {
+                if (Boolean.TRUE.equals(request.getIsCanceledSupplier().get())) {
+                    throw new ApiClient.ApiTimeoutException("Request was canceled");
+                }
+                if (data.isBlank()) {
+                    continue;
+                }
+                accumulator.accept(new JSONObject(data));
+            }
+        } catch (IOException e) {
+            throw new ApiClient.ApiClientException("Failed to read Gemini event stream: " + e.getMessage(), e);
+        }
+        return new GeminiChatCompletionResponse(accumulator.toResponseJson(), request);
     }
 }
@@ -1,19 +1,27 @@
 package de.entwicklertraining.gemini4j.chat.completion;
 
 import de.entwicklertraining.gemini4j.*;
+import de.entwicklertraining.gemini4j.files.GeminiFile;
 import de.entwicklertraining.api.base.ApiRequestBuilderBase;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * A request to call the Gemini generateContent endpoint:
@@ -37,7 +45,7 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
     private final Double topP;       // 0..1
     private final Integer maxOutputTokens; // up to 8192 or more
     private final List<String> stopSequences;
-    private final List<JSONObject> messages;
+    private final GeminiConversation conversation;
     private final List<GeminiToolDefinition> tools;
     private final List<GeminiSafetySetting> safetySettings;
     private final Boolean parallelToolCalls;
@@ -45,6 +53,11 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
     private final String responseMimeType;
     private final String systemInstruction;
     private final Integer thinkingBudget; // Budget for thinking feature, null means disabled
+    private final Integer toolConcurrency; // max. parallel tool callbacks per turn, null means sequential
+    private final Integer toolTimeoutInSeconds; // per tool callback, null means no timeout
+    private final String cachedContent; // name of a cachedContents resource, null means none
+    private final Integer seed;
+    private final boolean useResponseCache;
 
     GeminiChatCompletionRequest(
             Builder builder,
@@ -55,14 +68,19 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             Double topP,
             Integer maxOutputTokens,
             List<String> stopSequences,
-            List<JSONObject> messages,
+            GeminiConversation conversation,
             List<GeminiToolDefinition> tools,
             List<GeminiSafetySetting> safetySettings,
             Boolean parallelToolCalls,
             GeminiJsonSchema responseSchema,
             String responseMimeType,
             String systemInstruction,
-            Integer thinkingBudget
+            Integer thinkingBudget,
+            Integer toolConcurrency,
+            Integer toolTimeoutInSeconds,
+            String cachedContent,
+            Integer seed,
+            boolean useResponseCache
     ) {
         super(builder); // Neuer Parameter im Super-Konstruktor
         this.client = client;
@@ -72,7 +90,7 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         this.topP = topP;
         this.maxOutputTokens = maxOutputTokens;
         this.stopSequences = stopSequences;
-        this.messages = messages;
+        this.conversation = conversation;
         this.tools = tools;
         this.safetySettings = safetySettings;
         this.parallelToolCalls = parallelToolCalls;
@@ -80,6 +98,73 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         this.responseMimeType = responseMimeType;
         this.systemInstruction = systemInstruction;
         this.thinkingBudget = thinkingBudget;
+        this.toolConcurrency = toolConcurrency;
+        this.toolTimeoutInSeconds = toolTimeoutInSeconds;
+        this.cachedContent = cachedContent;
+        this.seed = seed;
+        this.useResponseCache = useResponseCache;
+    }
+
+    /**
+     * Copies all settings of {@code template}, but with another conversation.
+     * Used by the tool-call loop instead of rebuilding the request field by field.
+     */
+    private GeminiChatCompletionRequest(Builder builder, GeminiChatCompletionRequest template, GeminiConversation conversation) {
+        super(builder);
+        this.client = template.client;
+        this.model = template.model;
+        this.temperature = template.temperature;
+        this.topK = template.topK;
+        this.topP = template.topP;
+        this.maxOutputTokens = template.maxOutputTokens;
+        this.stopSequences = template.stopSequences;
+        this.conversation = conversation;
+        this.tools = template.tools;
+        this.safetySettings = template.safetySettings;
+        this.parallelToolCalls = template.parallelToolCalls;
+        this.responseSchema = template.responseSchema;
+        this.responseMimeType = template.responseMimeType;
+        this.systemInstruction = template.systemInstruction;
+        this.thinkingBudget = template.thinkingBudget;
+        this.toolConcurrency = template.toolConcurrency;
+        this.toolTimeoutInSeconds = template.toolTimeoutInSeconds;
+        this.cachedContent = template.cachedContent;
+        this.seed = template.seed;
+        this.useResponseCache = template.useResponseCache;
+    }
+
+    /**
+     * @return a request with the same settings (including timeout, cancel supplier and capture callbacks)
+     *         but the given conversation
+     */
+    GeminiChatCompletionRequest withConversation(GeminiConversation nextConversation) {
+        return copy(nextConversation, getIsCanceledSupplier());
+    }
+
+    /**
+     * @return a copy of this request that is also canceled once {@code aborted} returns true,
+     *         used to abort the losing attempt of a hedged call
+     */
+    GeminiChatCompletionRequest abortableBy(Supplier<Boolean> aborted) {
+        Supplier<Boolean> userCancelSupplier = getIsCanceledSupplier();
+        return copy(conversation, () -> aborted.get() || Boolean.TRUE.equals(userCancelSupplier.get()));
+    }
+
+    private GeminiChatCompletionRequest copy(GeminiConversation nextConversation, Supplier<Boolean> cancelSupplier) {
+        Builder builder = new Builder(client)
+                .maxExecutionTimeInSeconds(getMaxExecutionTimeInSeconds())
+                .setCancelSupplier(cancelSupplier);
+        if (hasCaptureOnSuccess()) {
+            builder.captureOnSuccess(getCaptureOnSuccess());
+        }
+        if (hasCaptureOnError()) {
+            builder.captureOnError(getCaptureOnError());
+        }
+        return new GeminiChatCompletionRequest(builder, this, nextConversation);
+    }
+
+    GeminiClient client() {
+        return client;
     }
 
     public String model() {
@@ -107,7 +192,11 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
     }
 
     public List<JSONObject> messages() {
-        return messages;
+        return conversation.messages();
+    }
+
+    GeminiConversation conversation() {
+        return conversation;
     }
 
     public List<GeminiToolDefinition> tools() {
@@ -138,6 +227,34 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         return thinkingBudget;
     }
 
+    public Integer toolConcurrency() {
+        return toolConcurrency;
+    }
+
+    public Integer toolTimeoutInSeconds() {
+        return toolTimeoutInSeconds;
+    }
+
+    public String cachedContent() {
+        return cachedContent;
+    }
+
+    public Integer seed() {
+        return seed;
+    }
+
+    public boolean useResponseCache() {
+        return useResponseCache;
+    }
+
+    /**
+     * @return true if the same request yields the same answer (temperature 0 or a fixed seed),
+     *         i.e. it may be answered from the client's {@link GeminiResponseCache}
+     */
+    public boolean isDeterministic() {
+        return (temperature != null && temperature == 0.0) || seed != null;
+    }
+
     public boolean isCaptureOnSuccess() {
         return false; // Capture functionality not available in current api-base version
     }
@@ -158,7 +275,21 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         
         return url;
     }
-    
+
+    /**
+     * The streaming counterpart of {@link #getRelativeUrl()}.
+     * "alt=sse" makes Gemini answer with server-sent events instead of one big JSON array.
+     */
+    public String getStreamRelativeUrl() {
+        String url = "/v1beta/models/" + model + ":streamGenerateContent?alt=sse";
+
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "&key=" + client.getApiKey();
+        }
+
+        return url;
+    }
+
 
     @Override
     public String getHttpMethod() {
@@ -167,76 +298,120 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
 
     @Override
     public String getBody() {
-        JSONObject root = new JSONObject();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize request body", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the metrics listener of the client, a no-op one without client
+     */
+    GeminiMetricsListener metrics() {
+        return client != null ? client.getMetricsListener() : GeminiMetricsListener.NOOP;
+    }
+
+    /**
+     * Streams the request body with a {@link JsonGenerator}, field by field.
+     * No intermediate JSONObject tree is built; messages that were already written by an
+     * earlier turn of the same conversation are copied from their cached JSON.
+     */
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            writeFields(gen);
+            gen.writeEndObject();
+        }
+    }
 
+    /**
+     * Writes the fields of the generateContent body into the currently open object.
+     * Shared with {@link GeminiCountTokensRequest}, which wraps them as "generateContentRequest",
+     * and with the JSONL input of batch jobs.
+     */
+    public void writeFields(JsonGenerator gen) throws IOException {
         // systemInstruction
         if (systemInstruction != null && !systemInstruction.isBlank()) {
-            JSONObject sysObj = new JSONObject();
-            sysObj.put("role", "user");
-            sysObj.put("parts", new JSONArray().put(new JSONObject().put("text", systemInstruction)));
-            root.put("systemInstruction", sysObj);
+            gen.writeObjectFieldStart("systemInstruction");
+            gen.writeStringField("role", "user");
+            gen.writeArrayFieldStart("parts");
+            gen.writeStartObject();
+            gen.writeStringField("text", systemInstruction);
+            gen.writeEndObject();
+            gen.writeEndArray();
+            gen.writeEndObject();
         }
 
+        // cachedContent: the prefix cached on the server is prepended to the contents
+        if (cachedContent != null && !cachedContent.isBlank()) {
+            gen.writeStringField("cachedContent", cachedContent);
+        }
 
         // contents: the conversation messages
-        JSONArray contentsArr = new JSONArray();
-        for (JSONObject msg : messages) {
-            contentsArr.put(msg);
-        }
-        root.put("contents", contentsArr);
+        gen.writeArrayFieldStart("contents");
+        conversation.writeTo(gen);
+        gen.writeEndArray();
 
         // safetySettings
         if (!safetySettings.isEmpty()) {
-            JSONArray arr = new JSONArray();
+            gen.writeArrayFieldStart("safetySettings");
             for (GeminiSafetySetting setting : safetySettings) {
-                JSONObject s = new JSONObject();
-                s.put("category", setting.category());
-                s.put("threshold", setting.threshold());
-                arr.put(s);
+                gen.writeStartObject();
+                gen.writeStringField("category", setting.category());
+                gen.writeStringField("threshold", setting.threshold());
+                gen.writeEndObject();
             }
-            root.put("safetySettings", arr);
+            gen.writeEndArray();
         }
 
         // generationConfig
         if (temperature != null || topK != null || topP != null || maxOutputTokens != null
                 || (stopSequences != null && !stopSequences.isEmpty())
                 || (responseMimeType != null && !responseMimeType.isBlank())
-                || responseSchema != null || thinkingBudget != null) {
-            JSONObject genConfig = new JSONObject();
+                || responseSchema != null || thinkingBudget != null || seed != null) {
+            gen.writeObjectFieldStart("generationConfig");
             if (temperature != null) {
-                genConfig.put("temperature", temperature);
+                gen.writeNumberField("temperature", temperature);
             }
             if (topK != null) {
-                genConfig.put("topK", topK);
+                gen.writeNumberField("topK", topK);
             }
             if (topP != null) {
-                genConfig.put("topP", topP);
+                gen.writeNumberField("topP", topP);
             }
             if (maxOutputTokens != null) {
-                genConfig.put("maxOutputTokens", maxOutputTokens);
+                gen.writeNumberField("maxOutputTokens", maxOutputTokens);
+            }
+            if (seed != null) {
+                gen.writeNumberField("seed", seed);
             }
             if (stopSequences != null && !stopSequences.isEmpty()) {
-                JSONArray stp = new JSONArray();
+                gen.writeArrayFieldStart("stopSequences");
                 for (String s : stopSequences) {
-                    stp.put(s);
+                    gen.writeString(s);
                 }
-                genConfig.put("stopSequences", stp);
+                gen.writeEndArray();
             }
             if (responseMimeType != null && !responseMimeType.isBlank()) {
-                genConfig.put("responseMimeType", responseMimeType);
+                gen.writeStringField("responseMimeType", responseMimeType);
             }
             if (responseSchema != null) {
-                genConfig.put("responseSchema", responseSchema.toJson());
+                gen.writeFieldName("responseSchema");
+                GeminiJsonWriter.writeObject(gen, responseSchema.toJson());
             }
 
             // Add thinkingConfig to generationConfig
             if (thinkingBudget != null) {
-                JSONObject thinkingConfig = new JSONObject();
-                thinkingConfig.put("thinkingBudget", thinkingBudget);
-                genConfig.put("thinkingConfig", thinkingConfig);
+                gen.writeObjectFieldStart("thinkingConfig");
+                gen.writeNumberField("thinkingBudget", thinkingBudget);
+                gen.writeEndObject();
             }
 
-            root.put("generationConfig", genConfig);
+            gen.writeEndObject();
         }
 
         // Tools
@@ -248,40 +423,43 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             //     }
             //   ],
             // and "toolConfig": { "functionCallingConfig": { "mode": "ANY" } }
-            //
-            // We'll gather functionDeclarations from each GeminiToolDefinition
-            JSONArray functionDeclarationsArray = new JSONArray();
+            gen.writeArrayFieldStart("tools");
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("functionDeclarations");
             for (GeminiToolDefinition def : tools) {
-                functionDeclarationsArray.put(def.toJson());
+                def.writeJson(gen);
             }
-
-            // "tools":[ { "functionDeclarations":[ ... ] } ]
-            JSONArray toolsArr = new JSONArray();
-            JSONObject toolObject = new JSONObject();
-            toolObject.put("functionDeclarations", functionDeclarationsArray);
-            toolsArr.put(toolObject);
-            root.put("tools", toolsArr);
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeEndArray();
 
             // "toolConfig": { "functionCallingConfig": { "mode": "ANY"|"AUTO"|"NONE" } }
             // If parallelToolCalls == true, let's pick "ANY", else "AUTO" (just an example).
-            JSONObject toolConfigObj = new JSONObject();
-            JSONObject funcCallingConfigObj = new JSONObject();
-            if (parallelToolCalls != null && parallelToolCalls) {
-                funcCallingConfigObj.put("mode", "ANY");
-            } else {
-                // default: "AUTO"
-                funcCallingConfigObj.put("mode", "AUTO");
-            }
-            toolConfigObj.put("functionCallingConfig", funcCallingConfigObj);
-            root.put("toolConfig", toolConfigObj);
+            gen.writeObjectFieldStart("toolConfig");
+            gen.writeObjectFieldStart("functionCallingConfig");
+            gen.writeStringField("mode", parallelToolCalls != null && parallelToolCalls ? "ANY" : "AUTO");
+            gen.writeEndObject();
+            gen.writeEndObject();
         }
-
-        return root.toString();
     }
 
     @Override
     public GeminiChatCompletionResponse createResponse(String responseBody) {
-        return new GeminiChatCompletionResponse(new JSONObject(responseBody), this);
+        return new GeminiChatCompletionResponse(responseBody.getBytes(StandardCharsets.UTF_8), this);
+    }
+
+    /**
+     * The response is read as bytes, so it can be parsed in one pass without
+     * decoding it into a String first.
+     */
+    @Override
+    public boolean isBinaryResponse() {
+        return true;
+    }
+
+    @Override
+    public GeminiChatCompletionResponse createResponse(byte[] responseBody) {
+        return new GeminiChatCompletionResponse(responseBody, this);
     }
 
 
@@ -305,6 +483,13 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         private String responseMimeType;
         private String systemInstruction;
         private Integer thinkingBudget;
+        private Integer toolConcurrency;
+        private Integer toolTimeoutInSeconds;
+        private String cachedContent;
+        private Integer seed;
+        private boolean useResponseCache = true;
+        private long maxImageDownloadBytes = GeminiMediaSource.DEFAULT_MAX_DOWNLOAD_BYTES;
+        private Executor asyncExecutor;
         private boolean captureOnSuccess = false;
         private boolean captureOnError = false;
 
@@ -429,6 +614,97 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             return this;
         }
 
+        /**
+         * Opt-in: if the model requests several function calls in one turn, run up to
+         * {@code maxConcurrency} tool callbacks at the same time on virtual threads.
+         * The function responses are still sent back in the order of the calls.
+         * Null or 1 keeps the default sequential execution.
+         *
+         * @param maxConcurrency The maximum number of callbacks running at once, or null
+         * @return This builder for chaining
+         */
+        public Builder toolConcurrency(Integer maxConcurrency) {
+            this.toolConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Limits how long a single tool callback may run. A callback exceeding the limit is
+         * interrupted and the request fails with an ApiTimeoutException.
+         *
+         * @param seconds The timeout per tool callback, or null for no limit
+         * @return This builder for chaining
+         */
+        public Builder toolTimeoutInSeconds(Integer seconds) {
+            this.toolTimeoutInSeconds = seconds;
+            return this;
+        }
+
+        /**
+         * Fixes the sampling seed, so that the same request yields the same answer.
+         * Such requests (like those with temperature 0) may be answered from the client's response cache.
+         *
+         * @param seed The seed, or null for a random one
+         * @return This builder for chaining
+         */
+        public Builder seed(Integer seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * If the client has a {@link GeminiResponseCache}, deterministic requests are answered
+         * from it (default). Set to false to always call the API, e.g. to refresh an entry.
+         *
+         * @param use Whether to use the client's response cache
+         * @return This builder for chaining
+         */
+        public Builder useResponseCache(boolean use) {
+            this.useResponseCache = use;
+            return this;
+        }
+
+        /**
+         * Upper bound for images added via {@link #addImageByUrl(String)} afterwards; a larger
+         * download fails the request. Default: 20 MiB, the inline data limit of the API.
+         *
+         * @param maxBytes The maximum size of one image in bytes
+         * @return This builder for chaining
+         */
+        public Builder maxImageDownloadBytes(long maxBytes) {
+            if (maxBytes < 1) {
+                throw new IllegalArgumentException("maxBytes must be at least 1");
+            }
+            this.maxImageDownloadBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Refers to a prefix cached via {@code client.caches()}, e.g. a large system instruction
+         * and document set, instead of sending it again. The name usually comes from
+         * {@code client.caches().registry().resolve(...)}.
+         * System instruction and tools that are part of the cached content must not be set again here.
+         *
+         * @param name The resource name ("cachedContents/..."), or null for none
+         * @return This builder for chaining
+         */
+        public Builder cachedContent(String name) {
+            this.cachedContent = name;
+            return this;
+        }
+
+        /**
+         * Sets the executor for {@link #executeAsync()} and {@link #executeWithExponentialBackoffAsync()}.
+         * If not set, the client's executor is used (by default one virtual thread per call).
+         *
+         * @param executor The executor running the request and its tool loop
+         * @return This builder for chaining
+         */
+        public Builder asyncExecutor(Executor executor) {
+            this.asyncExecutor = executor;
+            return this;
+        }
+
         public Builder captureOnSuccess(java.util.function.Consumer<de.entwicklertraining.api.base.ApiCallCaptureInput> captureConsumer) {
             this.captureOnSuccess = true;
             // Store the consumer if needed - for now just enable the flag
@@ -444,12 +720,18 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         /**
          * Adds an image via external URL. Validates supported file extensions:
          * - png, jpg, jpeg, webp, heic, heif
-         * The image is added as a user message with a part containing the image URL.
-         * 
+         * The image is added as a user message with an inline_data part.
+         *
+         * The download starts right away in the background (see {@link GeminiMediaSource#ofUrl}),
+         * so several images are fetched in parallel while the request is built. The request waits
+         * for them when its body is written; a failed download or an image above
+         * {@link #maxImageDownloadBytes(long)} fails the request then. If the client has a
+         * {@link GeminiImagePreprocessor}, the image is shrunk on the download thread. If it has a
+         * {@link GeminiMediaCache}, a URL that was added before is not downloaded again.
+         *
          * @param url The URL of the image
          * @return This builder for chaining
-         * @throws IllegalArgumentException if the URL has an unsupported file extension
-         * @throws RuntimeException if there's an error downloading the image
+         * @throws IllegalArgumentException if the URL has an unsupported file extension or is malformed
          */
         public Builder addImageByUrl(String url) {
             Objects.requireNonNull(url, "url must not be null");
@@ -462,37 +744,18 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             }
 
             String mimeType = extensionToMime(fileExt);
+            GeminiMediaSource mediaSource = GeminiMediaSource.ofUrl(
+                    URI.create(url), maxImageDownloadBytes, imagePreprocessor(), mimeType, mediaCache());
 
-            // Download the image and convert to base64
-            byte[] imageBytes;
-            try {
-                java.net.URL imageUrl = java.net.URI.create(url).toURL();
-                java.net.HttpURLConnection connection = (java.net.HttpURLConnection) imageUrl.openConnection();
-                connection.setRequestProperty("User-Agent", "Mozilla/5.0");
-                try (java.io.InputStream in = connection.getInputStream()) {
-                    imageBytes = in.readAllBytes();
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to download image from URL: " + url + " => " + e.getMessage(), e);
-            }
-            String base64Data = Base64.getEncoder().encodeToString(imageBytes);
-
-            // Create a user message with a part containing the base64-encoded image
+            // Create a user message with a part containing the image, base64-encoded when the body is written
             JSONObject msg = new JSONObject();
             msg.put("role", "user");
 
-            JSONArray parts;
-            if(msg.has("parts")) {
-                parts = msg.getJSONArray("parts");
-            } else {
-                parts = new JSONArray();
-            }
-
-            // Add the image part as inline_data instead of file_uri
+            JSONArray parts = new JSONArray();
             JSONObject imagePart = new JSONObject();
             JSONObject inlineData = new JSONObject();
             inlineData.put("mime_type", mimeType);
-            inlineData.put("data", base64Data);
+            inlineData.put("data", mediaSource);
             imagePart.put("inline_data", inlineData);
             parts.put(imagePart);
 
@@ -503,9 +766,17 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         }
 
         /**
-         * Reads a local image file, base64-encodes it, and adds it as a user message.
+         * Adds a local image file as a user message with an inline_data part.
          * Validates supported file extensions: png, jpg, jpeg, webp, heic, heif.
-         * 
+         *
+         * The file is not loaded here: the part holds a {@link GeminiMediaSource}, which
+         * reads and base64-encodes the file chunk by chunk while the body is written.
+         * The file must therefore still exist when the request is executed.
+         * If the client has a {@link GeminiImagePreprocessor}, the file is instead read and
+         * shrunk in the background right away, and the result is kept until the body is written.
+         * With a {@link GeminiMediaCache} on the client, an unchanged file that was added before
+         * is neither read nor encoded again.
+         *
          * @param filePath The path to the local image file
          * @return This builder for chaining
          * @throws IllegalArgumentException if the file has an unsupported extension
@@ -524,13 +795,12 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
 
             String mimeType = extensionToMime(ext);
 
-            byte[] fileBytes;
+            GeminiMediaSource mediaSource;
             try {
-                fileBytes = Files.readAllBytes(filePath);
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read file: " + filePath + " => " + e.getMessage(), e);
+                mediaSource = GeminiMediaSource.ofFile(filePath, imagePreprocessor(), mimeType, mediaCache());
+            } catch (UncheckedIOException e) {
+                throw new RuntimeException("Failed to read file: " + filePath + " => " + e.getCause().getMessage(), e);
             }
-            String base64Data = Base64.getEncoder().encodeToString(fileBytes);
 
             // Create a user message with a part containing the base64-encoded image
             JSONObject msg = new JSONObject();
@@ -547,7 +817,7 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             JSONObject imagePart = new JSONObject();
             JSONObject inlineData = new JSONObject();
             inlineData.put("mime_type", mimeType);
-            inlineData.put("data", base64Data);
+            inlineData.put("data", mediaSource);
             imagePart.put("inline_data", inlineData);
             parts.put(imagePart);
 
@@ -557,6 +827,71 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
             return this;
         }
 
+        /**
+         * Adds a file uploaded with the Files API as a user message with a file_data part.
+         * Only the URI goes into the request, so large media does not inflate every request body.
+         *
+         * @param file The uploaded file, e.g. from {@code client.files().upload(path).execute()}
+         * @return This builder for chaining
+         */
+        public Builder addFile(GeminiFile file) {
+            Objects.requireNonNull(file, "file must not be null");
+            if (file.uri() == null) {
+                throw new IllegalArgumentException("File " + file.name() + " has no uri");
+            }
+
+            JSONObject fileData = new JSONObject();
+            fileData.put("mime_type", file.mimeType());
+            fileData.put("file_uri", file.uri());
+            JSONObject filePart = new JSONObject();
+            filePart.put("file_data", fileData);
+
+            JSONObject msg = new JSONObject();
+            msg.put("role", "user");
+            msg.put("parts", new JSONArray().put(filePart));
+            messages.add(msg);
+
+            return this;
+        }
+
+        /**
+         * Uploads a local image via the Files API and adds it with {@link #addFile(GeminiFile)}.
+         * Validates supported file extensions: png, jpg, jpeg, webp, heic, heif.
+         *
+         * Unlike {@link #addImageByBase64(Path)} the upload happens right away. Identical content is
+         * uploaded only once per client (see {@code GeminiClient#getFileCache()}), so the same image
+         * in many requests costs one upload and a short URI per request.
+         *
+         * @param filePath The path to the local image file
+         * @return This builder for chaining
+         * @throws IllegalArgumentException if the file has an unsupported extension
+         */
+        public Builder addImageByUpload(Path filePath) {
+            Objects.requireNonNull(filePath, "filePath must not be null");
+
+            String fileName = filePath.getFileName().toString().toLowerCase(Locale.ROOT);
+            String ext = extractExtension(fileName);
+            if (!ALLOWED_EXTENSIONS.contains(ext)) {
+                throw new IllegalArgumentException(
+                        "Unsupported file extension: " + ext + ". Allowed: " + ALLOWED_EXTENSIONS
+                );
+            }
+
+            GeminiFile file = client.files().upload(filePath)
+                    .mimeType(extensionToMime(ext))
+                    .displayName(filePath.getFileName().toString())
+                    .execute();
+            return addFile(file);
+        }
+
+        private GeminiImagePreprocessor imagePreprocessor() {
+            return client != null ? client.getImagePreprocessor() : null;
+        }
+
+        private GeminiMediaCache mediaCache() {
+            return client != null ? client.getMediaCache() : null;
+        }
+
         /**
          * Extracts the file extension from a path or URL.
          * 
@@ -602,14 +937,19 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
                     topP,
                     maxOutputTokens,
                     List.copyOf(stopSequences),
-                    List.copyOf(messages),
+                    GeminiConversation.of(messages),
                     List.copyOf(tools),
                     List.copyOf(safetySettings),
                     parallelToolCalls,
                     responseSchema,
                     responseMimeType,
                     systemInstruction,
-                    thinkingBudget
+                    thinkingBudget,
+                    toolConcurrency,
+                    toolTimeoutInSeconds,
+                    cachedContent,
+                    seed,
+                    useResponseCache
             );
         }
 
@@ -622,5 +962,63 @@ public final class GeminiChatCompletionRequest extends GeminiRequest<GeminiChatC
         public GeminiChatCompletionResponse executeWithExponentialBackoff() {
             return new GeminiChatCompletionCallHandler(client).handleRequest(build(), true);
         }
+
+        /**
+         * Asynchronous variant of {@link #execute()}.
+         * Cancelling the returned future cancels the running HTTP call and stops the tool loop,
+         * in addition to a supplier set via {@code setCancelSupplier}. The request span joins the
+         * trace of the calling thread, see {@link de.entwicklertraining.gemini4j.GeminiTracer#captureContext}.
+         */
+        public CompletableFuture<GeminiChatCompletionResponse> executeAsync() {
+            return submitAsync(false);
+        }
+
+        /**
+         * Asynchronous variant of {@link #executeWithExponentialBackoff()}.
+         */
+        public CompletableFuture<GeminiChatCompletionResponse> executeWithExponentialBackoffAsync() {
+            return submitAsync(true);
+        }
+
+        private CompletableFuture<GeminiChatCompletionResponse> submitAsync(boolean useExponentialBackoff) {
+            CompletableFuture<GeminiChatCompletionResponse> future = new CompletableFuture<>();
+
+            // Let the cancel supplier (polled by api-base while waiting for the response) see future.cancel()
+            Supplier<Boolean> userCancelSupplier = isCanceledSupplier;
+            setCancelSupplier(() -> future.isCancelled() || Boolean.TRUE.equals(userCancelSupplier.get()));
+            GeminiChatCompletionRequest request = build();
+            setCancelSupplier(userCancelSupplier);
+
+            Executor executor = asyncExecutor != null ? asyncExecutor : client.getAsyncExecutor();
+            try {
+                executor.execute(client.getTracer().captureContext(() -> {
+                    if (future.isDone()) {
+                        return;
+                    }
+                    try {
+                        future.complete(new GeminiChatCompletionCallHandler(client).handleRequest(request, useExponentialBackoff));
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    }
+                }));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        /**
+         * Streams the answer via streamGenerateContent. Each text delta is passed to
+         * {@code onTextDelta} on the calling thread as soon as it arrives, so the first
+         * tokens can be shown before the generation has finished.
+         * Tool calls are handled the same way as in {@link #execute()}.
+         *
+         * @param onTextDelta receives the text fragments in order
+         * @return the merged response of the final turn
+         */
+        public GeminiChatCompletionResponse executeStreaming(java.util.function.Consumer<String> onTextDelta) {
+            Objects.requireNonNull(onTextDelta, "onTextDelta must not be null");
+            return new GeminiChatCompletionCallHandler(client).handleStreamingRequest(build(), onTextDelta);
+        }
     }
 }
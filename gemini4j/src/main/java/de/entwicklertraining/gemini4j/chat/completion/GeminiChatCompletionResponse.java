@@ -1,13 +1,17 @@
 package de.entwicklertraining.gemini4j.chat.completion;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import de.entwicklertraining.gemini4j.GeminiResponse;
 import de.entwicklertraining.api.base.ApiClient;
-import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Wraps the JSON response from Gemini.
@@ -24,8 +28,89 @@ import java.util.Objects;
  */
 public final class GeminiChatCompletionResponse extends GeminiResponse<GeminiChatCompletionRequest> {
 
+    /**
+     * Used by {@code convertTo()} of responses without request or client.
+     */
+    private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<Class<?>, ObjectReader> DEFAULT_READERS = new ConcurrentHashMap<>();
+
+    private final byte[] body; // null if created from a JSONObject
+    private volatile GeminiChatCompletionResponseParser.Parsed view;
+
     public GeminiChatCompletionResponse(JSONObject json, GeminiChatCompletionRequest request) {
         super(json, request);
+        this.body = null;
+    }
+
+    /**
+     * Creates the response from the raw response bytes. The typed view is parsed here, so malformed
+     * bodies fail at construction; the org.json tree behind {@link #getJson()} is only built if requested.
+     */
+    public GeminiChatCompletionResponse(byte[] body, GeminiChatCompletionRequest request) {
+        super(() -> new JSONObject(new String(body, StandardCharsets.UTF_8)), request);
+        this.body = body;
+        long start = System.nanoTime();
+        this.view = GeminiChatCompletionResponseParser.parse(body);
+        if (request != null) {
+            request.metrics().onParse(request.model(), System.nanoTime() - start, body.length);
+        }
+    }
+
+    /**
+     * @return the raw response body, serialized from the JSON tree if the response was built from one
+     */
+    byte[] body() {
+        return body != null ? body : getJson().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private GeminiChatCompletionResponseParser.Parsed view() {
+        GeminiChatCompletionResponseParser.Parsed result = view;
+        if (result == null) {
+            result = GeminiChatCompletionResponseParser.parse(body());
+            view = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return all candidates of the response, in order
+     */
+    public List<GeminiCandidate> candidates() {
+        return view().candidates();
+    }
+
+    /**
+     * @return the first candidate, or null if the response has none
+     */
+    public GeminiCandidate firstCandidate() {
+        List<GeminiCandidate> candidates = view().candidates();
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    /**
+     * @return the "functionCall" parts of the first candidate, in order
+     */
+    public List<GeminiFunctionCall> functionCalls() {
+        GeminiCandidate first = firstCandidate();
+        return first == null ? List.of() : first.functionCalls();
+    }
+
+    /**
+     * @return the "usageMetadata", or null if the response has none
+     */
+    public GeminiUsageMetadata usageMetadata() {
+        return view().usageMetadata();
+    }
+
+    public String modelVersion() {
+        return view().modelVersion();
+    }
+
+    /**
+     * @return true if the body contains an "error" object instead of candidates
+     */
+    public boolean hasError() {
+        return view().hasError();
     }
 
     /**
@@ -34,62 +119,27 @@ public final class GeminiChatCompletionResponse extends GeminiResponse<GeminiCha
      * and might not have normal text content.
      */
     public String assistantMessage() {
-        try {
-            JSONArray candidates = getJson().getJSONArray("candidates");
-            JSONObject firstCand = candidates.getJSONObject(0);
-            JSONObject contentObj = firstCand.getJSONObject("content");
-            // gather "parts" -> each part might have "text", or "functionCall"
-            JSONArray parts = contentObj.getJSONArray("parts");
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < parts.length(); i++) {
-                JSONObject p = parts.getJSONObject(i);
-                if (p.has("text")) {
-                    sb.append(p.getString("text"));
-                }
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            return null;
-        }
+        return view().assistantMessage();
     }
 
     /**
      * Return the finishReason from the first candidate
      */
     public String finishReason() {
-        try {
-            JSONArray candidates = getJson().getJSONArray("candidates");
-            JSONObject firstCand = candidates.getJSONObject(0);
-            return firstCand.optString("finishReason", null);
-        } catch (Exception e) {
-            return null;
-        }
+        GeminiCandidate first = firstCandidate();
+        return first == null ? null : first.finishReason();
     }
 
     /**
      * The "content" might have "refusal" => check if present
      */
     public boolean hasRefusal() {
-        try {
-            JSONArray candidates = getJson().getJSONArray("candidates");
-            JSONObject firstCand = candidates.getJSONObject(0);
-            JSONObject contentObj = firstCand.getJSONObject("content");
-            return contentObj.has("refusal") && !contentObj.isNull("refusal");
-        } catch (Exception e) {
-            return false;
-        }
+        return refusal() != null;
     }
 
     public String refusal() {
-        try {
-            JSONObject contentObj = getJson()
-                    .getJSONArray("candidates")
-                    .getJSONObject(0)
-                    .getJSONObject("content");
-            return contentObj.getString("refusal");
-        } catch (Exception e) {
-            return null;
-        }
+        GeminiCandidate first = firstCandidate();
+        return first == null ? null : first.refusal();
     }
 
     public void throwOnRefusal() {
@@ -105,15 +155,47 @@ public final class GeminiChatCompletionResponse extends GeminiResponse<GeminiCha
         return new JSONObject(Objects.requireNonNull(assistantMessage()));
     }
 
+    /**
+     * Maps the assistant message onto {@code targetType}, using the (cached) ObjectReader
+     * of the client's mapper, see {@link de.entwicklertraining.gemini4j.GeminiClient#setObjectMapper}.
+     */
     public <T> T convertTo(Class<T> targetType) {
-        ObjectMapper mapper = new ObjectMapper();
+        return readJson(assistantMessage(), targetType);
+    }
+
+    /**
+     * Like {@link #convertTo(Class)}, but reads the text of a single part of the first
+     * candidate directly, without joining the parts first. Useful if the model returned
+     * thinking summaries in front of the JSON part.
+     *
+     * @param partIndex index into {@code firstCandidate().parts()}
+     */
+    public <T> T convertTo(Class<T> targetType, int partIndex) {
+        GeminiCandidate first = firstCandidate();
+        if (first == null || partIndex < 0 || partIndex >= first.parts().size()
+                || !first.parts().get(partIndex).isText()) {
+            throw new ApiClient.ApiResponseUnusableException(
+                    "Response has no text part at index " + partIndex + " to parse into " + targetType.getSimpleName());
+        }
+        return readJson(first.parts().get(partIndex).text(), targetType);
+    }
+
+    private <T> T readJson(String text, Class<T> targetType) {
         try {
-            return mapper.readValue(assistantMessage(), targetType);
-        } catch (JsonProcessingException e) {
+            return readerFor(targetType).readValue(text);
+        } catch (IOException e) {
             throw new ApiClient.ApiResponseUnusableException(
                     "Failed to parse the model's JSON into the expected structure/POJO: " + e.getMessage(),
                     e
             );
         }
     }
+
+    private ObjectReader readerFor(Class<?> type) {
+        GeminiChatCompletionRequest request = getRequest();
+        if (request != null && request.client() != null) {
+            return request.client().readerFor(type);
+        }
+        return DEFAULT_READERS.computeIfAbsent(type, DEFAULT_OBJECT_MAPPER::readerFor);
+    }
 }
@@ -0,0 +1,252 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.entwicklertraining.api.base.ApiClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a generateContent response in a single pass with Jackson's streaming parser
+ * and builds the typed view ({@link GeminiCandidate}, {@link GeminiPart}, ...) of it.
+ *
+ * Unknown fields are skipped without being materialized. The raw JSON of
+ * "content" and "functionCall.args" is cut out of the input bytes by offset,
+ * so it is available without building an org.json tree.
+ */
+final class GeminiChatCompletionResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    /**
+     * The result of one parse.
+     *
+     * @param assistantMessage the concatenated text parts of the first candidate, or null if it had no parts
+     */
+    record Parsed(
+            List<GeminiCandidate> candidates,
+            GeminiUsageMetadata usageMetadata,
+            String modelVersion,
+            boolean hasError,
+            String assistantMessage
+    ) {
+    }
+
+    private GeminiChatCompletionResponseParser() {
+    }
+
+    static Parsed parse(byte[] body) {
+        List<GeminiCandidate> candidates = new ArrayList<>(1);
+        GeminiUsageMetadata usageMetadata = null;
+        String modelVersion = null;
+        boolean hasError = false;
+        String assistantMessage = null;
+
+        try (JsonParser p = JSON_FACTORY.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new ApiClient.ApiResponseUnusableException("Gemini response is not a JSON object");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "candidates" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (p.nextToken() != JsonToken.END_ARRAY) {
+                                if (p.currentToken() == JsonToken.START_OBJECT) {
+                                    CandidateReader reader = new CandidateReader();
+                                    GeminiCandidate candidate = reader.read(p, body);
+                                    if (candidates.isEmpty() && reader.partsPresent) {
+                                        assistantMessage = reader.text.toString();
+                                    }
+                                    candidates.add(candidate);
+                                } else {
+                                    p.skipChildren();
+                                }
+                            }
+                        }
+                    }
+                    case "usageMetadata" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            usageMetadata = readUsageMetadata(p);
+                        }
+                    }
+                    case "modelVersion" -> modelVersion = readString(p);
+                    case "error" -> {
+                        hasError = true;
+                        p.skipChildren();
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new ApiClient.ApiResponseUnusableException("Failed to parse Gemini response: " + e.getMessage(), e);
+        }
+
+        return new Parsed(List.copyOf(candidates), usageMetadata, modelVersion, hasError, assistantMessage);
+    }
+
+    /**
+     * Reads one candidate object; the parser is positioned on its START_OBJECT.
+     */
+    private static final class CandidateReader {
+        private final StringBuilder text = new StringBuilder();
+        private boolean partsPresent;
+
+        GeminiCandidate read(JsonParser p, byte[] body) throws IOException {
+            int index = 0;
+            String role = null;
+            List<GeminiPart> parts = new ArrayList<>(1);
+            String finishReason = null;
+            String refusal = null;
+            List<GeminiSafetyRating> safetyRatings = new ArrayList<>();
+            String contentJson = null;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "index" -> index = p.getValueAsInt(0);
+                    case "finishReason" -> finishReason = readString(p);
+                    case "safetyRatings" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (p.nextToken() != JsonToken.END_ARRAY) {
+                                if (p.currentToken() == JsonToken.START_OBJECT) {
+                                    safetyRatings.add(readSafetyRating(p));
+                                } else {
+                                    p.skipChildren();
+                                }
+                            }
+                        }
+                    }
+                    case "content" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            int start = (int) p.currentTokenLocation().getByteOffset();
+                            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                                String contentField = p.currentName();
+                                JsonToken contentValue = p.nextToken();
+                                switch (contentField) {
+                                    case "role" -> role = readString(p);
+                                    case "refusal" -> refusal = readString(p);
+                                    case "parts" -> {
+                                        if (contentValue == JsonToken.START_ARRAY) {
+                                            partsPresent = true;
+                                            while (p.nextToken() != JsonToken.END_ARRAY) {
+                                                if (p.currentToken() == JsonToken.START_OBJECT) {
+                                                    parts.add(readPart(p, body));
+                                                } else {
+                                                    p.skipChildren();
+                                                }
+                                            }
+                                        }
+                                    }
+                                    default -> p.skipChildren();
+                                }
+                            }
+                            int end = (int) p.currentLocation().getByteOffset();
+                            contentJson = new String(body, start, end - start, StandardCharsets.UTF_8);
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+            return new GeminiCandidate(index, role, List.copyOf(parts), finishReason, refusal,
+                    List.copyOf(safetyRatings), contentJson);
+        }
+
+        private GeminiPart readPart(JsonParser p, byte[] body) throws IOException {
+            String partText = null;
+            boolean thought = false;
+            GeminiFunctionCall functionCall = null;
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "text" -> partText = readString(p);
+                    case "thought" -> thought = p.getValueAsBoolean(false);
+                    case "functionCall" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            functionCall = readFunctionCall(p, body);
+                        }
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+            if (partText != null) {
+                text.append(partText);
+            }
+            return new GeminiPart(partText, thought, functionCall);
+        }
+    }
+
+    private static GeminiFunctionCall readFunctionCall(JsonParser p, byte[] body) throws IOException {
+        String name = null;
+        String argsJson = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("name".equals(field)) {
+                name = readString(p);
+            } else if ("args".equals(field) && value == JsonToken.START_OBJECT) {
+                int start = (int) p.currentTokenLocation().getByteOffset();
+                p.skipChildren();
+                int end = (int) p.currentLocation().getByteOffset();
+                argsJson = new String(body, start, end - start, StandardCharsets.UTF_8);
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new GeminiFunctionCall(name, argsJson);
+    }
+
+    private static GeminiSafetyRating readSafetyRating(JsonParser p) throws IOException {
+        String category = null;
+        String probability = null;
+        boolean blocked = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "category" -> category = readString(p);
+                case "probability" -> probability = readString(p);
+                case "blocked" -> blocked = p.getValueAsBoolean(false);
+                default -> p.skipChildren();
+            }
+        }
+        return new GeminiSafetyRating(category, probability, blocked);
+    }
+
+    private static GeminiUsageMetadata readUsageMetadata(JsonParser p) throws IOException {
+        int prompt = 0, candidates = 0, total = 0, cached = 0, thoughts = 0;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "promptTokenCount" -> prompt = p.getValueAsInt(0);
+                case "candidatesTokenCount" -> candidates = p.getValueAsInt(0);
+                case "totalTokenCount" -> total = p.getValueAsInt(0);
+                case "cachedContentTokenCount" -> cached = p.getValueAsInt(0);
+                case "thoughtsTokenCount" -> thoughts = p.getValueAsInt(0);
+                default -> p.skipChildren();
+            }
+        }
+        return new GeminiUsageMetadata(prompt, candidates, total, cached, thoughts);
+    }
+
+    /**
+     * @return the scalar value as string, null for JSON null; objects and arrays are skipped
+     */
+    private static String readString(JsonParser p) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : p.getValueAsString();
+    }
+}
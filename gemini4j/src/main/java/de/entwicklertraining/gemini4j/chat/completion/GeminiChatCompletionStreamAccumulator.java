@@ -0,0 +1,135 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Merges the chunks of a {@code streamGenerateContent} response into the same shape
+ * a blocking {@code generateContent} call would have returned.
+ *
+ * Every chunk looks like a regular response, but only carries the new parts of the
+ * first candidate. Consecutive text parts are concatenated, all other parts
+ * (e.g. "functionCall") are taken over as they are. The last seen finishReason,
+ * safetyRatings and usageMetadata win.
+ */
+final class GeminiChatCompletionStreamAccumulator {
+
+    private final Consumer<String> onTextDelta;
+
+    private final List<Object> parts = new ArrayList<>(); // StringBuilder for text, JSONObject otherwise
+    private final List<Boolean> thoughtFlags = new ArrayList<>();
+    private String role = "model";
+    private String finishReason;
+    private JSONArray safetyRatings;
+    private JSONObject usageMetadata;
+    private String modelVersion;
+    private JSONObject error;
+
+    GeminiChatCompletionStreamAccumulator(Consumer<String> onTextDelta) {
+        this.onTextDelta = onTextDelta;
+    }
+
+    void accept(JSONObject chunk) {
+        if (chunk.has("error")) {
+            error = chunk.getJSONObject("error");
+            return;
+        }
+        if (chunk.has("usageMetadata")) {
+            usageMetadata = chunk.getJSONObject("usageMetadata");
+        }
+        if (chunk.has("modelVersion")) {
+            modelVersion = chunk.getString("modelVersion");
+        }
+
+        JSONArray candidates = chunk.optJSONArray("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            return;
+        }
+        JSONObject candidate = candidates.getJSONObject(0);
+        if (candidate.has("finishReason")) {
+            finishReason = candidate.getString("finishReason");
+        }
+        if (candidate.has("safetyRatings")) {
+            safetyRatings = candidate.getJSONArray("safetyRatings");
+        }
+
+        JSONObject content = candidate.optJSONObject("content");
+        if (content == null) {
+            return;
+        }
+        role = content.optString("role", role);
+        JSONArray chunkParts = content.optJSONArray("parts");
+        if (chunkParts == null) {
+            return;
+        }
+        for (int i = 0; i < chunkParts.length(); i++) {
+            JSONObject part = chunkParts.getJSONObject(i);
+            if (part.has("text")) {
+                appendText(part.getString("text"), part.optBoolean("thought", false));
+            } else {
+                parts.add(part);
+                thoughtFlags.add(Boolean.FALSE);
+            }
+        }
+    }
+
+    private void appendText(String text, boolean thought) {
+        int last = parts.size() - 1;
+        if (last >= 0 && parts.get(last) instanceof StringBuilder sb && thoughtFlags.get(last) == thought) {
+            sb.append(text);
+        } else {
+            parts.add(new StringBuilder(text));
+            thoughtFlags.add(thought);
+        }
+        if (!thought && onTextDelta != null && !text.isEmpty()) {
+            onTextDelta.accept(text);
+        }
+    }
+
+    /**
+     * @return the merged response JSON in the layout of a non-streaming generateContent response
+     */
+    JSONObject toResponseJson() {
+        JSONObject root = new JSONObject();
+        if (error != null) {
+            root.put("error", error);
+            return root;
+        }
+
+        JSONArray mergedParts = new JSONArray();
+        for (int i = 0; i < parts.size(); i++) {
+            Object part = parts.get(i);
+            if (part instanceof StringBuilder sb) {
+                JSONObject textPart = new JSONObject().put("text", sb.toString());
+                if (thoughtFlags.get(i)) {
+                    textPart.put("thought", true);
+                }
+                mergedParts.put(textPart);
+            } else {
+                mergedParts.put(part);
+            }
+        }
+
+        JSONObject candidate = new JSONObject()
+                .put("content", new JSONObject().put("role", role).put("parts", mergedParts))
+                .put("index", 0);
+        if (finishReason != null) {
+            candidate.put("finishReason", finishReason);
+        }
+        if (safetyRatings != null) {
+            candidate.put("safetyRatings", safetyRatings);
+        }
+        root.put("candidates", new JSONArray().put(candidate));
+        if (usageMetadata != null) {
+            root.put("usageMetadata", usageMetadata);
+        }
+        if (modelVersion != null) {
+            root.put("modelVersion", modelVersion);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,181 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+import de.entwicklertraining.gemini4j.GeminiMediaSource;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The "contents" of a chat completion request as an append-only list, used by the
+ * tool-call loop so that each turn does not re-copy and re-serialize the whole history.
+ *
+ * A conversation is an immutable snapshot: {@link #append} returns a new conversation
+ * that shares the entries of this one. Every entry caches its serialized JSON after it
+ * has been written once, so the next turns only encode the new messages.
+ * Messages holding a {@link GeminiMediaSource} are not cached, because that would pull
+ * the file content onto the heap; they are streamed from disk on every write instead.
+ *
+ * Messages must not be modified after they have been added.
+ */
+final class GeminiConversation {
+
+    private static final GeminiConversation EMPTY = new GeminiConversation(new Entries(), 0);
+
+    /**
+     * Shared backing storage. Snapshots see the first {@code size} entries; appending to an
+     * older snapshot copies the entries instead of overwriting the newer ones.
+     */
+    private static final class Entries {
+        final List<Entry> list = new ArrayList<>();
+    }
+
+    private static final class Entry {
+        private volatile JSONObject message;
+        private volatile String json; // serialized message, null until first written (or never, for media)
+        private final boolean cacheable;
+
+        Entry(JSONObject message) {
+            this.message = message;
+            this.cacheable = !containsMediaSource(message);
+        }
+
+        Entry(String json) {
+            this.json = json;
+            this.cacheable = true;
+        }
+
+        JSONObject message() {
+            JSONObject result = message;
+            if (result == null) {
+                result = new JSONObject(json);
+                message = result;
+            }
+            return result;
+        }
+
+        void write(JsonGenerator gen) throws IOException {
+            String cached = json;
+            if (cached != null) {
+                gen.writeRawValue(cached);
+            } else if (!cacheable) {
+                GeminiJsonWriter.writeObject(gen, message);
+            } else {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+                try (JsonGenerator fragment = GeminiJsonWriter.createGenerator(out)) {
+                    GeminiJsonWriter.writeObject(fragment, message);
+                }
+                cached = out.toString(StandardCharsets.UTF_8);
+                json = cached;
+                gen.writeRawValue(cached);
+            }
+        }
+    }
+
+    private final Entries entries;
+    private final int size;
+
+    private GeminiConversation(Entries entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    static GeminiConversation of(List<JSONObject> messages) {
+        GeminiConversation conversation = EMPTY;
+        for (JSONObject message : messages) {
+            conversation = conversation.append(message);
+        }
+        return conversation;
+    }
+
+    GeminiConversation append(JSONObject message) {
+        return append(new Entry(message));
+    }
+
+    /**
+     * Appends a message given as JSON text, e.g. the raw "content" of a model response.
+     * The text is written as it is; a JSONObject is only parsed if {@link #messages()} is used.
+     */
+    GeminiConversation appendJson(String messageJson) {
+        return append(new Entry(messageJson));
+    }
+
+    private GeminiConversation append(Entry entry) {
+        synchronized (entries) {
+            if (entries.list.size() == size && entries != EMPTY.entries) {
+                entries.list.add(entry);
+                return new GeminiConversation(entries, size + 1);
+            }
+            Entries copy = new Entries();
+            copy.list.addAll(entries.list.subList(0, size));
+            copy.list.add(entry);
+            return new GeminiConversation(copy, size + 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return an unmodifiable view of the messages
+     */
+    List<JSONObject> messages() {
+        return new AbstractList<>() {
+            @Override
+            public JSONObject get(int index) {
+                return entry(index).message();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Writes the messages as elements of the currently open JSON array.
+     */
+    void writeTo(JsonGenerator gen) throws IOException {
+        for (int i = 0; i < size; i++) {
+            entry(i).write(gen);
+        }
+    }
+
+    private Entry entry(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        synchronized (entries) {
+            return entries.list.get(index);
+        }
+    }
+
+    private static boolean containsMediaSource(Object value) {
+        if (value instanceof GeminiMediaSource) {
+            return true;
+        }
+        if (value instanceof JSONObject obj) {
+            for (String key : obj.keySet()) {
+                if (containsMediaSource(obj.opt(key))) {
+                    return true;
+                }
+            }
+        } else if (value instanceof JSONArray arr) {
+            for (int i = 0; i < arr.length(); i++) {
+                if (containsMediaSource(arr.opt(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
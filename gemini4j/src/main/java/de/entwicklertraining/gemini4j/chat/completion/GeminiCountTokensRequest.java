@@ -0,0 +1,173 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.api.base.ApiRequestBuilderBase;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+import de.entwicklertraining.gemini4j.GeminiRequest;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * A request to count the prompt tokens of a chat completion request exactly, on the server:
+ * POST https://generativelanguage.googleapis.com/v1beta/models/{model}:countTokens?key={API_KEY}
+ *
+ * The body is {"generateContentRequest": {...}}, where the inner object is written by the same code
+ * as the generateContent body of {@link GeminiChatCompletionRequest} (system instruction, contents,
+ * tools, cachedContent ...), so the count matches what would be sent.
+ *
+ * Results are memoized in the client's {@link GeminiTokenCountCache}, keyed by the SHA-256 of the body;
+ * see {@link Builder#useCache(boolean)}.
+ */
+public final class GeminiCountTokensRequest extends GeminiRequest<GeminiCountTokensResponse> {
+
+    private final GeminiClient client;
+    private final GeminiChatCompletionRequest generateContentRequest;
+
+    GeminiCountTokensRequest(Builder builder, GeminiClient client, GeminiChatCompletionRequest generateContentRequest) {
+        super(builder);
+        this.client = client;
+        this.generateContentRequest = generateContentRequest;
+    }
+
+    /**
+     * @return the chat completion request whose prompt is counted
+     */
+    public GeminiChatCompletionRequest generateContentRequest() {
+        return generateContentRequest;
+    }
+
+    @Override
+    public String getRelativeUrl() {
+        String url = "/v1beta/models/" + generateContentRequest.model() + ":countTokens";
+
+        // Add API key as query parameter if available
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "?key=" + client.getApiKey();
+        }
+        return url;
+    }
+
+    @Override
+    public String getHttpMethod() {
+        return "POST";
+    }
+
+    @Override
+    public String getBody() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+        try {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize request body", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("generateContentRequest");
+            gen.writeStringField("model", "models/" + generateContentRequest.model());
+            generateContentRequest.writeFields(gen);
+            gen.writeEndObject();
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * @return the SHA-256 of the body, hashed while it is streamed
+     */
+    String cacheKey() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash request body", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Override
+    public GeminiCountTokensResponse createResponse(String responseBody) {
+        return new GeminiCountTokensResponse(new JSONObject(responseBody), this);
+    }
+
+    public static Builder builder(GeminiClient client, GeminiChatCompletionRequest generateContentRequest) {
+        return new Builder(client, generateContentRequest);
+    }
+
+    public static final class Builder extends ApiRequestBuilderBase<Builder, GeminiCountTokensRequest> {
+        private final GeminiClient client;
+        private final GeminiChatCompletionRequest generateContentRequest;
+        private boolean useCache = true;
+
+        public Builder(GeminiClient client, GeminiChatCompletionRequest generateContentRequest) {
+            this.client = client;
+            this.generateContentRequest = Objects.requireNonNull(generateContentRequest, "generateContentRequest must not be null");
+        }
+
+        /**
+         * Whether to answer from (and store into) the client's {@link GeminiTokenCountCache}. Default: true.
+         */
+        public Builder useCache(boolean useCache) {
+            this.useCache = useCache;
+            return this;
+        }
+
+        public GeminiCountTokensRequest build() {
+            return new GeminiCountTokensRequest(this, client, generateContentRequest);
+        }
+
+        @Override
+        public GeminiCountTokensResponse execute() {
+            return send(false);
+        }
+
+        @Override
+        public GeminiCountTokensResponse executeWithExponentialBackoff() {
+            return send(true);
+        }
+
+        private GeminiCountTokensResponse send(boolean useExponentialBackoff) {
+            GeminiCountTokensRequest request = build();
+            if (!useCache) {
+                return sendOne(request, useExponentialBackoff);
+            }
+
+            GeminiTokenCountCache cache = client.getTokenCountCache();
+            String key = request.cacheKey();
+            String cached = cache.get(key);
+            if (cached != null) {
+                return new GeminiCountTokensResponse(new JSONObject(cached), request, true);
+            }
+            GeminiCountTokensResponse response = sendOne(request, useExponentialBackoff);
+            if (response.getJson().has("totalTokens")) {
+                cache.put(key, response.getJson().toString());
+            }
+            return response;
+        }
+
+        private GeminiCountTokensResponse sendOne(GeminiCountTokensRequest request, boolean useExponentialBackoff) {
+            return useExponentialBackoff
+                    ? client.sendRequestWithExponentialBackoff(request)
+                    : client.sendRequest(request);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import de.entwicklertraining.gemini4j.GeminiResponse;
+import org.json.JSONObject;
+
+/**
+ * Wraps the JSON response of countTokens, e.g.:
+ * {
+ *   "totalTokens": 31,
+ *   "cachedContentTokenCount": 0,
+ *   "promptTokensDetails": [ { "modality": "TEXT", "tokenCount": 31 } ]
+ * }
+ */
+public final class GeminiCountTokensResponse extends GeminiResponse<GeminiCountTokensRequest> {
+
+    private final boolean fromCache;
+
+    public GeminiCountTokensResponse(JSONObject json, GeminiCountTokensRequest request) {
+        this(json, request, false);
+    }
+
+    GeminiCountTokensResponse(JSONObject json, GeminiCountTokensRequest request, boolean fromCache) {
+        super(json, request);
+        this.fromCache = fromCache;
+    }
+
+    /**
+     * @return the number of prompt tokens the model would see, including cached content
+     */
+    public int totalTokens() {
+        return getJson().optInt("totalTokens", 0);
+    }
+
+    /**
+     * @return the part of {@link #totalTokens()} that comes from the referenced cached content
+     */
+    public int cachedContentTokenCount() {
+        return getJson().optInt("cachedContentTokenCount", 0);
+    }
+
+    /**
+     * @return true if the count was answered from the client's {@link GeminiTokenCountCache}
+     */
+    public boolean isFromCache() {
+        return fromCache;
+    }
+}
@@ -0,0 +1,19 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import org.json.JSONObject;
+
+/**
+ * A "functionCall" part of a candidate.
+ *
+ * @param name     the name of the function the model wants to call
+ * @param argsJson the raw JSON of the "args" object, or null if the model sent no arguments
+ */
+public record GeminiFunctionCall(String name, String argsJson) {
+
+    /**
+     * @return the arguments as a new JSONObject, or null if there were none
+     */
+    public JSONObject args() {
+        return argsJson == null ? null : new JSONObject(argsJson);
+    }
+}
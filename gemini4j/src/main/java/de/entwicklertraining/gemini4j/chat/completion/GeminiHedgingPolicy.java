@@ -0,0 +1,261 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import de.entwicklertraining.api.base.ApiClient;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in hedging of generateContent calls, see {@code GeminiClient#setHedgingPolicy}.
+ * If a call has not answered after the {@code percentile} of the recent latencies of its model,
+ * a duplicate is sent; the first successful answer wins and the other call is aborted.
+ * This trims the long tail of Gemini's latency at the price of a few extra calls.
+ *
+ * Hedging starts once a model has {@code minSamples} latencies in its window (the last
+ * {@code windowSize} HTTP attempts, see {@link #recordLatency}). The extra traffic is capped: a duplicate
+ * is only sent while the hedges so far stay below {@code maxExtraTrafficRatio} of all calls.
+ * Each attempt runs on its own virtual thread with its own cancel flag. The loser's flag is raised,
+ * which cancels its HTTP exchange (and with it its rate limit and concurrency slots), and its thread is
+ * interrupted to end a backoff wait.
+ *
+ * Streaming calls are not hedged. Thread-safe; one policy can be shared by several clients.
+ */
+public final class GeminiHedgingPolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+    public static final double DEFAULT_MAX_EXTRA_TRAFFIC_RATIO = 0.05;
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    private static final ExecutorService ATTEMPT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final Supplier<Boolean> NOT_ABORTED = () -> false;
+
+    private final double percentile;
+    private final double maxExtraTrafficRatio;
+    private final int windowSize;
+    private final int minSamples;
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    private GeminiHedgingPolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.maxExtraTrafficRatio = builder.maxExtraTrafficRatio;
+        this.windowSize = builder.windowSize;
+        this.minSamples = builder.minSamples;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The latencies of the last {@code windowSize} HTTP attempts of one model (ring buffer).
+     */
+    private static final class LatencyWindow {
+        private final long[] nanos;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.nanos = new long[size];
+        }
+
+        synchronized void record(long latencyNanos) {
+            nanos[next] = latencyNanos;
+            next = (next + 1) % nanos.length;
+            count = Math.min(count + 1, nanos.length);
+        }
+
+        /**
+         * @return the percentile in nanos, or -1 with fewer than {@code minSamples} samples
+         */
+        long percentile(double p, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < minSamples) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(nanos, count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+
+    /**
+     * Runs {@code attempt}, hedged with a second invocation if the first one is slow. Each invocation
+     * gets a cancel flag that turns true once the other one has won; it is meant for the cancel supplier
+     * of the request the invocation sends.
+     */
+    <T> T execute(String model, Function<Supplier<Boolean>, T> attempt) {
+        calls.incrementAndGet();
+        LatencyWindow window = windows.get(model);
+        long delayNanos = window == null ? -1 : window.percentile(percentile, minSamples);
+        if (delayNanos < 0) {
+            return attempt.apply(NOT_ABORTED);
+        }
+
+        CompletionService<T> completion = new ExecutorCompletionService<>(ATTEMPT_EXECUTOR);
+        AtomicBoolean primaryAborted = new AtomicBoolean();
+        AtomicBoolean hedgeAborted = new AtomicBoolean();
+        Future<T> primary = completion.submit(() -> attempt.apply(primaryAborted::get));
+        Future<T> hedge = null;
+        RuntimeException firstFailure = null;
+        try {
+            Future<T> done = completion.poll(delayNanos, TimeUnit.NANOSECONDS);
+            int outstanding = 1;
+            if (done == null && tryReserveHedge()) {
+                hedge = completion.submit(() -> attempt.apply(hedgeAborted::get));
+                outstanding++;
+            }
+            while (outstanding > 0) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                outstanding--;
+                try {
+                    T result = done.get();
+                    if (done == hedge) {
+                        hedgeWins.incrementAndGet();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    if (firstFailure == null) {
+                        firstFailure = e.getCause() instanceof RuntimeException cause
+                                ? cause
+                                : new ApiClient.ApiClientException("Hedged call failed: " + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+                done = null;
+            }
+            throw firstFailure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClient.ApiClientException("Interrupted while waiting for a hedged call", e);
+        } finally {
+            primaryAborted.set(true);
+            hedgeAborted.set(true);
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Adds the latency of one generateContent HTTP attempt of {@code model}. {@code GeminiClient} reports
+     * every successful attempt of the clients using this policy. Canceled attempts are left out, their
+     * time until the cancellation is only a lower bound and would pull the percentile down. Backoff
+     * waits between retries do not count.
+     */
+    public void recordLatency(String model, long latencyNanos) {
+        windows.computeIfAbsent(model, m -> new LatencyWindow(windowSize)).record(latencyNanos);
+    }
+
+    private boolean tryReserveHedge() {
+        while (true) {
+            long current = hedges.get();
+            if (current + 1 > maxExtraTrafficRatio * calls.get()) {
+                return false;
+            }
+            if (hedges.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the current hedge delay of {@code model}, or empty while it has too few samples
+     */
+    public Optional<Long> hedgeDelayMillis(String model) {
+        LatencyWindow window = windows.get(model);
+        long nanos = window == null ? -1 : window.percentile(percentile, minSamples);
+        return nanos < 0 ? Optional.empty() : Optional.of(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * @return the number of calls that went through this policy
+     */
+    public long callCount() {
+        return calls.get();
+    }
+
+    /**
+     * @return the number of duplicates sent
+     */
+    public long hedgeCount() {
+        return hedges.get();
+    }
+
+    /**
+     * @return the number of calls answered by the duplicate
+     */
+    public long hedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    public static final class Builder {
+        private double percentile = DEFAULT_PERCENTILE;
+        private double maxExtraTrafficRatio = DEFAULT_MAX_EXTRA_TRAFFIC_RATIO;
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+        private int minSamples = DEFAULT_MIN_SAMPLES;
+
+        private Builder() {
+        }
+
+        /**
+         * Latency percentile after which the duplicate is sent, e.g. 0.95.
+         */
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be between 0 and 1");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Upper bound of duplicates relative to all calls, e.g. 0.05 for at most 5% extra traffic.
+         */
+        public Builder maxExtraTrafficRatio(double ratio) {
+            if (ratio < 0 || ratio > 1) {
+                throw new IllegalArgumentException("maxExtraTrafficRatio must be between 0 and 1");
+            }
+            this.maxExtraTrafficRatio = ratio;
+            return this;
+        }
+
+        /**
+         * Number of recent latencies per model and how many of them are needed before hedging starts.
+         */
+        public Builder window(int windowSize, int minSamples) {
+            if (windowSize < 1 || minSamples < 1 || minSamples > windowSize) {
+                throw new IllegalArgumentException("Expected 1 <= minSamples <= windowSize");
+            }
+            this.windowSize = windowSize;
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        public GeminiHedgingPolicy build() {
+            return new GeminiHedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+/**
+ * One entry of "content.parts" of a candidate.
+ * Only the fields used by the library are kept; other part types (e.g. "inline_data")
+ * show up with text and functionCall both being null.
+ *
+ * @param text         the text of a text part, otherwise null
+ * @param thought      true for thinking summaries ("thought": true)
+ * @param functionCall the function call of a "functionCall" part, otherwise null
+ */
+public record GeminiPart(String text, boolean thought, GeminiFunctionCall functionCall) {
+
+    public boolean isText() {
+        return text != null;
+    }
+
+    public boolean isFunctionCall() {
+        return functionCall != null;
+    }
+}
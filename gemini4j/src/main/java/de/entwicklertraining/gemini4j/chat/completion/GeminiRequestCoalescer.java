@@ -0,0 +1,149 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import de.entwicklertraining.api.base.ApiClient;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Single-flight for chat completions, see {@code GeminiClient#setRequestCoalescer}: while a
+ * request is in flight, byte-identical requests (same model and body, keyed like
+ * {@link GeminiResponseCache#keyOf}) do not send their own HTTP call but wait for the first one
+ * and get a response built from its body. This flattens stampedes, e.g. hundreds of callers
+ * asking for the same summary right after a deploy.
+ *
+ * Requests with tools are never coalesced, because their callbacks may have side effects that
+ * every caller expects to run. Streaming calls are not coalesced either. Waiting callers keep
+ * their own execution timeout and cancel supplier. If the leading call times out or is canceled,
+ * they do not inherit that but send the request again (one of them becomes the new leader); any
+ * other failure is rethrown to every waiting caller as a new exception of the same type. Thread-safe.
+ */
+public final class GeminiRequestCoalescer {
+
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Sends {@code request} via {@code sender}, unless an identical request is already in flight.
+     */
+    GeminiChatCompletionResponse execute(
+            GeminiChatCompletionRequest request,
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        if (!request.tools().isEmpty()) {
+            return sender.apply(request);
+        }
+
+        String key = GeminiResponseCache.keyOf(request);
+        long deadline = request.getMaxExecutionTimeInSeconds() > 0
+                ? System.nanoTime() + TimeUnit.SECONDS.toNanos(request.getMaxExecutionTimeInSeconds())
+                : Long.MAX_VALUE;
+        while (true) {
+            CompletableFuture<byte[]> own = new CompletableFuture<>();
+            CompletableFuture<byte[]> leader = inFlight.putIfAbsent(key, own);
+            if (leader == null) {
+                return lead(key, own, request, sender);
+            }
+            byte[] body = await(leader, request, deadline);
+            if (body != null) {
+                coalesced.incrementAndGet();
+                return new GeminiChatCompletionResponse(body, request);
+            }
+            inFlight.remove(key, leader); // the leader gave up, try again (possibly as the new leader)
+        }
+    }
+
+    private GeminiChatCompletionResponse lead(
+            String key,
+            CompletableFuture<byte[]> own,
+            GeminiChatCompletionRequest request,
+            Function<GeminiChatCompletionRequest, GeminiChatCompletionResponse> sender
+    ) {
+        try {
+            GeminiChatCompletionResponse response = sender.apply(request);
+            own.complete(response.body());
+            return response;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    /**
+     * Waits for the leading call until the deadline of {@code request} or until its cancel supplier fires.
+     *
+     * @return the body of the leading call, or null if it timed out or was canceled
+     */
+    private static byte[] await(CompletableFuture<byte[]> leader, GeminiChatCompletionRequest request, long deadline) {
+        try {
+            while (true) {
+                if (Boolean.TRUE.equals(request.getIsCanceledSupplier().get())) {
+                    throw new ApiClient.ApiTimeoutException("Request was canceled");
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new ApiClient.ApiTimeoutException("Maximum execution timeout of "
+                            + request.getMaxExecutionTimeInSeconds() + " seconds has been reached!");
+                }
+                try {
+                    return leader.get(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // still running, check cancellation and deadline again
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiClient.ApiClientException("Interrupted while waiting for an identical request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ApiClient.ApiTimeoutException) {
+                return null;
+            }
+            throw copyOf(e.getCause());
+        }
+    }
+
+    /**
+     * @return a new exception of the type of {@code failure} with {@code failure} as cause, so that the
+     *         waiting callers do not share one instance across threads
+     */
+    private static RuntimeException copyOf(Throwable failure) {
+        if (failure instanceof RuntimeException) {
+            try {
+                RuntimeException copy = (RuntimeException) failure.getClass()
+                        .getConstructor(String.class, Throwable.class)
+                        .newInstance(failure.getMessage(), failure);
+                if (failure instanceof ApiClient.HTTP_429_RateLimitOrQuotaException rateLimit) {
+                    ((ApiClient.HTTP_429_RateLimitOrQuotaException) copy).setType(rateLimit.getType());
+                }
+                return copy;
+            } catch (ReflectiveOperationException e) {
+                // no (String, Throwable) constructor, fall through
+            }
+        }
+        return new ApiClient.ApiClientException("Identical request failed: " + failure.getMessage(), failure);
+    }
+
+    /**
+     * @return the number of calls that were answered by another caller's request
+     */
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of distinct requests currently in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,370 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Opt-in cache for deterministic chat completions (temperature 0 or a fixed seed), see
+ * {@code GeminiClient#setResponseCache}. Jobs that send the same prompts again and again
+ * get the response rebuilt from the cached body instead of a network call.
+ *
+ * The key is the SHA-256 of the model name plus the serialized request body (the bytes of
+ * {@code getBody()}), so any change to messages, tools or generation settings is a different entry.
+ * Every turn of a tool-call loop is cached on its own; streaming calls are never cached.
+ *
+ * Two tiers:
+ * <ul>
+ *   <li>an in-heap LRU, bounded by number of entries and total bytes</li>
+ *   <li>optionally a directory with one file per entry, which survives restarts.
+ *       Files are written atomically (temp file + move); a disk hit is promoted into the
+ *       heap tier and touches the file's modification time. Beyond {@code maxDiskBytes}
+ *       the files modified longest ago are deleted.</li>
+ * </ul>
+ * Only successful responses (without "error") are stored. Thread-safe.
+ */
+public final class GeminiResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1_000;
+    public static final long DEFAULT_MAX_HEAP_BYTES = 64L * 1024 * 1024;
+    public static final long DEFAULT_MAX_DISK_BYTES = 1024L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxHeapBytes;
+    private final long maxDiskBytes;
+    private final Path diskDirectory; // null = heap only
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final ReentrantLock diskEvictionLock = new ReentrantLock();
+
+    private final LinkedHashMap<String, byte[]> heap = new LinkedHashMap<>(16, 0.75f, true);
+    private long heapBytes;
+
+    private final AtomicLong heapHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private GeminiResponseCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxHeapBytes = builder.maxHeapBytes;
+        this.maxDiskBytes = builder.maxDiskBytes;
+        this.diskDirectory = builder.diskDirectory;
+        if (diskDirectory != null) {
+            evictFromDisk();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the cache key of {@code request}: SHA-256 over model and body, hashed while the body is streamed
+     */
+    static String keyOf(GeminiChatCompletionRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        digest.update(request.model().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        try (DigestOutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            request.writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash request body", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the cached response body for {@code key}, looking at the heap first and then at the disk
+     */
+    Optional<byte[]> get(String key) {
+        synchronized (heap) {
+            byte[] body = heap.get(key);
+            if (body != null) {
+                heapHits.incrementAndGet();
+                return Optional.of(body);
+            }
+        }
+        if (diskDirectory != null) {
+            byte[] body = readFromDisk(key);
+            if (body != null) {
+                diskHits.incrementAndGet();
+                putInHeap(key, body);
+                return Optional.of(body);
+            }
+        }
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    void put(String key, byte[] body) {
+        putInHeap(key, body);
+        if (diskDirectory != null) {
+            writeToDisk(key, body);
+        }
+    }
+
+    private void putInHeap(String key, byte[] body) {
+        if (body.length > maxHeapBytes) {
+            return;
+        }
+        synchronized (heap) {
+            byte[] previous = heap.put(key, body);
+            if (previous != null) {
+                heapBytes -= previous.length;
+            }
+            heapBytes += body.length;
+            var it = heap.entrySet().iterator();
+            while ((heap.size() > maxEntries || heapBytes > maxHeapBytes) && it.hasNext()) {
+                Map.Entry<String, byte[]> eldest = it.next();
+                heapBytes -= eldest.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Reads the entry into a plain array, so no mapping keeps the file open (which would make
+     * the replace and delete of later writes fail on Windows).
+     */
+    private byte[] readFromDisk(String key) {
+        Path file = diskDirectory.resolve(key + ".json");
+        try {
+            byte[] body = Files.readAllBytes(file);
+            touch(file);
+            return body;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // an unreadable entry is a miss, the response is fetched (and written) again
+            return null;
+        }
+    }
+
+    /**
+     * Best effort: if the entry cannot be written, the response is still returned and only
+     * the heap tier holds it.
+     */
+    private void writeToDisk(String key, byte[] body) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(diskDirectory, key, ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Path file = diskDirectory.resolve(key + ".json");
+            long previousSize = Files.exists(file) ? Files.size(file) : 0;
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(body.length - previousSize) > maxDiskBytes) {
+                evictFromDisk();
+            }
+        } catch (IOException e) {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // nothing left to do
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a disk entry as recently used; the eviction goes by modification time.
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only affects the eviction order
+        }
+    }
+
+    /**
+     * Recounts the disk tier and deletes the entries modified longest ago until it fits into
+     * {@code maxDiskBytes}. Skipped if another thread is already evicting.
+     */
+    private void evictFromDisk() {
+        if (!diskEvictionLock.tryLock()) {
+            return;
+        }
+        try {
+            record DiskEntry(Path file, long size, FileTime modified) {
+            }
+            List<DiskEntry> entries = new ArrayList<>();
+            long total = 0;
+            try (var files = Files.list(diskDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (!file.getFileName().toString().endsWith(".json")) {
+                        continue;
+                    }
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                        entries.add(new DiskEntry(file, attributes.size(), attributes.lastModifiedTime()));
+                        total += attributes.size();
+                    } catch (NoSuchFileException e) {
+                        // removed concurrently
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing(DiskEntry::modified));
+            for (int i = 0; i < entries.size() && total > maxDiskBytes; i++) {
+                DiskEntry eldest = entries.get(i);
+                Files.deleteIfExists(eldest.file());
+                total -= eldest.size();
+            }
+            diskBytes.set(total);
+        } catch (IOException e) {
+            // best effort, like the writes; the next write tries again
+        } finally {
+            diskEvictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries in the heap tier
+     */
+    public int size() {
+        synchronized (heap) {
+            return heap.size();
+        }
+    }
+
+    /**
+     * @return the total size of the response bodies in the heap tier
+     */
+    public long heapBytes() {
+        synchronized (heap) {
+            return heapBytes;
+        }
+    }
+
+    /**
+     * @return the total size of the files in the disk tier, as far as this instance has seen them
+     */
+    public long diskBytes() {
+        return diskBytes.get();
+    }
+
+    /**
+     * Removes all entries, including the files of the disk tier.
+     */
+    public void clear() {
+        synchronized (heap) {
+            heap.clear();
+            heapBytes = 0;
+        }
+        if (diskDirectory != null) {
+            try (var files = Files.list(diskDirectory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(".json")) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to clear response cache directory " + diskDirectory, e);
+            }
+            diskBytes.set(0);
+        }
+    }
+
+    public long heapHits() {
+        return heapHits.get();
+    }
+
+    public long diskHits() {
+        return diskHits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public Optional<Path> diskDirectory() {
+        return Optional.ofNullable(diskDirectory);
+    }
+
+    public static final class Builder {
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long maxHeapBytes = DEFAULT_MAX_HEAP_BYTES;
+        private long maxDiskBytes = DEFAULT_MAX_DISK_BYTES;
+        private Path diskDirectory;
+
+        private Builder() {
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries must be at least 1");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        public Builder maxHeapBytes(long maxHeapBytes) {
+            if (maxHeapBytes < 1) {
+                throw new IllegalArgumentException("maxHeapBytes must be at least 1");
+            }
+            this.maxHeapBytes = maxHeapBytes;
+            return this;
+        }
+
+        /**
+         * Bounds the on-disk tier; the entries used longest ago (by file modification time) are deleted first.
+         */
+        public Builder maxDiskBytes(long maxDiskBytes) {
+            if (maxDiskBytes < 1) {
+                throw new IllegalArgumentException("maxDiskBytes must be at least 1");
+            }
+            this.maxDiskBytes = maxDiskBytes;
+            return this;
+        }
+
+        /**
+         * Enables the on-disk tier in the given directory (created if missing).
+         */
+        public Builder diskDirectory(Path directory) {
+            this.diskDirectory = directory;
+            return this;
+        }
+
+        public GeminiResponseCache build() {
+            if (diskDirectory != null) {
+                try {
+                    Files.createDirectories(diskDirectory);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to create response cache directory " + diskDirectory, e);
+                }
+            }
+            return new GeminiResponseCache(this);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+/**
+ * An entry of "safetyRatings" of a candidate, e.g. HARM_CATEGORY_HARASSMENT / NEGLIGIBLE.
+ */
+public record GeminiSafetyRating(String category, String probability, boolean blocked) {
+}
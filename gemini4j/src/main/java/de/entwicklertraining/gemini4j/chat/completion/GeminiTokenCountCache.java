@@ -0,0 +1,77 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache for countTokens results, keyed by the SHA-256 of the request body
+ * (see {@link GeminiCountTokensRequest}). Pre-flight budget checks tend to count the same
+ * prompt templates again and again; with this cache only the first count costs a round trip.
+ *
+ * The raw response body is stored, so each hit yields a fresh response object.
+ * Thread-safe.
+ */
+public final class GeminiTokenCountCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private final int maxEntries;
+    private final Map<String, String> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public GeminiTokenCountCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public GeminiTokenCountCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > GeminiTokenCountCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached response body, or null
+     */
+    synchronized String get(String key) {
+        String body = entries.get(key);
+        if (body == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return body;
+    }
+
+    synchronized void put(String key, String responseBody) {
+        entries.put(key, responseBody);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,13 @@
+package de.entwicklertraining.gemini4j.chat.completion;
+
+/**
+ * The "usageMetadata" of a response. Counts missing in the response are 0.
+ */
+public record GeminiUsageMetadata(
+        int promptTokenCount,
+        int candidatesTokenCount,
+        int totalTokenCount,
+        int cachedContentTokenCount,
+        int thoughtsTokenCount
+) {
+}
@@ -0,0 +1,369 @@
+package de.entwicklertraining.gemini4j.embeddings;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiRequestBuilderBase;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonWriter;
+import de.entwicklertraining.gemini4j.GeminiRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A request to embed one or more texts:
+ * POST https://generativelanguage.googleapis.com/v1beta/models/{model}:embedContent for a single text,
+ * POST https://generativelanguage.googleapis.com/v1beta/models/{model}:batchEmbedContents for several.
+ *
+ * batchEmbedContents accepts at most {@value #DEFAULT_MAX_BATCH_SIZE} texts per call. Larger requests
+ * are split by {@link Builder#execute()} into chunks of {@code maxBatchSize}, which are sent
+ * concurrently by at most {@code maxConcurrency} workers; the vectors are merged back in order.
+ * If a chunk fails, no further chunks are started, the chunks in flight are canceled
+ * and the first error is thrown.
+ */
+public final class GeminiEmbeddingRequest extends GeminiRequest<GeminiEmbeddingResponse> {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+
+    private final GeminiClient client;
+    private final String model;
+    private final List<String> texts;
+    private final String taskType;
+    private final String title;
+    private final Integer outputDimensionality;
+
+    GeminiEmbeddingRequest(
+            Builder builder,
+            GeminiClient client,
+            String model,
+            List<String> texts,
+            String taskType,
+            String title,
+            Integer outputDimensionality
+    ) {
+        super(builder);
+        this.client = client;
+        this.model = model;
+        this.texts = texts;
+        this.taskType = taskType;
+        this.title = title;
+        this.outputDimensionality = outputDimensionality;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public List<String> texts() {
+        return texts;
+    }
+
+    public String taskType() {
+        return taskType;
+    }
+
+    public String title() {
+        return title;
+    }
+
+    public Integer outputDimensionality() {
+        return outputDimensionality;
+    }
+
+    private boolean isBatch() {
+        return texts.size() != 1;
+    }
+
+    @Override
+    public String getRelativeUrl() {
+        String url = "/v1beta/models/" + model + (isBatch() ? ":batchEmbedContents" : ":embedContent");
+
+        // Add API key as query parameter if available
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "?key=" + client.getApiKey();
+        }
+        return url;
+    }
+
+    @Override
+    public String getHttpMethod() {
+        return "POST";
+    }
+
+    @Override
+    public String getBody() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(256, texts.size() * 128));
+        try {
+            writeBody(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize request body", e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeBody(OutputStream out) throws IOException {
+        try (JsonGenerator gen = GeminiJsonWriter.createGenerator(out)) {
+            if (isBatch()) {
+                gen.writeStartObject();
+                gen.writeArrayFieldStart("requests");
+                for (String text : texts) {
+                    writeEmbedContent(gen, text);
+                }
+                gen.writeEndArray();
+                gen.writeEndObject();
+            } else {
+                writeEmbedContent(gen, texts.get(0));
+            }
+        }
+    }
+
+    private void writeEmbedContent(JsonGenerator gen, String text) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("model", "models/" + model);
+        gen.writeObjectFieldStart("content");
+        gen.writeArrayFieldStart("parts");
+        gen.writeStartObject();
+        gen.writeStringField("text", text);
+        gen.writeEndObject();
+        gen.writeEndArray();
+        gen.writeEndObject();
+        if (taskType != null && !taskType.isBlank()) {
+            gen.writeStringField("taskType", taskType);
+        }
+        if (title != null && !title.isBlank()) {
+            gen.writeStringField("title", title);
+        }
+        if (outputDimensionality != null) {
+            gen.writeNumberField("outputDimensionality", outputDimensionality);
+        }
+        gen.writeEndObject();
+    }
+
+    @Override
+    public GeminiEmbeddingResponse createResponse(String responseBody) {
+        return new GeminiEmbeddingResponse(responseBody.getBytes(StandardCharsets.UTF_8), this);
+    }
+
+    /**
+     * The vectors are parsed straight from the bytes into a float[], see {@link GeminiEmbeddingResponse}.
+     */
+    @Override
+    public boolean isBinaryResponse() {
+        return true;
+    }
+
+    @Override
+    public GeminiEmbeddingResponse createResponse(byte[] responseBody) {
+        return new GeminiEmbeddingResponse(responseBody, this);
+    }
+
+    /**
+     * @param abort canceled in addition to the cancel supplier of this request, e.g. once another chunk failed
+     * @return a request for {@code texts[from, to)} with the same settings (including timeout and cancel supplier)
+     */
+    GeminiEmbeddingRequest chunk(int from, int to, AtomicBoolean abort) {
+        Supplier<Boolean> userCancelSupplier = getIsCanceledSupplier();
+        Builder builder = new Builder(client)
+                .model(model)
+                .addTexts(texts.subList(from, to))
+                .taskType(taskType)
+                .title(title)
+                .outputDimensionality(outputDimensionality)
+                .maxExecutionTimeInSeconds(getMaxExecutionTimeInSeconds())
+                .setCancelSupplier(() -> abort.get() || Boolean.TRUE.equals(userCancelSupplier.get()));
+        if (hasCaptureOnSuccess()) {
+            builder.captureOnSuccess(getCaptureOnSuccess());
+        }
+        if (hasCaptureOnError()) {
+            builder.captureOnError(getCaptureOnError());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(GeminiClient client) {
+        return new Builder(client);
+    }
+
+    public static final class Builder extends ApiRequestBuilderBase<Builder, GeminiEmbeddingRequest> {
+        private final GeminiClient client;
+        private String model = "text-embedding-004";
+        private final List<String> texts = new ArrayList<>();
+        private String taskType;
+        private String title;
+        private Integer outputDimensionality;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+        private Executor executor;
+
+        public Builder(GeminiClient client) {
+            this.client = client;
+        }
+
+        public Builder model(String m) {
+            this.model = m;
+            return this;
+        }
+
+        public Builder addText(String text) {
+            this.texts.add(Objects.requireNonNull(text, "text must not be null"));
+            return this;
+        }
+
+        public Builder addTexts(List<String> textList) {
+            for (String text : textList) {
+                addText(text);
+            }
+            return this;
+        }
+
+        /**
+         * E.g. "RETRIEVAL_DOCUMENT", "RETRIEVAL_QUERY", "SEMANTIC_SIMILARITY", "CLASSIFICATION", "CLUSTERING".
+         */
+        public Builder taskType(String taskType) {
+            this.taskType = taskType;
+            return this;
+        }
+
+        /**
+         * Only used together with taskType "RETRIEVAL_DOCUMENT".
+         */
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        /**
+         * Truncates the vectors to the given size, e.g. 256, to save memory.
+         */
+        public Builder outputDimensionality(Integer dimensions) {
+            this.outputDimensionality = dimensions;
+            return this;
+        }
+
+        /**
+         * How many texts are sent per batchEmbedContents call (default and API limit: 100).
+         */
+        public Builder maxBatchSize(int size) {
+            if (size < 1) {
+                throw new IllegalArgumentException("maxBatchSize must be at least 1");
+            }
+            this.maxBatchSize = size;
+            return this;
+        }
+
+        /**
+         * How many chunks of a large request may be in flight at the same time (default: 4).
+         */
+        public Builder maxConcurrency(int concurrency) {
+            if (concurrency < 1) {
+                throw new IllegalArgumentException("maxConcurrency must be at least 1");
+            }
+            this.maxConcurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * Runs the chunks of a large request; defaults to the client's async executor
+         * (one virtual thread per chunk).
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public GeminiEmbeddingRequest build() {
+            if (texts.isEmpty()) {
+                throw new IllegalStateException("At least one text is required");
+            }
+            return new GeminiEmbeddingRequest(
+                    this,
+                    client,
+                    model,
+                    List.copyOf(texts),
+                    taskType,
+                    title,
+                    outputDimensionality
+            );
+        }
+
+        @Override
+        public GeminiEmbeddingResponse execute() {
+            return send(false);
+        }
+
+        @Override
+        public GeminiEmbeddingResponse executeWithExponentialBackoff() {
+            return send(true);
+        }
+
+        private GeminiEmbeddingResponse send(boolean useExponentialBackoff) {
+            GeminiEmbeddingRequest request = build();
+            int size = request.texts().size();
+            if (size <= maxBatchSize) {
+                return sendOne(request, useExponentialBackoff);
+            }
+
+            // Split into chunks; up to maxConcurrency workers take the next chunk until all are done
+            int chunkCount = (size + maxBatchSize - 1) / maxBatchSize;
+            GeminiEmbeddingResponse[] responses = new GeminiEmbeddingResponse[chunkCount];
+            AtomicInteger nextChunk = new AtomicInteger();
+            AtomicBoolean failed = new AtomicBoolean();
+            AtomicReference<RuntimeException> firstError = new AtomicReference<>();
+            Executor chunkExecutor = executor != null ? executor : client.getAsyncExecutor();
+
+            List<CompletableFuture<Void>> workers = new ArrayList<>();
+            for (int w = 0; w < Math.min(maxConcurrency, chunkCount); w++) {
+                workers.add(CompletableFuture.runAsync(() -> {
+                    int chunk;
+                    while (!failed.get() && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                        int from = chunk * maxBatchSize;
+                        try {
+                            responses[chunk] = sendOne(request.chunk(from, Math.min(size, from + maxBatchSize), failed),
+                                    useExponentialBackoff);
+                        } catch (RuntimeException e) {
+                            // the first failure cancels the chunks in flight; their cancellations are not reported
+                            if (firstError.compareAndSet(null, e)) {
+                                failed.set(true);
+                            }
+                            throw e;
+                        }
+                    }
+                }, chunkExecutor));
+            }
+
+            try {
+                CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+            } catch (CompletionException e) {
+                if (firstError.get() != null) {
+                    throw firstError.get();
+                }
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new ApiClient.ApiClientException("Embedding chunk failed", e.getCause());
+            }
+            return GeminiEmbeddingResponse.merge(List.of(responses), request);
+        }
+
+        private GeminiEmbeddingResponse sendOne(GeminiEmbeddingRequest request, boolean useExponentialBackoff) {
+            return useExponentialBackoff
+                    ? client.sendRequestWithExponentialBackoff(request)
+                    : client.sendRequest(request);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package de.entwicklertraining.gemini4j.embeddings;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiResponse;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wraps the response of embedContent ({"embedding": {"values": [...]}}) or
+ * batchEmbedContents ({"embeddings": [{"values": [...]}, ...]}).
+ *
+ * The values are read with Jackson's streaming parser directly into one contiguous
+ * {@code float[]}, instead of a JSONArray of boxed numbers per vector. Vector {@code i}
+ * occupies {@code [offset(i), offset(i + 1))} of that array; use {@link #embedding(int)}
+ * for a copy or {@link #asFloatBuffer()} for a view without copying.
+ * The org.json tree behind {@link #getJson()} is only built on request.
+ */
+public final class GeminiEmbeddingResponse extends GeminiResponse<GeminiEmbeddingRequest> {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder().build();
+
+    private final float[] values;
+    private final int[] offsets; // offsets.length == size() + 1
+
+    public GeminiEmbeddingResponse(byte[] body, GeminiEmbeddingRequest request) {
+        super(() -> new JSONObject(new String(body, StandardCharsets.UTF_8)), request);
+        Vectors vectors = parse(body);
+        this.values = vectors.values();
+        this.offsets = vectors.offsets();
+    }
+
+    private GeminiEmbeddingResponse(float[] values, int[] offsets, GeminiEmbeddingRequest request) {
+        super(() -> toJson(values, offsets), request);
+        this.values = values;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Concatenates the responses of the chunks of {@code request}, in order.
+     *
+     * @throws ApiClient.ApiResponseUnusableException if a chunk returned a different number of vectors than it had texts
+     */
+    static GeminiEmbeddingResponse merge(List<GeminiEmbeddingResponse> parts, GeminiEmbeddingRequest request) {
+        int totalValues = 0;
+        int totalVectors = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            GeminiEmbeddingResponse part = parts.get(i);
+            int expected = part.getRequest().texts().size();
+            if (part.size() != expected) {
+                throw new ApiClient.ApiResponseUnusableException(
+                        "Embedding chunk " + i + " returned " + part.size() + " vectors for " + expected + " texts");
+            }
+            totalValues += part.values.length;
+            totalVectors += part.size();
+        }
+        float[] values = new float[totalValues];
+        int[] offsets = new int[totalVectors + 1];
+        int valuePos = 0;
+        int vectorPos = 0;
+        for (GeminiEmbeddingResponse part : parts) {
+            System.arraycopy(part.values, 0, values, valuePos, part.values.length);
+            for (int i = 0; i < part.size(); i++) {
+                offsets[vectorPos++] = valuePos + part.offsets[i];
+            }
+            valuePos += part.values.length;
+        }
+        offsets[totalVectors] = valuePos;
+        return new GeminiEmbeddingResponse(values, offsets, request);
+    }
+
+    /**
+     * @return the number of vectors, in the order of the texts of the request
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return the length of the vectors, or -1 if they differ in length (or there are none)
+     */
+    public int dimension() {
+        if (size() == 0) {
+            return -1;
+        }
+        int dimension = offsets[1] - offsets[0];
+        for (int i = 1; i < size(); i++) {
+            if (offsets[i + 1] - offsets[i] != dimension) {
+                return -1;
+            }
+        }
+        return dimension;
+    }
+
+    /**
+     * @return a copy of vector {@code index}
+     */
+    public float[] embedding(int index) {
+        checkIndex(index);
+        return Arrays.copyOfRange(values, offsets[index], offsets[index + 1]);
+    }
+
+    /**
+     * @return a read-only view on vector {@code index}, without copying
+     */
+    public FloatBuffer embeddingBuffer(int index) {
+        checkIndex(index);
+        return FloatBuffer.wrap(values, offsets[index], offsets[index + 1] - offsets[index]).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * @return a read-only view on all vectors back to back; with a uniform {@link #dimension()} d,
+     *         vector i starts at position i * d
+     */
+    public FloatBuffer asFloatBuffer() {
+        return FloatBuffer.wrap(values).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return the start of vector {@code index} in {@link #asFloatBuffer()}; {@code offset(size())} is the total length
+     */
+    public int offset(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + (size() + 1));
+        }
+        return offsets[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size());
+        }
+    }
+
+    /**
+     * Growable float[] plus the start offset of every vector.
+     */
+    private static final class Vectors {
+        private float[] values = new float[1024];
+        private int length;
+        private int[] offsets = new int[9];
+        private int count;
+
+        void startVector() {
+            if (count + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count++] = length;
+        }
+
+        void add(float value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[length++] = value;
+        }
+
+        float[] values() {
+            return length == values.length ? values : Arrays.copyOf(values, length);
+        }
+
+        int[] offsets() {
+            offsets[count] = length;
+            return Arrays.copyOf(offsets, count + 1);
+        }
+    }
+
+    private static Vectors parse(byte[] body) {
+        Vectors vectors = new Vectors();
+        try (JsonParser p = JSON_FACTORY.createParser(body)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) {
+                throw new ApiClient.ApiResponseUnusableException("Embedding response is not a JSON object");
+            }
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("embedding".equals(field) && value == JsonToken.START_OBJECT) {
+                    readEmbedding(p, vectors);
+                } else if ("embeddings".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        if (p.currentToken() == JsonToken.START_OBJECT) {
+                            readEmbedding(p, vectors);
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new ApiClient.ApiResponseUnusableException("Failed to parse embedding response: " + e.getMessage(), e);
+        }
+        return vectors;
+    }
+
+    /**
+     * Reads one {"values": [...]} object; the parser is positioned on its START_OBJECT.
+     */
+    private static void readEmbedding(JsonParser p, Vectors vectors) throws IOException {
+        vectors.startVector();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("values".equals(field) && value == JsonToken.START_ARRAY) {
+                JsonToken token;
+                while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                        vectors.add(p.getFloatValue());
+                    } else {
+                        throw new ApiClient.ApiResponseUnusableException("Unexpected " + token + " in embedding values");
+                    }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static JSONObject toJson(float[] values, int[] offsets) {
+        JSONArray embeddings = new JSONArray();
+        for (int i = 0; i < offsets.length - 1; i++) {
+            JSONArray vector = new JSONArray();
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                vector.put(values[j]);
+            }
+            embeddings.put(new JSONObject().put("values", vector));
+        }
+        return new JSONObject().put("embeddings", embeddings);
+    }
+}
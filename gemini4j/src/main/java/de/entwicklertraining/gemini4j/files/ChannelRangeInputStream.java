@@ -0,0 +1,44 @@
+package de.entwicklertraining.gemini4j.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads {@code length} bytes of a shared {@link FileChannel} starting at {@code offset}, with
+ * positional reads, so several ranges of one channel can be read without touching its position.
+ * Closing the stream does not close the channel.
+ */
+final class ChannelRangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private long position;
+    private final long end;
+
+    ChannelRangeInputStream(FileChannel channel, long offset, long length) {
+        this.channel = channel;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (position >= end) {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, end - position);
+        int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+        if (read < 0) {
+            throw new IOException("File is shorter than expected: ended at " + position + ", expected " + end);
+        }
+        position += read;
+        return read;
+    }
+}
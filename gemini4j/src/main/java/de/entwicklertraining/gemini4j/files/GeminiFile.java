@@ -0,0 +1,60 @@
+package de.entwicklertraining.gemini4j.files;
+
+import org.json.JSONObject;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A file stored with the Gemini Files API, e.g.:
+ * <pre>
+ * { "name": "files/abc-123", "uri": "https://generativelanguage.googleapis.com/v1beta/files/abc-123",
+ *   "mimeType": "image/png", "sizeBytes": "1048576", "state": "ACTIVE",
+ *   "sha256Hash": "...", "expirationTime": "2025-01-03T10:00:00Z" }
+ * </pre>
+ * Chat completion requests refer to it by {@link #uri()}, see
+ * {@code GeminiChatCompletionRequest.Builder#addFile(GeminiFile)}.
+ *
+ * @param name           the resource name ("files/...")
+ * @param uri            the URI to refer to the file from a request
+ * @param mimeType       the MIME type given at upload
+ * @param sizeBytes      the size in bytes, or -1 if unknown
+ * @param state          PROCESSING, ACTIVE or FAILED
+ * @param expirationTime when the server deletes the file (uploads are kept for 48 hours), null if unknown
+ */
+public record GeminiFile(String name, String uri, String mimeType, long sizeBytes, String state, Instant expirationTime) {
+
+    /**
+     * Reads a file resource, either plain or wrapped as {"file": {...}} like the upload response.
+     */
+    public static GeminiFile fromJson(JSONObject json) {
+        JSONObject file = json.optJSONObject("file");
+        if (file == null) {
+            file = json;
+        }
+        // int64 values are sent as strings in the protobuf JSON format
+        long size;
+        try {
+            size = Long.parseLong(file.optString("sizeBytes", "-1"));
+        } catch (NumberFormatException e) {
+            size = -1;
+        }
+        Instant expirationTime = null;
+        String expiration = file.optString("expirationTime", null);
+        if (expiration != null) {
+            try {
+                expirationTime = Instant.parse(expiration);
+            } catch (DateTimeParseException ignored) {
+                // treated as unknown
+            }
+        }
+        return new GeminiFile(
+                file.optString("name", null),
+                file.optString("uri", null),
+                file.optString("mimeType", null),
+                size,
+                file.optString("state", null),
+                expirationTime
+        );
+    }
+}
@@ -0,0 +1,102 @@
+package de.entwicklertraining.gemini4j.files;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU of uploaded files, keyed by the SHA-256 of their content and their MIME type.
+ * Uploading the same bytes again returns the known handle instead of a second upload,
+ * until the file is about to expire on the server.
+ * Thread-safe.
+ */
+public final class GeminiFileCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Handles expiring within this margin are not handed out anymore, so a request
+     * built with one does not reach the server after the file is gone.
+     */
+    private static final Duration EXPIRY_MARGIN = Duration.ofMinutes(10);
+
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<String, GeminiFile> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public GeminiFileCache() {
+        this(DEFAULT_MAX_ENTRIES, Clock.systemUTC());
+    }
+
+    /**
+     * @param clock the time source for the expiry check, e.g. a fixed clock in tests
+     */
+    public GeminiFileCache(int maxEntries, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.clock = Objects.requireNonNull(clock, "clock must not be null");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GeminiFile> eldest) {
+                return size() > GeminiFileCache.this.maxEntries;
+            }
+        };
+    }
+
+    static String key(String contentHash, String mimeType) {
+        return contentHash + ":" + mimeType;
+    }
+
+    /**
+     * @return the uploaded file, or null if unknown or about to expire
+     */
+    synchronized GeminiFile get(String key) {
+        GeminiFile file = entries.get(key);
+        if (file != null && file.expirationTime() != null
+                && !file.expirationTime().isAfter(Instant.now(clock).plus(EXPIRY_MARGIN))) {
+            entries.remove(key);
+            file = null;
+        }
+        if (file == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return file;
+    }
+
+    synchronized void put(String key, GeminiFile file) {
+        entries.put(key, file);
+    }
+
+    /**
+     * Forgets the handle of a file, e.g. after it was deleted on the server.
+     */
+    public synchronized void invalidate(String name) {
+        entries.values().removeIf(file -> Objects.equals(file.name(), name));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,243 @@
+package de.entwicklertraining.gemini4j.files;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Uploads a file from disk with the resumable upload protocol of the Files API:
+ * <pre>
+ * POST /upload/v1beta/files   X-Goog-Upload-Command: start              -> X-Goog-Upload-URL
+ * POST {upload url}           X-Goog-Upload-Command: upload             (one per chunk)
+ * POST {upload url}           X-Goog-Upload-Command: upload, finalize   (last chunk)
+ * </pre>
+ * The chunks are streamed from a {@link FileChannel} with positional reads, so neither the file
+ * nor a chunk is loaded into memory. If a chunk fails with an I/O error or a 5xx status, the
+ * session is asked how many bytes arrived ({@code X-Goog-Upload-Command: query}) and the upload
+ * continues from there, up to {@link #MAX_RESUME_ATTEMPTS} times in a row.
+ *
+ * By default the handle is looked up in the client's {@link GeminiFileCache} by the SHA-256 of the
+ * content first, so the same bytes are uploaded only once.
+ */
+public final class GeminiFileUpload {
+
+    /**
+     * Chunk sizes must be a multiple of this (except for the last chunk).
+     */
+    public static final int CHUNK_GRANULARITY = 256 * 1024;
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+    public static final int MAX_RESUME_ATTEMPTS = 3;
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final GeminiClient client;
+    private final Path path;
+    private final String mimeType;
+    private final String displayName;
+    private final int chunkSize;
+    private final boolean useCache;
+
+    private GeminiFileUpload(Builder builder) {
+        this.client = builder.client;
+        this.path = builder.path;
+        this.mimeType = builder.mimeType;
+        this.displayName = builder.displayName;
+        this.chunkSize = builder.chunkSize;
+        this.useCache = builder.useCache;
+    }
+
+    public static Builder builder(GeminiClient client, Path path) {
+        return new Builder(client, path);
+    }
+
+    private GeminiFile execute() {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!useCache) {
+                return upload(channel);
+            }
+            GeminiFileCache cache = client.getFileCache();
+            String key = GeminiFileCache.key(sha256(channel), mimeType);
+            GeminiFile cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            GeminiFile file = upload(channel);
+            cache.put(key, file);
+            return file;
+        } catch (IOException e) {
+            throw new ApiClient.ApiClientException("Failed to read " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private GeminiFile upload(FileChannel channel) throws IOException {
+        long size = channel.size();
+        URI session = start(size);
+
+        long offset = 0;
+        int failures = 0;
+        while (true) {
+            long length = Math.min(chunkSize, size - offset);
+            boolean last = offset + length == size;
+            try {
+                HttpResponse<String> response = sendChunk(session, channel, offset, length, last);
+                if (last) {
+                    return GeminiFile.fromJson(new JSONObject(response.body()));
+                }
+                offset += length;
+                failures = 0;
+            } catch (ApiClient.ApiClientException
+                     | ApiClient.HTTP_500_ServerErrorException
+                     | ApiClient.HTTP_503_ServerUnavailableException
+                     | ApiClient.HTTP_504_ServerTimeoutException e) {
+                if (++failures > MAX_RESUME_ATTEMPTS) {
+                    throw e;
+                }
+                HttpResponse<String> status = query(session);
+                if ("final".equalsIgnoreCase(status.headers().firstValue("X-Goog-Upload-Status").orElse(""))) {
+                    return GeminiFile.fromJson(new JSONObject(status.body()));
+                }
+                offset = status.headers().firstValue("X-Goog-Upload-Size-Received")
+                        .map(Long::parseLong)
+                        .orElseThrow(() -> new ApiClient.ApiResponseUnusableException(
+                                "Upload query response has no X-Goog-Upload-Size-Received header"));
+            }
+        }
+    }
+
+    /**
+     * Announces the upload and returns the session URL the bytes are sent to.
+     */
+    private URI start(long size) {
+        JSONObject file = new JSONObject();
+        if (displayName != null && !displayName.isBlank()) {
+            file.put("display_name", displayName);
+        }
+        String url = "/upload/v1beta/files";
+        if (client.getApiKey() != null && !client.getApiKey().isEmpty()) {
+            url += "?key=" + client.getApiKey();
+        }
+        HttpRequest request = HttpRequest.newBuilder(client.resolve(url))
+                .header("X-Goog-Upload-Protocol", "resumable")
+                .header("X-Goog-Upload-Command", "start")
+                .header("X-Goog-Upload-Header-Content-Length", Long.toString(size))
+                .header("X-Goog-Upload-Header-Content-Type", mimeType)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(new JSONObject().put("file", file).toString()))
+                .build();
+        HttpResponse<String> response = client.sendHttpRequest(request, HttpResponse.BodyHandlers.ofString());
+        return response.headers().firstValue("X-Goog-Upload-URL")
+                .map(URI::create)
+                .orElseThrow(() -> new ApiClient.ApiResponseUnusableException("Upload start response has no X-Goog-Upload-URL header"));
+    }
+
+    private HttpResponse<String> sendChunk(URI session, FileChannel channel, long offset, long length, boolean last) {
+        HttpRequest.BodyPublisher body = length == 0
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.fromPublisher(
+                        HttpRequest.BodyPublishers.ofInputStream(() -> new ChannelRangeInputStream(channel, offset, length)),
+                        length);
+        HttpRequest request = HttpRequest.newBuilder(session)
+                .header("X-Goog-Upload-Offset", Long.toString(offset))
+                .header("X-Goog-Upload-Command", last ? "upload, finalize" : "upload")
+                .POST(body)
+                .build();
+        return client.sendHttpRequest(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> query(URI session) {
+        HttpRequest request = HttpRequest.newBuilder(session)
+                .header("X-Goog-Upload-Command", "query")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.sendHttpRequest(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * @return the hex SHA-256 of the whole file, read with positional reads
+     */
+    static String sha256(FileChannel channel) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) > 0) {
+            position += read;
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static final class Builder {
+        private final GeminiClient client;
+        private final Path path;
+        private String mimeType = "application/octet-stream";
+        private String displayName;
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private boolean useCache = true;
+
+        private Builder(GeminiClient client, Path path) {
+            this.client = Objects.requireNonNull(client, "client must not be null");
+            this.path = Objects.requireNonNull(path, "path must not be null");
+        }
+
+        public Builder mimeType(String mimeType) {
+            this.mimeType = Objects.requireNonNull(mimeType, "mimeType must not be null");
+            return this;
+        }
+
+        /**
+         * Optional, shown in the file list of the API.
+         */
+        public Builder displayName(String displayName) {
+            this.displayName = displayName;
+            return this;
+        }
+
+        /**
+         * Bytes per upload request; a multiple of {@link #CHUNK_GRANULARITY}. Default: 8 MiB.
+         */
+        public Builder chunkSize(int chunkSize) {
+            if (chunkSize < CHUNK_GRANULARITY || chunkSize % CHUNK_GRANULARITY != 0) {
+                throw new IllegalArgumentException("chunkSize must be a positive multiple of " + CHUNK_GRANULARITY);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /**
+         * Whether to reuse (and remember) the handle of identical content via the client's
+         * {@link GeminiFileCache}. Default: true.
+         */
+        public Builder useCache(boolean useCache) {
+            this.useCache = useCache;
+            return this;
+        }
+
+        /**
+         * Uploads the file (or returns the cached handle of the same content).
+         */
+        public GeminiFile execute() {
+            return new GeminiFileUpload(this).execute();
+        }
+    }
+}
@@ -94,6 +94,29 @@ public class GeminiMockServer implements BeforeEachCallback, AfterEachCallback {
                         .withBody(TestFixtures.createFunctionCallResponseJson())));
     }
 
+    /**
+     * Stubs a two-turn tool loop: the first call answers with the given
+     * function call response, every following call with a normal text answer.
+     */
+    public void stubToolLoop(String functionCallResponseBody) {
+        stubFor(post(urlMatching("/v1beta/models/.+:generateContent.*"))
+                .inScenario("Tool Loop")
+                .whenScenarioStateIs("Started")
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(functionCallResponseBody))
+                .willSetStateTo("Tools Executed"));
+
+        stubFor(post(urlMatching("/v1beta/models/.+:generateContent.*"))
+                .inScenario("Tool Loop")
+                .whenScenarioStateIs("Tools Executed")
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(TestFixtures.createSuccessfulResponseJson())));
+    }
+
     /**
      * Stubs a structured output response.
      */
@@ -195,6 +218,51 @@ public class GeminiMockServer implements BeforeEachCallback, AfterEachCallback {
                         .withBody("{\"error\":{\"code\":503,\"message\":\"Service unavailable\",\"status\":\"UNAVAILABLE\"}}")));
     }
 
+    /**
+     * Stubs a streamGenerateContent response as server-sent events.
+     * Each text chunk becomes its own event; the body is dribbled out in
+     * several HTTP chunks so the client really has to parse incrementally.
+     */
+    public void stubStreamingCompletion(String... textChunks) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < textChunks.length; i++) {
+            boolean last = i == textChunks.length - 1;
+            body.append("data: ")
+                    .append(TestFixtures.createStreamingChunkJson(textChunks[i], last ? "STOP" : null))
+                    .append("\r\n\r\n");
+        }
+
+        stubFor(post(urlMatching("/v1beta/models/.+:streamGenerateContent.*"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/event-stream")
+                        .withBody(body.toString())
+                        .withChunkedDribbleDelay(Math.max(2, textChunks.length * 2), 200)));
+    }
+
+    /**
+     * Stubs a streamGenerateContent call that fails with the given status code.
+     */
+    public void stubStreamingError(int status, String errorBody) {
+        stubFor(post(urlMatching("/v1beta/models/.+:streamGenerateContent.*"))
+                .willReturn(aResponse()
+                        .withStatus(status)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(errorBody)));
+    }
+
+    /**
+     * Stubs a successful chat completion that answers only after the given delay.
+     */
+    public void stubDelayedCompletion(int delayMillis) {
+        stubFor(post(urlMatching("/v1beta/models/.+:generateContent.*"))
+                .willReturn(aResponse()
+                        .withFixedDelay(delayMillis)
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(TestFixtures.createSuccessfulResponseJson())));
+    }
+
     /**
      * Stubs a timeout scenario.
      */
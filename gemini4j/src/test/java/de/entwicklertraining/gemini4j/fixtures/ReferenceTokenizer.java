@@ -0,0 +1,42 @@
+package de.entwicklertraining.gemini4j.fixtures;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The former list-building implementation of GeminiTokenizer.countTokens.
+ * Tests compare the scanner against it and use it as performance baseline.
+ */
+public final class ReferenceTokenizer {
+
+    private static final Pattern HTML_SPLIT_PATTERN = Pattern.compile("<[^>]+>|[^<]+");
+    private static final Pattern TOKEN_SPLIT_PATTERN = Pattern.compile(
+            "&[a-zA-Z]+;|&#\\d+;|[\\p{L}\\p{M}\\p{N}]+(?:['-][\\p{L}\\p{M}\\p{N}]+)*|[\\p{Punct}]|\\S"
+    );
+
+    private ReferenceTokenizer() {
+    }
+
+    public static int countTokens(String html) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = HTML_SPLIT_PATTERN.matcher(html);
+        while (matcher.find()) {
+            String segment = matcher.group();
+            if (segment.startsWith("<") && segment.endsWith(">")) {
+                tokens.add(segment);
+            } else {
+                Matcher sub = TOKEN_SPLIT_PATTERN.matcher(segment);
+                while (sub.find()) {
+                    tokens.add(sub.group());
+                }
+            }
+        }
+        int total = 0;
+        for (String t : tokens) {
+            total += Math.max(1, (int) Math.ceil((double) t.length() / 4));
+        }
+        return total;
+    }
+}
@@ -165,6 +165,33 @@ public class TestFixtures {
         return response.toString();
     }
 
+    /**
+     * One event payload of a streamGenerateContent response.
+     * The final chunk carries the finishReason and the usage metadata.
+     */
+    public static String createStreamingChunkJson(String text, String finishReason) {
+        JSONObject content = new JSONObject();
+        content.put("role", "model");
+        content.put("parts", new JSONArray().put(new JSONObject().put("text", text)));
+
+        JSONObject candidate = new JSONObject();
+        candidate.put("content", content);
+        if (finishReason != null) {
+            candidate.put("finishReason", finishReason);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("candidates", new JSONArray().put(candidate));
+        if (finishReason != null) {
+            JSONObject usageMetadata = new JSONObject();
+            usageMetadata.put("promptTokenCount", 10);
+            usageMetadata.put("candidatesTokenCount", 15);
+            usageMetadata.put("totalTokenCount", 25);
+            response.put("usageMetadata", usageMetadata);
+        }
+        return response.toString();
+    }
+
     /**
      * Sample function call response JSON.
      */
@@ -199,6 +226,30 @@ public class TestFixtures {
         return response.toString();
     }
 
+    /**
+     * Sample response with one functionCall part per given tool name (parallel function calling).
+     * Each call gets an "id" argument with its position.
+     */
+    public static String createParallelFunctionCallResponseJson(String... toolNames) {
+        JSONArray parts = new JSONArray();
+        for (int i = 0; i < toolNames.length; i++) {
+            JSONObject functionCall = new JSONObject();
+            functionCall.put("name", toolNames[i]);
+            functionCall.put("args", new JSONObject().put("id", i));
+            parts.put(new JSONObject().put("functionCall", functionCall));
+        }
+
+        JSONObject content = new JSONObject();
+        content.put("role", "model");
+        content.put("parts", parts);
+
+        JSONObject candidate = new JSONObject();
+        candidate.put("content", content);
+        candidate.put("finishReason", "STOP");
+
+        return new JSONObject().put("candidates", new JSONArray().put(candidate)).toString();
+    }
+
     /**
      * Sample error response JSON for HTTP 400.
      */
@@ -0,0 +1,138 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for executeAsync / executeWithExponentialBackoffAsync.
+ */
+@DisplayName("Gemini Async Integration Tests")
+class GeminiAsyncIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    @Nested
+    @DisplayName("Async Execution")
+    class AsyncExecutionTests {
+
+        @Test
+        @DisplayName("Should complete the future with the response")
+        void shouldCompleteFutureWithResponse() throws Exception {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+
+            // When
+            CompletableFuture<GeminiChatCompletionResponse> future = client.chat()
+                    .completion()
+                    .addMessage("user", "Hello")
+                    .executeAsync();
+
+            // Then
+            assertThat(future.get(10, TimeUnit.SECONDS).assistantMessage())
+                    .isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        }
+
+        @Test
+        @DisplayName("Should run many requests concurrently without a sized thread pool")
+        void shouldRunManyRequestsConcurrently() {
+            // Given
+            mockServer.stubDelayedCompletion(300);
+
+            // When
+            long start = System.nanoTime();
+            List<CompletableFuture<GeminiChatCompletionResponse>> futures = IntStream.range(0, 50)
+                    .mapToObj(i -> client.chat().completion()
+                            .addMessage("user", "Request " + i)
+                            .executeWithExponentialBackoffAsync())
+                    .toList();
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Then
+            assertThat(futures).allSatisfy(f -> assertThat(f.join().assistantMessage()).isNotNull());
+            assertThat(elapsedMillis).isLessThan(50 * 300 / 4);
+        }
+
+        @Test
+        @DisplayName("Should use the executor configured on the builder")
+        void shouldUseConfiguredExecutor() throws Exception {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+            AtomicInteger executions = new AtomicInteger();
+            Executor executor = task -> {
+                executions.incrementAndGet();
+                Thread.ofVirtual().start(task);
+            };
+
+            // When
+            client.chat()
+                    .completion()
+                    .addMessage("user", "Hello")
+                    .asyncExecutor(executor)
+                    .executeAsync()
+                    .get(10, TimeUnit.SECONDS);
+
+            // Then
+            assertThat(executions.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should abort the HTTP call when the future is cancelled")
+        void shouldAbortHttpCallWhenFutureIsCancelled() throws Exception {
+            // Given
+            mockServer.stubDelayedCompletion(5000);
+            CountDownLatch finished = new CountDownLatch(1);
+            Executor executor = task -> Thread.ofVirtual().start(() -> {
+                try {
+                    task.run();
+                } finally {
+                    finished.countDown();
+                }
+            });
+
+            // When
+            CompletableFuture<GeminiChatCompletionResponse> future = client.chat()
+                    .completion()
+                    .addMessage("user", "Hello")
+                    .asyncExecutor(executor)
+                    .executeAsync();
+            Thread.sleep(300);
+            future.cancel(true);
+
+            // Then
+            assertThat(future).isCancelled();
+            assertThat(finished.await(2, TimeUnit.SECONDS)).isTrue();
+            mockServer.verifyRequest(1, postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchEntry;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchJsonl;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchResponse;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchResult;
+import de.entwicklertraining.gemini4j.batches.GeminiBatchResults;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the batch endpoints and the JSONL input/output handling.
+ */
+@DisplayName("Batch Integration Tests")
+class GeminiBatchIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String BATCH_NAME = "batches/nightly-1";
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    private GeminiBatchEntry entry(int i) {
+        return new GeminiBatchEntry("prompt-" + i, client.chat().completion()
+                .addMessage("user", "Summarize document " + i)
+                .build());
+    }
+
+    private static String batchJson(String state, String responsesFile) {
+        JSONObject metadata = new JSONObject()
+                .put("model", "models/gemini-1.5-flash")
+                .put("state", state)
+                .put("batchStats", new JSONObject().put("requestCount", "2").put("successfulRequestCount", "1")
+                        .put("failedRequestCount", "1"));
+        if (responsesFile != null) {
+            metadata.put("output", new JSONObject().put("responsesFile", responsesFile));
+        }
+        return new JSONObject().put("name", BATCH_NAME).put("metadata", metadata).toString();
+    }
+
+    @Nested
+    @DisplayName("Input")
+    class InputTests {
+
+        @Test
+        @DisplayName("Should write one JSONL line per entry")
+        void shouldWriteJsonl() throws Exception {
+            // Given
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            // When
+            long count = GeminiBatchJsonl.write(IntStream.range(0, 3).mapToObj(i -> entry(i)).iterator(), out);
+
+            // Then
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertThat(count).isEqualTo(3);
+            assertThat(lines).hasSize(3);
+            JSONObject second = new JSONObject(lines[1]);
+            assertThat(second.getString("key")).isEqualTo("prompt-1");
+            assertThat(second.getJSONObject("request").getJSONArray("contents").getJSONObject(0)
+                    .getJSONArray("parts").getJSONObject(0).getString("text")).isEqualTo("Summarize document 1");
+        }
+
+        @Test
+        @DisplayName("Should upload the entries as JSONL and create the job on it")
+        void shouldUploadInputAndCreateJob() {
+            // Given
+            stubFor(post(urlPathEqualTo("/upload/v1beta/files"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("start"))
+                    .willReturn(ok().withHeader("X-Goog-Upload-URL", mockServer.getBaseUrl() + "/upload-session/1")));
+            stubFor(post(urlPathEqualTo("/upload-session/1"))
+                    .willReturn(okJson("{\"file\":{\"name\":\"files/input-1\",\"mimeType\":\"application/jsonl\"}}")));
+            stubFor(post(urlPathEqualTo("/v1beta/models/gemini-1.5-flash:batchGenerateContent"))
+                    .willReturn(okJson(batchJson("BATCH_STATE_PENDING", null))));
+
+            // When
+            GeminiBatchResponse job = client.batches().create()
+                    .displayName("nightly")
+                    .requests(IntStream.range(0, 2).mapToObj(i -> entry(i)))
+                    .execute();
+
+            // Then
+            assertThat(job.name()).isEqualTo(BATCH_NAME);
+            assertThat(job.isDone()).isFalse();
+            verify(postRequestedFor(urlPathEqualTo("/upload/v1beta/files"))
+                    .withHeader("X-Goog-Upload-Protocol", equalTo("resumable"))
+                    .withHeader("X-Goog-Upload-Header-Content-Type", equalTo("application/jsonl")));
+            verify(postRequestedFor(urlPathEqualTo("/upload-session/1"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload, finalize"))
+                    .withRequestBody(containing("\"key\":\"prompt-0\""))
+                    .withRequestBody(containing("\"key\":\"prompt-1\"")));
+            verify(postRequestedFor(urlPathEqualTo("/v1beta/models/gemini-1.5-flash:batchGenerateContent"))
+                    .withRequestBody(matchingJsonPath("$.batch.input_config.file_name", equalTo("files/input-1")))
+                    .withRequestBody(matchingJsonPath("$.batch.display_name", equalTo("nightly"))));
+        }
+
+        @Test
+        @DisplayName("Should require an input for create")
+        void shouldRequireInput() {
+            assertThatThrownBy(() -> client.batches().create().build())
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Polling and results")
+    class ResultTests {
+
+        @Test
+        @DisplayName("Should poll until the job is done")
+        void shouldAwaitCompletion() {
+            // Given
+            stubFor(get(urlPathEqualTo("/v1beta/" + BATCH_NAME)).inScenario("job")
+                    .whenScenarioStateIs(STARTED)
+                    .willReturn(okJson(batchJson("BATCH_STATE_RUNNING", null)))
+                    .willSetStateTo("done"));
+            stubFor(get(urlPathEqualTo("/v1beta/" + BATCH_NAME)).inScenario("job")
+                    .whenScenarioStateIs("done")
+                    .willReturn(okJson(batchJson("BATCH_STATE_SUCCEEDED", "files/output-1"))));
+
+            // When
+            GeminiBatchResponse job = client.batches().awaitCompletion(BATCH_NAME, Duration.ofMillis(10), Duration.ofSeconds(5));
+
+            // Then
+            assertThat(job.isSucceeded()).isTrue();
+            assertThat(job.responsesFile()).isEqualTo("files/output-1");
+            assertThat(job.requestCount()).isEqualTo(2);
+            assertThat(job.failedRequestCount()).isEqualTo(1);
+            verify(2, getRequestedFor(urlPathEqualTo("/v1beta/" + BATCH_NAME)));
+        }
+
+        @Test
+        @DisplayName("Should give up polling after the timeout")
+        void shouldTimeOutWhilePolling() {
+            // Given
+            stubFor(get(urlPathEqualTo("/v1beta/" + BATCH_NAME))
+                    .willReturn(okJson(batchJson("BATCH_STATE_RUNNING", null))));
+
+            // When / Then
+            assertThatThrownBy(() -> client.batches().awaitCompletion(BATCH_NAME, Duration.ofMillis(20), Duration.ofMillis(100)))
+                    .isInstanceOf(ApiClient.ApiTimeoutException.class);
+        }
+
+        @Test
+        @DisplayName("Should stream results mapped to their keys")
+        void shouldStreamResults() {
+            // Given
+            String jsonl = new JSONObject().put("key", "prompt-0")
+                    .put("response", new JSONObject(TestFixtures.createSuccessfulResponseJson())) + "\n"
+                    + new JSONObject().put("key", "prompt-1")
+                    .put("error", new JSONObject().put("code", 400).put("message", "bad prompt")) + "\n";
+            stubFor(get(urlPathEqualTo("/download/v1beta/files/output-1:download"))
+                    .withQueryParam("alt", equalTo("media"))
+                    .willReturn(ok(jsonl)));
+            stubFor(get(urlPathEqualTo("/v1beta/" + BATCH_NAME))
+                    .willReturn(okJson(batchJson("BATCH_STATE_SUCCEEDED", "files/output-1"))));
+            GeminiBatchResponse job = client.batches().get(BATCH_NAME).execute();
+
+            // When
+            List<GeminiBatchResult> results = new ArrayList<>();
+            try (GeminiBatchResults reader = client.batches().results(job)) {
+                reader.forEachRemaining(results::add);
+            }
+
+            // Then
+            assertThat(results).extracting(GeminiBatchResult::key).containsExactly("prompt-0", "prompt-1");
+            assertThat(results.get(0).isSuccess()).isTrue();
+            assertThat(results.get(0).response().assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+            assertThat(results.get(1).isSuccess()).isFalse();
+            assertThat(results.get(1).error().getString("message")).isEqualTo("bad prompt");
+        }
+
+        @Test
+        @DisplayName("Should cancel a job")
+        void shouldCancelJob() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/" + BATCH_NAME + ":cancel")).willReturn(okJson("{}")));
+
+            // When
+            client.batches().cancel(BATCH_NAME).execute();
+
+            // Then
+            verify(postRequestedFor(urlPathEqualTo("/v1beta/" + BATCH_NAME + ":cancel"))
+                    .withQueryParam("key", equalTo(TestFixtures.TEST_API_KEY)));
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.caches.GeminiCachedContentRegistry;
+import de.entwicklertraining.gemini4j.caches.GeminiCachedContentRequest;
+import de.entwicklertraining.gemini4j.caches.GeminiCachedContentResponse;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the cachedContents endpoints and the local cache-handle registry.
+ */
+@DisplayName("Cached Content Integration Tests")
+class GeminiCachedContentIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    private static String cachedContentJson(String name, Instant expireTime) {
+        return new JSONObject()
+                .put("name", name)
+                .put("model", "models/gemini-1.5-flash")
+                .put("expireTime", expireTime.toString())
+                .put("usageMetadata", new JSONObject().put("totalTokenCount", 100_000))
+                .toString();
+    }
+
+    private GeminiCachedContentRequest prefix(String systemInstruction) {
+        return client.caches().create()
+                .systemInstruction(systemInstruction)
+                .addMessage("user", "A very long document ...")
+                .ttl(Duration.ofHours(1))
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Endpoints")
+    class EndpointTests {
+
+        @Test
+        @DisplayName("Should create cached content")
+        void shouldCreateCachedContent() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW))));
+
+            // When
+            GeminiCachedContentResponse response = client.caches().create()
+                    .model("gemini-1.5-flash")
+                    .systemInstruction(TestFixtures.SYSTEM_INSTRUCTION)
+                    .addMessage("user", "A very long document ...")
+                    .ttl(Duration.ofMinutes(30))
+                    .execute();
+
+            // Then
+            assertThat(response.name()).isEqualTo("cachedContents/abc");
+            assertThat(response.expireTime()).isEqualTo(NOW);
+            assertThat(response.totalTokenCount()).isEqualTo(100_000);
+            verify(postRequestedFor(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withQueryParam("key", equalTo(TestFixtures.TEST_API_KEY))
+                    .withRequestBody(matchingJsonPath("$.model", equalTo("models/gemini-1.5-flash")))
+                    .withRequestBody(matchingJsonPath("$.ttl", equalTo("1800s")))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo(TestFixtures.SYSTEM_INSTRUCTION)))
+                    .withRequestBody(matchingJsonPath("$.contents[0].role", equalTo("user"))));
+        }
+
+        @Test
+        @DisplayName("Should get, update and delete cached content by name")
+        void shouldGetUpdateAndDeleteByName() {
+            // Given
+            stubFor(get(urlPathEqualTo("/v1beta/cachedContents/abc"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents/abc"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(7200)))));
+            stubFor(delete(urlPathEqualTo("/v1beta/cachedContents/abc")).willReturn(okJson("{}")));
+
+            // When
+            GeminiCachedContentResponse fetched = client.caches().get("cachedContents/abc").execute();
+            GeminiCachedContentResponse updated = client.caches().update("cachedContents/abc")
+                    .ttl(Duration.ofHours(2))
+                    .execute();
+            GeminiCachedContentResponse deleted = client.caches().delete("cachedContents/abc").execute();
+
+            // Then
+            assertThat(fetched.expireTime()).isEqualTo(NOW);
+            assertThat(updated.expireTime()).isEqualTo(NOW.plusSeconds(7200));
+            assertThat(deleted.name()).isNull();
+            verify(postRequestedFor(urlPathEqualTo("/v1beta/cachedContents/abc"))
+                    .withQueryParam("updateMask", equalTo("ttl"))
+                    .withHeader("X-HTTP-Method-Override", equalTo("PATCH"))
+                    .withRequestBody(equalToJson("{\"ttl\":\"7200s\"}")));
+            verify(deleteRequestedFor(urlPathEqualTo("/v1beta/cachedContents/abc")));
+        }
+
+        @Test
+        @DisplayName("Should require a name and ttl where the endpoint needs them")
+        void shouldValidateRequiredFields() {
+            assertThatThrownBy(() -> client.caches().get(null).build())
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> client.caches().update("cachedContents/abc").build())
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Registry")
+    class RegistryTests {
+
+        private final AtomicReference<Instant> now = new AtomicReference<>(NOW);
+
+        private GeminiCachedContentRegistry registry() {
+            return registry(1024);
+        }
+
+        private GeminiCachedContentRegistry registry(int maxEntries) {
+            Clock clock = new Clock() {
+                @Override
+                public ZoneOffset getZone() {
+                    return ZoneOffset.UTC;
+                }
+
+                @Override
+                public Clock withZone(java.time.ZoneId zone) {
+                    return this;
+                }
+
+                @Override
+                public Instant instant() {
+                    return now.get();
+                }
+            };
+            return new GeminiCachedContentRegistry(client, Duration.ofMinutes(5), clock, maxEntries);
+        }
+
+        @Test
+        @DisplayName("Should create a repeated prefix only once")
+        void shouldCreateRepeatedPrefixOnlyOnce() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(3600)))));
+            GeminiCachedContentRegistry registry = registry();
+
+            // When
+            String first = registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+            String second = registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // Then
+            assertThat(first).isEqualTo("cachedContents/abc").isEqualTo(second);
+            assertThat(registry.lookup(prefix(TestFixtures.SYSTEM_INSTRUCTION)))
+                    .hasValue(new GeminiCachedContentRegistry.CacheHandle("cachedContents/abc", NOW.plusSeconds(3600)));
+            verify(1, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents")));
+        }
+
+        @Test
+        @DisplayName("Should keep different prefixes apart")
+        void shouldKeepDifferentPrefixesApart() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo("A")))
+                    .willReturn(okJson(cachedContentJson("cachedContents/a", NOW.plusSeconds(3600)))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo("B")))
+                    .willReturn(okJson(cachedContentJson("cachedContents/b", NOW.plusSeconds(3600)))));
+            GeminiCachedContentRegistry registry = registry();
+
+            // When / Then
+            assertThat(registry.resolve(prefix("A"))).isEqualTo("cachedContents/a");
+            assertThat(registry.resolve(prefix("B"))).isEqualTo("cachedContents/b");
+            assertThat(registry.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should renew an entry shortly before it expires")
+        void shouldRenewEntryBeforeItExpires() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(3600)))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents/abc"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(3600 + 3300)))));
+            GeminiCachedContentRegistry registry = registry();
+            registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // When: 57 minutes later, within the 5 minute renew window
+            now.set(NOW.plusSeconds(57 * 60));
+            String name = registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // Then
+            assertThat(name).isEqualTo("cachedContents/abc");
+            verify(1, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents")));
+            verify(1, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents/abc"))
+                    .withHeader("X-HTTP-Method-Override", equalTo("PATCH")));
+            assertThat(registry.lookup(prefix(TestFixtures.SYSTEM_INSTRUCTION)).orElseThrow().expireTime())
+                    .isEqualTo(NOW.plusSeconds(3600 + 3300));
+        }
+
+        @Test
+        @DisplayName("Should recreate an entry the server no longer knows")
+        void shouldRecreateUnknownEntry() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .inScenario("Recreate").whenScenarioStateIs("Started")
+                    .willReturn(okJson(cachedContentJson("cachedContents/old", NOW.plusSeconds(3600))))
+                    .willSetStateTo("Created"));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .inScenario("Recreate").whenScenarioStateIs("Created")
+                    .willReturn(okJson(cachedContentJson("cachedContents/new", NOW.plusSeconds(7200)))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents/old"))
+                    .willReturn(aResponse().withStatus(404).withBody(TestFixtures.createErrorResponseJson())));
+            GeminiCachedContentRegistry registry = registry();
+            registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // When
+            now.set(NOW.plusSeconds(58 * 60));
+            String name = registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // Then
+            assertThat(name).isEqualTo("cachedContents/new");
+            verify(2, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents")));
+        }
+
+        @Test
+        @DisplayName("Should create again once the entry has expired")
+        void shouldCreateAgainAfterExpiry() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(3600)))));
+            GeminiCachedContentRegistry registry = registry();
+            registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // When
+            now.set(NOW.plusSeconds(2 * 3600));
+            registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // Then
+            verify(2, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents")));
+            verify(0, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents/abc")));
+        }
+
+        @Test
+        @DisplayName("Should forget expired and soonest expiring prefixes beyond maxEntries")
+        void shouldBoundEntries() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo("A")))
+                    .willReturn(okJson(cachedContentJson("cachedContents/a", NOW.plusSeconds(600)))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo("B")))
+                    .willReturn(okJson(cachedContentJson("cachedContents/b", NOW.plusSeconds(3600)))));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .withRequestBody(matchingJsonPath("$.systemInstruction.parts[0].text", equalTo("C")))
+                    .willReturn(okJson(cachedContentJson("cachedContents/c", NOW.plusSeconds(7200)))));
+            GeminiCachedContentRegistry registry = registry(2);
+
+            // When
+            registry.resolve(prefix("C"));
+            registry.resolve(prefix("A"));
+            registry.resolve(prefix("B"));
+
+            // Then: "A" expires first and is dropped
+            assertThat(registry.size()).isEqualTo(2);
+            assertThat(registry.lookup(prefix("A"))).isEmpty();
+            assertThat(registry.lookup(prefix("B"))).isPresent();
+            assertThat(registry.lookup(prefix("C"))).isPresent();
+        }
+
+        @Test
+        @DisplayName("Should not keep a prefix whose creation failed")
+        void shouldNotKeepFailedPrefix() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents"))
+                    .willReturn(aResponse().withStatus(400).withBody(TestFixtures.createErrorResponseJson())));
+            GeminiCachedContentRegistry registry = registry();
+
+            // When
+            assertThatThrownBy(() -> registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION)))
+                    .isInstanceOf(RuntimeException.class);
+
+            // Then
+            assertThat(registry.size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should register the handle of a caller that waited for a failed creation")
+        void shouldRegisterAfterWaitingForFailedCreation() throws Exception {
+            // Given: the first creation fails after a while, the next one succeeds
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents")).inScenario("flaky")
+                    .whenScenarioStateIs(STARTED)
+                    .willReturn(aResponse().withStatus(400).withBody(TestFixtures.createErrorResponseJson())
+                            .withFixedDelay(300))
+                    .willSetStateTo("recovered"));
+            stubFor(post(urlPathEqualTo("/v1beta/cachedContents")).inScenario("flaky")
+                    .whenScenarioStateIs("recovered")
+                    .willReturn(okJson(cachedContentJson("cachedContents/abc", NOW.plusSeconds(3600)))));
+            GeminiCachedContentRegistry registry = registry();
+            CompletableFuture<String> failing = CompletableFuture.supplyAsync(
+                    () -> registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION)));
+            Thread.sleep(100);
+
+            // When: the second caller waits for the failing creation
+            String name = registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION));
+
+            // Then
+            assertThat(failing).isCompletedExceptionally();
+            assertThat(name).isEqualTo("cachedContents/abc");
+            assertThat(registry.lookup(prefix(TestFixtures.SYSTEM_INSTRUCTION))).isPresent();
+            assertThat(registry.resolve(prefix(TestFixtures.SYSTEM_INSTRUCTION))).isEqualTo("cachedContents/abc");
+            verify(2, postRequestedFor(urlPathEqualTo("/v1beta/cachedContents")));
+        }
+    }
+}
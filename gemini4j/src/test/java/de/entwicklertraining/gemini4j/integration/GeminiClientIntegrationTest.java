@@ -1,7 +1,9 @@
 package de.entwicklertraining.gemini4j.integration;
 
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
 import de.entwicklertraining.api.base.ApiClientSettings;
 import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
 import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
@@ -11,10 +13,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -448,6 +455,39 @@ class GeminiClientIntegrationTest {
         }
     }
 
+    @Nested
+    @DisplayName("Request Body")
+    class RequestBodyTests {
+
+        @Test
+        @DisplayName("Should serialize the body once per attempt and announce its length")
+        void shouldSerializeBodyOncePerAttempt(@TempDir Path tempDir) throws Exception {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+            byte[] image = new byte[300_000];
+            new Random(3).nextBytes(image);
+            Path imagePath = Files.write(tempDir.resolve("photo.png"), image);
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+            client.setMetricsListener(metrics);
+
+            // When
+            client.chat()
+                    .completion()
+                    .model(TestFixtures.DEFAULT_MODEL)
+                    .addMessage("user", "Describe the image")
+                    .addImageByBase64(imagePath)
+                    .execute();
+
+            // Then
+            GeminiInMemoryMetrics.Histogram bodyBytes =
+                    metrics.histogram(GeminiInMemoryMetrics.Metric.REQUEST_BODY_BYTES, TestFixtures.DEFAULT_MODEL);
+            assertThat(bodyBytes.count()).isEqualTo(1);
+            LoggedRequest sent = findAll(postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*"))).get(0);
+            assertThat(sent.getHeader("Content-Length")).isEqualTo(String.valueOf(bodyBytes.max()));
+            assertThat(sent.getBodyAsString()).contains(Base64.getEncoder().encodeToString(image));
+        }
+    }
+
     @Nested
     @DisplayName("Model Variations")
     class ModelVariationsTests {
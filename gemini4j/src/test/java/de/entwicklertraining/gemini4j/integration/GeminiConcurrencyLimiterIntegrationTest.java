@@ -0,0 +1,154 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiConcurrencyLimiter;
+import de.entwicklertraining.gemini4j.GeminiRateLimiter;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integration tests for the adaptive concurrency limit of the client.
+ */
+@DisplayName("Concurrency Limiter Integration Tests")
+class GeminiConcurrencyLimiterIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    @Test
+    @DisplayName("Should cut the limit when the server answers 429")
+    void shouldDecreaseOnRateLimit() {
+        // Given
+        client.setConcurrencyLimiter(GeminiConcurrencyLimiter.builder().initialLimit(8).build());
+        mockServer.stubRateLimitError();
+
+        // When
+        assertThatThrownBy(() -> client.chat().completion()
+                .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                .execute())
+                .isInstanceOf(ApiClient.HTTP_429_RateLimitOrQuotaException.class);
+
+        // Then
+        assertThat(client.getConcurrencyLimiter().limit()).isEqualTo(4);
+        assertThat(client.getConcurrencyLimiter().inFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the number of requests in flight within the limit")
+    void shouldBoundRequestsInFlight() throws Exception {
+        // Given
+        GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder()
+                .initialLimit(2)
+                .limitBounds(1, 2)
+                .latencyTolerance(100)
+                .build();
+        client.setConcurrencyLimiter(limiter);
+        mockServer.stubDelayedCompletion(200);
+
+        // When
+        List<CompletableFuture<?>> calls = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 6; i++) {
+                calls.add(CompletableFuture.runAsync(() -> client.chat().completion()
+                        .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                        .execute(), executor));
+            }
+            Thread.sleep(100);
+
+            // Then
+            assertThat(limiter.inFlight()).isEqualTo(2);
+            assertThat(limiter.queueDepth()).isEqualTo(4);
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get();
+        }
+        assertThat(limiter.inFlight()).isZero();
+        verify(6, postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+    }
+
+    @Test
+    @DisplayName("Should compare a slow endpoint with its own latency instead of a fast one's")
+    void shouldKeepLatencyPerEndpoint() {
+        // Given: a fast model and a slow model sharing one limiter
+        stubFor(post(urlMatching("/v1beta/models/gemini-fast:generateContent.*"))
+                .willReturn(okJson(TestFixtures.createSuccessfulResponseJson())));
+        stubFor(post(urlMatching("/v1beta/models/gemini-slow:generateContent.*"))
+                .willReturn(okJson(TestFixtures.createSuccessfulResponseJson()).withFixedDelay(150)));
+        client.chat().completion().model("gemini-fast").addMessage("user", "Hi").execute(); // connection and JIT warm-up
+        client.setConcurrencyLimiter(GeminiConcurrencyLimiter.builder().initialLimit(8).build());
+
+        // When: alternating calls
+        for (int i = 0; i < 3; i++) {
+            client.chat().completion().model("gemini-fast").addMessage("user", "Hi").execute();
+            client.chat().completion().model("gemini-slow").addMessage("user", "Hi").execute();
+        }
+
+        // Then
+        GeminiConcurrencyLimiter limiter = client.getConcurrencyLimiter();
+        assertThat(limiter.overloadCount()).isZero();
+        assertThat(limiter.limit()).isEqualTo(8);
+        assertThat(limiter.smoothedLatencyMillis("/v1beta/models/gemini-slow:generateContent"))
+                .isGreaterThan(limiter.smoothedLatencyMillis("/v1beta/models/gemini-fast:generateContent"));
+    }
+
+    @Test
+    @DisplayName("Should give the rate limit budget back when the queue rejects an attempt")
+    void shouldRefundRejectedAttempt() throws Exception {
+        // Given: one slot, no queue, and 6 RPM refilling one request every 10 s
+        GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder()
+                .initialLimit(1)
+                .limitBounds(1, 1)
+                .maxQueueSize(0)
+                .build();
+        client.setConcurrencyLimiter(limiter);
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("gemini-1.5-flash", 6, 1_000_000).build());
+        mockServer.stubDelayedCompletion(500);
+        CompletableFuture<?> blocking = CompletableFuture.runAsync(() -> client.chat().completion()
+                .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                .execute());
+        await().atMost(Duration.ofSeconds(2)).until(() -> limiter.inFlight() == 1);
+        double requestsBefore = client.getRateLimiter().availableRequests("gemini-1.5-flash").orElseThrow();
+        double tokensBefore = client.getRateLimiter().availableTokens("gemini-1.5-flash").orElseThrow();
+
+        // When
+        assertThatThrownBy(() -> client.chat().completion()
+                .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                .execute())
+                .isInstanceOf(ApiClient.ApiClientException.class)
+                .hasMessageContaining("Concurrency limit reached");
+
+        // Then
+        assertThat(client.getRateLimiter().availableRequests("gemini-1.5-flash").orElseThrow())
+                .isGreaterThanOrEqualTo(requestsBefore);
+        assertThat(client.getRateLimiter().availableTokens("gemini-1.5-flash").orElseThrow())
+                .isGreaterThanOrEqualTo(tokensBefore);
+        assertThat(limiter.rejectedCount()).isEqualTo(1);
+        blocking.get();
+        verify(1, postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+    }
+}
@@ -0,0 +1,149 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiCountTokensResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiTokenCountCache;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the countTokens endpoint and its memoizing cache.
+ */
+@DisplayName("Count Tokens Integration Tests")
+class GeminiCountTokensIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String COUNT_URL = "/v1beta/models/gemini-1.5-flash:countTokens";
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        stubFor(post(urlPathEqualTo(COUNT_URL))
+                .willReturn(okJson("{\"totalTokens\":31,\"cachedContentTokenCount\":0}")));
+    }
+
+    private GeminiChatCompletionRequest template(String text) {
+        return client.chat().completion()
+                .systemInstruction(TestFixtures.SYSTEM_INSTRUCTION)
+                .addMessage("user", text)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Request")
+    class RequestTests {
+
+        @Test
+        @DisplayName("Should wrap the generateContent body as generateContentRequest")
+        void shouldWrapGenerateContentBody() {
+            // When
+            GeminiCountTokensResponse response = client.chat()
+                    .countTokens(template(TestFixtures.SIMPLE_USER_MESSAGE))
+                    .execute();
+
+            // Then
+            assertThat(response.totalTokens()).isEqualTo(31);
+            assertThat(response.isFromCache()).isFalse();
+            verify(postRequestedFor(urlPathEqualTo(COUNT_URL))
+                    .withQueryParam("key", equalTo(TestFixtures.TEST_API_KEY))
+                    .withRequestBody(matchingJsonPath("$.generateContentRequest.model", equalTo("models/gemini-1.5-flash")))
+                    .withRequestBody(matchingJsonPath("$.generateContentRequest.systemInstruction.parts[0].text",
+                            equalTo(TestFixtures.SYSTEM_INSTRUCTION)))
+                    .withRequestBody(matchingJsonPath("$.generateContentRequest.contents[0].parts[0].text",
+                            equalTo(TestFixtures.SIMPLE_USER_MESSAGE))));
+        }
+    }
+
+    @Nested
+    @DisplayName("Memoization")
+    class MemoizationTests {
+
+        @Test
+        @DisplayName("Should answer repeated counts of the same prompt from the cache")
+        void shouldAnswerRepeatedCountsFromCache() {
+            // When
+            GeminiCountTokensResponse first = client.chat().countTokens(template("same")).execute();
+            GeminiCountTokensResponse second = client.chat().countTokens(template("same")).execute();
+
+            // Then
+            assertThat(first.isFromCache()).isFalse();
+            assertThat(second.isFromCache()).isTrue();
+            assertThat(second.totalTokens()).isEqualTo(31);
+            assertThat(client.getTokenCountCache().hits()).isEqualTo(1);
+            verify(1, postRequestedFor(urlPathEqualTo(COUNT_URL)));
+        }
+
+        @Test
+        @DisplayName("Should count different prompts separately")
+        void shouldCountDifferentPromptsSeparately() {
+            // When
+            client.chat().countTokens(template("a")).execute();
+            client.chat().countTokens(template("b")).execute();
+
+            // Then
+            assertThat(client.getTokenCountCache().size()).isEqualTo(2);
+            verify(2, postRequestedFor(urlPathEqualTo(COUNT_URL)));
+        }
+
+        @Test
+        @DisplayName("Should bypass the cache on request")
+        void shouldBypassCacheOnRequest() {
+            // When
+            client.chat().countTokens(template("same")).useCache(false).execute();
+            client.chat().countTokens(template("same")).useCache(false).execute();
+
+            // Then
+            assertThat(client.getTokenCountCache().size()).isZero();
+            verify(2, postRequestedFor(urlPathEqualTo(COUNT_URL)));
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used entry")
+        void shouldEvictLeastRecentlyUsedEntry() {
+            // Given
+            client.setTokenCountCache(new GeminiTokenCountCache(2));
+            client.chat().countTokens(template("a")).execute();
+            client.chat().countTokens(template("b")).execute();
+            client.chat().countTokens(template("a")).execute(); // "a" is now the most recently used
+
+            // When
+            client.chat().countTokens(template("c")).execute(); // evicts "b"
+            client.chat().countTokens(template("a")).execute();
+            client.chat().countTokens(template("b")).execute();
+
+            // Then: a, b, c, b
+            assertThat(client.getTokenCountCache().size()).isEqualTo(2);
+            verify(4, postRequestedFor(urlPathEqualTo(COUNT_URL)));
+        }
+
+        @Test
+        @DisplayName("Should not cache failed counts")
+        void shouldNotCacheFailedCounts() {
+            // Given
+            stubFor(post(urlPathEqualTo(COUNT_URL))
+                    .willReturn(aResponse().withStatus(400).withBody(TestFixtures.createErrorResponseJson())));
+
+            // When / Then
+            assertThatThrownBy(() -> client.chat().countTokens(template("x")).execute())
+                    .isInstanceOf(RuntimeException.class);
+            assertThat(client.getTokenCountCache().size()).isZero();
+        }
+    }
+}
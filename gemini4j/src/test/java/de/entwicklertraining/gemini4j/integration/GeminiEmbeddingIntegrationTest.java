@@ -0,0 +1,223 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.embeddings.GeminiEmbeddingResponse;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for embedContent / batchEmbedContents, including auto-chunking.
+ */
+@DisplayName("Embedding Integration Tests")
+class GeminiEmbeddingIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    /**
+     * A batch response whose vector i is [first + i, 0.5].
+     */
+    private static String batchResponseJson(int first, int count) {
+        JSONArray embeddings = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            embeddings.put(new JSONObject().put("values", new JSONArray().put(first + i).put(0.5)));
+        }
+        return new JSONObject().put("embeddings", embeddings).toString();
+    }
+
+    private static List<String> texts(int count) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            texts.add("passage " + i);
+        }
+        return texts;
+    }
+
+    private static void stubChunk(int first, int count, int delayMillis) {
+        stubFor(post(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents"))
+                .withRequestBody(matchingJsonPath("$.requests[0].content.parts[0].text", equalTo("passage " + first)))
+                .willReturn(okJson(batchResponseJson(first, count)).withFixedDelay(delayMillis)));
+    }
+
+    @Nested
+    @DisplayName("Single Calls")
+    class SingleCallTests {
+
+        @Test
+        @DisplayName("Should embed a single text via embedContent")
+        void shouldEmbedSingleText() {
+            // Given
+            stubFor(post(urlPathEqualTo("/v1beta/models/text-embedding-004:embedContent"))
+                    .willReturn(okJson("{\"embedding\":{\"values\":[0.25,0.75]}}")));
+
+            // When
+            GeminiEmbeddingResponse response = client.embeddings().create()
+                    .addText("Hello")
+                    .execute();
+
+            // Then
+            assertThat(response.embedding(0)).containsExactly(0.25f, 0.75f);
+            verify(postRequestedFor(urlPathEqualTo("/v1beta/models/text-embedding-004:embedContent"))
+                    .withQueryParam("key", equalTo(TestFixtures.TEST_API_KEY)));
+        }
+
+        @Test
+        @DisplayName("Should embed a small batch in one call")
+        void shouldEmbedSmallBatchInOneCall() {
+            // Given
+            stubChunk(0, 3, 0);
+
+            // When
+            GeminiEmbeddingResponse response = client.embeddings().create()
+                    .addTexts(texts(3))
+                    .execute();
+
+            // Then
+            assertThat(response.size()).isEqualTo(3);
+            assertThat(response.embedding(2)).containsExactly(2f, 0.5f);
+            verify(1, postRequestedFor(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Auto-Chunking")
+    class AutoChunkingTests {
+
+        @Test
+        @DisplayName("Should split large requests and merge the vectors in order")
+        void shouldSplitAndMergeInOrder() {
+            // Given: 250 texts => chunks of 100, 100, 50; the first chunk answers last
+            stubChunk(0, 100, 300);
+            stubChunk(100, 100, 0);
+            stubChunk(200, 50, 0);
+
+            // When
+            GeminiEmbeddingResponse response = client.embeddings().create()
+                    .addTexts(texts(250))
+                    .execute();
+
+            // Then
+            assertThat(response.size()).isEqualTo(250);
+            assertThat(response.dimension()).isEqualTo(2);
+            for (int i = 0; i < 250; i++) {
+                assertThat(response.embedding(i)[0]).isEqualTo(i);
+            }
+            assertThat(response.asFloatBuffer().get(2 * 199)).isEqualTo(199f);
+            verify(3, postRequestedFor(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents")));
+        }
+
+        @Test
+        @DisplayName("Should keep at most maxConcurrency chunks in flight")
+        void shouldBoundConcurrency() {
+            // Given
+            for (int first = 0; first < 60; first += 10) {
+                stubChunk(first, 10, 150);
+            }
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            Executor virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+            Executor counting = task -> virtualThreads.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                }
+            });
+
+            // When
+            GeminiEmbeddingResponse response = client.embeddings().create()
+                    .addTexts(texts(60))
+                    .maxBatchSize(10)
+                    .maxConcurrency(2)
+                    .executor(counting)
+                    .execute();
+
+            // Then
+            assertThat(response.size()).isEqualTo(60);
+            assertThat(maxRunning.get()).isBetween(1, 2);
+            verify(6, postRequestedFor(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents")));
+        }
+
+        @Test
+        @DisplayName("Should fail if one chunk fails")
+        void shouldFailIfOneChunkFails() {
+            // Given
+            stubChunk(0, 10, 0);
+            stubFor(post(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents"))
+                    .withRequestBody(matchingJsonPath("$.requests[0].content.parts[0].text", equalTo("passage 10")))
+                    .willReturn(aResponse().withStatus(400).withBody(TestFixtures.createErrorResponseJson())));
+
+            // When / Then
+            assertThatThrownBy(() -> client.embeddings().create()
+                    .addTexts(texts(20))
+                    .maxBatchSize(10)
+                    .execute())
+                    .isInstanceOf(ApiClient.HTTP_400_RequestRejectedException.class);
+        }
+
+        @Test
+        @DisplayName("Should cancel the chunks in flight once one chunk fails")
+        void shouldCancelChunksInFlight() {
+            // Given: the first chunk would take 5 s, the second one fails at once
+            stubChunk(0, 10, 5_000);
+            stubFor(post(urlPathEqualTo("/v1beta/models/text-embedding-004:batchEmbedContents"))
+                    .withRequestBody(matchingJsonPath("$.requests[0].content.parts[0].text", equalTo("passage 10")))
+                    .willReturn(aResponse().withStatus(400).withBody(TestFixtures.createErrorResponseJson())));
+            long start = System.nanoTime();
+
+            // When / Then: the first error is thrown, not the cancellation of the slow chunk
+            assertThatThrownBy(() -> client.embeddings().create()
+                    .addTexts(texts(20))
+                    .maxBatchSize(10)
+                    .execute())
+                    .isInstanceOf(ApiClient.HTTP_400_RequestRejectedException.class);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        }
+
+        @Test
+        @DisplayName("Should reject a chunk that returns fewer vectors than it had texts")
+        void shouldRejectChunkWithMissingVectors() {
+            // Given
+            stubChunk(0, 10, 0);
+            stubChunk(10, 9, 0);
+
+            // When / Then
+            assertThatThrownBy(() -> client.embeddings().create()
+                    .addTexts(texts(20))
+                    .maxBatchSize(10)
+                    .execute())
+                    .isInstanceOf(ApiClient.ApiResponseUnusableException.class)
+                    .hasMessage("Embedding chunk 1 returned 9 vectors for 10 texts");
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.files.GeminiFile;
+import de.entwicklertraining.gemini4j.files.GeminiFileUpload;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for chunked, resumable uploads via the Files API and file_data parts.
+ */
+@DisplayName("File Upload Integration Tests")
+class GeminiFileUploadIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String SESSION_PATH = "/upload-session/1";
+    private static final String FILE_JSON = new JSONObject().put("file", new JSONObject()
+            .put("name", "files/image-1")
+            .put("uri", "https://generativelanguage.googleapis.com/v1beta/files/image-1")
+            .put("mimeType", "image/png")
+            .put("sizeBytes", "655360")
+            .put("state", "ACTIVE")
+            .put("expirationTime", "2999-01-01T00:00:00Z")).toString();
+
+    @TempDir
+    Path tempDir;
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        stubFor(post(urlPathEqualTo("/upload/v1beta/files"))
+                .withHeader("X-Goog-Upload-Command", equalTo("start"))
+                .willReturn(ok().withHeader("X-Goog-Upload-URL", mockServer.getBaseUrl() + SESSION_PATH)));
+    }
+
+    /**
+     * 2.5 chunks of 256 KiB: two full chunks and a half one.
+     */
+    private Path writeImage(String name, long seed) throws Exception {
+        byte[] content = new byte[GeminiFileUpload.CHUNK_GRANULARITY * 5 / 2];
+        new Random(seed).nextBytes(content);
+        Path path = tempDir.resolve(name);
+        Files.write(path, content);
+        return path;
+    }
+
+    private static void stubChunks() {
+        stubFor(post(urlPathEqualTo(SESSION_PATH))
+                .withHeader("X-Goog-Upload-Command", equalTo("upload"))
+                .willReturn(ok()));
+        stubFor(post(urlPathEqualTo(SESSION_PATH))
+                .withHeader("X-Goog-Upload-Command", equalTo("upload, finalize"))
+                .willReturn(okJson(FILE_JSON)));
+    }
+
+    @Nested
+    @DisplayName("Chunked Upload")
+    class ChunkedUploadTests {
+
+        @Test
+        @DisplayName("Should send the file in chunks with increasing offsets")
+        void shouldUploadInChunks() throws Exception {
+            // Given
+            Path image = writeImage("photo.png", 1);
+            stubChunks();
+
+            // When
+            GeminiFile file = client.files().upload(image)
+                    .mimeType("image/png")
+                    .chunkSize(GeminiFileUpload.CHUNK_GRANULARITY)
+                    .execute();
+
+            // Then
+            assertThat(file.name()).isEqualTo("files/image-1");
+            assertThat(file.state()).isEqualTo("ACTIVE");
+            verify(postRequestedFor(urlPathEqualTo("/upload/v1beta/files"))
+                    .withHeader("X-Goog-Upload-Header-Content-Length", equalTo(String.valueOf(Files.size(image))))
+                    .withHeader("X-Goog-Upload-Header-Content-Type", equalTo("image/png")));
+            verify(postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("0"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload")));
+            verify(postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("262144"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload")));
+            verify(postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("524288"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload, finalize")));
+            byte[] content = Files.readAllBytes(image);
+            byte[] lastChunk = mockServer.getWireMockServer().findAll(postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("524288"))).get(0).getBody();
+            assertThat(lastChunk).hasSize(content.length - 524288);
+            assertThat(lastChunk).isEqualTo(Arrays.copyOfRange(content, 524288, content.length));
+        }
+
+        @Test
+        @DisplayName("Should resume from the offset the server reports after a failed chunk")
+        void shouldResumeAfterFailedChunk() throws Exception {
+            // Given
+            Path image = writeImage("photo.png", 2);
+            stubFor(post(urlPathEqualTo(SESSION_PATH)).inScenario("resume")
+                    .whenScenarioStateIs(STARTED)
+                    .withHeader("X-Goog-Upload-Offset", equalTo("262144"))
+                    .willReturn(aResponse().withStatus(503))
+                    .willSetStateTo("failed"));
+            stubFor(post(urlPathEqualTo(SESSION_PATH)).inScenario("resume")
+                    .whenScenarioStateIs("failed")
+                    .withHeader("X-Goog-Upload-Command", equalTo("query"))
+                    .willReturn(ok().withHeader("X-Goog-Upload-Status", "active")
+                            .withHeader("X-Goog-Upload-Size-Received", "262144"))
+                    .willSetStateTo("resumed"));
+            stubFor(post(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("0"))
+                    .willReturn(ok()));
+            stubFor(post(urlPathEqualTo(SESSION_PATH)).inScenario("resume")
+                    .whenScenarioStateIs("resumed")
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload"))
+                    .willReturn(ok()));
+            stubFor(post(urlPathEqualTo(SESSION_PATH)).inScenario("resume")
+                    .whenScenarioStateIs("resumed")
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload, finalize"))
+                    .willReturn(okJson(FILE_JSON)));
+
+            // When
+            GeminiFile file = client.files().upload(image)
+                    .mimeType("image/png")
+                    .chunkSize(GeminiFileUpload.CHUNK_GRANULARITY)
+                    .execute();
+
+            // Then
+            assertThat(file.name()).isEqualTo("files/image-1");
+            verify(1, postRequestedFor(urlPathEqualTo("/upload/v1beta/files")));
+            verify(2, postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("262144")));
+            verify(1, postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Command", equalTo("query")));
+        }
+
+        @Test
+        @DisplayName("Should send an empty file as a single finalize")
+        void shouldUploadEmptyFile() throws Exception {
+            // Given
+            Path empty = Files.createFile(tempDir.resolve("empty.txt"));
+            stubChunks();
+
+            // When
+            GeminiFile file = client.files().upload(empty).mimeType("text/plain").execute();
+
+            // Then
+            assertThat(file.name()).isEqualTo("files/image-1");
+            verify(1, postRequestedFor(urlPathEqualTo(SESSION_PATH))
+                    .withHeader("X-Goog-Upload-Offset", equalTo("0"))
+                    .withHeader("X-Goog-Upload-Command", equalTo("upload, finalize")));
+        }
+
+        @Test
+        @DisplayName("Should reject chunk sizes that are not a multiple of 256 KiB")
+        void shouldRejectInvalidChunkSize() {
+            assertThatThrownBy(() -> client.files().upload(tempDir.resolve("x.png")).chunkSize(100_000))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Handle Cache")
+    class HandleCacheTests {
+
+        @Test
+        @DisplayName("Should upload identical content only once")
+        void shouldReuseHandleOfIdenticalContent() throws Exception {
+            // Given
+            Path first = writeImage("a.png", 3);
+            Path copy = Files.copy(first, tempDir.resolve("b.png"));
+            stubChunks();
+
+            // When
+            GeminiFile uploaded = client.files().upload(first).mimeType("image/png").execute();
+            GeminiFile reused = client.files().upload(copy).mimeType("image/png").execute();
+
+            // Then
+            assertThat(reused).isEqualTo(uploaded);
+            verify(1, postRequestedFor(urlPathEqualTo("/upload/v1beta/files")));
+            assertThat(client.files().cache().hits()).isEqualTo(1);
+            assertThat(client.files().cache().misses()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should upload again after the file was deleted")
+        void shouldForgetDeletedFile() throws Exception {
+            // Given
+            Path image = writeImage("a.png", 4);
+            stubChunks();
+            stubFor(delete(urlPathEqualTo("/v1beta/files/image-1")).willReturn(ok()));
+            client.files().upload(image).mimeType("image/png").execute();
+
+            // When
+            client.files().delete("files/image-1");
+            client.files().upload(image).mimeType("image/png").execute();
+
+            // Then
+            verify(2, postRequestedFor(urlPathEqualTo("/upload/v1beta/files")));
+        }
+    }
+
+    @Nested
+    @DisplayName("File Parts")
+    class FilePartTests {
+
+        @Test
+        @DisplayName("Should refer to an uploaded image by file_uri")
+        void shouldSendFileDataPart() throws Exception {
+            // Given
+            Path image = writeImage("photo.png", 5);
+            stubChunks();
+            mockServer.stubSuccessfulCompletion();
+
+            // When
+            client.chat().completion()
+                    .addImageByUpload(image)
+                    .addMessage("user", "What is in this picture?")
+                    .execute();
+
+            // Then
+            verify(postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*"))
+                    .withRequestBody(matchingJsonPath("$.contents[0].parts[0].file_data.file_uri",
+                            equalTo("https://generativelanguage.googleapis.com/v1beta/files/image-1")))
+                    .withRequestBody(matchingJsonPath("$.contents[0].parts[0].file_data.mime_type", equalTo("image/png")))
+                    .withRequestBody(notContaining("inline_data")));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiConcurrencyLimiter;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics.Metric;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiHedgingPolicy;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Integration tests for hedged generateContent calls.
+ */
+@DisplayName("Hedging Integration Tests")
+class GeminiHedgingIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String GENERATE_URL = "/v1beta/models/.+:generateContent.*";
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    private GeminiChatCompletionResponse ask() {
+        return client.chat().completion()
+                .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                .execute();
+    }
+
+    private void warmUp(int calls) {
+        for (int i = 0; i < calls; i++) {
+            ask();
+        }
+        resetAllRequests();
+    }
+
+    /**
+     * The next call answers only after 3 seconds, every later one immediately.
+     */
+    private void stubOneSlowCall() {
+        stubFor(post(urlMatching(GENERATE_URL)).inScenario("tail")
+                .whenScenarioStateIs(STARTED)
+                .willReturn(okJson(TestFixtures.createSuccessfulResponseJson()).withFixedDelay(3_000))
+                .willSetStateTo("fast"));
+        stubFor(post(urlMatching(GENERATE_URL)).inScenario("tail")
+                .whenScenarioStateIs("fast")
+                .willReturn(okJson(TestFixtures.createSuccessfulResponseJson())));
+    }
+
+    @Test
+    @DisplayName("Should answer a slow call from the duplicate")
+    void shouldAnswerFromHedge() {
+        // Given
+        GeminiHedgingPolicy policy = GeminiHedgingPolicy.builder()
+                .window(10, 5)
+                .maxExtraTrafficRatio(1.0)
+                .build();
+        client.setHedgingPolicy(policy);
+        warmUp(5);
+        stubOneSlowCall();
+
+        // When
+        long start = System.nanoTime();
+        GeminiChatCompletionResponse response = ask();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // Then
+        assertThat(response.assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        assertThat(elapsed).isLessThan(Duration.ofMillis(2_000));
+        assertThat(policy.hedgeCount()).isEqualTo(1);
+        assertThat(policy.hedgeWinCount()).isEqualTo(1);
+        verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+    }
+
+    @Test
+    @DisplayName("Should abort the HTTP exchange of the losing call")
+    void shouldAbortLosingCall() {
+        // Given
+        GeminiHedgingPolicy policy = GeminiHedgingPolicy.builder()
+                .window(10, 5)
+                .maxExtraTrafficRatio(1.0)
+                .build();
+        client.setHedgingPolicy(policy);
+        GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+        client.setMetricsListener(metrics);
+        warmUp(5);
+        metrics.reset();
+        stubOneSlowCall();
+
+        // When
+        ask();
+
+        // Then: the slow attempt ends without an answer long before its 3 second delay
+        await().atMost(Duration.ofMillis(1_500))
+                .untilAsserted(() -> assertThat(metrics.failedAttemptCount()).isEqualTo(1));
+        assertThat(metrics.histogram(Metric.HTTP_ATTEMPT_NANOS, "gemini-1.5-flash").max())
+                .isLessThan(Duration.ofMillis(2_000).toNanos());
+    }
+
+    @Test
+    @DisplayName("Should not count the aborted call as overload of the concurrency limiter")
+    void shouldNotCountAbortedCallAsOverload() {
+        // Given
+        GeminiHedgingPolicy policy = GeminiHedgingPolicy.builder()
+                .window(10, 5)
+                .maxExtraTrafficRatio(1.0)
+                .build();
+        client.setHedgingPolicy(policy);
+        GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(8).build();
+        client.setConcurrencyLimiter(limiter);
+        warmUp(5);
+        stubOneSlowCall();
+
+        // When
+        ask();
+
+        // Then: the aborted call frees its slot without cutting the limit
+        await().atMost(Duration.ofMillis(1_500)).until(() -> limiter.inFlight() == 0);
+        assertThat(policy.hedgeCount()).isEqualTo(1);
+        assertThat(limiter.overloadCount()).isZero();
+        assertThat(limiter.limit()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should not hedge before enough latencies are known")
+    void shouldNotHedgeWithoutSamples() {
+        // Given
+        GeminiHedgingPolicy policy = GeminiHedgingPolicy.builder()
+                .window(10, 5)
+                .maxExtraTrafficRatio(1.0)
+                .build();
+        client.setHedgingPolicy(policy);
+
+        // When
+        ask();
+
+        // Then
+        assertThat(policy.hedgeDelayMillis("gemini-1.5-flash")).isEmpty();
+        assertThat(policy.hedgeCount()).isZero();
+        verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+    }
+
+    @Test
+    @DisplayName("Should not hedge beyond the extra traffic budget")
+    void shouldRespectExtraTrafficBudget() {
+        // Given: 6 calls * 10% leave no room for a duplicate
+        GeminiHedgingPolicy policy = GeminiHedgingPolicy.builder()
+                .window(10, 5)
+                .maxExtraTrafficRatio(0.1)
+                .build();
+        client.setHedgingPolicy(policy);
+        warmUp(5);
+        mockServer.stubDelayedCompletion(300);
+
+        // When
+        ask();
+
+        // Then
+        assertThat(policy.hedgeCount()).isZero();
+        verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+    }
+}
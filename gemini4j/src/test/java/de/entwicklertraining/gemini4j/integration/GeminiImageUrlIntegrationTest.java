@@ -0,0 +1,117 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.Base64;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for images added by URL: background download, parallelism and size limit.
+ */
+@DisplayName("Image URL Integration Tests")
+class GeminiImageUrlIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final byte[] IMAGE = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3, 4, 5, 6, 7, 8};
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    private String imageUrl(int i) {
+        return mockServer.getBaseUrl() + "/images/product-" + i + ".png";
+    }
+
+    @Test
+    @DisplayName("Should send the downloaded image as base64 inline_data")
+    void shouldInlineDownloadedImage() {
+        // Given
+        stubFor(get(urlPathEqualTo("/images/product-0.png")).willReturn(ok().withBody(IMAGE)));
+        mockServer.stubSuccessfulCompletion();
+
+        // When
+        client.chat().completion()
+                .addImageByUrl(imageUrl(0))
+                .addMessage("user", "Describe the product")
+                .execute();
+
+        // Then
+        verify(postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*"))
+                .withRequestBody(matchingJsonPath("$.contents[0].parts[0].inline_data.data",
+                        equalTo(Base64.getEncoder().encodeToString(IMAGE))))
+                .withRequestBody(matchingJsonPath("$.contents[0].parts[0].inline_data.mime_type", equalTo("image/png"))));
+    }
+
+    @Test
+    @DisplayName("Should download the images of a request in parallel")
+    void shouldDownloadInParallel() {
+        // Given
+        stubFor(get(urlPathMatching("/images/product-\\d+\\.png")).willReturn(ok().withBody(IMAGE).withFixedDelay(400)));
+        mockServer.stubSuccessfulCompletion();
+
+        // When
+        long start = System.nanoTime();
+        GeminiChatCompletionRequest.Builder builder = client.chat().completion();
+        for (int i = 0; i < 8; i++) {
+            builder.addImageByUrl(imageUrl(i));
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        builder.addMessage("user", "Compare the products").execute();
+        long totalMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then - 8 sequential downloads would take at least 3200 ms
+        assertThat(buildMillis).isLessThan(400);
+        assertThat(totalMillis).isLessThan(2_000);
+        verify(8, getRequestedFor(urlPathMatching("/images/product-\\d+\\.png")));
+    }
+
+    @Test
+    @DisplayName("Should fail the request when an image exceeds the size limit")
+    void shouldRejectTooLargeImage() {
+        // Given
+        stubFor(get(urlPathEqualTo("/images/product-0.png")).willReturn(ok().withBody(new byte[4096])));
+        mockServer.stubSuccessfulCompletion();
+
+        // When & Then
+        assertThatThrownBy(() -> client.chat().completion()
+                .maxImageDownloadBytes(1024)
+                .addImageByUrl(imageUrl(0))
+                .addMessage("user", "Describe the product")
+                .execute())
+                .hasStackTraceContaining("exceeds the limit of 1024 bytes");
+        verify(0, postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+    }
+
+    @Test
+    @DisplayName("Should fail the request when the download fails")
+    void shouldFailOnDownloadError() {
+        // Given
+        stubFor(get(urlPathEqualTo("/images/product-0.png")).willReturn(notFound()));
+        mockServer.stubSuccessfulCompletion();
+
+        // When & Then
+        assertThatThrownBy(() -> client.chat().completion()
+                .addImageByUrl(imageUrl(0))
+                .addMessage("user", "Describe the product")
+                .execute())
+                .hasStackTraceContaining("Failed to download image from URL");
+    }
+}
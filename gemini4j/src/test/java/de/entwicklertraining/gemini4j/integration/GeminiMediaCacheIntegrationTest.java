@@ -0,0 +1,224 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiImagePreprocessor;
+import de.entwicklertraining.gemini4j.GeminiMediaCache;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the content-addressed cache of Base64-encoded images.
+ */
+@DisplayName("Media Cache Integration Tests")
+class GeminiMediaCacheIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final byte[] LOGO = {(byte) 0x89, 'P', 'N', 'G', 10, 20, 30, 40, 50, 60, 70, 80};
+    private static final String LOGO_BASE64 = Base64.getEncoder().encodeToString(LOGO);
+
+    @TempDir
+    Path tempDir;
+
+    private GeminiClient client;
+    private GeminiMediaCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        cache = new GeminiMediaCache();
+        client.setMediaCache(cache);
+    }
+
+    private String inlineData(String body) {
+        return new JSONObject(body).getJSONArray("contents").getJSONObject(0)
+                .getJSONArray("parts").getJSONObject(0).getJSONObject("inline_data").getString("data");
+    }
+
+    private String bodyWithFile(Path path) {
+        return client.chat().completion().addImageByBase64(path).build().getBody();
+    }
+
+    @Nested
+    @DisplayName("Files")
+    class FileTests {
+
+        @Test
+        @DisplayName("Should encode a repeatedly referenced file only once")
+        void shouldReuseEncodingOfSameFile() throws Exception {
+            // Given
+            Path logo = Files.write(tempDir.resolve("logo.png"), LOGO);
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                assertThat(inlineData(bodyWithFile(logo))).isEqualTo(LOGO_BASE64);
+            }
+
+            // Then
+            assertThat(cache.misses()).isEqualTo(1);
+            assertThat(cache.hits()).isEqualTo(2);
+            assertThat(cache.size()).isEqualTo(1);
+            assertThat(cache.footprintBytes()).isEqualTo(LOGO_BASE64.length());
+        }
+
+        @Test
+        @DisplayName("Should read a file again after it was modified")
+        void shouldMissAfterModification() throws Exception {
+            // Given
+            Path logo = Files.write(tempDir.resolve("logo.png"), LOGO);
+            bodyWithFile(logo);
+            byte[] changed = LOGO.clone();
+            changed[4] = 99;
+            Files.write(logo, changed);
+            Files.setLastModifiedTime(logo, FileTime.from(Instant.now().plusSeconds(60)));
+
+            // When
+            String data = inlineData(bodyWithFile(logo));
+
+            // Then
+            assertThat(data).isEqualTo(Base64.getEncoder().encodeToString(changed));
+            assertThat(cache.misses()).isEqualTo(2);
+            assertThat(cache.size()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should share one entry between copies of the same content")
+        void shouldDeduplicateByContent() throws Exception {
+            // Given
+            Path first = Files.write(tempDir.resolve("a.png"), LOGO);
+            Path second = Files.write(tempDir.resolve("b.png"), LOGO);
+
+            // When
+            bodyWithFile(first);
+            bodyWithFile(second);
+
+            // Then
+            assertThat(cache.misses()).isEqualTo(2);
+            assertThat(cache.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should share entries between preprocessors with the same settings only")
+        void shouldKeyByPreprocessorSettings() throws Exception {
+            // Given
+            Path logo = Files.write(tempDir.resolve("logo.png"), LOGO);
+
+            // When
+            client.setImagePreprocessor(GeminiImagePreprocessor.builder().maxDimension(256).build());
+            bodyWithFile(logo);
+            client.setImagePreprocessor(GeminiImagePreprocessor.builder().maxDimension(256).build());
+            bodyWithFile(logo);
+            client.setImagePreprocessor(GeminiImagePreprocessor.builder().maxDimension(512).build());
+            bodyWithFile(logo);
+
+            // Then
+            assertThat(cache.hits()).isEqualTo(1);
+            assertThat(cache.misses()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used images beyond the byte limit")
+        void shouldEvictBeyondMaxBytes() throws Exception {
+            // Given
+            GeminiMediaCache small = new GeminiMediaCache(LOGO_BASE64.length() * 2L, 100);
+            client.setMediaCache(small);
+
+            // When
+            for (int i = 0; i < 3; i++) {
+                byte[] content = LOGO.clone();
+                content[4] = (byte) i;
+                bodyWithFile(Files.write(tempDir.resolve("logo-" + i + ".png"), content));
+            }
+
+            // Then
+            assertThat(small.size()).isEqualTo(2);
+            assertThat(small.footprintBytes()).isLessThanOrEqualTo(LOGO_BASE64.length() * 2L);
+        }
+    }
+
+    @Nested
+    @DisplayName("URLs")
+    class UrlTests {
+
+        @Test
+        @DisplayName("Should download a repeatedly referenced URL only once")
+        void shouldNotDownloadCachedUrlAgain() {
+            // Given
+            stubFor(get(urlPathEqualTo("/images/logo.png")).willReturn(ok().withBody(LOGO)));
+            String url = mockServer.getBaseUrl() + "/images/logo.png";
+
+            // When
+            String first = inlineData(client.chat().completion().addImageByUrl(url).build().getBody());
+            String second = inlineData(client.chat().completion().addImageByUrl(url).build().getBody());
+
+            // Then
+            assertThat(first).isEqualTo(LOGO_BASE64);
+            assertThat(second).isEqualTo(LOGO_BASE64);
+            verify(1, getRequestedFor(urlPathEqualTo("/images/logo.png")));
+            assertThat(cache.hits()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should let concurrent first references share one download")
+        void shouldShareRunningDownload() {
+            // Given
+            stubFor(get(urlPathEqualTo("/images/logo.png")).willReturn(ok().withBody(LOGO).withFixedDelay(300)));
+            String url = mockServer.getBaseUrl() + "/images/logo.png";
+
+            // When: both builders start their download before either one has finished
+            var first = client.chat().completion().addImageByUrl(url);
+            var second = client.chat().completion().addImageByUrl(url);
+
+            // Then
+            assertThat(inlineData(first.build().getBody())).isEqualTo(LOGO_BASE64);
+            assertThat(inlineData(second.build().getBody())).isEqualTo(LOGO_BASE64);
+            verify(1, getRequestedFor(urlPathEqualTo("/images/logo.png")));
+            assertThat(cache.misses()).isEqualTo(1);
+            assertThat(cache.hits()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should download a URL again after its alias expired")
+        void shouldDownloadAgainAfterTtl() throws Exception {
+            // Given
+            GeminiMediaCache expiring = new GeminiMediaCache(GeminiMediaCache.DEFAULT_MAX_BYTES,
+                    GeminiMediaCache.DEFAULT_MAX_ALIASES, Duration.ofMillis(200));
+            client.setMediaCache(expiring);
+            stubFor(get(urlPathEqualTo("/images/logo.png")).willReturn(ok().withBody(LOGO)));
+            String url = mockServer.getBaseUrl() + "/images/logo.png";
+            client.chat().completion().addImageByUrl(url).build().getBody();
+
+            // When
+            Thread.sleep(300);
+            String data = inlineData(client.chat().completion().addImageByUrl(url).build().getBody());
+
+            // Then
+            assertThat(data).isEqualTo(LOGO_BASE64);
+            verify(2, getRequestedFor(urlPathEqualTo("/images/logo.png")));
+            assertThat(expiring.misses()).isEqualTo(2);
+            assertThat(expiring.size()).isEqualTo(1); // same content, same entry
+        }
+    }
+}
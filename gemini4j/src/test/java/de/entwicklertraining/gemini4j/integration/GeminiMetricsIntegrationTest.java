@@ -0,0 +1,181 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics.Metric;
+import de.entwicklertraining.gemini4j.GeminiJsonSchema;
+import de.entwicklertraining.gemini4j.GeminiMetricsListener;
+import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import de.entwicklertraining.gemini4j.GeminiToolResult;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the metrics listener of the client.
+ */
+@DisplayName("Metrics Integration Tests")
+class GeminiMetricsIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String MODEL = TestFixtures.DEFAULT_MODEL;
+
+    private GeminiClient client;
+    private GeminiInMemoryMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        metrics = new GeminiInMemoryMetrics();
+        client.setMetricsListener(metrics);
+    }
+
+    private static GeminiToolDefinition lookupTool(boolean failing) {
+        return GeminiToolDefinition.builder("lookup")
+                .description("Looks something up")
+                .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                .callback(context -> {
+                    if (failing) {
+                        throw new IllegalStateException("lookup failed");
+                    }
+                    return GeminiToolResult.of(new JSONObject().put("id", context.arguments().getInt("id")));
+                })
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Single Turn")
+    class SingleTurnTests {
+
+        @Test
+        @DisplayName("Should record serialization, attempt, parse, turn, tokens and request")
+        void shouldRecordEveryStage() {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+
+            // When
+            client.chat().completion().model(MODEL).addMessage("user", "Hello").execute();
+
+            // Then
+            assertThat(metrics.histogram(Metric.SERIALIZATION_NANOS, MODEL).count()).isEqualTo(1);
+            assertThat(metrics.histogram(Metric.REQUEST_BODY_BYTES, MODEL).max()).isPositive();
+            assertThat(metrics.histogram(Metric.HTTP_ATTEMPT_NANOS, MODEL).count()).isEqualTo(1);
+            assertThat(metrics.histogram(Metric.PARSE_NANOS, MODEL).count()).isEqualTo(1);
+            assertThat(metrics.histogram(Metric.TURN_NANOS, MODEL).count()).isEqualTo(1);
+            assertThat(metrics.histogram(Metric.PROMPT_TOKENS, MODEL).sum()).isEqualTo(10);
+            assertThat(metrics.histogram(Metric.CANDIDATES_TOKENS, MODEL).sum()).isEqualTo(15);
+            assertThat(metrics.histogram(Metric.TOTAL_TOKENS, MODEL).sum()).isEqualTo(25);
+            assertThat(metrics.histogram(Metric.TURNS_PER_REQUEST, MODEL).max()).isEqualTo(1);
+            assertThat(metrics.histogram(Metric.REQUEST_NANOS, MODEL).max())
+                    .isGreaterThanOrEqualTo(metrics.histogram(Metric.TURN_NANOS, MODEL).max());
+            assertThat(metrics.retryCount()).isZero();
+            assertThat(metrics.failedRequestCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should record retries and failed attempts")
+        void shouldRecordRetries() {
+            // Given
+            mockServer.stubRetryScenario();
+
+            // When
+            client.chat().completion().model(MODEL).addMessage("user", "Test retry").executeWithExponentialBackoff();
+
+            // Then
+            assertThat(metrics.histogram(Metric.HTTP_ATTEMPT_NANOS, MODEL).count()).isEqualTo(3);
+            assertThat(metrics.failedAttemptCount()).isEqualTo(2);
+            assertThat(metrics.retryCount()).isEqualTo(2);
+            assertThat(metrics.keys(Metric.BACKOFF_MILLIS)).containsExactly(MODEL);
+            assertThat(metrics.histogram(Metric.TURN_NANOS, MODEL).count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should record a failed request")
+        void shouldRecordFailedRequest() {
+            // Given
+            mockServer.stubBadRequestError();
+
+            // When
+            assertThatThrownBy(() -> client.chat().completion().model(MODEL).addMessage("user", "Hello").execute())
+                    .isInstanceOf(RuntimeException.class);
+
+            // Then
+            assertThat(metrics.failedRequestCount()).isEqualTo(1);
+            assertThat(metrics.failedAttemptCount()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tool Loop")
+    class ToolLoopTests {
+
+        @Test
+        @DisplayName("Should record every turn and tool call of the loop")
+        void shouldRecordTurnsAndToolCalls() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup", "lookup", "lookup"));
+
+            // When
+            client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Look everything up")
+                    .addTool(lookupTool(false))
+                    .toolConcurrency(3)
+                    .execute();
+
+            // Then
+            assertThat(metrics.histogram(Metric.TURN_NANOS, MODEL).count()).isEqualTo(2);
+            assertThat(metrics.histogram(Metric.TURNS_PER_REQUEST, MODEL).max()).isEqualTo(2);
+            assertThat(metrics.histogram(Metric.TOOL_NANOS, "lookup").count()).isEqualTo(3);
+            assertThat(metrics.histogram(Metric.REQUEST_NANOS, MODEL).count()).isEqualTo(1);
+            assertThat(metrics.failedToolCallCount()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should record a failing tool call")
+        void shouldRecordFailingToolCall() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup"));
+
+            // When
+            assertThatThrownBy(() -> client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Look it up")
+                    .addTool(lookupTool(true))
+                    .execute())
+                    .hasMessageContaining("lookup failed");
+
+            // Then
+            assertThat(metrics.failedToolCallCount()).isEqualTo(1);
+            assertThat(metrics.failedRequestCount()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Configuration")
+    class ConfigurationTests {
+
+        @Test
+        @DisplayName("Should fall back to the no-op listener")
+        void shouldFallBackToNoop() {
+            // When
+            client.setMetricsListener(null);
+
+            // Then
+            assertThat(client.getMetricsListener()).isSameAs(GeminiMetricsListener.NOOP);
+        }
+    }
+}
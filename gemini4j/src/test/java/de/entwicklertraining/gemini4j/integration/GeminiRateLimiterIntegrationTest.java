@@ -0,0 +1,121 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiRateLimiter;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the client-side rate limiter.
+ */
+@DisplayName("Rate Limiter Integration Tests")
+class GeminiRateLimiterIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    @Test
+    @DisplayName("Should reconcile the estimate with the reported prompt tokens")
+    void shouldReconcileWithUsageMetadata() {
+        // Given
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("gemini-1.5-flash", 100, 1_000_000).build());
+
+        // When: the prompt is estimated at far more than the 10 tokens the mock reports
+        client.chat().completion()
+                .addMessage("user", "word ".repeat(2_000))
+                .execute();
+
+        // Then
+        double available = client.getRateLimiter().availableTokens("gemini-1.5-flash").orElseThrow();
+        assertThat(available).isGreaterThanOrEqualTo(1_000_000 - 10 - 1);
+    }
+
+    @Test
+    @DisplayName("Should hold back requests above the requests-per-minute budget")
+    void shouldHoldBackRequestsAboveBudget() {
+        // Given: 600 RPM refill one request every 100 ms
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("gemini-1.5-flash", 600, 1_000_000).build());
+        for (int i = 0; i < 600; i++) {
+            client.getRateLimiter().acquire("gemini-1.5-flash", 0);
+        }
+
+        // When
+        long start = System.nanoTime();
+        client.chat().completion().addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE).execute();
+
+        // Then
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(80));
+        verify(1, postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+    }
+
+    @Test
+    @DisplayName("Should charge every retry attempt against the budget")
+    void shouldChargeEveryAttempt() {
+        // Given: 6 RPM refill one request every 10 s
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("gemini-1.5-flash", 6, 1_000_000).build());
+        mockServer.stubRetryScenario();
+
+        // When: two failed attempts and one successful one
+        client.chat().completion().addMessage("user", "Test retry").executeWithExponentialBackoff();
+
+        // Then
+        assertThat(client.getRateLimiter().availableRequests("gemini-1.5-flash").orElseThrow()).isLessThan(4.0);
+    }
+
+    @Test
+    @DisplayName("Should refund the tokens of a failed attempt")
+    void shouldRefundTokensOfFailedAttempt() {
+        // Given
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("gemini-1.5-flash", 100, 1_000_000).build());
+        mockServer.stubBadRequestError();
+
+        // When
+        assertThatThrownBy(() -> client.chat().completion()
+                .addMessage("user", "word ".repeat(2_000))
+                .execute())
+                .isInstanceOf(RuntimeException.class);
+
+        // Then
+        assertThat(client.getRateLimiter().availableTokens("gemini-1.5-flash").orElseThrow())
+                .isGreaterThanOrEqualTo(1_000_000 - 1);
+        assertThat(client.getRateLimiter().availableRequests("gemini-1.5-flash").orElseThrow()).isLessThan(100);
+    }
+
+    @Test
+    @DisplayName("Should limit embedding calls of their model")
+    void shouldLimitEmbeddings() {
+        // Given
+        client.setRateLimiter(GeminiRateLimiter.builder().limit("text-embedding-004", 6, 6_000).build());
+        stubFor(post(urlPathEqualTo("/v1beta/models/text-embedding-004:embedContent"))
+                .willReturn(okJson("{\"embedding\":{\"values\":[0.25,0.75]}}")));
+
+        // When
+        client.embeddings().create().addText("word ".repeat(1_000)).execute();
+
+        // Then
+        GeminiRateLimiter limiter = client.getRateLimiter();
+        assertThat(limiter.availableRequests("text-embedding-004").orElseThrow()).isLessThan(5.5);
+        assertThat(limiter.availableTokens("text-embedding-004").orElseThrow()).isLessThan(6_000 - 500);
+        assertThat(limiter.availableRequests("gemini-1.5-flash")).isEmpty();
+    }
+}
@@ -0,0 +1,192 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiRequestCoalescer;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for single-flight coalescing of identical chat completions.
+ */
+@DisplayName("Request Coalescing Integration Tests")
+class GeminiRequestCoalescingIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String GENERATE_URL = "/v1beta/models/.+:generateContent.*";
+
+    private GeminiClient client;
+    private GeminiRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        coalescer = new GeminiRequestCoalescer();
+        client.setRequestCoalescer(coalescer);
+    }
+
+    private List<CompletableFuture<GeminiChatCompletionResponse>> sendConcurrently(
+            int count, Supplier<GeminiChatCompletionResponse> call) {
+        List<CompletableFuture<GeminiChatCompletionResponse>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                futures.add(CompletableFuture.supplyAsync(call, executor));
+            }
+        }
+        return futures;
+    }
+
+    @Test
+    @DisplayName("Should send identical concurrent requests only once")
+    void shouldCoalesceIdenticalRequests() {
+        // Given
+        mockServer.stubDelayedCompletion(500);
+
+        // When
+        var futures = sendConcurrently(20, () -> client.chat().completion()
+                .addMessage("user", "Summarize the release notes")
+                .execute());
+
+        // Then
+        for (var future : futures) {
+            assertThat(future.join().assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        }
+        verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+        assertThat(coalescer.coalescedCount()).isEqualTo(19);
+        assertThat(coalescer.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should send different requests separately")
+    void shouldNotCoalesceDifferentRequests() {
+        // Given
+        mockServer.stubDelayedCompletion(200);
+
+        // When
+        var first = CompletableFuture.supplyAsync(() -> client.chat().completion().addMessage("user", "a").execute());
+        var second = CompletableFuture.supplyAsync(() -> client.chat().completion().addMessage("user", "b").execute());
+        CompletableFuture.allOf(first, second).join();
+
+        // Then
+        verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        assertThat(coalescer.coalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should never coalesce requests with tools")
+    void shouldNotCoalesceRequestsWithTools() {
+        // Given
+        mockServer.stubDelayedCompletion(300);
+
+        // When
+        var futures = sendConcurrently(3, () -> client.chat().completion()
+                .addTool(TestFixtures.createTestToolDefinition())
+                .addMessage("user", "What is the weather?")
+                .execute());
+        futures.forEach(CompletableFuture::join);
+
+        // Then
+        verify(3, postRequestedFor(urlMatching(GENERATE_URL)));
+        assertThat(coalescer.coalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand the failure of the shared call to every caller")
+    void shouldPropagateFailureToAllCallers() {
+        // Given
+        stubFor(post(urlMatching(GENERATE_URL))
+                .willReturn(aResponse().withStatus(400).withFixedDelay(300)
+                        .withBody(TestFixtures.createErrorResponseJson())));
+
+        // When
+        var futures = sendConcurrently(5, () -> client.chat().completion()
+                .addMessage("user", "same")
+                .execute());
+
+        // Then
+        List<Throwable> failures = new ArrayList<>();
+        for (var future : futures) {
+            assertThatThrownBy(future::join)
+                    .isInstanceOf(CompletionException.class)
+                    .hasCauseInstanceOf(ApiClient.HTTP_400_RequestRejectedException.class)
+                    .satisfies(e -> failures.add(e.getCause()));
+        }
+        assertThat(failures).doesNotHaveDuplicates();
+        verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+    }
+
+    @Test
+    @DisplayName("Should let a waiting caller take over when the shared call times out")
+    void shouldTakeOverAfterLeaderTimeout() throws Exception {
+        // Given
+        mockServer.stubDelayedCompletion(1_500);
+
+        // When: the leader gives up after 1 second, the follower waits up to 10
+        var leader = CompletableFuture.supplyAsync(() -> client.chat().completion()
+                .maxExecutionTimeInSeconds(1)
+                .addMessage("user", "same")
+                .execute());
+        Thread.sleep(200);
+        var follower = CompletableFuture.supplyAsync(() -> client.chat().completion()
+                .maxExecutionTimeInSeconds(10)
+                .addMessage("user", "same")
+                .execute());
+
+        // Then
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(ApiClient.ApiTimeoutException.class);
+        assertThat(follower.join().assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        assertThat(coalescer.coalescedCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop waiting when the waiting caller is canceled")
+    void shouldHonorFollowerCancellation() throws Exception {
+        // Given
+        mockServer.stubDelayedCompletion(1_500);
+        AtomicBoolean canceled = new AtomicBoolean();
+
+        // When
+        var leader = CompletableFuture.supplyAsync(() -> client.chat().completion()
+                .addMessage("user", "same")
+                .execute());
+        Thread.sleep(200);
+        long start = System.nanoTime();
+        var follower = CompletableFuture.supplyAsync(() -> client.chat().completion()
+                .setCancelSupplier(canceled::get)
+                .addMessage("user", "same")
+                .execute());
+        Thread.sleep(200);
+        canceled.set(true);
+
+        // Then
+        assertThatThrownBy(follower::join).hasCauseInstanceOf(ApiClient.ApiTimeoutException.class);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1_000));
+        assertThat(leader.join().assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+    }
+}
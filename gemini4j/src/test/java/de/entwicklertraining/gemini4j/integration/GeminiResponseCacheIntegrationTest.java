@@ -0,0 +1,261 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiResponseCache;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the response cache of deterministic chat completions.
+ */
+@DisplayName("Response Cache Integration Tests")
+class GeminiResponseCacheIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String GENERATE_URL = "/v1beta/models/.+:generateContent.*";
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    private GeminiChatCompletionResponse ask(String text, Double temperature, Integer seed) {
+        return client.chat().completion()
+                .temperature(temperature)
+                .seed(seed)
+                .addMessage("user", text)
+                .execute();
+    }
+
+    @Nested
+    @DisplayName("Heap tier")
+    class HeapTierTests {
+
+        @BeforeEach
+        void enableCache() {
+            client.setResponseCache(GeminiResponseCache.builder().build());
+        }
+
+        @Test
+        @DisplayName("Should answer a repeated request with temperature 0 from the cache")
+        void shouldCacheTemperatureZero() {
+            // When
+            GeminiChatCompletionResponse first = ask("same", 0.0, null);
+            GeminiChatCompletionResponse second = ask("same", 0.0, null);
+
+            // Then
+            assertThat(second.assistantMessage()).isEqualTo(first.assistantMessage());
+            assertThat(client.getResponseCache().heapHits()).isEqualTo(1);
+            verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should answer a repeated request with a fixed seed from the cache")
+        void shouldCacheFixedSeed() {
+            // When
+            ask("same", 0.7, 42);
+            ask("same", 0.7, 42);
+
+            // Then
+            verify(1, postRequestedFor(urlMatching(GENERATE_URL))
+                    .withRequestBody(matchingJsonPath("$.generationConfig.seed", equalTo("42"))));
+        }
+
+        @Test
+        @DisplayName("Should not cache non-deterministic requests")
+        void shouldNotCacheNonDeterministicRequests() {
+            // When
+            ask("same", 0.7, null);
+            ask("same", 0.7, null);
+
+            // Then
+            assertThat(client.getResponseCache().size()).isZero();
+            verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should treat different prompts as different entries")
+        void shouldSeparateDifferentPrompts() {
+            // When
+            ask("a", 0.0, null);
+            ask("b", 0.0, null);
+
+            // Then
+            assertThat(client.getResponseCache().size()).isEqualTo(2);
+            verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should bypass the cache on request")
+        void shouldBypassCacheOnRequest() {
+            // When
+            for (int i = 0; i < 2; i++) {
+                client.chat().completion()
+                        .temperature(0.0)
+                        .useResponseCache(false)
+                        .addMessage("user", "same")
+                        .execute();
+            }
+
+            // Then
+            assertThat(client.getResponseCache().size()).isZero();
+            verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should not cache failed responses")
+        void shouldNotCacheFailedResponses() {
+            // Given
+            mockServer.stubBadRequestError();
+
+            // When / Then
+            assertThatThrownBy(() -> ask("same", 0.0, null)).isInstanceOf(RuntimeException.class);
+            assertThat(client.getResponseCache().size()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should evict the least recently used entry")
+        void shouldEvictLeastRecentlyUsedEntry() {
+            // Given
+            client.setResponseCache(GeminiResponseCache.builder().maxEntries(2).build());
+            ask("a", 0.0, null);
+            ask("b", 0.0, null);
+            ask("a", 0.0, null); // "a" is now the most recently used
+
+            // When
+            ask("c", 0.0, null); // evicts "b"
+            ask("a", 0.0, null);
+            ask("b", 0.0, null);
+
+            // Then: a, b, c, b
+            assertThat(client.getResponseCache().size()).isEqualTo(2);
+            verify(4, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should keep the heap tier within its byte budget")
+        void shouldRespectByteBudget() {
+            // Given
+            int bodySize = TestFixtures.createSuccessfulResponseJson().getBytes().length;
+            client.setResponseCache(GeminiResponseCache.builder().maxHeapBytes(bodySize * 2L + 10).build());
+
+            // When
+            ask("a", 0.0, null);
+            ask("b", 0.0, null);
+            ask("c", 0.0, null);
+
+            // Then
+            assertThat(client.getResponseCache().size()).isEqualTo(2);
+            assertThat(client.getResponseCache().heapBytes()).isLessThanOrEqualTo(bodySize * 2L + 10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Disk tier")
+    class DiskTierTests {
+
+        @TempDir
+        Path directory;
+
+        @Test
+        @DisplayName("Should answer from the disk tier after a restart")
+        void shouldSurviveRestart() {
+            // Given
+            client.setResponseCache(GeminiResponseCache.builder().diskDirectory(directory).build());
+            String expected = ask("same", 0.0, null).assistantMessage();
+
+            // When: a fresh cache on the same directory
+            GeminiResponseCache restarted = GeminiResponseCache.builder().diskDirectory(directory).build();
+            client.setResponseCache(restarted);
+            String cached = ask("same", 0.0, null).assistantMessage();
+            ask("same", 0.0, null);
+
+            // Then
+            assertThat(cached).isEqualTo(expected);
+            assertThat(restarted.diskHits()).isEqualTo(1);
+            assertThat(restarted.heapHits()).isEqualTo(1); // promoted into the heap tier
+            verify(1, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should remove the files on clear")
+        void shouldRemoveFilesOnClear() throws Exception {
+            // Given
+            GeminiResponseCache cache = GeminiResponseCache.builder().diskDirectory(directory).build();
+            client.setResponseCache(cache);
+            ask("same", 0.0, null);
+
+            // When
+            cache.clear();
+
+            // Then
+            try (var files = Files.list(directory)) {
+                assertThat(files).isEmpty();
+            }
+            ask("same", 0.0, null);
+            verify(2, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        @Test
+        @DisplayName("Should delete the least recently used files beyond maxDiskBytes")
+        void shouldEvictLeastRecentlyUsedFiles() throws Exception {
+            // Given: "a" and "b" on disk, "b" used longest ago
+            client.setResponseCache(GeminiResponseCache.builder().diskDirectory(directory).build());
+            ask("a", 0.0, null);
+            Path fileA = onlyFile();
+            Files.setLastModifiedTime(fileA, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+            ask("b", 0.0, null);
+            long bodySize = Files.size(fileA);
+            try (var files = Files.list(directory)) {
+                Path fileB = files.filter(file -> !file.equals(fileA)).findFirst().orElseThrow();
+                Files.setLastModifiedTime(fileB, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+            }
+            GeminiResponseCache cache = GeminiResponseCache.builder()
+                    .diskDirectory(directory)
+                    .maxDiskBytes(bodySize * 5 / 2)
+                    .build();
+            client.setResponseCache(cache);
+            ask("a", 0.0, null); // disk hit, marks "a" as used
+
+            // When
+            ask("c", 0.0, null);
+
+            // Then
+            try (var files = Files.list(directory)) {
+                assertThat(files).hasSize(2).contains(fileA);
+            }
+            assertThat(cache.diskBytes()).isEqualTo(bodySize * 2);
+            verify(3, postRequestedFor(urlMatching(GENERATE_URL)));
+        }
+
+        private Path onlyFile() throws Exception {
+            try (var files = Files.list(directory)) {
+                return files.toList().getFirst();
+            }
+        }
+    }
+}
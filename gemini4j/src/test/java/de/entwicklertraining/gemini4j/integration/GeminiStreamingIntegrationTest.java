@@ -0,0 +1,130 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiServerSentEventReader;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for streamGenerateContent (server-sent events) using WireMock.
+ */
+@DisplayName("Gemini Streaming Integration Tests")
+class GeminiStreamingIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    @Nested
+    @DisplayName("Streaming Completions")
+    class StreamingCompletionTests {
+
+        @Test
+        @DisplayName("Should hand out text deltas in order and merge the final response")
+        void shouldHandOutTextDeltasInOrder() {
+            // Given
+            mockServer.stubStreamingCompletion("Hello", ", ", "world", "!");
+            List<String> deltas = new ArrayList<>();
+
+            // When
+            GeminiChatCompletionResponse response = client.chat()
+                    .completion()
+                    .addMessage("user", "Say hello")
+                    .executeStreaming(deltas::add);
+
+            // Then
+            assertThat(deltas).containsExactly("Hello", ", ", "world", "!");
+            assertThat(response.assistantMessage()).isEqualTo("Hello, world!");
+            assertThat(response.finishReason()).isEqualTo("STOP");
+            assertThat(response.getJson().getJSONObject("usageMetadata").getInt("totalTokenCount")).isEqualTo(25);
+        }
+
+        @Test
+        @DisplayName("Should call streamGenerateContent with alt=sse")
+        void shouldCallStreamEndpointWithSse() {
+            // Given
+            mockServer.stubStreamingCompletion("Hi");
+
+            // When
+            client.chat()
+                    .completion()
+                    .model("gemini-1.5-pro")
+                    .addMessage("user", "Hello")
+                    .executeStreaming(delta -> { });
+
+            // Then
+            mockServer.verifyRequest(postRequestedFor(urlMatching(
+                    "/v1beta/models/gemini-1.5-pro:streamGenerateContent\\?alt=sse&key=" + TestFixtures.TEST_API_KEY))
+                    .withRequestBody(matchingJsonPath("$.contents[0].parts[0].text", equalTo("Hello"))));
+        }
+
+        @Test
+        @DisplayName("Should map HTTP errors to the registered exceptions")
+        void shouldMapHttpErrors() {
+            // Given
+            mockServer.stubStreamingError(429, TestFixtures.createRateLimitErrorJson());
+
+            // When & Then
+            assertThatThrownBy(() -> client.chat()
+                    .completion()
+                    .addMessage("user", "Hello")
+                    .executeStreaming(delta -> { }))
+                    .isInstanceOf(ApiClient.HTTP_429_RateLimitOrQuotaException.class)
+                    .hasMessageContaining("RESOURCE_EXHAUSTED");
+        }
+    }
+
+    @Nested
+    @DisplayName("Event Parsing")
+    class EventParsingTests {
+
+        @Test
+        @DisplayName("Should split events on blank lines regardless of line endings")
+        void shouldSplitEventsOnBlankLines() throws Exception {
+            // Given
+            String body = ": keep-alive\n"
+                    + "data: {\"a\":1}\r\n\r\n"
+                    + "data: {\"b\":\n"
+                    + "data: 2}\n\n"
+                    + "data: {\"c\":3}";
+
+            // When
+            List<String> events = new ArrayList<>();
+            try (var reader = new GeminiServerSentEventReader(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+                String event;
+                while ((event = reader.nextEvent()) != null) {
+                    events.add(event);
+                }
+            }
+
+            // Then
+            assertThat(events).containsExactly("{\"a\":1}", "{\"b\":\n2}", "{\"c\":3}");
+        }
+    }
+}
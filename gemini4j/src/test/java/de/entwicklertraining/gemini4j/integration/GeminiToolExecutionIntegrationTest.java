@@ -0,0 +1,271 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiJsonSchema;
+import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import de.entwicklertraining.gemini4j.GeminiToolResult;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the tool loop with several functionCall parts per turn.
+ */
+@DisplayName("Gemini Tool Execution Integration Tests")
+class GeminiToolExecutionIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+    }
+
+    /**
+     * A tool that counts down {@code gate} and then waits until it is open, i.e. until as many
+     * callbacks have arrived as the gate was created with.
+     */
+    private static GeminiToolDefinition gatedTool(String name, CountDownLatch gate, AtomicInteger running, AtomicInteger maxRunning) {
+        return GeminiToolDefinition.builder(name)
+                .description("Waits for the gate and echoes the id")
+                .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                .callback(context -> {
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try {
+                        gate.countDown();
+                        gate.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return GeminiToolResult.of(new JSONObject()
+                            .put("tool", name)
+                            .put("id", context.arguments().getInt("id")));
+                })
+                .build();
+    }
+
+    /**
+     * A tool that blocks until {@code release} is opened and ignores interrupts while doing so.
+     */
+    private static GeminiToolDefinition stubbornTool(String name, CountDownLatch started, CountDownLatch release) {
+        return GeminiToolDefinition.builder(name)
+                .description("Blocks and ignores interrupts")
+                .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                .callback(context -> {
+                    started.countDown();
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException ignored) {
+                            // keeps running, like a callback stuck in blocking I/O
+                        }
+                    }
+                    return GeminiToolResult.of(new JSONObject().put("tool", name));
+                })
+                .build();
+    }
+
+    private static JSONArray sentFunctionResponses() {
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+        JSONObject secondTurn = new JSONObject(requests.get(1).getBodyAsString());
+        JSONArray contents = secondTurn.getJSONArray("contents");
+        return contents.getJSONObject(contents.length() - 1).getJSONArray("parts");
+    }
+
+    @Nested
+    @DisplayName("Concurrent Tool Execution")
+    class ConcurrentToolExecutionTests {
+
+        @Test
+        @DisplayName("Should run tool callbacks concurrently and keep the call order")
+        void shouldRunToolCallbacksConcurrently() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("slow", "fast", "slow", "fast"));
+            CountDownLatch allStarted = new CountDownLatch(4); // only opens if all four run at the same time
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            // When
+            GeminiChatCompletionResponse response = client.chat()
+                    .completion()
+                    .addMessage("user", "Look everything up")
+                    .addTool(gatedTool("slow", allStarted, running, maxRunning))
+                    .addTool(gatedTool("fast", allStarted, running, maxRunning))
+                    .toolConcurrency(4)
+                    .execute();
+
+            // Then
+            assertThat(response.assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+            assertThat(maxRunning.get()).isEqualTo(4);
+
+            JSONArray parts = sentFunctionResponses();
+            assertThat(parts.length()).isEqualTo(4);
+            for (int i = 0; i < parts.length(); i++) {
+                JSONObject functionResponse = parts.getJSONObject(i).getJSONObject("function_response");
+                assertThat(functionResponse.getString("name")).isEqualTo(i % 2 == 0 ? "slow" : "fast");
+                assertThat(functionResponse.getJSONObject("response").getInt("id")).isEqualTo(i);
+            }
+        }
+
+        @Test
+        @DisplayName("Should respect the concurrency cap")
+        void shouldRespectConcurrencyCap() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup", "lookup", "lookup", "lookup", "lookup"));
+            CountDownLatch twoStarted = new CountDownLatch(2);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            // When
+            client.chat()
+                    .completion()
+                    .addMessage("user", "Look everything up")
+                    .addTool(gatedTool("lookup", twoStarted, running, maxRunning))
+                    .toolConcurrency(2)
+                    .execute();
+
+            // Then
+            assertThat(maxRunning.get()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should run tools sequentially by default")
+        void shouldRunToolsSequentiallyByDefault() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup", "lookup", "lookup"));
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            // When
+            client.chat()
+                    .completion()
+                    .addMessage("user", "Look everything up")
+                    .addTool(gatedTool("lookup", new CountDownLatch(0), running, maxRunning))
+                    .execute();
+
+            // Then
+            assertThat(maxRunning.get()).isEqualTo(1);
+            assertThat(sentFunctionResponses().length()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should abort a tool callback exceeding the timeout")
+        void shouldAbortToolCallbackExceedingTimeout() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("fast", "hanging"));
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            // When & Then
+            assertThatThrownBy(() -> client.chat()
+                    .completion()
+                    .addMessage("user", "Look everything up")
+                    .addTool(gatedTool("fast", new CountDownLatch(0), running, maxRunning))
+                    .addTool(gatedTool("hanging", new CountDownLatch(2), running, maxRunning))
+                    .toolConcurrency(2)
+                    .toolTimeoutInSeconds(1)
+                    .execute())
+                    .isInstanceOf(ApiClient.ApiTimeoutException.class)
+                    .hasMessageContaining("hanging");
+        }
+
+        @Test
+        @DisplayName("Should keep the permit of a timed-out callback until it actually returns")
+        void shouldKeepPermitOfTimedOutCallback() throws Exception {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("stubborn", "next"));
+            CountDownLatch stubbornStarted = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch nextStarted = new CountDownLatch(1);
+
+            // When
+            try {
+                assertThatThrownBy(() -> client.chat()
+                        .completion()
+                        .addMessage("user", "Look everything up")
+                        .addTool(stubbornTool("stubborn", stubbornStarted, release))
+                        .addTool(stubbornTool("next", nextStarted, new CountDownLatch(0)))
+                        .toolConcurrency(1)
+                        .toolTimeoutInSeconds(1)
+                        .execute())
+                        .isInstanceOf(ApiClient.ApiTimeoutException.class)
+                        .hasMessageContaining("stubborn");
+
+                // Then
+                assertThat(stubbornStarted.getCount()).isZero();
+                assertThat(nextStarted.await(300, TimeUnit.MILLISECONDS)).isFalse();
+            } finally {
+                release.countDown();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Conversation History")
+    class ConversationHistoryTests {
+
+        @Test
+        @DisplayName("Should send the history and all settings again in the next turn")
+        void shouldSendHistoryAndSettingsInNextTurn() {
+            // Given
+            String functionCallResponse = TestFixtures.createParallelFunctionCallResponseJson("lookup");
+            mockServer.stubToolLoop(functionCallResponse);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+
+            // When
+            GeminiChatCompletionResponse response = client.chat()
+                    .completion()
+                    .systemInstruction(TestFixtures.SYSTEM_INSTRUCTION)
+                    .temperature(0.3)
+                    .addMessage("user", "Look it up")
+                    .addTool(gatedTool("lookup", new CountDownLatch(0), running, maxRunning))
+                    .execute();
+
+            // Then
+            assertThat(response.assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+            List<LoggedRequest> requests = findAll(postRequestedFor(urlMatching("/v1beta/models/.+:generateContent.*")));
+            JSONObject secondTurn = new JSONObject(requests.get(1).getBodyAsString());
+            JSONArray contents = secondTurn.getJSONArray("contents");
+            assertThat(contents.length()).isEqualTo(3);
+            assertThat(contents.getJSONObject(0).getJSONArray("parts").getJSONObject(0).getString("text"))
+                    .isEqualTo("Look it up");
+            assertThat(contents.getJSONObject(1).similar(new JSONObject(functionCallResponse)
+                    .getJSONArray("candidates").getJSONObject(0).getJSONObject("content"))).isTrue();
+            assertThat(contents.getJSONObject(2).getJSONArray("parts").getJSONObject(0)
+                    .getJSONObject("function_response").getString("name")).isEqualTo("lookup");
+            assertThat(secondTurn.getJSONObject("generationConfig").getDouble("temperature")).isEqualTo(0.3);
+            assertThat(secondTurn.getJSONObject("systemInstruction").getJSONArray("parts").getJSONObject(0)
+                    .getString("text")).isEqualTo(TestFixtures.SYSTEM_INSTRUCTION);
+            assertThat(secondTurn.getJSONArray("tools").getJSONObject(0).getJSONArray("functionDeclarations"))
+                    .hasSize(1);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package de.entwicklertraining.gemini4j.integration;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiInMemoryTracer;
+import de.entwicklertraining.gemini4j.GeminiInMemoryTracer.SpanData;
+import de.entwicklertraining.gemini4j.GeminiJsonSchema;
+import de.entwicklertraining.gemini4j.GeminiSpan;
+import de.entwicklertraining.gemini4j.GeminiToolDefinition;
+import de.entwicklertraining.gemini4j.GeminiToolResult;
+import de.entwicklertraining.gemini4j.GeminiTracer;
+import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for the tracing spans of chat completions.
+ */
+@DisplayName("Tracing Integration Tests")
+class GeminiTracingIntegrationTest {
+
+    @RegisterExtension
+    static GeminiMockServer mockServer = new GeminiMockServer();
+
+    private static final String MODEL = TestFixtures.DEFAULT_MODEL;
+
+    private GeminiClient client;
+    private GeminiInMemoryTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        ApiClientSettings settings = ApiClientSettings.builder()
+                .setBearerAuthenticationKey(TestFixtures.TEST_API_KEY)
+                .build();
+        client = new GeminiClient(settings, mockServer.getBaseUrl());
+        tracer = new GeminiInMemoryTracer();
+        client.setTracer(tracer);
+    }
+
+    /**
+     * A tool that attaches a child span to its invocation span, or fails.
+     */
+    private static GeminiToolDefinition lookupTool(boolean failing) {
+        return GeminiToolDefinition.builder("lookup")
+                .description("Looks something up")
+                .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                .callback(context -> {
+                    if (failing) {
+                        throw new IllegalStateException("lookup failed");
+                    }
+                    try (GeminiSpan query = context.span().startChild("db.query")) {
+                        query.setAttribute("id", context.arguments().getInt("id"));
+                    }
+                    return GeminiToolResult.of(new JSONObject().put("id", context.arguments().getInt("id")));
+                })
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Span Hierarchy")
+    class SpanHierarchyTests {
+
+        @Test
+        @DisplayName("Should emit a request span with one turn span")
+        void shouldEmitRequestAndTurnSpan() {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+
+            // When
+            client.chat().completion().model(MODEL).addMessage("user", "Hello").execute();
+
+            // Then
+            SpanData request = tracer.finishedSpans("gemini.request").getFirst();
+            assertThat(request.parentSpanId()).isZero();
+            assertThat(request.attribute("gemini.model")).isEqualTo(MODEL);
+            assertThat(request.attribute("gemini.turns")).isEqualTo(1L);
+            assertThat(tracer.childrenOf(request)).singleElement().satisfies(turn -> {
+                assertThat(turn.name()).isEqualTo("gemini.turn");
+                assertThat(turn.traceId()).isEqualTo(request.traceId());
+                assertThat(turn.attribute("gemini.turn")).isEqualTo(1L);
+                assertThat(turn.attribute("gemini.usage.prompt_tokens")).isEqualTo(10L);
+                assertThat(turn.durationNanos()).isLessThanOrEqualTo(request.durationNanos());
+            });
+        }
+
+        @Test
+        @DisplayName("Should emit turn and tool spans below the request span and propagate the tool span")
+        void shouldPropagateToolSpanToCallbacks() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup", "lookup"));
+
+            // When
+            client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Look everything up")
+                    .addTool(lookupTool(false))
+                    .toolConcurrency(2)
+                    .execute();
+
+            // Then
+            SpanData request = tracer.finishedSpans("gemini.request").getFirst();
+            List<SpanData> children = tracer.childrenOf(request);
+            assertThat(children).extracting(SpanData::name)
+                    .containsExactlyInAnyOrder("gemini.turn", "gemini.turn", "gemini.tool", "gemini.tool");
+
+            List<SpanData> tools = tracer.finishedSpans("gemini.tool");
+            assertThat(tools).allSatisfy(tool -> {
+                assertThat(tool.attribute("gemini.tool.name")).isEqualTo("lookup");
+                assertThat(tool.attribute("gemini.turn")).isEqualTo(1L);
+                assertThat(tracer.childrenOf(tool)).singleElement()
+                        .extracting(SpanData::name).isEqualTo("db.query");
+            });
+            assertThat(tracer.finishedSpans("db.query")).extracting(span -> span.attribute("id"))
+                    .containsExactlyInAnyOrder(0L, 1L);
+            assertThat(tracer.finishedSpans()).extracting(SpanData::traceId).containsOnly(request.traceId());
+        }
+
+        @Test
+        @DisplayName("Should start a new trace for every request")
+        void shouldStartNewTracePerRequest() {
+            // Given
+            mockServer.stubSuccessfulCompletion();
+
+            // When
+            client.chat().completion().model(MODEL).addMessage("user", "One").execute();
+            client.chat().completion().model(MODEL).addMessage("user", "Two").execute();
+
+            // Then
+            assertThat(tracer.finishedSpans("gemini.request")).extracting(SpanData::traceId).doesNotHaveDuplicates();
+        }
+    }
+
+    @Nested
+    @DisplayName("Errors")
+    class ErrorTests {
+
+        @Test
+        @DisplayName("Should record a failing tool call on the tool and the request span")
+        void shouldRecordToolFailure() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup"));
+
+            // When
+            assertThatThrownBy(() -> client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Look it up")
+                    .addTool(lookupTool(true))
+                    .execute())
+                    .hasMessageContaining("lookup failed");
+
+            // Then
+            assertThat(tracer.finishedSpans("gemini.tool")).singleElement()
+                    .satisfies(tool -> assertThat(tool.error()).hasMessage("lookup failed"));
+            assertThat(tracer.finishedSpans("gemini.request")).singleElement()
+                    .satisfies(request -> assertThat(request.error()).isNotNull());
+        }
+
+        @Test
+        @DisplayName("Should end a timed out tool span with the timeout before the request span")
+        void shouldRecordToolTimeout() {
+            // Given
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("slow"));
+            GeminiToolDefinition slowTool = GeminiToolDefinition.builder("slow")
+                    .description("Takes too long")
+                    .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                    .callback(context -> {
+                        try {
+                            Thread.sleep(3_000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return GeminiToolResult.of(new JSONObject());
+                    })
+                    .build();
+
+            // When
+            assertThatThrownBy(() -> client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Take your time")
+                    .addTool(slowTool)
+                    .toolTimeoutInSeconds(1)
+                    .execute())
+                    .hasMessageContaining("did not finish within 1 seconds");
+
+            // Then
+            SpanData request = tracer.finishedSpans("gemini.request").getFirst();
+            assertThat(tracer.finishedSpans("gemini.tool")).singleElement().satisfies(tool -> {
+                assertThat(tool.error()).hasMessageContaining("did not finish");
+                assertThat(tool.parentSpanId()).isEqualTo(request.spanId());
+                assertThat(tool.startNanos() + tool.durationNanos())
+                        .isLessThanOrEqualTo(request.startNanos() + request.durationNanos());
+            });
+        }
+
+        @Test
+        @DisplayName("Should record a rejected turn")
+        void shouldRecordFailedTurn() {
+            // Given
+            mockServer.stubBadRequestError();
+
+            // When
+            assertThatThrownBy(() -> client.chat().completion().model(MODEL).addMessage("user", "Hello").execute())
+                    .isInstanceOf(RuntimeException.class);
+
+            // Then
+            assertThat(tracer.finishedSpans("gemini.turn")).singleElement()
+                    .satisfies(turn -> assertThat(turn.error()).isNotNull());
+        }
+    }
+
+    @Nested
+    @DisplayName("Configuration")
+    class ConfigurationTests {
+
+        @Test
+        @DisplayName("Should hand tools a no-op span without tracer")
+        void shouldUseNoopSpanWithoutTracer() {
+            // Given
+            client.setTracer(null);
+            mockServer.stubToolLoop(TestFixtures.createParallelFunctionCallResponseJson("lookup"));
+            GeminiSpan[] seen = new GeminiSpan[1];
+
+            // When
+            client.chat().completion()
+                    .model(MODEL)
+                    .addMessage("user", "Look it up")
+                    .addTool(GeminiToolDefinition.builder("lookup")
+                            .description("Looks something up")
+                            .parameter("id", GeminiJsonSchema.integerSchema("Position of the call"), true)
+                            .callback(context -> {
+                                seen[0] = context.span();
+                                return GeminiToolResult.of(new JSONObject());
+                            })
+                            .build())
+                    .execute();
+
+            // Then
+            assertThat(client.getTracer()).isSameAs(GeminiTracer.NOOP);
+            assertThat(seen[0]).isSameAs(GeminiSpan.NOOP);
+            assertThat(tracer.finishedSpans()).isEmpty();
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package de.entwicklertraining.gemini4j.performance;
 
+import com.sun.management.ThreadMXBean;
 import de.entwicklertraining.api.base.ApiClientSettings;
 import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiTokenizer;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
 import de.entwicklertraining.gemini4j.fixtures.GeminiMockServer;
+import de.entwicklertraining.gemini4j.fixtures.ReferenceTokenizer;
 import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -51,6 +55,10 @@ class GeminiPerformanceTest {
         mockServer.stubSuccessfulCompletion();
     }
 
+    private static long allocatedBytes() {
+        return ((ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
     @Nested
     @DisplayName("Request Building Performance")
     class RequestBuildingPerformanceTests {
@@ -197,6 +205,68 @@ class GeminiPerformanceTest {
             assertThat(avgTimePerSerialization).isLessThan(50_000); // Less than 50 microseconds per serialization
         }
 
+        @Test
+        @DisplayName("Should stream large vision bodies with less allocation than the JSONObject tree")
+        void shouldStreamLargeBodiesWithLessAllocation() throws Exception {
+            // Given: 4 MB of base64 image data plus a longer conversation
+            byte[] image = new byte[3 * 1024 * 1024];
+            new java.util.Random(42).nextBytes(image);
+            JSONObject imageMessage = new JSONObject()
+                    .put("role", "user")
+                    .put("parts", new org.json.JSONArray().put(new JSONObject().put("inline_data", new JSONObject()
+                            .put("mime_type", "image/png")
+                            .put("data", java.util.Base64.getEncoder().encodeToString(image)))));
+            List<JSONObject> messages = new ArrayList<>(TestFixtures.createLargeMessageList(50));
+            messages.add(imageMessage);
+            GeminiChatCompletionRequest request = client.chat().completion()
+                    .addAllMessages(messages)
+                    .temperature(0.7)
+                    .build();
+            java.io.OutputStream sink = java.io.OutputStream.nullOutputStream();
+
+            // Warmup
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                request.writeBody(sink);
+                sink.write(buildBodyAsTree(request).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            }
+
+            // Measure: the old path built a JSONObject tree, turned it into a String and encoded that
+            long treeNanos = 0, treeBytes = 0, streamNanos = 0, streamBytes = 0;
+            for (int i = 0; i < 20; i++) {
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                sink.write(buildBodyAsTree(request).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                treeNanos += System.nanoTime() - start;
+                treeBytes += allocatedBytes() - allocated;
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                request.writeBody(sink);
+                streamNanos += System.nanoTime() - start;
+                streamBytes += allocatedBytes() - allocated;
+            }
+
+            System.out.printf("Large body - tree: %.2f ms / %.1f MB, streaming: %.2f ms / %.1f MB per body%n",
+                    treeNanos / 20 / 1e6, treeBytes / 20 / (1024.0 * 1024.0),
+                    streamNanos / 20 / 1e6, streamBytes / 20 / (1024.0 * 1024.0));
+
+            assertThat(streamBytes).isLessThan(treeBytes);
+        }
+
+        /**
+         * The former getBody() implementation (reduced to the fields used above), kept as baseline.
+         */
+        private String buildBodyAsTree(GeminiChatCompletionRequest request) {
+            JSONObject root = new JSONObject();
+            org.json.JSONArray contents = new org.json.JSONArray();
+            for (JSONObject msg : request.messages()) {
+                contents.put(msg);
+            }
+            root.put("contents", contents);
+            root.put("generationConfig", new JSONObject().put("temperature", request.temperature()));
+            return root.toString();
+        }
+
         @Test
         @DisplayName("Should parse responses from JSON efficiently")
         void shouldParseResponsesFromJsonEfficiently() {
@@ -207,7 +277,7 @@ class GeminiPerformanceTest {
 
             // Warmup
             for (int i = 0; i < WARMUP_ITERATIONS; i++) {
-                new GeminiChatCompletionResponse(new JSONObject(responseJson), mockRequest);
+                new GeminiChatCompletionResponse(new JSONObject(responseJson), mockRequest).assistantMessage();
             }
 
             // Measure
@@ -227,6 +297,44 @@ class GeminiPerformanceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tokenizer Performance")
+    class TokenizerPerformanceTests {
+
+        @Test
+        @DisplayName("Should count multi-MB HTML pages without per-token allocation")
+        void shouldCountLargeHtmlWithoutAllocation() {
+            // Given: ~4 MB of HTML
+            StringBuilder page = new StringBuilder();
+            while (page.length() < 4 * 1024 * 1024) {
+                page.append("<div class=\"row\"><p>Lorem ipsum dolor sit amet, consectetur &amp; adipiscing elit, ")
+                        .append("sed don't-stop tempor 12345 incididunt!</p><a href=\"/x?y=1\">Link</a></div>\n");
+            }
+            String html = page.toString();
+            GeminiTokenizer tokenizer = GeminiTokenizer.getInstance();
+
+            // Warmup
+            for (int i = 0; i < 3; i++) {
+                assertThat(tokenizer.countTokens(html)).isEqualTo(ReferenceTokenizer.countTokens(html));
+            }
+
+            // Measure
+            long allocated = allocatedBytes();
+            for (int i = 0; i < 5; i++) {
+                ReferenceTokenizer.countTokens(html);
+            }
+            long referenceBytes = allocatedBytes() - allocated;
+
+            allocated = allocatedBytes();
+            for (int i = 0; i < 5; i++) {
+                tokenizer.countTokens(html);
+            }
+            long scannerBytes = allocatedBytes() - allocated;
+
+            assertThat(scannerBytes).isLessThan(referenceBytes / 10);
+        }
+    }
+
     @Nested
     @DisplayName("Concurrent Performance")
     class ConcurrentPerformanceTests {
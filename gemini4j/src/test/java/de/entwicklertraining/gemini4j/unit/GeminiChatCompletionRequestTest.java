@@ -1,6 +1,7 @@
 package de.entwicklertraining.gemini4j.unit;
 
 import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiMediaSource;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
 import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
 import org.json.JSONArray;
@@ -9,11 +10,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -353,9 +358,9 @@ class GeminiChatCompletionRequestTest {
         @Test
         @DisplayName("Should accept supported image extensions")
         void shouldAcceptSupportedImageExtensions() {
-            // Given - Use a real working URL
-            String imageUrl = "https://software-quality-services.de/wp-content/uploads/2024/09/Walde_0141.jpg";
-            
+            // Given - the download is deferred, so the URL is not contacted while building
+            String imageUrl = "http://localhost:1/images/photo.jpg";
+
             // When & Then
             assertThatCode(() -> builder.addImageByUrl(imageUrl))
                     .doesNotThrowAnyException();
@@ -388,6 +393,42 @@ class GeminiChatCompletionRequestTest {
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("Unsupported file extension");
         }
+
+        @Test
+        @DisplayName("Should read local images lazily when the body is written")
+        void shouldReadLocalImagesLazily(@TempDir Path tempDir) throws Exception {
+            // Given
+            byte[] image = new byte[100_000];
+            new java.util.Random(7).nextBytes(image);
+            Path imagePath = tempDir.resolve("image.png");
+            Files.write(imagePath, image);
+
+            // When
+            GeminiChatCompletionRequest request = builder
+                    .addImageByBase64(imagePath)
+                    .build();
+            JSONObject inlineData = request.messages().get(0)
+                    .getJSONArray("parts").getJSONObject(0).getJSONObject("inline_data");
+            JSONObject body = new JSONObject(request.getBody());
+
+            // Then
+            assertThat(inlineData.get("data")).isInstanceOf(GeminiMediaSource.class);
+            String expected = Base64.getEncoder().encodeToString(image);
+            assertThat(((GeminiMediaSource) inlineData.get("data")).base64()).isEqualTo(expected);
+            assertThat(body.getJSONArray("contents").getJSONObject(0).getJSONArray("parts").getJSONObject(0)
+                    .getJSONObject("inline_data").getString("data")).isEqualTo(expected);
+            assertThat(new JSONObject(request.messages().get(0).toString()).getJSONArray("parts").getJSONObject(0)
+                    .getJSONObject("inline_data").getString("data")).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("Should fail early for missing local files")
+        void shouldFailEarlyForMissingLocalFiles(@TempDir Path tempDir) {
+            // When & Then
+            assertThatThrownBy(() -> builder.addImageByBase64(tempDir.resolve("missing.png")))
+                    .isInstanceOf(RuntimeException.class)
+                    .hasMessageContaining("Failed to read file");
+        }
     }
 
     @Nested
@@ -416,6 +457,23 @@ class GeminiChatCompletionRequestTest {
             assertThat(json.has("generationConfig")).isTrue();
         }
 
+        @Test
+        @DisplayName("Should refer to cached content by name")
+        void shouldReferToCachedContentByName() {
+            // Given
+            GeminiChatCompletionRequest request = builder
+                    .cachedContent("cachedContents/abc123")
+                    .addMessage("user", "Hello")
+                    .build();
+
+            // When
+            JSONObject json = new JSONObject(request.getBody());
+
+            // Then
+            assertThat(json.getString("cachedContent")).isEqualTo("cachedContents/abc123");
+            assertThat(new JSONObject(builder.cachedContent(null).build().getBody()).has("cachedContent")).isFalse();
+        }
+
         @Test
         @DisplayName("Should include system instruction in JSON")
         void shouldIncludeSystemInstructionInJson() {
@@ -485,6 +543,38 @@ class GeminiChatCompletionRequestTest {
             JSONObject toolConfig = json.getJSONObject("toolConfig");
             assertThat(toolConfig.has("functionCallingConfig")).isTrue();
         }
+
+        @Test
+        @DisplayName("Should stream the same JSON as getBody")
+        void shouldStreamSameJsonAsGetBody() throws Exception {
+            // Given
+            JSONObject message = new JSONObject()
+                    .put("role", "user")
+                    .put("parts", new JSONArray()
+                            .put(new JSONObject().put("text", "Grüße \"quoted\" \n 😀"))
+                            .put(new JSONObject().put("inline_data", new JSONObject()
+                                    .put("mime_type", "image/png")
+                                    .put("data", "iVBORw0KGgo="))));
+            GeminiChatCompletionRequest request = builder
+                    .addAllMessages(List.of(message))
+                    .addTool(TestFixtures.createTestToolDefinition())
+                    .temperature(0.5)
+                    .addStopSequence("END")
+                    .build();
+
+            // When
+            java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+            request.writeBody(out);
+            JSONObject streamed = new JSONObject(out.toString(java.nio.charset.StandardCharsets.UTF_8));
+
+            // Then
+            assertThat(out.toString(java.nio.charset.StandardCharsets.UTF_8)).isEqualTo(request.getBody());
+            assertThat(streamed.getJSONArray("contents").getJSONObject(0).similar(message)).isTrue();
+            assertThat(streamed.getJSONObject("generationConfig").getDouble("temperature")).isEqualTo(0.5);
+            assertThat(streamed.getJSONArray("tools").getJSONObject(0)
+                    .getJSONArray("functionDeclarations").getJSONObject(0)
+                    .similar(TestFixtures.createTestToolDefinition().toJson())).isTrue();
+        }
     }
 
     @Nested
@@ -1,9 +1,16 @@
 package de.entwicklertraining.gemini4j.unit;
 
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiCandidate;
 import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionResponse;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiFunctionCall;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiPart;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiSafetyRating;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiUsageMetadata;
 import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
 import de.entwicklertraining.api.base.ApiClient;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +19,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.*;
 
 /**
@@ -211,6 +221,97 @@ class GeminiChatCompletionResponseTest {
                     .isInstanceOf(ApiClient.ApiResponseUnusableException.class)
                     .hasMessageContaining("Failed to parse the model's JSON");
         }
+
+        @Test
+        @DisplayName("Should convert a single part, skipping thinking summaries")
+        void shouldConvertSinglePart() {
+            // Given
+            String json = """
+                    {"candidates":[{"content":{"role":"model","parts":[
+                        {"text":"Let me think...","thought":true},
+                        {"text":"{\\"name\\":\\"Jane\\",\\"age\\":41}"}]}}]}
+                    """;
+            GeminiChatCompletionResponse response = new GeminiChatCompletionResponse(
+                    json.getBytes(StandardCharsets.UTF_8), mockRequest);
+
+            // When
+            TestPerson person = response.convertTo(TestPerson.class, 1);
+
+            // Then
+            assertThat(person.getName()).isEqualTo("Jane");
+            assertThat(person.getAge()).isEqualTo(41);
+            assertThatThrownBy(() -> response.convertTo(TestPerson.class, 5))
+                    .isInstanceOf(ApiClient.ApiResponseUnusableException.class)
+                    .hasMessageContaining("no text part at index 5");
+        }
+
+        @Test
+        @DisplayName("Should use the client's mapper and cache one reader per type")
+        void shouldUseClientMapperAndCacheReaders() {
+            // Given
+            var client = TestFixtures.createTestClient();
+            client.setObjectMapper(new ObjectMapper()
+                    .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+            var request = client.chat().completion().addMessage("user", "test").build();
+            GeminiChatCompletionResponse response = new GeminiChatCompletionResponse(new JSONObject()
+                    .put("candidates", new org.json.JSONArray().put(new JSONObject()
+                            .put("content", new JSONObject().put("parts", new org.json.JSONArray()
+                                    .put(new JSONObject().put("text", "{\"name\":\"Max\",\"age\":7,\"extra\":true}")))))),
+                    request);
+
+            // When
+            TestPerson person = response.convertTo(TestPerson.class);
+
+            // Then
+            assertThat(person.getName()).isEqualTo("Max");
+            assertThat(client.readerFor(TestPerson.class)).isSameAs(client.readerFor(TestPerson.class));
+        }
+
+        @Test
+        @DisplayName("Should convert with the default mapper when the response has no request")
+        void shouldConvertWithoutRequest() {
+            // Given
+            GeminiChatCompletionResponse response = new GeminiChatCompletionResponse(new JSONObject()
+                    .put("candidates", new org.json.JSONArray().put(new JSONObject()
+                            .put("content", new JSONObject().put("parts", new org.json.JSONArray()
+                                    .put(new JSONObject().put("text", "{\"name\":\"Max\",\"age\":7}")))))),
+                    null);
+
+            // When
+            TestPerson person = response.convertTo(TestPerson.class);
+
+            // Then
+            assertThat(person.getName()).isEqualTo("Max");
+            assertThat(person.getAge()).isEqualTo(7);
+        }
+
+        @Test
+        @DisplayName("Should parse raw bytes when the response has no request")
+        void shouldParseBytesWithoutRequest() {
+            // Given
+            byte[] body = TestFixtures.createSuccessfulResponseJson().getBytes(StandardCharsets.UTF_8);
+
+            // When
+            GeminiChatCompletionResponse response = new GeminiChatCompletionResponse(body, null);
+
+            // Then
+            assertThat(response.assistantMessage()).isEqualTo(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+        }
+
+        @Test
+        @DisplayName("Should give every client its own mapper")
+        void shouldNotShareMapperAcrossClients() {
+            // Given
+            var first = TestFixtures.createTestClient();
+            var second = TestFixtures.createTestClient();
+
+            // When
+            first.getObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+            // Then
+            assertThat(first.getObjectMapper()).isNotSameAs(second.getObjectMapper());
+            assertThat(second.getObjectMapper().isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)).isTrue();
+        }
     }
 
     @Nested
@@ -435,6 +536,97 @@ class GeminiChatCompletionResponseTest {
         }
     }
 
+    @Nested
+    @DisplayName("Typed View")
+    class TypedViewTests {
+
+        private GeminiChatCompletionResponse fromBytes(String json) {
+            return new GeminiChatCompletionResponse(json.getBytes(StandardCharsets.UTF_8), mockRequest);
+        }
+
+        @Test
+        @DisplayName("Should expose candidates, parts and usage metadata")
+        void shouldExposeCandidatesPartsAndUsage() {
+            // Given
+            GeminiChatCompletionResponse response = fromBytes(TestFixtures.createSuccessfulResponseJson());
+
+            // When
+            GeminiCandidate candidate = response.firstCandidate();
+
+            // Then
+            assertThat(response.candidates()).hasSize(1);
+            assertThat(candidate.role()).isEqualTo("model");
+            assertThat(candidate.parts()).extracting(GeminiPart::text)
+                    .containsExactly(TestFixtures.SIMPLE_ASSISTANT_MESSAGE);
+            assertThat(candidate.finishReason()).isEqualTo("STOP");
+            assertThat(new JSONObject(candidate.contentJson()).getString("role")).isEqualTo("model");
+            assertThat(response.usageMetadata())
+                    .isEqualTo(new GeminiUsageMetadata(10, 15, 25, 0, 0));
+            assertThat(response.hasError()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Should expose function calls with their raw arguments")
+        void shouldExposeFunctionCalls() {
+            // Given
+            GeminiChatCompletionResponse response = fromBytes(TestFixtures.createFunctionCallResponseJson());
+
+            // When
+            List<GeminiFunctionCall> calls = response.functionCalls();
+
+            // Then
+            assertThat(calls).hasSize(1);
+            assertThat(calls.get(0).name()).isEqualTo("get_weather");
+            assertThat(calls.get(0).args().getString("location")).isEqualTo("San Francisco, CA");
+            assertThat(response.assistantMessage()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should read safety ratings, thought flags and non-ASCII text")
+        void shouldReadSafetyRatingsAndThoughts() {
+            // Given
+            String json = """
+                    {"candidates":[{"content":{"role":"model","parts":[
+                        {"text":"Überlegung","thought":true},
+                        {"text":"Grüße 😀","thoughtSignature":"abc"}]},
+                      "safetyRatings":[{"category":"HARM_CATEGORY_HARASSMENT","probability":"NEGLIGIBLE"}],
+                      "finishReason":"STOP","index":0}],
+                     "modelVersion":"gemini-2.5-flash"}
+                    """;
+
+            // When
+            GeminiChatCompletionResponse response = fromBytes(json);
+
+            // Then
+            assertThat(response.firstCandidate().parts()).extracting(GeminiPart::thought).containsExactly(true, false);
+            assertThat(response.assistantMessage()).isEqualTo("ÜberlegungGrüße 😀");
+            assertThat(response.firstCandidate().safetyRatings())
+                    .containsExactly(new GeminiSafetyRating("HARM_CATEGORY_HARASSMENT", "NEGLIGIBLE", false));
+            assertThat(response.modelVersion()).isEqualTo("gemini-2.5-flash");
+            assertThat(response.getJson().getJSONArray("candidates")).hasSize(1);
+        }
+
+        @Test
+        @DisplayName("Should detect error bodies")
+        void shouldDetectErrorBodies() {
+            // When
+            GeminiChatCompletionResponse response = fromBytes(TestFixtures.createErrorResponseJson());
+
+            // Then
+            assertThat(response.hasError()).isTrue();
+            assertThat(response.firstCandidate()).isNull();
+            assertThat(response.functionCalls()).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should reject bodies that are not JSON when the response is created")
+        void shouldRejectNonJsonBodies() {
+            // When & Then
+            assertThatThrownBy(() -> fromBytes("<html>Bad Gateway</html>"))
+                    .isInstanceOf(ApiClient.ApiResponseUnusableException.class);
+        }
+    }
+
     // Test POJO for conversion testing
     public static class TestPerson {
         private String name;
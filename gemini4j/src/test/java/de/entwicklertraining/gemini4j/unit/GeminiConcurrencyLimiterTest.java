@@ -0,0 +1,197 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiConcurrencyLimiter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiConcurrencyLimiter.
+ */
+@DisplayName("GeminiConcurrencyLimiter Unit Tests")
+class GeminiConcurrencyLimiterTest {
+
+    private static List<GeminiConcurrencyLimiter.Slot> acquire(GeminiConcurrencyLimiter limiter, int count) {
+        List<GeminiConcurrencyLimiter.Slot> slots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            slots.add(limiter.acquire());
+        }
+        return slots;
+    }
+
+    @Nested
+    @DisplayName("AIMD")
+    class AimdTests {
+
+        @Test
+        @DisplayName("Should grow the limit while it is used and calls succeed")
+        void shouldIncreaseAdditively() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(4).build();
+
+            // When: a few windows of fully used slots
+            for (int round = 0; round < 5; round++) {
+                acquire(limiter, limiter.limit()).forEach(GeminiConcurrencyLimiter.Slot::onSuccess);
+            }
+
+            // Then
+            assertThat(limiter.limit()).isGreaterThan(4);
+        }
+
+        @Test
+        @DisplayName("Should not grow the limit while it is mostly unused")
+        void shouldNotIncreaseWhenIdle() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(10).build();
+
+            // When
+            for (int i = 0; i < 100; i++) {
+                limiter.acquire().onSuccess();
+            }
+
+            // Then
+            assertThat(limiter.limit()).isEqualTo(10);
+        }
+
+        @Test
+        @DisplayName("Should cut the limit once per burst of overload signals")
+        void shouldDecreaseMultiplicativelyOncePerBurst() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(16).build();
+            List<GeminiConcurrencyLimiter.Slot> burst = acquire(limiter, 8);
+
+            // When: all calls of the burst were started before the first 429 came back
+            burst.forEach(GeminiConcurrencyLimiter.Slot::onOverload);
+
+            // Then
+            assertThat(limiter.limit()).isEqualTo(8);
+            assertThat(limiter.overloadCount()).isEqualTo(8);
+
+            // And a new call that fails again cuts it further
+            limiter.acquire().onOverload();
+            assertThat(limiter.limit()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should respect the lower bound")
+        void shouldRespectMinLimit() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder()
+                    .initialLimit(4)
+                    .limitBounds(2, 10)
+                    .build();
+
+            // When
+            for (int i = 0; i < 5; i++) {
+                limiter.acquire().onOverload();
+            }
+
+            // Then
+            assertThat(limiter.limit()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("Should treat a latency spike as overload")
+        void shouldDecreaseOnLatencySpike() throws Exception {
+            // Given: a fast baseline
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(8).build();
+            for (int i = 0; i < 5; i++) {
+                limiter.acquire().onSuccess();
+            }
+
+            // When
+            GeminiConcurrencyLimiter.Slot slow = limiter.acquire();
+            Thread.sleep(50);
+            slow.onSuccess();
+
+            // Then
+            assertThat(limiter.limit()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should keep one latency baseline per latency key")
+        void shouldKeepLatencyPerKey() throws Exception {
+            // Given: a fast baseline for one key
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(8).build();
+            for (int i = 0; i < 5; i++) {
+                limiter.acquire("fast").onSuccess();
+            }
+
+            // When: a slow call of another key
+            GeminiConcurrencyLimiter.Slot slow = limiter.acquire("slow");
+            Thread.sleep(50);
+            slow.onSuccess();
+
+            // Then: it starts its own baseline instead of counting as a spike
+            assertThat(limiter.limit()).isEqualTo(8);
+            assertThat(limiter.smoothedLatencyMillis("slow")).isGreaterThanOrEqualTo(50);
+            assertThat(limiter.smoothedLatencyMillis("fast")).isLessThan(50);
+        }
+
+        @Test
+        @DisplayName("Should ignore released slots and repeated signals")
+        void shouldIgnoreReleaseAndRepeatedSignals() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(8).build();
+            GeminiConcurrencyLimiter.Slot slot = limiter.acquire();
+
+            // When
+            slot.release();
+            slot.onOverload();
+
+            // Then
+            assertThat(limiter.limit()).isEqualTo(8);
+            assertThat(limiter.inFlight()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Queueing")
+    class QueueTests {
+
+        @Test
+        @DisplayName("Should queue callers above the limit until a slot is freed")
+        void shouldQueueAboveLimit() throws Exception {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder().initialLimit(1).build();
+            GeminiConcurrencyLimiter.Slot first = limiter.acquire();
+
+            // When
+            CompletableFuture<GeminiConcurrencyLimiter.Slot> waiting =
+                    CompletableFuture.supplyAsync(limiter::acquire);
+            while (limiter.queueDepth() == 0) {
+                Thread.onSpinWait();
+            }
+
+            // Then
+            assertThat(waiting).isNotDone();
+            first.release();
+            assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+            assertThat(limiter.queueDepth()).isZero();
+            assertThat(limiter.inFlight()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should reject callers when the queue is full")
+        void shouldRejectWhenQueueFull() {
+            // Given
+            GeminiConcurrencyLimiter limiter = GeminiConcurrencyLimiter.builder()
+                    .initialLimit(1)
+                    .maxQueueSize(0)
+                    .build();
+            limiter.acquire();
+
+            // When / Then
+            assertThatThrownBy(limiter::acquire).isInstanceOf(ApiClient.ApiClientException.class);
+            assertThat(limiter.rejectedCount()).isEqualTo(1);
+        }
+    }
+}
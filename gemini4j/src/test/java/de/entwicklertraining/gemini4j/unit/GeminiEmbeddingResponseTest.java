@@ -0,0 +1,160 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.api.base.ApiClient;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.embeddings.GeminiEmbeddingRequest;
+import de.entwicklertraining.gemini4j.embeddings.GeminiEmbeddingResponse;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiEmbeddingRequest and GeminiEmbeddingResponse.
+ */
+@DisplayName("GeminiEmbedding Unit Tests")
+class GeminiEmbeddingResponseTest {
+
+    private GeminiClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = TestFixtures.createTestClient();
+    }
+
+    private GeminiEmbeddingResponse response(String json, GeminiEmbeddingRequest request) {
+        return new GeminiEmbeddingResponse(json.getBytes(StandardCharsets.UTF_8), request);
+    }
+
+    @Nested
+    @DisplayName("Request")
+    class RequestTests {
+
+        @Test
+        @DisplayName("Should use embedContent for a single text")
+        void shouldUseEmbedContentForSingleText() {
+            // Given
+            GeminiEmbeddingRequest request = client.embeddings().create()
+                    .addText("Hello")
+                    .taskType("RETRIEVAL_DOCUMENT")
+                    .title("Greeting")
+                    .outputDimensionality(256)
+                    .build();
+
+            // When
+            JSONObject body = new JSONObject(request.getBody());
+
+            // Then
+            assertThat(request.getRelativeUrl()).startsWith("/v1beta/models/text-embedding-004:embedContent");
+            assertThat(body.getString("model")).isEqualTo("models/text-embedding-004");
+            assertThat(body.getJSONObject("content").getJSONArray("parts").getJSONObject(0).getString("text")).isEqualTo("Hello");
+            assertThat(body.getString("taskType")).isEqualTo("RETRIEVAL_DOCUMENT");
+            assertThat(body.getString("title")).isEqualTo("Greeting");
+            assertThat(body.getInt("outputDimensionality")).isEqualTo(256);
+        }
+
+        @Test
+        @DisplayName("Should use batchEmbedContents for several texts")
+        void shouldUseBatchEmbedContentsForSeveralTexts() {
+            // Given
+            GeminiEmbeddingRequest request = client.embeddings().create()
+                    .addText("a")
+                    .addText("b")
+                    .build();
+
+            // When
+            JSONObject body = new JSONObject(request.getBody());
+
+            // Then
+            assertThat(request.getRelativeUrl()).startsWith("/v1beta/models/text-embedding-004:batchEmbedContents");
+            assertThat(body.getJSONArray("requests")).hasSize(2);
+            assertThat(body.getJSONArray("requests").getJSONObject(1)
+                    .getJSONObject("content").getJSONArray("parts").getJSONObject(0).getString("text")).isEqualTo("b");
+        }
+
+        @Test
+        @DisplayName("Should reject empty requests and invalid limits")
+        void shouldRejectInvalidInput() {
+            assertThatThrownBy(() -> client.embeddings().create().build())
+                    .isInstanceOf(IllegalStateException.class);
+            assertThatThrownBy(() -> client.embeddings().create().maxBatchSize(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> client.embeddings().create().maxConcurrency(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Response")
+    class ResponseTests {
+
+        @Test
+        @DisplayName("Should read a single embedding into floats")
+        void shouldReadSingleEmbedding() {
+            // Given
+            GeminiEmbeddingRequest request = client.embeddings().create().addText("a").build();
+
+            // When
+            GeminiEmbeddingResponse response = response("{\"embedding\":{\"values\":[0.5,-1.25,3]}}", request);
+
+            // Then
+            assertThat(response.size()).isEqualTo(1);
+            assertThat(response.dimension()).isEqualTo(3);
+            assertThat(response.embedding(0)).containsExactly(0.5f, -1.25f, 3f);
+        }
+
+        @Test
+        @DisplayName("Should store batch embeddings contiguously")
+        void shouldStoreBatchEmbeddingsContiguously() {
+            // Given
+            GeminiEmbeddingRequest request = client.embeddings().create().addText("a").addText("b").build();
+
+            // When
+            GeminiEmbeddingResponse response = response(
+                    "{\"embeddings\":[{\"values\":[1,2]},{\"values\":[3,4]}],\"other\":{\"x\":[1]}}", request);
+
+            // Then
+            assertThat(response.size()).isEqualTo(2);
+            assertThat(response.embedding(1)).containsExactly(3f, 4f);
+            FloatBuffer all = response.asFloatBuffer();
+            assertThat(all.remaining()).isEqualTo(4);
+            assertThat(all.get(2)).isEqualTo(3f);
+            assertThat(all.isReadOnly()).isTrue();
+            FloatBuffer second = response.embeddingBuffer(1);
+            assertThat(second.remaining()).isEqualTo(2);
+            assertThat(second.get(0)).isEqualTo(3f);
+            assertThat(response.offset(2)).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Should build the JSON tree only on request")
+        void shouldBuildJsonTreeOnRequest() {
+            // Given
+            GeminiEmbeddingRequest request = client.embeddings().create().addText("a").build();
+            GeminiEmbeddingResponse response = response("{\"embedding\":{\"values\":[1.5]}}", request);
+
+            // When / Then
+            assertThat(response.getJson().getJSONObject("embedding").getJSONArray("values").getDouble(0)).isEqualTo(1.5);
+        }
+
+        @Test
+        @DisplayName("Should reject invalid responses")
+        void shouldRejectInvalidResponses() {
+            GeminiEmbeddingRequest request = client.embeddings().create().addText("a").build();
+
+            assertThatThrownBy(() -> response("not json", request))
+                    .isInstanceOf(ApiClient.ApiResponseUnusableException.class);
+            assertThatThrownBy(() -> response("{\"embedding\":{\"values\":[\"x\"]}}", request))
+                    .isInstanceOf(ApiClient.ApiResponseUnusableException.class);
+            assertThatThrownBy(() -> response("{\"embedding\":{\"values\":[1]}}", request).embedding(1))
+                    .isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.api.base.ApiClientSettings;
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiImagePreprocessor;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_Profile;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiImagePreprocessor.
+ */
+@DisplayName("GeminiImagePreprocessor Unit Tests")
+class GeminiImagePreprocessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * A photo-like image: a gradient with some noise, so JPEG cannot compress it to nothing.
+     */
+    private static byte[] image(int width, int height, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                image.setRGB(x, y, (r << 16) | (g << 8) | 0x80);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Inserts an APP segment with the given payload right after the SOI marker of a JPEG.
+     */
+    private static byte[] withSegment(byte[] jpeg, int marker, byte[] payload) {
+        int length = payload.length + 2;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(marker);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes(payload);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    /**
+     * An EXIF payload (big-endian TIFF) with a single IFD entry: the orientation.
+     */
+    private static byte[] exifOrientation(int orientation) {
+        ByteBuffer exif = ByteBuffer.allocate(6 + 8 + 2 + 12 + 4);
+        exif.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1));
+        exif.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+        return exif.array();
+    }
+
+    private static byte[] twoColorJpeg(int width, int height, int left, int right) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, x < width / 2 ? left : right);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    private static boolean isClose(int rgb, int expected) {
+        for (int shift = 0; shift <= 16; shift += 8) {
+            if (Math.abs(((rgb >> shift) & 0xFF) - ((expected >> shift) & 0xFF)) > 24) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static BufferedImage decode(byte[] data) throws Exception {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    @Nested
+    @DisplayName("Processing")
+    class ProcessingTests {
+
+        @Test
+        @DisplayName("Should scale large images down to the maximum dimension")
+        void shouldDownscaleLargeImage() throws Exception {
+            // Given
+            List<GeminiImagePreprocessor.Report> reports = new ArrayList<>();
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder()
+                    .maxDimension(512)
+                    .listener(reports::add)
+                    .build();
+            byte[] original = image(2048, 1536, "jpeg");
+
+            // When
+            byte[] result = preprocessor.process(original, "image/jpeg", "photo.jpg");
+
+            // Then
+            BufferedImage decoded = decode(result);
+            assertThat(decoded.getWidth()).isEqualTo(512);
+            assertThat(decoded.getHeight()).isEqualTo(384);
+            assertThat(reports).singleElement().satisfies(report -> {
+                assertThat(report.source()).isEqualTo("photo.jpg");
+                assertThat(report.originalWidth()).isEqualTo(2048);
+                assertThat(report.width()).isEqualTo(512);
+                assertThat(report.bytesSaved()).isEqualTo(original.length - result.length).isPositive();
+            });
+            assertThat(preprocessor.bytesSaved()).isEqualTo(original.length - result.length);
+            assertThat(preprocessor.processedCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should keep PNGs as PNG when scaling them")
+        void shouldKeepPngFormat() throws Exception {
+            // Given
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder().maxDimension(100).build();
+            byte[] original = image(400, 200, "png");
+
+            // When
+            byte[] result = preprocessor.process(original, "image/png", "diagram.png");
+
+            // Then
+            assertThat(result).startsWith((byte) 0x89, (byte) 'P', (byte) 'N', (byte) 'G');
+            assertThat(decode(result).getWidth()).isEqualTo(100);
+        }
+
+        @Test
+        @DisplayName("Should pass small PNGs through unchanged")
+        void shouldNotTouchSmallPng() throws Exception {
+            // Given
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder().build();
+            byte[] original = image(64, 64, "png");
+
+            // When
+            byte[] result = preprocessor.process(original, "image/png", "icon.png");
+
+            // Then
+            assertThat(result).isSameAs(original);
+            assertThat(preprocessor.bytesSaved()).isZero();
+        }
+
+        @Test
+        @DisplayName("Should pass formats ImageIO cannot read through unchanged")
+        void shouldPassThroughUnsupportedFormats() {
+            // Given
+            List<GeminiImagePreprocessor.Report> reports = new ArrayList<>();
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder().listener(reports::add).build();
+            byte[] original = {'R', 'I', 'F', 'F', 0, 0, 0, 0, 'W', 'E', 'B', 'P'};
+
+            // When
+            byte[] result = preprocessor.process(original, "image/webp", "photo.webp");
+
+            // Then
+            assertThat(result).isSameAs(original);
+            assertThat(reports).singleElement().satisfies(report -> {
+                assertThat(report.bytesSaved()).isZero();
+                assertThat(report.width()).isEqualTo(-1);
+            });
+        }
+
+        @Test
+        @DisplayName("Should apply the EXIF orientation before scaling")
+        void shouldApplyExifOrientation() throws Exception {
+            // Given: stored landscape, red left and blue right, to be shown rotated by 90° clockwise
+            List<GeminiImagePreprocessor.Report> reports = new ArrayList<>();
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder()
+                    .maxDimension(100)
+                    .listener(reports::add)
+                    .build();
+            byte[] original = withSegment(twoColorJpeg(400, 200, 0xFF0000, 0x0000FF), 0xE1, exifOrientation(6));
+
+            // When
+            byte[] result = preprocessor.process(original, "image/jpeg", "rotated.jpg");
+
+            // Then: portrait, red on top
+            BufferedImage decoded = decode(result);
+            assertThat(decoded.getWidth()).isEqualTo(50);
+            assertThat(decoded.getHeight()).isEqualTo(100);
+            assertThat(isClose(decoded.getRGB(25, 10), 0xFF0000)).isTrue();
+            assertThat(isClose(decoded.getRGB(25, 90), 0x0000FF)).isTrue();
+            assertThat(reports).singleElement().satisfies(report -> {
+                assertThat(report.originalWidth()).isEqualTo(200);
+                assertThat(report.originalHeight()).isEqualTo(400);
+            });
+        }
+
+        @Test
+        @DisplayName("Should convert images with an embedded color profile to sRGB")
+        void shouldConvertEmbeddedProfileToSrgb() throws Exception {
+            // Given: pixel values meant in linear RGB, tagged with that profile
+            byte[] profile = ICC_Profile.getInstance(ColorSpace.CS_LINEAR_RGB).getData();
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            payload.writeBytes("ICC_PROFILE\0".getBytes(StandardCharsets.ISO_8859_1));
+            payload.write(1); // chunk 1 of 1
+            payload.write(1);
+            payload.writeBytes(profile);
+            byte[] original = withSegment(twoColorJpeg(400, 200, 0x323232, 0x323232), 0xE2, payload.toByteArray());
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder().maxDimension(100).build();
+
+            // When
+            byte[] result = preprocessor.process(original, "image/jpeg", "tagged.jpg");
+
+            // Then: the untagged result shows the same color as the tagged original
+            assertThat(new String(result, StandardCharsets.ISO_8859_1)).doesNotContain("ICC_PROFILE");
+            assertThat(isClose(decode(result).getRGB(50, 25), decode(original).getRGB(200, 100))).isTrue();
+            assertThat(isClose(decode(result).getRGB(50, 25), 0x7A7A7A)).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should reject invalid settings")
+        void shouldRejectInvalidSettings() {
+            assertThatThrownBy(() -> GeminiImagePreprocessor.builder().maxDimension(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> GeminiImagePreprocessor.builder().jpegQuality(1.5f))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> GeminiImagePreprocessor.builder().maxConcurrentDecodes(0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Request Integration")
+    class RequestTests {
+
+        @Test
+        @DisplayName("Should inline the shrunk image when the client has a preprocessor")
+        void shouldInlineShrunkImage() throws Exception {
+            // Given
+            GeminiClient client = new GeminiClient(ApiClientSettings.builder().setBearerAuthenticationKey("test").build());
+            GeminiImagePreprocessor preprocessor = GeminiImagePreprocessor.builder().maxDimension(256).build();
+            client.setImagePreprocessor(preprocessor);
+            Path photo = tempDir.resolve("photo.jpg");
+            Files.write(photo, image(1024, 768, "jpeg"));
+
+            // When
+            String body = client.chat().completion()
+                    .addImageByBase64(photo)
+                    .build()
+                    .getBody();
+
+            // Then
+            String data = new JSONObject(body).getJSONArray("contents").getJSONObject(0)
+                    .getJSONArray("parts").getJSONObject(0).getJSONObject("inline_data").getString("data");
+            BufferedImage sent = decode(Base64.getDecoder().decode(data));
+            assertThat(sent.getWidth()).isEqualTo(256);
+            assertThat(sent.getHeight()).isEqualTo(192);
+            assertThat(preprocessor.processedCount()).isEqualTo(1);
+        }
+    }
+}
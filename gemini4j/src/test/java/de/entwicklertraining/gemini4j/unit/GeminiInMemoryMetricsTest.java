@@ -0,0 +1,152 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics.Histogram;
+import de.entwicklertraining.gemini4j.GeminiInMemoryMetrics.Metric;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiInMemoryMetrics.
+ */
+@DisplayName("GeminiInMemoryMetrics Unit Tests")
+class GeminiInMemoryMetricsTest {
+
+    @Nested
+    @DisplayName("Histogram")
+    class HistogramTests {
+
+        @Test
+        @DisplayName("Should report count, sum, max and mean")
+        void shouldReportBasicStatistics() {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+
+            // When
+            metrics.onBackoff("m", 100);
+            metrics.onBackoff("m", 200);
+            metrics.onBackoff("m", 600);
+
+            // Then
+            Histogram histogram = metrics.histogram(Metric.BACKOFF_MILLIS, "m");
+            assertThat(histogram.count()).isEqualTo(3);
+            assertThat(histogram.sum()).isEqualTo(900);
+            assertThat(histogram.max()).isEqualTo(600);
+            assertThat(histogram.mean()).isEqualTo(300.0);
+            assertThat(metrics.retryCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Should estimate percentiles within one bucket")
+        void shouldEstimatePercentiles() {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+
+            // When
+            for (int i = 1; i <= 1000; i++) {
+                metrics.onTurn("m", 1, i * 1_000_000L);
+            }
+
+            // Then
+            Histogram histogram = metrics.histogram(Metric.TURN_NANOS, "m");
+            assertThat(histogram.percentile(0.5)).isBetween(500_000_000L, 562_500_000L);
+            assertThat(histogram.percentile(0.99)).isBetween(990_000_000L, 1_000_000_000L);
+            assertThat(histogram.percentile(1.0)).isEqualTo(1_000_000_000L);
+        }
+
+        @Test
+        @DisplayName("Should count small values exactly")
+        void shouldCountSmallValuesExactly() {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+
+            // When
+            metrics.onRequest("m", 1, 10, true);
+            metrics.onRequest("m", 3, 10, true);
+            metrics.onRequest("m", 3, 10, false);
+
+            // Then
+            Histogram turns = metrics.histogram(Metric.TURNS_PER_REQUEST, "m");
+            assertThat(turns.percentile(0.3)).isEqualTo(1);
+            assertThat(turns.percentile(0.5)).isEqualTo(3);
+            assertThat(metrics.failedRequestCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should return an empty histogram for unknown keys and reject invalid percentiles")
+        void shouldHandleEmptyHistogram() {
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+            Histogram empty = metrics.histogram(Metric.PARSE_NANOS, "unknown");
+
+            assertThat(empty.count()).isZero();
+            assertThat(empty.percentile(0.99)).isZero();
+            assertThatThrownBy(() -> empty.percentile(1.5)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Recording")
+    class RecordingTests {
+
+        @Test
+        @DisplayName("Should key tool timings by tool name and count failures")
+        void shouldKeyToolTimingsByName() {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+
+            // When
+            metrics.onToolCall("search", 5_000, true);
+            metrics.onToolCall("search", 7_000, false);
+            metrics.onToolCall("weather", 1_000, true);
+
+            // Then
+            assertThat(metrics.keys(Metric.TOOL_NANOS)).containsExactlyInAnyOrder("search", "weather");
+            assertThat(metrics.histogram(Metric.TOOL_NANOS, "search").count()).isEqualTo(2);
+            assertThat(metrics.failedToolCallCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should not lose recordings from concurrent threads")
+        void shouldRecordConcurrently() throws Exception {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+
+            // When
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int t = 0; t < 8; t++) {
+                    executor.submit(() -> {
+                        for (int i = 0; i < 1000; i++) {
+                            metrics.onHttpAttempt("m", i, i % 10 != 0);
+                        }
+                    });
+                }
+            }
+
+            // Then
+            assertThat(metrics.histogram(Metric.HTTP_ATTEMPT_NANOS, "m").count()).isEqualTo(8000);
+            assertThat(metrics.failedAttemptCount()).isEqualTo(800);
+        }
+
+        @Test
+        @DisplayName("Should forget everything on reset")
+        void shouldReset() {
+            // Given
+            GeminiInMemoryMetrics metrics = new GeminiInMemoryMetrics();
+            metrics.onTokens("m", 10, 15, 25);
+            metrics.onHttpAttempt("m", 1, false);
+
+            // When
+            metrics.reset();
+
+            // Then
+            assertThat(metrics.keys(Metric.TOTAL_TOKENS)).isEmpty();
+            assertThat(metrics.failedAttemptCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.gemini4j.GeminiRateLimiter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiRateLimiter.
+ */
+@DisplayName("GeminiRateLimiter Unit Tests")
+class GeminiRateLimiterTest {
+
+    private static final String MODEL = "gemini-1.5-flash";
+
+    @Nested
+    @DisplayName("Budgets")
+    class BudgetTests {
+
+        @Test
+        @DisplayName("Should allow a full minute of requests without waiting")
+        void shouldAllowBurstUpToRequestsPerMinute() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 3, 1_000_000).build();
+
+            // When / Then
+            for (int i = 0; i < 3; i++) {
+                assertThat(limiter.tryAcquire(MODEL, 10)).isPresent();
+            }
+            assertThat(limiter.tryAcquire(MODEL, 10)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should hold back requests that exceed the token budget")
+        void shouldRespectTokensPerMinute() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 100, 1_000).build();
+
+            // When
+            assertThat(limiter.tryAcquire(MODEL, 900)).isPresent();
+
+            // Then
+            assertThat(limiter.tryAcquire(MODEL, 200)).isEmpty();
+            assertThat(limiter.tryAcquire(MODEL, 50)).isPresent();
+        }
+
+        @Test
+        @DisplayName("Should not limit models without a limit")
+        void shouldNotLimitUnknownModels() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 1, 1).build();
+
+            // When / Then
+            for (int i = 0; i < 10; i++) {
+                assertThat(limiter.tryAcquire("gemini-2.0-pro", 1_000)).isPresent();
+            }
+            assertThat(limiter.availableTokens("gemini-2.0-pro")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should give every model its own buckets under the default limit")
+        void shouldUseSeparateBucketsPerModel() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().defaultLimit(1, 1_000).build();
+
+            // When / Then
+            assertThat(limiter.tryAcquire("a", 10)).isPresent();
+            assertThat(limiter.tryAcquire("a", 10)).isEmpty();
+            assertThat(limiter.tryAcquire("b", 10)).isPresent();
+        }
+
+        @Test
+        @DisplayName("Should reject non-positive limits")
+        void shouldRejectInvalidLimits() {
+            assertThatThrownBy(() -> GeminiRateLimiter.builder().limit(MODEL, 0, 100))
+                    .isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> GeminiRateLimiter.builder().defaultLimit(10, 0))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Waiting and reconciliation")
+    class WaitingTests {
+
+        @Test
+        @DisplayName("Should wait until the token debt is refilled")
+        void shouldWaitForRefill() {
+            // Given: 60,000 TPM refill 1,000 tokens per second
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 1_000, 60_000).build();
+            limiter.acquire(MODEL, 60_000);
+
+            // When
+            long start = System.nanoTime();
+            GeminiRateLimiter.Permit permit = limiter.acquire(MODEL, 300);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            // Then
+            assertThat(permit.waited()).isBetween(Duration.ofMillis(200), Duration.ofMillis(400));
+            assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        }
+
+        @Test
+        @DisplayName("Should return over-estimated tokens to the bucket")
+        void shouldRefundOverEstimate() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 100, 1_000).build();
+            GeminiRateLimiter.Permit permit = limiter.acquire(MODEL, 800);
+
+            // When
+            permit.reconcile(300);
+            permit.reconcile(0); // only the first call counts
+
+            // Then
+            assertThat(limiter.availableTokens(MODEL).orElseThrow()).isBetween(700.0, 1_000.0);
+        }
+
+        @Test
+        @DisplayName("Should charge under-estimated tokens as debt")
+        void shouldChargeUnderEstimate() {
+            // Given
+            GeminiRateLimiter limiter = GeminiRateLimiter.builder().limit(MODEL, 100, 1_000).build();
+            GeminiRateLimiter.Permit permit = limiter.acquire(MODEL, 500);
+
+            // When
+            permit.reconcile(1_500);
+
+            // Then
+            assertThat(limiter.availableTokens(MODEL).orElseThrow()).isLessThan(0.0);
+            assertThat(limiter.tryAcquire(MODEL, 1)).isEmpty();
+        }
+    }
+}
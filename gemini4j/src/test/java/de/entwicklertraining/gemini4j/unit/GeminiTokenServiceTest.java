@@ -0,0 +1,117 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.gemini4j.GeminiClient;
+import de.entwicklertraining.gemini4j.GeminiTokenService;
+import de.entwicklertraining.gemini4j.chat.completion.GeminiChatCompletionRequest;
+import de.entwicklertraining.gemini4j.fixtures.TestFixtures;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiTokenService.
+ */
+@DisplayName("GeminiTokenService Unit Tests")
+class GeminiTokenServiceTest {
+
+    private GeminiClient client;
+    private GeminiTokenService tokenService;
+
+    @BeforeEach
+    void setUp() {
+        client = TestFixtures.createTestClient();
+        tokenService = new GeminiTokenService();
+    }
+
+    @Nested
+    @DisplayName("Shared Encoding")
+    class SharedEncodingTests {
+
+        @Test
+        @DisplayName("Should warm up the shared encoding from the client")
+        void shouldWarmUpSharedEncoding() {
+            // When & Then
+            assertThatCode(() -> client.warmUpTokenizer().join()).doesNotThrowAnyException();
+            assertThat(GeminiTokenService.warmUp()).isTrue();
+        }
+
+        @Test
+        @DisplayName("Should count the same for every instance")
+        void shouldCountTheSameForEveryInstance() {
+            // Given
+            String text = "The quick brown fox jumps over the lazy dog.";
+
+            // When & Then
+            assertThat(tokenService.calculateTokenCount(text))
+                    .isPositive()
+                    .isEqualTo(new GeminiTokenService().calculateTokenCount(text));
+            assertThat(tokenService.calculateTokenCount("")).isZero();
+            assertThat(tokenService.calculateTokenCount(null)).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Request Token Counting")
+    class RequestTokenCountingTests {
+
+        @Test
+        @DisplayName("Should count system instruction and all text parts")
+        void shouldCountSystemInstructionAndTextParts() {
+            // Given
+            GeminiChatCompletionRequest request = client.chat().completion()
+                    .systemInstruction(TestFixtures.SYSTEM_INSTRUCTION)
+                    .addMessage("user", TestFixtures.SIMPLE_USER_MESSAGE)
+                    .addMessage("model", TestFixtures.SIMPLE_ASSISTANT_MESSAGE)
+                    .build();
+
+            // When
+            int count = tokenService.countTokens(request);
+
+            // Then
+            assertThat(count).isEqualTo(
+                    tokenService.calculateTokenCount(TestFixtures.SYSTEM_INSTRUCTION)
+                            + tokenService.calculateTokenCount(TestFixtures.SIMPLE_USER_MESSAGE)
+                            + tokenService.calculateTokenCount(TestFixtures.SIMPLE_ASSISTANT_MESSAGE));
+        }
+
+        @Test
+        @DisplayName("Should count image parts with a flat rate without reading them")
+        void shouldCountImagePartsWithFlatRate() {
+            // Given
+            JSONObject imageMessage = new JSONObject()
+                    .put("role", "user")
+                    .put("parts", new JSONArray().put(new JSONObject().put("inline_data", new JSONObject()
+                            .put("mime_type", "image/png")
+                            .put("data", "x".repeat(100_000)))));
+            GeminiChatCompletionRequest request = client.chat().completion()
+                    .addAllMessages(List.of(imageMessage))
+                    .build();
+
+            // When & Then
+            assertThat(tokenService.countTokens(request)).isEqualTo(258);
+        }
+
+        @Test
+        @DisplayName("Should include tool declarations")
+        void shouldIncludeToolDeclarations() {
+            // Given
+            GeminiChatCompletionRequest withoutTools = client.chat().completion()
+                    .addMessage("user", "Hi")
+                    .build();
+            GeminiChatCompletionRequest withTools = client.chat().completion()
+                    .addMessage("user", "Hi")
+                    .addTool(TestFixtures.createTestToolDefinition())
+                    .build();
+
+            // When & Then
+            assertThat(tokenService.countTokens(withTools)).isGreaterThan(tokenService.countTokens(withoutTools));
+        }
+    }
+}
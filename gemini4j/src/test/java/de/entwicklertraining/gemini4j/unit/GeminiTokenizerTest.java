@@ -0,0 +1,70 @@
+package de.entwicklertraining.gemini4j.unit;
+
+import de.entwicklertraining.gemini4j.GeminiTokenizer;
+import de.entwicklertraining.gemini4j.fixtures.ReferenceTokenizer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for GeminiTokenizer.
+ * The counts are compared against the former list-building implementation.
+ */
+@DisplayName("GeminiTokenizer Unit Tests")
+class GeminiTokenizerTest {
+
+    @ParameterizedTest
+    @DisplayName("Should count like the reference implementation")
+    @ValueSource(strings = {
+            "",
+            "Hello, world!",
+            "<p class=\"intro\">Grüße &amp; Küsse &#169; don't-stop</p>",
+            "a < b and c > d",
+            "<>text<",
+            "<<div>>",
+            "<a<b>c",
+            "unterminated <tag without end",
+            "emoji 😀 and\ttabs\nnewlines"
+    })
+    void shouldCountLikeReference(String html) {
+        assertThat(GeminiTokenizer.getInstance().countTokens(html)).isEqualTo(ReferenceTokenizer.countTokens(html));
+    }
+
+    @Test
+    @DisplayName("Should count random markup like the reference implementation")
+    void shouldCountRandomMarkupLikeReference() {
+        // Given
+        String alphabet = "<>/=\"' &;#abcXYZ019äé-_.,!?\n";
+        Random random = new Random(1234);
+
+        for (int run = 0; run < 500; run++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(200);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String html = sb.toString();
+
+            // When & Then
+            assertThat(GeminiTokenizer.getInstance().countTokens(html))
+                    .as("input: %s", html)
+                    .isEqualTo(ReferenceTokenizer.countTokens(html));
+        }
+    }
+
+    @Test
+    @DisplayName("Should accept any CharSequence")
+    void shouldAcceptAnyCharSequence() {
+        // Given
+        StringBuilder html = new StringBuilder("<b>bold</b> text");
+
+        // When & Then
+        assertThat(GeminiTokenizer.getInstance().countTokens(html)).isEqualTo(ReferenceTokenizer.countTokens(html.toString()));
+        assertThat(GeminiTokenizer.getInstance()).isSameAs(GeminiTokenizer.getInstance());
+    }
+}